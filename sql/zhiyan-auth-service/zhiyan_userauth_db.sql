@@ -30,7 +30,7 @@ CREATE TABLE user_roles (
     assigned_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '角色分配时间',
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,     -- 角色删除时级联删除关联记录
     FOREIGN KEY (role_id) REFERENCES roles(id) ON DELETE CASCADE,     -- 权限删除时级联删除关联记录
-    UNIQUE KEY (user_id, role_id) COMMENT '确保用户不能重复关联同一角色'
+    UNIQUE KEY UK_USER_ROLE (user_id, role_id) COMMENT '确保用户不能重复关联同一角色'
 ) COMMENT '用户与角色的多对多关联表';
 
 
@@ -50,4 +50,78 @@ CREATE TABLE role_permissions (
     PRIMARY KEY (role_id, permission_id) COMMENT '复合主键（角色+权限唯一）',
     FOREIGN KEY (role_id) REFERENCES roles(id) ON DELETE CASCADE,
     FOREIGN KEY (permission_id) REFERENCES permissions(id) ON DELETE CASCADE
-) COMMENT '角色与权限的多对多关联表（角色继承权限，关联关系随角色/权限删除而自动删除）';
\ No newline at end of file
+) COMMENT '角色与权限的多对多关联表（角色继承权限，关联关系随角色/权限删除而自动删除）';
+
+
+-- 用户搜索文档表（每个未删除用户一行，只保存参与搜索的字段）
+CREATE TABLE IF NOT EXISTS user_search_documents (
+    user_id BIGINT PRIMARY KEY COMMENT '用户ID',
+    name VARCHAR(100) NOT NULL COMMENT '用户姓名',
+    email VARCHAR(255) NOT NULL COMMENT '用户邮箱',
+    institution VARCHAR(200) COMMENT '所属机构',
+    updated_at DATETIME(3) NOT NULL COMMENT '最近一次同步时间'
+) COMMENT '用户搜索文档表（全文检索姓名、邮箱、机构）';
+
+-- 用户搜索全文索引，ngram 解析器支持中文和邮箱片段的中缀匹配（依赖默认的 ngram_token_size=2）
+-- 建索引时关闭停用词，避免 "an"、"in" 这类片段被丢弃；索引已存在时跳过，表已由 JPA 建出时同样可以执行
+SET SESSION innodb_ft_enable_stopword = OFF;
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'user_search_documents' AND INDEX_NAME = 'ft_user_search') = 0,
+              'ALTER TABLE user_search_documents ADD FULLTEXT INDEX ft_user_search (name, email, institution) WITH PARSER ngram',
+              'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+SET SESSION innodb_ft_enable_stopword = DEFAULT;
+
+
+-- 邮件发件箱表（业务事务中写入，事务提交后异步发送）
+CREATE TABLE IF NOT EXISTS mail_outbox (
+    id BIGINT PRIMARY KEY COMMENT '邮件唯一标识（雪花ID）',
+    recipient VARCHAR(255) NOT NULL COMMENT '收件人邮箱',
+    subject VARCHAR(255) NOT NULL COMMENT '邮件主题',
+    content TEXT NOT NULL COMMENT '邮件正文',
+    status VARCHAR(20) NOT NULL COMMENT '发送状态（PENDING/SENDING/SENT/FAILED）',
+    attempts INT NOT NULL DEFAULT 0 COMMENT '已尝试发送次数',
+    next_attempt_at DATETIME NOT NULL COMMENT '下次可发送时间',
+    lease_owner VARCHAR(64) COMMENT '领取租约标识',
+    last_error VARCHAR(500) COMMENT '最近一次发送失败原因',
+    created_at DATETIME NOT NULL COMMENT '创建时间',
+    sent_at DATETIME COMMENT '发送成功时间',
+    INDEX idx_mail_outbox_status_next (status, next_attempt_at)
+) COMMENT '邮件发件箱表';
+
+
+-- 用户有效权限投影表（每个用户一行，随角色、权限关联变更增量维护）
+CREATE TABLE IF NOT EXISTS user_effective_permissions (
+    user_id BIGINT PRIMARY KEY COMMENT '用户ID',
+    permission_names TEXT NOT NULL COMMENT '有效权限名称（排序后逗号分隔）',
+    updated_at DATETIME(3) NOT NULL COMMENT '最近一次计算时间'
+) COMMENT '用户有效权限投影表';
+
+
+-- 已有数据库的约束和索引，约束或索引已存在时跳过，可重复执行
+-- ddl-auto: update 在存在重复数据时无法补建唯一约束，先删除重复的用户角色关联，每组保留ID最小的一条
+DELETE duplicate FROM user_roles duplicate
+    JOIN user_roles kept
+      ON kept.user_id = duplicate.user_id
+     AND kept.role_id = duplicate.role_id
+     AND kept.id < duplicate.id;
+
+-- 批量分配角色的 INSERT IGNORE 依赖该唯一约束去重
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'user_roles' AND INDEX_NAME = 'UK_USER_ROLE') = 0,
+              'ALTER TABLE user_roles ADD UNIQUE KEY UK_USER_ROLE (user_id, role_id)',
+              'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 管理端按创建时间游标分页
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'users' AND INDEX_NAME = 'idx_users_deleted_created') = 0,
+              'ALTER TABLE users ADD INDEX idx_users_deleted_created (is_deleted, created_at, id)',
+              'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
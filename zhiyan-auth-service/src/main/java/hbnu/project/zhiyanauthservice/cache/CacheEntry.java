@@ -0,0 +1,40 @@
+package hbnu.project.zhiyanauthservice.cache;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 策略缓存在Redis中保存的条目
+ * value为null的条目是空值标记，表示数据库中不存在该数据
+ *
+ * @author ErgouTree
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 缓存的值，空值标记时为null
+     */
+    private Object value;
+
+    /**
+     * 应开始后台刷新的时间戳（毫秒），0 表示不提前刷新
+     */
+    private long refreshAt;
+
+    /**
+     * 是否为空值标记
+     */
+    @JsonIgnore
+    public boolean isNullMarker() {
+        return value == null;
+    }
+}
@@ -0,0 +1,95 @@
+package hbnu.project.zhiyanauthservice.cache;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存策略
+ * 描述一类缓存条目的过期时间、过期抖动、空值缓存和提前刷新方式，由 PolicyCache 执行
+ *
+ * @author ErgouTree
+ */
+@Getter
+@Builder
+public class CachePolicy {
+
+    /**
+     * 基础过期时间（秒）
+     */
+    private final long ttlSeconds;
+
+    /**
+     * 过期时间随机抖动比例，0.1 表示在基础过期时间的 ±10% 内随机，避免同时写入的条目同时过期
+     */
+    @Builder.Default
+    private final double jitterRatio = 0.1;
+
+    /**
+     * 空值标记的过期时间（秒），0 表示不缓存空值
+     */
+    @Builder.Default
+    private final long nullTtlSeconds = 0L;
+
+    /**
+     * 提前刷新比例，条目剩余存活时间低于该比例时在后台重新加载，0 表示不提前刷新
+     */
+    @Builder.Default
+    private final double refreshAheadRatio = 0D;
+
+    /**
+     * 计算带抖动的过期时间
+     *
+     * @return 过期时间（毫秒）
+     */
+    public long randomTtlMillis() {
+        return jitter(TimeUnit.SECONDS.toMillis(ttlSeconds));
+    }
+
+    /**
+     * 计算带抖动的空值标记过期时间
+     *
+     * @return 过期时间（毫秒）
+     */
+    public long randomNullTtlMillis() {
+        return jitter(TimeUnit.SECONDS.toMillis(nullTtlSeconds));
+    }
+
+    /**
+     * 是否缓存空值
+     */
+    public boolean isCacheNull() {
+        return nullTtlSeconds > 0;
+    }
+
+    /**
+     * 是否提前刷新
+     */
+    public boolean isRefreshAhead() {
+        return refreshAheadRatio > 0;
+    }
+
+    /**
+     * 计算条目应开始后台刷新的时间点
+     *
+     * @param writtenAt 写入时间戳（毫秒）
+     * @param ttlMillis 条目实际过期时间（毫秒）
+     * @return 刷新时间戳（毫秒），不提前刷新时返回0
+     */
+    public long refreshAt(long writtenAt, long ttlMillis) {
+        if (!isRefreshAhead()) {
+            return 0L;
+        }
+        return writtenAt + (long) (ttlMillis * (1 - refreshAheadRatio));
+    }
+
+    private long jitter(long baseMillis) {
+        if (jitterRatio <= 0 || baseMillis <= 0) {
+            return baseMillis;
+        }
+        double factor = 1 + ThreadLocalRandom.current().nextDouble(-jitterRatio, jitterRatio);
+        return Math.max(1L, (long) (baseMillis * factor));
+    }
+}
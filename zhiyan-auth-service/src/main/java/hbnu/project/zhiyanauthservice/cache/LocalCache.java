@@ -0,0 +1,150 @@
+package hbnu.project.zhiyanauthservice.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 进程内一级缓存
+ * 同时受条目数和存活时间约束，容量满时先清理过期条目，仍不足再近似随机淘汰一部分条目
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型，应为不可变对象，避免调用方修改缓存内容
+ * @author ErgouTree
+ */
+public class LocalCache<K, V> {
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final int maxSize;
+
+    private final long ttlMillis;
+
+    /**
+     * @param maxSize   最大条目数
+     * @param ttlMillis 条目存活时间（毫秒）
+     */
+    public LocalCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * 查询缓存
+     *
+     * @param key 键
+     * @return 缓存值，未命中或已过期时返回null
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    /**
+     * 写入缓存
+     *
+     * @param key   键
+     * @param value 值
+     */
+    public void put(K key, V value) {
+        if (maxSize <= 0 || ttlMillis <= 0) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            shrink();
+        }
+        entries.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+    }
+
+    /**
+     * 移除指定键
+     *
+     * @param key 键
+     */
+    public void invalidate(K key) {
+        if (entries.remove(key) != null) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        evictions.add(entries.size());
+        entries.clear();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * 淘汰次数（包括到期、容量淘汰和主动失效）
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 容量已满时腾出空间，保证缓存始终有界
+     */
+    private void shrink() {
+        long now = System.currentTimeMillis();
+        entries.entrySet().removeIf(entry -> {
+            boolean expired = entry.getValue().isExpired(now);
+            if (expired) {
+                evictions.increment();
+            }
+            return expired;
+        });
+
+        int target = (int) (maxSize * 0.9);
+        Iterator<K> iterator = entries.keySet().iterator();
+        while (entries.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * 缓存条目
+     *
+     * @param value     值
+     * @param expiresAt 过期时间戳（毫秒）
+     */
+    private record Entry<V>(V value, long expiresAt) {
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package hbnu.project.zhiyanauthservice.cache;
+
+import hbnu.project.zhiyancommon.service.RedisService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 按 CachePolicy 读写Redis缓存
+ * <ul>
+ *     <li>未命中时经 SingleFlightLoader 合并加载</li>
+ *     <li>数据库中不存在的数据写入短时空值标记，重复查询不再访问数据库</li>
+ *     <li>过期时间带随机抖动，同时写入的条目不会同时过期</li>
+ *     <li>开启提前刷新时，热点条目在过期前由后台线程重新加载，请求路径不等待数据库</li>
+ * </ul>
+ *
+ * 兼容升级前直接保存实体的旧条目，读取时按普通值处理，过期后以新格式写回
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PolicyCache {
+
+    /**
+     * 后台刷新使用独立的合并键，不与请求路径的加载共享结果
+     */
+    private static final String REFRESH_SUFFIX = "#refresh";
+
+    private final RedisService redisService;
+
+    private final SingleFlightLoader singleFlightLoader;
+
+    /**
+     * 正在后台刷新的键，避免同一个键重复提交刷新任务
+     */
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 后台刷新线程数
+     */
+    @Value("${zhiyan.cache.refresh-ahead.threads:2}")
+    private int refreshThreads;
+
+    /**
+     * 后台刷新任务队列长度，队列满时放弃本次刷新，条目过期后由请求路径加载
+     */
+    @Value("${zhiyan.cache.refresh-ahead.queue-size:256}")
+    private int refreshQueueSize;
+
+    private ThreadPoolExecutor refreshExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger index = new AtomicInteger();
+        this.refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(refreshQueueSize), r -> {
+            Thread thread = new Thread(r, "cache-refresh-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 按策略读取缓存，未命中时加载并写入
+     *
+     * @param key    缓存键
+     * @param policy 缓存策略
+     * @param loader 从数据库加载，不存在时返回null
+     * @param <T>    值类型
+     * @return 缓存或加载的值，数据不存在时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, CachePolicy policy, Supplier<T> loader) {
+        CacheEntry entry = read(key);
+        if (entry != null) {
+            scheduleRefreshIfDue(key, policy, entry, loader);
+            return (T) entry.getValue();
+        }
+
+        Optional<T> loaded = singleFlightLoader.load(key,
+                () -> {
+                    CacheEntry rebuilt = read(key);
+                    return rebuilt != null ? Optional.ofNullable((T) rebuilt.getValue()) : null;
+                },
+                () -> Optional.ofNullable(loadAndStore(key, policy, loader)));
+        return loaded.orElse(null);
+    }
+
+    /**
+     * 读取缓存条目
+     *
+     * @return 缓存条目，未命中时返回null；旧格式的值包装为不刷新的条目
+     */
+    private CacheEntry read(String key) {
+        Object cached = redisService.getCacheObject(key);
+        if (cached == null) {
+            return null;
+        }
+        if (cached instanceof CacheEntry entry) {
+            return entry;
+        }
+        return new CacheEntry(cached, 0L);
+    }
+
+    /**
+     * 加载并按策略写入缓存，写入失败不影响返回加载结果
+     */
+    private <T> T loadAndStore(String key, CachePolicy policy, Supplier<T> loader) {
+        T value = loader.get();
+        try {
+            if (value != null) {
+                long ttlMillis = policy.randomTtlMillis();
+                long refreshAt = policy.refreshAt(System.currentTimeMillis(), ttlMillis);
+                redisService.setCacheObject(key, new CacheEntry(value, refreshAt), ttlMillis, TimeUnit.MILLISECONDS);
+            } else if (policy.isCacheNull()) {
+                redisService.setCacheObject(key, new CacheEntry(null, 0L), policy.randomNullTtlMillis(), TimeUnit.MILLISECONDS);
+            } else {
+                // 后台刷新时数据已被删除，清除旧条目
+                redisService.deleteObject(key);
+            }
+        } catch (Exception e) {
+            log.warn("写入缓存失败: key={}", key, e);
+        }
+        return value;
+    }
+
+    /**
+     * 条目到达刷新时间时提交后台刷新
+     * 刷新同样经过 SingleFlightLoader，跨节点只有一个节点查询数据库；
+     * 其他节点复查时发现条目的刷新时间已被推后，即视为已被刷新
+     */
+    private <T> void scheduleRefreshIfDue(String key, CachePolicy policy, CacheEntry entry, Supplier<T> loader) {
+        long now = System.currentTimeMillis();
+        if (!policy.isRefreshAhead() || entry.getRefreshAt() <= 0 || now < entry.getRefreshAt()
+                || !refreshing.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    singleFlightLoader.load(key + REFRESH_SUFFIX,
+                            () -> {
+                                CacheEntry current = read(key);
+                                return current != null && current.getRefreshAt() > now ? Boolean.TRUE : null;
+                            },
+                            () -> {
+                                loadAndStore(key, policy, loader);
+                                return Boolean.TRUE;
+                            });
+                } catch (Exception e) {
+                    log.warn("后台刷新缓存失败，条目过期后由请求重新加载: key={}", key, e);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+            log.debug("缓存刷新队列已满，放弃本次刷新: key={}", key);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package hbnu.project.zhiyanauthservice.cache;
+
+import hbnu.project.zhiyancommon.constants.CacheConstants;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 缓存未命中时的合并加载器
+ * 同一进程内对同一个键的并发加载只执行一次，其余请求等待并共享结果；
+ * 跨节点通过Redis短租约锁保证同一时刻只有一个节点重建该键，其他节点轮询缓存等待重建结果
+ *
+ * 持有者加载失败或没有结果可缓存时把租约标记为失败，等待者看到租约被释放或标记失败即停止轮询；
+ * 租约获取失败（Redis异常）、租约失效或等待超时时直接查询数据库，保证可用性优先
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SingleFlightLoader {
+
+    /**
+     * 仅当锁的持有者仍是自己时才删除，避免误删租约过期后其他节点获得的锁
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    /**
+     * 仅当锁的持有者仍是自己时才把租约改为失败标记，短暂保留供等待者识别
+     */
+    private static final RedisScript<Long> MARK_FAILED_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "redis.call('set', KEYS[1], ARGV[2], 'PX', ARGV[3]) return 1 else return 0 end",
+            Long.class);
+
+    /**
+     * 租约的失败标记
+     */
+    private static final String FAILED_MARKER = "failed";
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 本进程亲自执行的加载次数
+     */
+    private final LongAdder leaderLoads = new LongAdder();
+
+    /**
+     * 等待本进程其他请求、共享其结果的次数
+     */
+    private final LongAdder sharedLoads = new LongAdder();
+
+    /**
+     * 等待其他节点重建、从缓存取得结果的次数
+     */
+    private final LongAdder remoteLoads = new LongAdder();
+
+    /**
+     * 重建租约时长（毫秒），应大于一次数据库加载的耗时
+     */
+    @Value("${zhiyan.cache.single-flight.lease-millis:3000}")
+    private long leaseMillis;
+
+    /**
+     * 未获得租约时轮询缓存的间隔（毫秒）
+     */
+    @Value("${zhiyan.cache.single-flight.poll-millis:50}")
+    private long pollMillis;
+
+    @PostConstruct
+    public void init() {
+        registerCounter("leader", leaderLoads);
+        registerCounter("shared", sharedLoads);
+        registerCounter("remote", remoteLoads);
+    }
+
+    /**
+     * 合并加载
+     *
+     * @param key         缓存键，同时作为合并与租约的标识
+     * @param cacheReader 读取缓存，未命中时返回null
+     * @param loader      查询数据库并写入缓存，返回加载结果
+     * @param <T>         值类型，所有并发请求共享同一个实例，应为不可变对象
+     * @return 加载结果
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T load(String key, Supplier<T> cacheReader, Supplier<T> loader) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            sharedLoads.increment();
+            return (T) await(existing);
+        }
+
+        try {
+            T value = loadExclusively(key, cacheReader, loader);
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * 本进程的唯一加载者：先复查缓存，再争取跨节点租约
+     */
+    private <T> T loadExclusively(String key, Supplier<T> cacheReader, Supplier<T> loader) {
+        // 等待进入期间其他请求可能已经写好缓存
+        T cached = cacheReader.get();
+        if (cached != null) {
+            return cached;
+        }
+
+        String lockKey = CacheConstants.CACHE_LOAD_LOCK_PREFIX + key;
+        String owner = UUID.randomUUID().toString();
+        if (!tryAcquire(lockKey, owner)) {
+            T rebuilt = awaitRebuild(lockKey, cacheReader);
+            if (rebuilt != null) {
+                remoteLoads.increment();
+                return rebuilt;
+            }
+            log.debug("其他节点未能重建缓存，直接加载: key={}", key);
+            leaderLoads.increment();
+            return loader.get();
+        }
+
+        leaderLoads.increment();
+        T value = null;
+        try {
+            value = loader.get();
+            return value;
+        } finally {
+            if (value != null) {
+                release(lockKey, owner);
+            } else {
+                // 加载抛出异常或没有结果，缓存中不会出现数据，通知等待者不必继续轮询
+                markFailed(lockKey, owner);
+            }
+        }
+    }
+
+    /**
+     * 获取重建租约，Redis异常时视为获取成功，由本节点直接加载
+     */
+    private boolean tryAcquire(String lockKey, String owner) {
+        try {
+            Boolean acquired = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(lockKey, owner, Duration.ofMillis(leaseMillis));
+            return !Boolean.FALSE.equals(acquired);
+        } catch (Exception e) {
+            log.warn("获取缓存重建租约失败，直接加载: key={}", lockKey, e);
+            return true;
+        }
+    }
+
+    private void release(String lockKey, String owner) {
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(lockKey), owner);
+        } catch (Exception e) {
+            // 释放失败时租约到期后自动失效
+            log.warn("释放缓存重建租约失败: key={}", lockKey, e);
+        }
+    }
+
+    private void markFailed(String lockKey, String owner) {
+        try {
+            stringRedisTemplate.execute(MARK_FAILED_SCRIPT, Collections.singletonList(lockKey),
+                    owner, FAILED_MARKER, String.valueOf(Math.max(pollMillis * 2, 1)));
+        } catch (Exception e) {
+            log.warn("标记缓存重建失败出错: key={}", lockKey, e);
+        }
+    }
+
+    /**
+     * 在租约时长内轮询缓存，等待持有租约的节点写入结果；
+     * 租约已释放、被标记失败或无法读取时不再等待
+     *
+     * @return 缓存结果，未能取得时返回null
+     */
+    private <T> T awaitRebuild(String lockKey, Supplier<T> cacheReader) {
+        long deadline = System.currentTimeMillis() + leaseMillis;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(pollMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            T value = cacheReader.get();
+            if (value != null) {
+                return value;
+            }
+            if (!isLeaseHeld(lockKey)) {
+                // 持有者可能在两次读取之间写完缓存并释放租约，放弃前再读一次
+                return cacheReader.get();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 租约是否仍由某个正在加载的节点持有
+     */
+    private boolean isLeaseHeld(String lockKey) {
+        try {
+            String holder = stringRedisTemplate.opsForValue().get(lockKey);
+            return holder != null && !FAILED_MARKER.equals(holder);
+        } catch (Exception e) {
+            log.warn("读取缓存重建租约失败，停止等待: key={}", lockKey, e);
+            return false;
+        }
+    }
+
+    /**
+     * 等待同进程的加载结果，加载失败时抛出与加载者相同的异常
+     */
+    private Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void registerCounter(String outcome, LongAdder source) {
+        FunctionCounter.builder("zhiyan.cache.loads", source, LongAdder::sum)
+                .tag("outcome", outcome)
+                .description("缓存未命中时的加载次数")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,449 @@
+package hbnu.project.zhiyanauthservice.cache;
+
+import hbnu.project.zhiyancommon.constants.CacheConstants;
+import hbnu.project.zhiyancommon.service.RedisService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+/**
+ * 用户权限、角色两级缓存
+ * 一级为进程内缓存，保存不可变集合，命中时不产生网络往返和反序列化开销；二级为Redis
+ * 失效时删除Redis键并通过发布/订阅广播，所有节点立即清除本地条目
+ *
+ * Redis键带命名空间版本号，形如 user:permissions:v3:1001；整体失效只需INCR一次版本号，
+ * 旧版本的键不再被读取，随TTL自然过期，无需KEYS遍历删除
+ *
+ * 各级的命中、未命中、淘汰次数以 zhiyan.cache.* 指标暴露，按 cache、level 标签区分
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserAuthorityCache {
+
+    /**
+     * 通知中表示清空整个命名空间的用户标识
+     */
+    private static final String ALL_USERS = "*";
+
+    private static final String MESSAGE_SEPARATOR = ":";
+
+    private static final String USER_ID_SEPARATOR = ",";
+
+    private final RedisService redisService;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 一级缓存最大条目数（每个命名空间）
+     */
+    @Value("${zhiyan.cache.authority.local-max-size:10000}")
+    private int localMaxSize;
+
+    /**
+     * 一级缓存存活时间（秒），兜底丢失的失效通知
+     */
+    @Value("${zhiyan.cache.authority.local-ttl-seconds:60}")
+    private long localTtlSeconds;
+
+    /**
+     * 二级缓存过期时间（秒）
+     */
+    @Value("${zhiyan.cache.authority.redis-ttl-seconds:1800}")
+    private long redisTtlSeconds;
+
+    /**
+     * 二级缓存过期时间的随机抖动比例，避免同时写入的条目同时过期
+     */
+    @Value("${zhiyan.cache.authority.redis-ttl-jitter:0.1}")
+    private double redisTtlJitter;
+
+    private CachePolicy redisPolicy;
+
+    private final Map<Type, Level> levels = new EnumMap<>(Type.class);
+
+    @PostConstruct
+    public void init() {
+        this.redisPolicy = CachePolicy.builder()
+                .ttlSeconds(redisTtlSeconds)
+                .jitterRatio(redisTtlJitter)
+                .build();
+        for (Type type : Type.values()) {
+            Level level = new Level(new LocalCache<>(localMaxSize, TimeUnit.SECONDS.toMillis(localTtlSeconds)));
+            levels.put(type, level);
+            registerMetrics(type, level);
+        }
+        listenerContainer.addMessageListener((message, pattern) ->
+                        onInvalidated(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CacheConstants.USER_AUTHORITY_INVALIDATION_CHANNEL));
+    }
+
+    /**
+     * 查询用户的权限或角色集合
+     *
+     * @param type   缓存类型
+     * @param userId 用户ID
+     * @return 不可变集合，两级均未命中或Redis异常时返回null
+     */
+    public Set<String> get(Type type, Long userId) {
+        Level level = levels.get(type);
+        Set<String> local = level.local.get(userId);
+        if (local != null) {
+            return local;
+        }
+
+        long generation = level.generation.get();
+        try {
+            Set<String> remote = redisService.getCacheObject(cacheKey(type, level, userId));
+            if (remote == null) {
+                level.redisMisses.increment();
+                return null;
+            }
+            level.redisHits.increment();
+            Set<String> value = Set.copyOf(remote);
+            putLocal(level, generation, userId, value);
+            return value;
+        } catch (Exception e) {
+            log.warn("从缓存获取用户{}失败: userId={}", type.getDescription(), userId, e);
+            return null;
+        }
+    }
+
+    /**
+     * 批量查询多个用户的权限或角色集合
+     * 一级缓存未命中的用户合并为一次MGET
+     *
+     * @param type    缓存类型
+     * @param userIds 用户ID集合
+     * @return 命中的用户及其不可变集合，未命中的用户不在结果中
+     */
+    public Map<Long, Set<String>> getAll(Type type, Collection<Long> userIds) {
+        Level level = levels.get(type);
+        Map<Long, Set<String>> result = new HashMap<>(userIds.size() * 2);
+        List<Long> remoteIds = new ArrayList<>();
+        for (Long userId : userIds) {
+            Set<String> local = level.local.get(userId);
+            if (local != null) {
+                result.put(userId, local);
+            } else {
+                remoteIds.add(userId);
+            }
+        }
+        if (remoteIds.isEmpty()) {
+            return result;
+        }
+
+        long generation = level.generation.get();
+        try {
+            List<String> keys = remoteIds.stream().map(userId -> cacheKey(type, level, userId)).toList();
+            List<Set<String>> remote = redisService.getMultiCacheObject(keys);
+            for (int i = 0; i < remoteIds.size(); i++) {
+                Set<String> values = remote != null ? remote.get(i) : null;
+                if (values == null) {
+                    level.redisMisses.increment();
+                    continue;
+                }
+                level.redisHits.increment();
+                Set<String> value = Set.copyOf(values);
+                putLocal(level, generation, remoteIds.get(i), value);
+                result.put(remoteIds.get(i), value);
+            }
+        } catch (Exception e) {
+            log.warn("批量获取用户{}缓存失败: userIds={}", type.getDescription(), remoteIds, e);
+        }
+        return result;
+    }
+
+    /**
+     * 获取当前失效计数，应在查询数据库之前取得并传给 {@link #put}
+     *
+     * @param type 缓存类型
+     * @return 失效计数
+     */
+    public long generation(Type type) {
+        return levels.get(type).generation.get();
+    }
+
+    /**
+     * 写入用户的权限或角色集合
+     * 查询数据库期间收到过失效通知时不写入，避免把失效前读到的旧数据写回缓存
+     *
+     * @param type       缓存类型
+     * @param userId     用户ID
+     * @param generation 查询数据库之前通过 {@link #generation} 取得的失效计数
+     * @param values     从数据库查询到的集合
+     */
+    public void put(Type type, Long userId, long generation, Set<String> values) {
+        Level level = levels.get(type);
+        if (level.generation.get() != generation) {
+            log.debug("加载期间用户{}缓存已失效，跳过写入: userId={}", type.getDescription(), userId);
+            return;
+        }
+        try {
+            // Redis中保存可变集合，保证反序列化类型稳定
+            redisService.setCacheObject(cacheKey(type, level, userId), new HashSet<>(values),
+                    redisPolicy.randomTtlMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.warn("缓存用户{}失败: userId={}", type.getDescription(), userId, e);
+        }
+        putLocal(level, generation, userId, Set.copyOf(values));
+    }
+
+    /**
+     * 使指定用户的缓存失效，并通知所有节点
+     *
+     * @param type   缓存类型
+     * @param userId 用户ID
+     */
+    public void evict(Type type, Long userId) {
+        Level level = levels.get(type);
+        try {
+            redisService.deleteObject(cacheKey(type, level, userId));
+            level.redisEvictions.increment();
+        } catch (Exception e) {
+            log.warn("清理用户{}缓存失败: userId={}", type.getDescription(), userId, e);
+        }
+        broadcast(type, String.valueOf(userId));
+    }
+
+    /**
+     * 使一批用户的缓存失效，只发送一次DEL和一条广播
+     *
+     * @param type    缓存类型
+     * @param userIds 用户ID集合
+     */
+    public void evict(Type type, Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        Level level = levels.get(type);
+        try {
+            List<String> keys = userIds.stream().map(userId -> cacheKey(type, level, userId)).toList();
+            redisService.deleteObject(keys);
+            level.redisEvictions.add(keys.size());
+        } catch (Exception e) {
+            log.warn("批量清理用户{}缓存失败: userIds={}", type.getDescription(), userIds, e);
+        }
+        broadcast(type, userIds.stream().map(String::valueOf).collect(Collectors.joining(USER_ID_SEPARATOR)));
+    }
+
+    /**
+     * 使所有用户的缓存失效，并通知所有节点
+     * 只递增命名空间版本号，旧版本的键随TTL过期
+     *
+     * @param type 缓存类型
+     */
+    public void evictAll(Type type) {
+        try {
+            Long version = stringRedisTemplate.opsForValue().increment(type.getVersionKey());
+            long newVersion = version != null ? version : 0L;
+            log.info("用户{}缓存命名空间版本已递增: {}", type.getDescription(), newVersion);
+            broadcast(type, ALL_USERS + MESSAGE_SEPARATOR + newVersion);
+        } catch (Exception e) {
+            log.warn("递增用户{}缓存版本失败", type.getDescription(), e);
+            broadcast(type, ALL_USERS);
+        }
+    }
+
+    /**
+     * 广播失效通知，本节点直接处理，不依赖自身订阅的回环消息
+     */
+    private void broadcast(Type type, String target) {
+        String message = type.name() + MESSAGE_SEPARATOR + target;
+        onInvalidated(message);
+        try {
+            stringRedisTemplate.convertAndSend(CacheConstants.USER_AUTHORITY_INVALIDATION_CHANNEL, message);
+        } catch (Exception e) {
+            log.warn("广播用户{}缓存失效通知失败，其他节点将在本地缓存过期后更新: {}", type.getDescription(), message, e);
+        }
+    }
+
+    /**
+     * 收到失效通知
+     *
+     * @param message 格式为 类型:用户ID[,用户ID...]，或 类型:*:新版本号 表示整个命名空间失效
+     */
+    private void onInvalidated(String message) {
+        String[] parts = message.split(MESSAGE_SEPARATOR, 3);
+        if (parts.length < 2) {
+            return;
+        }
+        try {
+            Level level = levels.get(Type.valueOf(parts[0]));
+            // 先递增失效计数，使失效前开始的Redis读取结果不再写入本地缓存
+            level.generation.incrementAndGet();
+            if (ALL_USERS.equals(parts[1])) {
+                if (parts.length == 3) {
+                    level.updateVersion(Long.parseLong(parts[2]));
+                }
+                level.local.invalidateAll();
+            } else {
+                for (String userId : parts[1].split(USER_ID_SEPARATOR)) {
+                    level.local.invalidate(Long.valueOf(userId));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("无效的用户权限缓存失效通知: {}", message);
+        }
+    }
+
+    /**
+     * 构建带命名空间版本号的Redis键
+     */
+    private String cacheKey(Type type, Level level, Long userId) {
+        return type.getPrefix() + "v" + currentVersion(type, level) + MESSAGE_SEPARATOR + userId;
+    }
+
+    /**
+     * 获取命名空间当前版本号
+     * 本地版本号在一级缓存存活时间内直接使用，超时后从Redis重新读取，兜底丢失的版本变更通知
+     */
+    private long currentVersion(Type type, Level level) {
+        long now = System.currentTimeMillis();
+        if (now - level.versionLoadedAt < TimeUnit.SECONDS.toMillis(localTtlSeconds)) {
+            return level.version;
+        }
+        try {
+            String value = stringRedisTemplate.opsForValue().get(type.getVersionKey());
+            level.updateVersion(value != null ? Long.parseLong(value) : 0L);
+        } catch (Exception e) {
+            // 读取失败时沿用本地版本号，下次超时后再重试
+            log.warn("获取用户{}缓存版本失败，沿用本地版本: {}", type.getDescription(), level.version, e);
+            level.versionLoadedAt = now;
+        }
+        return level.version;
+    }
+
+    /**
+     * 写入一级缓存，期间收到过失效通知时放弃写入，避免旧值覆盖
+     */
+    private void putLocal(Level level, long generation, Long userId, Set<String> value) {
+        if (level.generation.get() == generation) {
+            level.local.put(userId, value);
+        }
+    }
+
+    private void registerMetrics(Type type, Level level) {
+        String cache = type.getMetricName();
+        registerCounter("zhiyan.cache.hits", cache, "l1", level.local, LocalCache::getHitCount);
+        registerCounter("zhiyan.cache.misses", cache, "l1", level.local, LocalCache::getMissCount);
+        registerCounter("zhiyan.cache.evictions", cache, "l1", level.local, LocalCache::getEvictionCount);
+        registerCounter("zhiyan.cache.hits", cache, "l2", level.redisHits, LongAdder::sum);
+        registerCounter("zhiyan.cache.misses", cache, "l2", level.redisMisses, LongAdder::sum);
+        registerCounter("zhiyan.cache.evictions", cache, "l2", level.redisEvictions, LongAdder::sum);
+        Gauge.builder("zhiyan.cache.size", level.local, LocalCache::size)
+                .tag("cache", cache)
+                .tag("level", "l1")
+                .description("一级缓存条目数")
+                .register(meterRegistry);
+    }
+
+    private <T> void registerCounter(String name, String cache, String levelName, T source, ToDoubleFunction<T> function) {
+        FunctionCounter.builder(name, source, function)
+                .tag("cache", cache)
+                .tag("level", levelName)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 缓存类型
+     */
+    @Getter
+    public enum Type {
+
+        PERMISSIONS(CacheConstants.USER_PERMISSIONS_PREFIX, "user.permissions", "权限"),
+
+        ROLES(CacheConstants.USER_ROLES_PREFIX, "user.roles", "角色");
+
+        /**
+         * Redis键前缀
+         */
+        private final String prefix;
+
+        /**
+         * 命名空间版本号的Redis键
+         */
+        private final String versionKey;
+
+        /**
+         * 指标中的cache标签
+         */
+        private final String metricName;
+
+        private final String description;
+
+        Type(String prefix, String metricName, String description) {
+            this.prefix = prefix;
+            this.versionKey = CacheConstants.CACHE_VERSION_PREFIX + prefix.substring(0, prefix.length() - 1);
+            this.metricName = metricName;
+            this.description = description;
+        }
+    }
+
+    /**
+     * 单个缓存类型的两级状态
+     */
+    private static final class Level {
+
+        private final LocalCache<Long, Set<String>> local;
+
+        /**
+         * 失效版本，每次收到失效通知时递增
+         */
+        private final AtomicLong generation = new AtomicLong();
+
+        private final LongAdder redisHits = new LongAdder();
+
+        private final LongAdder redisMisses = new LongAdder();
+
+        private final LongAdder redisEvictions = new LongAdder();
+
+        /**
+         * 本地记录的命名空间版本号，只增不减
+         */
+        private volatile long version;
+
+        private volatile long versionLoadedAt;
+
+        private Level(LocalCache<Long, Set<String>> local) {
+            this.local = local;
+        }
+
+        private synchronized void updateVersion(long newVersion) {
+            if (newVersion > version) {
+                version = newVersion;
+            }
+            versionLoadedAt = System.currentTimeMillis();
+        }
+    }
+}
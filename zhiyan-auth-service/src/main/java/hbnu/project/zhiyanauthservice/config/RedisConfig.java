@@ -1,5 +1,6 @@
 package hbnu.project.zhiyanauthservice.config;
 
+import hbnu.project.zhiyancommon.serializer.CompactRedisSerializer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
@@ -23,14 +24,16 @@ public class RedisConfig {
         // 设置 Key 的序列化方式为 String
         redisTemplate.setKeySerializer(new StringRedisSerializer());
 
-        // 设置 Value 的序列化方式为 JSON
-        redisTemplate.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+        // 设置 Value 的序列化方式，默认为 JSON，zhiyan.redis.compact-namespaces 中的键以紧凑二进制格式写入
+        // 两种格式读取时都能识别
+        CompactRedisSerializer valueSerializer = new CompactRedisSerializer(new GenericJackson2JsonRedisSerializer());
+        redisTemplate.setValueSerializer(valueSerializer);
 
         // 设置 Hash Key 的序列化方式为 String
         redisTemplate.setHashKeySerializer(new StringRedisSerializer());
 
         // 设置 Hash Value 的序列化方式为 JSON
-        redisTemplate.setHashValueSerializer(new GenericJackson2JsonRedisSerializer());
+        redisTemplate.setHashValueSerializer(valueSerializer);
 
         redisTemplate.afterPropertiesSet();
         return redisTemplate;
@@ -34,6 +34,11 @@ public class VerificationCodeConfig {
      */
     private boolean enableDatabaseStorage = true;
 
+    /**
+     * Redis中不存在验证码时是否查询数据库兜底验证
+     */
+    private boolean enableAuditFallback = false;
+
     /**
      * 是否启用邮件发送
      */
@@ -0,0 +1,40 @@
+package hbnu.project.zhiyanauthservice.controller;
+
+import hbnu.project.zhiyancommon.utils.JwksKeyStore;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT公钥集控制器
+ * 按 JWK Set 标准格式对外提供验签公钥，验证方据此在本地缓存公钥，无需共享签名密钥
+ *
+ * @author ErgouTree
+ */
+@Tag(name = "JWT公钥集", description = "提供验签公钥")
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+
+    private final JwksKeyStore jwksKeyStore;
+
+    /**
+     * 获取JWT公钥集
+     * 返回标准JWK Set结构而非统一响应体，便于通用JWT库直接使用
+     */
+    @Operation(summary = "获取JWT公钥集", description = "返回当前及轮换期内仍有效的验签公钥")
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, List<Map<String, Object>>>> getJwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic())
+                .body(Map.of("keys", jwksKeyStore.getLocalJwks()));
+    }
+}
@@ -1,8 +1,18 @@
 package hbnu.project.zhiyanauthservice.controller;
 
+import hbnu.project.zhiyanauthservice.model.dto.PermissionCheckResultDTO;
+import hbnu.project.zhiyanauthservice.model.dto.PermissionDTO;
+import hbnu.project.zhiyanauthservice.model.form.PermissionCheckBody;
+import hbnu.project.zhiyanauthservice.service.PermissionService;
+import hbnu.project.zhiyancommon.constants.HttpStatus;
+import hbnu.project.zhiyancommon.constants.SecurityConstants;
+import hbnu.project.zhiyancommon.domain.CursorPage;
+import hbnu.project.zhiyancommon.domain.R;
+import hbnu.project.zhiyansecurity.utils.SecurityUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,5 +24,87 @@ import org.springframework.web.bind.annotation.*;
  *
  * @author ErgouTree
  */
+@Slf4j
+@RestController
+@RequestMapping("/zhiyan/auth/permissions")
+@RequiredArgsConstructor
+@Tag(name = "权限管理", description = "权限管理与权限校验相关接口")
 public class PermissionController {
+
+    private final PermissionService permissionService;
+
+    /**
+     * 游标分页查询权限列表（管理员接口）
+     * 响应中的 nextCursor 作为下一次请求的 cursor 参数，hasMore 为 false 时已到最后一页
+     */
+    @GetMapping
+    @Operation(summary = "权限列表", description = "按权限名称游标分页查询权限（管理员接口）")
+    public R<CursorPage<PermissionDTO>> listPermissions(
+            @Parameter(description = "上一页返回的游标，首页不传")
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @Parameter(description = "每页数量")
+            @RequestParam(value = "size", required = false) Integer size,
+            @Parameter(description = "是否返回总数")
+            @RequestParam(value = "withTotal", defaultValue = "false") boolean withTotal) {
+        if (!SecurityUtils.isAdmin()) {
+            return R.fail(HttpStatus.FORBIDDEN, "无权执行该操作");
+        }
+        return permissionService.getPermissionsByCursor(cursor, size, withTotal);
+    }
+
+    /**
+     * 批量权限校验（供其他微服务调用）
+     * 项目、知识库等服务可一次校验整页数据的权限，结果以位图返回
+     * 仅内部服务和管理员可校验任意用户，普通用户只能校验自己，避免枚举他人权限
+     */
+    @PostMapping("/check-permissions")
+    @Operation(summary = "批量权限校验", description = "批量校验多组（用户ID，权限），返回结果位图（内部接口）")
+    public R<PermissionCheckResultDTO> checkPermissions(
+            @Parameter(description = "批量校验请求", required = true)
+            @Valid @RequestBody PermissionCheckBody checkBody,
+            HttpServletRequest request) {
+        if (!isInternalRequest(request) && !SecurityUtils.isAdmin() && !isSelfCheck(checkBody)) {
+            return R.fail(HttpStatus.FORBIDDEN, "无权执行该操作");
+        }
+        log.debug("批量权限校验请求: 校验项={}, 单用户ID={}",
+                checkBody.getItems() != null ? checkBody.getItems().size() : 0, checkBody.getUserId());
+        return permissionService.checkPermissions(checkBody);
+    }
+
+    /**
+     * 全量重建用户有效权限投影（管理员接口）
+     * 日常由角色、权限变更增量维护，上线初始化或数据修复后手动触发
+     */
+    @PostMapping("/effective/rebuild")
+    @Operation(summary = "重建有效权限", description = "按用户分批并行重新计算全部用户的有效权限（管理员接口）")
+    public R<Integer> rebuildEffectivePermissions() {
+        if (!SecurityUtils.isAdmin()) {
+            return R.fail(HttpStatus.FORBIDDEN, "无权执行该操作");
+        }
+        log.info("重建有效权限请求: 操作人={}", SecurityUtils.getUserId());
+        return permissionService.rebuildEffectivePermissions();
+    }
+
+    /**
+     * 是否为内部服务调用
+     * 网关会移除客户端携带的来源标记，带有该标记的请求只能来自服务间调用
+     */
+    private boolean isInternalRequest(HttpServletRequest request) {
+        return SecurityConstants.INNER.equals(request.getHeader(SecurityConstants.FROM_SOURCE));
+    }
+
+    /**
+     * 校验项是否全部属于当前登录用户
+     */
+    private boolean isSelfCheck(PermissionCheckBody checkBody) {
+        Long currentUserId = SecurityUtils.getUserId();
+        if (currentUserId == null) {
+            return false;
+        }
+        if (checkBody.getItems() != null
+                && checkBody.getItems().stream().anyMatch(item -> !currentUserId.equals(item.getUserId()))) {
+            return false;
+        }
+        return checkBody.getUserId() == null || currentUserId.equals(checkBody.getUserId());
+    }
 }
@@ -1,5 +1,23 @@
 package hbnu.project.zhiyanauthservice.controller;
 
+import hbnu.project.zhiyanauthservice.imports.UserImportService;
+import hbnu.project.zhiyanauthservice.model.dto.UserDTO;
+import hbnu.project.zhiyanauthservice.model.dto.UserImportJobDTO;
+import hbnu.project.zhiyanauthservice.service.UserService;
+import hbnu.project.zhiyancommon.constants.HttpStatus;
+import hbnu.project.zhiyancommon.domain.CursorPage;
+import hbnu.project.zhiyancommon.domain.R;
+import hbnu.project.zhiyansecurity.utils.SecurityUtils;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
 
 /**
  * 用户信息管理控制器
@@ -7,5 +25,95 @@ package hbnu.project.zhiyanauthservice.controller;
  *
  * @author ErgouTree
  */
+@Slf4j
+@RestController
+@RequestMapping("/zhiyan/auth/users")
+@RequiredArgsConstructor
+@Tag(name = "用户管理", description = "用户信息管理与批量导入相关接口")
 public class UserController {
+
+    private final UserService userService;
+
+    private final UserImportService userImportService;
+
+    /**
+     * 游标分页查询用户列表（管理员接口）
+     * 响应中的 nextCursor 作为下一次请求的 cursor 参数，hasMore 为 false 时已到最后一页
+     */
+    @GetMapping
+    @Operation(summary = "用户列表", description = "按创建时间倒序游标分页查询用户，可按姓名或邮箱搜索（管理员接口）")
+    public R<CursorPage<UserDTO>> listUsers(
+            @Parameter(description = "上一页返回的游标，首页不传")
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @Parameter(description = "每页数量")
+            @RequestParam(value = "size", required = false) Integer size,
+            @Parameter(description = "搜索关键词")
+            @RequestParam(value = "keyword", required = false) String keyword,
+            @Parameter(description = "是否返回总数，无关键词时为估算值")
+            @RequestParam(value = "withTotal", defaultValue = "false") boolean withTotal) {
+        if (!SecurityUtils.isAdmin()) {
+            return R.fail(HttpStatus.FORBIDDEN, "无权执行该操作");
+        }
+        return userService.getUserListByCursor(cursor, size, keyword, withTotal);
+    }
+
+    /**
+     * 搜索用户
+     * 供邀请成员等输入即搜场景使用，在姓名、邮箱、机构上做前缀和中缀匹配
+     */
+    @GetMapping("/search")
+    @Operation(summary = "搜索用户", description = "按姓名、邮箱、机构搜索用户，邮箱完全匹配和前缀匹配优先")
+    public R<List<UserDTO>> searchUsers(
+            @Parameter(description = "关键词，至少两个字符", required = true)
+            @RequestParam("keyword") String keyword,
+            @Parameter(description = "返回条数")
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        return userService.searchUsers(keyword, limit);
+    }
+
+    /**
+     * 全量重建用户搜索文档（管理员接口）
+     */
+    @PostMapping("/search/rebuild")
+    @Operation(summary = "重建用户搜索索引", description = "从用户表全量重建搜索文档（管理员接口）")
+    public R<Integer> rebuildSearchIndex() {
+        if (!SecurityUtils.isAdmin()) {
+            return R.fail(HttpStatus.FORBIDDEN, "无权执行该操作");
+        }
+        log.info("重建用户搜索文档请求: 操作人={}", SecurityUtils.getUserId());
+        return userService.rebuildSearchIndex();
+    }
+
+    /**
+     * 批量导入用户（管理员接口）
+     * 文件在后台逐行解析写入，立即返回任务ID，通过进度接口查询结果
+     */
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "批量导入用户", description = "上传CSV或xlsx文件批量创建用户并分配角色（管理员接口）")
+    public R<UserImportJobDTO> importUsers(
+            @Parameter(description = "CSV或xlsx文件，表头包含邮箱、姓名、密码列", required = true)
+            @RequestParam("file") MultipartFile file,
+            @Parameter(description = "为每个导入用户分配的角色名称")
+            @RequestParam(value = "defaultRoles", required = false) List<String> defaultRoles) {
+        if (!SecurityUtils.isAdmin()) {
+            return R.fail(HttpStatus.FORBIDDEN, "无权执行该操作");
+        }
+        log.info("批量导入用户请求: 文件={}, 默认角色={}, 操作人={}",
+                file.getOriginalFilename(), defaultRoles, SecurityUtils.getUserId());
+        return userImportService.startImport(file, defaultRoles);
+    }
+
+    /**
+     * 查询批量导入进度（管理员接口）
+     */
+    @GetMapping("/import/{jobId}")
+    @Operation(summary = "查询导入进度", description = "查询批量导入任务的进度和失败行明细（管理员接口）")
+    public R<UserImportJobDTO> getImportJob(
+            @Parameter(description = "导入任务ID", required = true)
+            @PathVariable("jobId") String jobId) {
+        if (!SecurityUtils.isAdmin()) {
+            return R.fail(HttpStatus.FORBIDDEN, "无权执行该操作");
+        }
+        return userImportService.getJob(jobId);
+    }
 }
@@ -0,0 +1,192 @@
+package hbnu.project.zhiyanauthservice.imports;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 导入文件逐行读取器
+ * CSV按行读取；xlsx使用POI的SAX事件模型解析第一个工作表，不构建整个工作簿对象，
+ * 内存占用与文件行数无关（共享字符串表除外）
+ *
+ * CSV须为UTF-8编码（可带BOM），支持双引号转义，不支持字段内换行
+ *
+ * @author ErgouTree
+ */
+public final class ImportFileReader {
+
+    private ImportFileReader() {
+    }
+
+    /**
+     * 行回调
+     */
+    @FunctionalInterface
+    public interface RowCallback {
+
+        /**
+         * 处理一行
+         *
+         * @param rowNumber 文件中的行号，从1开始
+         * @param cells     单元格文本，缺失的单元格为空字符串
+         */
+        void onRow(int rowNumber, List<String> cells);
+    }
+
+    /**
+     * 判断文件名是否为支持的格式
+     *
+     * @param fileName 文件名
+     * @return 是否支持
+     */
+    public static boolean isSupported(String fileName) {
+        return isCsv(fileName) || isXlsx(fileName);
+    }
+
+    /**
+     * 按文件扩展名选择解析方式，逐行回调
+     *
+     * @param file     本地文件
+     * @param fileName 原始文件名
+     * @param callback 行回调
+     * @throws Exception 文件无法读取或格式错误
+     */
+    public static void read(Path file, String fileName, RowCallback callback) throws Exception {
+        if (isCsv(fileName)) {
+            readCsv(file, callback);
+        } else if (isXlsx(fileName)) {
+            readXlsx(file, callback);
+        } else {
+            throw new IllegalArgumentException("不支持的文件格式，仅支持CSV和xlsx: " + fileName);
+        }
+    }
+
+    private static boolean isCsv(String fileName) {
+        return fileName != null && fileName.toLowerCase(Locale.ROOT).endsWith(".csv");
+    }
+
+    private static boolean isXlsx(String fileName) {
+        return fileName != null && fileName.toLowerCase(Locale.ROOT).endsWith(".xlsx");
+    }
+
+    private static void readCsv(Path file, RowCallback callback) throws Exception {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int rowNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                rowNumber++;
+                if (rowNumber == 1 && line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                callback.onRow(rowNumber, parseCsvLine(line));
+            }
+        }
+    }
+
+    /**
+     * 解析一行CSV，字段可用双引号包裹，引号内的两个双引号表示一个双引号
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        cell.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    private static void readXlsx(Path file, RowCallback callback) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return;
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(
+                        styles, strings, new SheetRowHandler(callback), new DataFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            }
+        }
+    }
+
+    /**
+     * 将SAX单元格事件组装为行，补齐中间缺失的单元格
+     */
+    private static final class SheetRowHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final RowCallback callback;
+
+        private List<String> cells = new ArrayList<>();
+
+        private int nextColumn;
+
+        private SheetRowHandler(RowCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells = new ArrayList<>();
+            nextColumn = 0;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            callback.onRow(rowNum + 1, cells);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : nextColumn;
+            while (cells.size() < column) {
+                cells.add("");
+            }
+            cells.add(formattedValue != null ? formattedValue : "");
+            nextColumn = column + 1;
+        }
+    }
+}
@@ -0,0 +1,508 @@
+package hbnu.project.zhiyanauthservice.imports;
+
+import cn.hutool.core.lang.Validator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hbnu.project.zhiyanauthservice.model.dto.UserImportJobDTO;
+import hbnu.project.zhiyanauthservice.model.entity.Role;
+import hbnu.project.zhiyanauthservice.model.enums.UserImportStatus;
+import hbnu.project.zhiyanauthservice.repository.RoleRepository;
+import hbnu.project.zhiyanauthservice.service.UserSearchService;
+import hbnu.project.zhiyancommon.domain.R;
+import hbnu.project.zhiyancommon.utils.id.SnowflakeIdUtil;
+import hbnu.project.zhiyansecurity.utils.SecurityUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 用户批量导入服务
+ * 新学年开学时一次注册数千个账号并分配角色，替代逐个调用注册和角色分配接口
+ *
+ * <ul>
+ *     <li>上传文件先落到临时文件，由后台虚拟线程逐行读取，任何时刻内存中只有一批数据</li>
+ *     <li>密码哈希在有界线程池上并行计算，不占用请求线程，也不会耗尽CPU</li>
+ *     <li>每批用户、用户角色和搜索文档在同一个事务中提交，前两者以JDBC批量写入</li>
+ *     <li>每批处理完写入进度和失败行明细，可通过任务ID在任意节点查询</li>
+ * </ul>
+ *
+ * 文件第一行为表头，识别的列：email/邮箱、name/姓名、password/密码（必需），
+ * title/职称、institution/机构、roles/角色（可选，多个角色以分号分隔）
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserImportService {
+
+    private static final String JOB_KEY_PREFIX = "user:import:job:";
+
+    private static final Pattern PASSWORD_PATTERN = Pattern.compile("^[a-zA-Z0-9]{6,16}$");
+
+    private static final String ROLE_SEPARATOR = "[;；]";
+
+    private static final String COLUMN_EMAIL = "email";
+    private static final String COLUMN_NAME = "name";
+    private static final String COLUMN_PASSWORD = "password";
+    private static final String COLUMN_TITLE = "title";
+    private static final String COLUMN_INSTITUTION = "institution";
+    private static final String COLUMN_ROLES = "roles";
+
+    private static final Map<String, String> HEADER_ALIASES = Map.ofEntries(
+            Map.entry("email", COLUMN_EMAIL), Map.entry("邮箱", COLUMN_EMAIL),
+            Map.entry("name", COLUMN_NAME), Map.entry("姓名", COLUMN_NAME),
+            Map.entry("password", COLUMN_PASSWORD), Map.entry("密码", COLUMN_PASSWORD),
+            Map.entry("title", COLUMN_TITLE), Map.entry("职称", COLUMN_TITLE),
+            Map.entry("institution", COLUMN_INSTITUTION), Map.entry("机构", COLUMN_INSTITUTION),
+            Map.entry("roles", COLUMN_ROLES), Map.entry("角色", COLUMN_ROLES));
+
+    /**
+     * 与 users 表列长度一致，超长的行直接拒绝，不交给数据库截断
+     */
+    private static final int MAX_EMAIL_LENGTH = 255;
+    private static final int MAX_NAME_LENGTH = 100;
+    private static final int MAX_TITLE_LENGTH = 100;
+    private static final int MAX_INSTITUTION_LENGTH = 200;
+
+    private static final String INSERT_USER_SQL = "INSERT INTO users " +
+            "(id, email, password_hash, name, title, institution, is_locked, is_deleted, created_at, updated_at, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, false, false, ?, ?, 0)";
+
+    private static final String INSERT_USER_ROLE_SQL = "INSERT INTO user_roles " +
+            "(id, user_id, role_id, assigned_at) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RoleRepository roleRepository;
+    private final UserSearchService userSearchService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * 每批写入的用户数
+     */
+    @Value("${zhiyan.auth.user-import.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 密码哈希线程数，0表示取CPU核数的一半
+     */
+    @Value("${zhiyan.auth.user-import.hash-parallelism:0}")
+    private int hashParallelism;
+
+    /**
+     * 返回的失败行明细上限
+     */
+    @Value("${zhiyan.auth.user-import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    /**
+     * 任务进度在Redis中的保留时间（小时）
+     */
+    @Value("${zhiyan.auth.user-import.job-ttl-hours:24}")
+    private long jobTtlHours;
+
+    private ExecutorService hashExecutor;
+
+    private ExecutorService jobExecutor;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        int threads = hashParallelism > 0 ? hashParallelism
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.hashExecutor = Executors.newFixedThreadPool(threads);
+        this.jobExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        jobExecutor.shutdownNow();
+        hashExecutor.shutdownNow();
+    }
+
+    /**
+     * 提交导入任务
+     * 请求线程只负责落盘和校验默认角色，解析和写入在后台执行
+     *
+     * @param file         CSV或xlsx文件
+     * @param defaultRoles 每个导入用户都分配的角色名称（可为空）
+     * @return 初始任务进度
+     */
+    public R<UserImportJobDTO> startImport(MultipartFile file, List<String> defaultRoles) {
+        String fileName = file != null ? file.getOriginalFilename() : null;
+        if (file == null || file.isEmpty()) {
+            return R.fail("导入文件不能为空");
+        }
+        if (!ImportFileReader.isSupported(fileName)) {
+            return R.fail("不支持的文件格式，仅支持CSV和xlsx");
+        }
+
+        Map<String, Long> roleIds = roleRepository.findAll().stream()
+                .collect(Collectors.toMap(Role::getName, Role::getId));
+        Set<Long> defaultRoleIds = new LinkedHashSet<>();
+        for (String roleName : defaultRoles != null ? defaultRoles : List.<String>of()) {
+            Long roleId = roleIds.get(roleName.trim());
+            if (roleId == null) {
+                return R.fail("角色不存在: " + roleName);
+            }
+            defaultRoleIds.add(roleId);
+        }
+
+        Path temp = null;
+        try {
+            temp = Files.createTempFile("user-import-", fileName.substring(fileName.lastIndexOf('.')));
+            file.transferTo(temp);
+
+            UserImportJobDTO job = UserImportJobDTO.builder()
+                    .jobId(UUID.randomUUID().toString().replace("-", ""))
+                    .fileName(fileName)
+                    .status(UserImportStatus.RUNNING)
+                    .startedAt(LocalDateTime.now())
+                    .build();
+            saveJob(job);
+
+            Path source = temp;
+            jobExecutor.execute(() -> run(job, source, roleIds, defaultRoleIds));
+            log.info("用户导入任务已提交 - 任务ID: {}, 文件: {}, 大小: {}字节", job.getJobId(), fileName, file.getSize());
+            return R.ok(job, "导入任务已提交");
+        } catch (Exception e) {
+            deleteQuietly(temp);
+            log.error("提交用户导入任务失败 - 文件: {}, 错误: {}", fileName, e.getMessage(), e);
+            return R.fail("提交导入任务失败");
+        }
+    }
+
+    /**
+     * 查询任务进度
+     *
+     * @param jobId 任务ID
+     * @return 任务进度
+     */
+    public R<UserImportJobDTO> getJob(String jobId) {
+        try {
+            String json = stringRedisTemplate.opsForValue().get(JOB_KEY_PREFIX + jobId);
+            if (json == null) {
+                return R.fail("导入任务不存在或已过期");
+            }
+            return R.ok(objectMapper.readValue(json, UserImportJobDTO.class));
+        } catch (Exception e) {
+            log.error("查询用户导入任务失败 - 任务ID: {}, 错误: {}", jobId, e.getMessage(), e);
+            return R.fail("查询导入任务失败");
+        }
+    }
+
+    private void run(UserImportJobDTO job, Path file, Map<String, Long> roleIds, Set<Long> defaultRoleIds) {
+        ImportBatch batch = new ImportBatch(job, roleIds, defaultRoleIds);
+        try {
+            ImportFileReader.read(file, job.getFileName(), batch::onRow);
+            batch.flush();
+            if (!batch.hasHeader()) {
+                throw new IllegalArgumentException("文件为空");
+            }
+            job.setStatus(UserImportStatus.COMPLETED);
+            log.info("用户导入完成 - 任务ID: {}, 处理: {}, 成功: {}, 失败: {}",
+                    job.getJobId(), job.getProcessedRows(), job.getImportedRows(), job.getFailedRows());
+        } catch (Exception e) {
+            job.setStatus(UserImportStatus.FAILED);
+            job.setMessage(e.getMessage());
+            log.error("用户导入失败 - 任务ID: {}, 已成功: {}, 错误: {}", job.getJobId(), job.getImportedRows(), e.getMessage(), e);
+        } finally {
+            job.setFinishedAt(LocalDateTime.now());
+            saveJob(job);
+            deleteQuietly(file);
+        }
+    }
+
+    private void saveJob(UserImportJobDTO job) {
+        try {
+            stringRedisTemplate.opsForValue().set(JOB_KEY_PREFIX + job.getJobId(),
+                    objectMapper.writeValueAsString(job), jobTtlHours, TimeUnit.HOURS);
+        } catch (Exception e) {
+            log.warn("保存用户导入进度失败 - 任务ID: {}, 错误: {}", job.getJobId(), e.getMessage());
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (Exception e) {
+            log.warn("删除导入临时文件失败: {}", file, e);
+        }
+    }
+
+    /**
+     * 一行待导入的数据
+     */
+    private record ImportRow(int rowNumber, String email, String name, String password,
+                             String title, String institution, Set<Long> roleIds) {
+    }
+
+    /**
+     * 一个任务的逐行处理状态：表头映射和当前批次
+     */
+    private final class ImportBatch {
+
+        private final UserImportJobDTO job;
+
+        private final Map<String, Long> roleIds;
+
+        private final Set<Long> defaultRoleIds;
+
+        private final List<ImportRow> rows = new ArrayList<>();
+
+        private Map<String, Integer> columns;
+
+        private ImportBatch(UserImportJobDTO job, Map<String, Long> roleIds, Set<Long> defaultRoleIds) {
+            this.job = job;
+            this.roleIds = roleIds;
+            this.defaultRoleIds = defaultRoleIds;
+        }
+
+        boolean hasHeader() {
+            return columns != null;
+        }
+
+        void onRow(int rowNumber, List<String> cells) {
+            if (cells.stream().allMatch(cell -> cell == null || cell.isBlank())) {
+                return;
+            }
+            if (columns == null) {
+                columns = resolveHeader(cells);
+                return;
+            }
+
+            job.setProcessedRows(job.getProcessedRows() + 1);
+            String email = cell(cells, COLUMN_EMAIL);
+            String name = cell(cells, COLUMN_NAME);
+            String password = cell(cells, COLUMN_PASSWORD);
+            String title = cell(cells, COLUMN_TITLE);
+            String institution = cell(cells, COLUMN_INSTITUTION);
+            if (!Validator.isEmail(email) || email.length() > MAX_EMAIL_LENGTH) {
+                reject(rowNumber, email, "邮箱格式不正确或超过" + MAX_EMAIL_LENGTH + "个字符");
+                return;
+            }
+            if (name.isEmpty() || name.length() > MAX_NAME_LENGTH) {
+                reject(rowNumber, email, "姓名不能为空且不超过" + MAX_NAME_LENGTH + "个字符");
+                return;
+            }
+            if (!PASSWORD_PATTERN.matcher(password).matches()) {
+                reject(rowNumber, email, "密码应为6-16位字母或数字");
+                return;
+            }
+            if (title.length() > MAX_TITLE_LENGTH) {
+                reject(rowNumber, email, "职称不能超过" + MAX_TITLE_LENGTH + "个字符");
+                return;
+            }
+            if (institution.length() > MAX_INSTITUTION_LENGTH) {
+                reject(rowNumber, email, "机构不能超过" + MAX_INSTITUTION_LENGTH + "个字符");
+                return;
+            }
+
+            Set<Long> rowRoleIds = new LinkedHashSet<>(defaultRoleIds);
+            String roles = cell(cells, COLUMN_ROLES);
+            if (!roles.isEmpty()) {
+                for (String roleName : roles.split(ROLE_SEPARATOR)) {
+                    if (roleName.isBlank()) {
+                        continue;
+                    }
+                    Long roleId = roleIds.get(roleName.trim());
+                    if (roleId == null) {
+                        reject(rowNumber, email, "角色不存在: " + roleName.trim());
+                        return;
+                    }
+                    rowRoleIds.add(roleId);
+                }
+            }
+
+            rows.add(new ImportRow(rowNumber, email, name, password,
+                    emptyToNull(title), emptyToNull(institution), rowRoleIds));
+            if (rows.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        /**
+         * 写入当前批次并更新进度
+         */
+        void flush() {
+            if (rows.isEmpty()) {
+                saveJob(job);
+                return;
+            }
+
+            // 文件内重复的邮箱和已注册的邮箱不再哈希密码
+            List<ImportRow> candidates = new ArrayList<>(rows.size());
+            Set<String> seen = new HashSet<>();
+            for (ImportRow row : rows) {
+                if (!seen.add(row.email().toLowerCase(Locale.ROOT))) {
+                    reject(row.rowNumber(), row.email(), "文件中邮箱重复");
+                } else {
+                    candidates.add(row);
+                }
+            }
+            Set<String> registered = findRegisteredEmails(seen);
+            candidates.removeIf(row -> {
+                if (registered.contains(row.email().toLowerCase(Locale.ROOT))) {
+                    reject(row.rowNumber(), row.email(), "邮箱已被注册");
+                    return true;
+                }
+                return false;
+            });
+
+            List<String> hashes = new ArrayList<>(hashPasswords(candidates));
+            List<Long> userIds = new ArrayList<>(candidates.size());
+            candidates.forEach(row -> userIds.add(SnowflakeIdUtil.nextId()));
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(candidates, hashes, userIds));
+            } catch (DuplicateKeyException e) {
+                // 查重之后有并发注册抢先写入了同一邮箱，整批已回滚：剔除冲突行后重试一次，其他错误照常使任务失败
+                log.info("用户导入批次与并发注册冲突，剔除冲突行后重试 - 任务ID: {}", job.getJobId());
+                removeRegistered(candidates, hashes, userIds);
+                transactionTemplate.executeWithoutResult(status -> insert(candidates, hashes, userIds));
+            }
+            job.setImportedRows(job.getImportedRows() + candidates.size());
+
+            rows.clear();
+            saveJob(job);
+            log.debug("用户导入批次完成 - 任务ID: {}, 已处理: {}, 成功: {}, 失败: {}",
+                    job.getJobId(), job.getProcessedRows(), job.getImportedRows(), job.getFailedRows());
+        }
+
+        /**
+         * 剔除已被注册的行，三个列表按下标对应
+         */
+        private void removeRegistered(List<ImportRow> candidates, List<String> hashes, List<Long> userIds) {
+            Set<String> registered = findRegisteredEmails(candidates.stream()
+                    .map(row -> row.email().toLowerCase(Locale.ROOT))
+                    .collect(Collectors.toSet()));
+            for (int i = candidates.size() - 1; i >= 0; i--) {
+                ImportRow row = candidates.get(i);
+                if (registered.contains(row.email().toLowerCase(Locale.ROOT))) {
+                    reject(row.rowNumber(), row.email(), "邮箱已被注册");
+                    candidates.remove(i);
+                    hashes.remove(i);
+                    userIds.remove(i);
+                }
+            }
+        }
+
+        private void insert(List<ImportRow> candidates, List<String> hashes, List<Long> userIds) {
+            if (candidates.isEmpty()) {
+                return;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            List<Object[]> userArgs = new ArrayList<>(candidates.size());
+            for (int i = 0; i < candidates.size(); i++) {
+                ImportRow row = candidates.get(i);
+                userArgs.add(new Object[]{userIds.get(i), row.email(), hashes.get(i), row.name(),
+                        row.title(), row.institution(), now, now});
+            }
+            // 普通INSERT：任何一行违反约束都会使整批回滚并抛出异常，不会被静默截断或跳过
+            jdbcTemplate.batchUpdate(INSERT_USER_SQL, userArgs);
+
+            List<Object[]> roleArgs = new ArrayList<>();
+            for (int i = 0; i < candidates.size(); i++) {
+                for (Long roleId : candidates.get(i).roleIds()) {
+                    roleArgs.add(new Object[]{SnowflakeIdUtil.nextId(), userIds.get(i), roleId, now});
+                }
+            }
+            if (!roleArgs.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_USER_ROLE_SQL, roleArgs);
+            }
+            userSearchService.indexUsers(userIds);
+        }
+
+        /**
+         * 在哈希线程池上并行计算一批密码的BCrypt哈希
+         */
+        private List<String> hashPasswords(List<ImportRow> candidates) {
+            List<CompletableFuture<String>> futures = candidates.stream()
+                    .map(row -> CompletableFuture.supplyAsync(() -> SecurityUtils.encryptPassword(row.password()), hashExecutor))
+                    .toList();
+            return futures.stream().map(CompletableFuture::join).toList();
+        }
+
+        private Set<String> findRegisteredEmails(Set<String> emails) {
+            if (emails.isEmpty()) {
+                return Set.of();
+            }
+            String placeholders = String.join(", ", Collections.nCopies(emails.size(), "?"));
+            return jdbcTemplate.queryForList("SELECT email FROM users WHERE email IN (" + placeholders + ")",
+                            String.class, emails.toArray()).stream()
+                    .map(email -> email.toLowerCase(Locale.ROOT))
+                    .collect(Collectors.toSet());
+        }
+
+        private Map<String, Integer> resolveHeader(List<String> cells) {
+            Map<String, Integer> resolved = new HashMap<>();
+            for (int i = 0; i < cells.size(); i++) {
+                String column = HEADER_ALIASES.get(cells.get(i).trim().toLowerCase(Locale.ROOT));
+                if (column != null) {
+                    resolved.putIfAbsent(column, i);
+                }
+            }
+            List<String> missing = List.of(COLUMN_EMAIL, COLUMN_NAME, COLUMN_PASSWORD).stream()
+                    .filter(column -> !resolved.containsKey(column))
+                    .toList();
+            if (!missing.isEmpty()) {
+                throw new IllegalArgumentException("表头缺少必需列: " + missing);
+            }
+            return resolved;
+        }
+
+        private String cell(List<String> cells, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= cells.size() || cells.get(index) == null) {
+                return "";
+            }
+            return cells.get(index).trim();
+        }
+
+        private void reject(int rowNumber, String email, String reason) {
+            job.setFailedRows(job.getFailedRows() + 1);
+            if (job.getErrors().size() < maxReportedErrors) {
+                job.getErrors().add(new UserImportJobDTO.RowError(rowNumber, email, reason));
+            }
+        }
+
+        private String emptyToNull(String value) {
+            return value.isEmpty() ? null : value;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package hbnu.project.zhiyanauthservice.mail;
+
+import hbnu.project.zhiyanauthservice.model.entity.MailOutbox;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 发件箱邮件发送器
+ * 事务提交后被 {@link MailEnqueuedEvent} 唤醒，另有定时轮询兜底处理重试和其他节点遗留的邮件
+ *
+ * <ul>
+ *     <li>发送在虚拟线程上执行，SMTP慢时不占用请求线程和数据库连接</li>
+ *     <li>同时发送的批次数由信号量限制，避免压垮SMTP服务器</li>
+ *     <li>一个批次内的多封邮件经同一个SMTP连接发送，减少握手和认证开销</li>
+ *     <li>失败按指数退避重试，超过最大次数后置为发送失败</li>
+ * </ul>
+ *
+ * 本地联调时可将 MAIL_HOST/MAIL_PORT 指向 MailHog、GreenMail 等本地SMTP服务
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MailDispatcher {
+
+    private final MailOutboxService mailOutboxService;
+
+    private final JavaMailSender mailSender;
+
+    @Value("${spring.mail.username:zhiyan163verif@163.com}")
+    private String fromEmail;
+
+    /**
+     * 每次从发件箱领取的邮件数
+     */
+    @Value("${zhiyan.mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    /**
+     * 一个SMTP连接连续发送的邮件数
+     */
+    @Value("${zhiyan.mail.outbox.messages-per-connection:10}")
+    private int messagesPerConnection;
+
+    /**
+     * 同时发送的最大批次数（即最大并发SMTP连接数）
+     */
+    @Value("${zhiyan.mail.outbox.max-concurrency:4}")
+    private int maxConcurrency;
+
+    /**
+     * 领取租约时长（秒），超过后未完成的邮件会被重新领取
+     */
+    @Value("${zhiyan.mail.outbox.lease-seconds:120}")
+    private long leaseSeconds;
+
+    /**
+     * 最大发送次数
+     */
+    @Value("${zhiyan.mail.outbox.max-attempts:${app.verification-code.max-retry-attempts:3}}")
+    private int maxAttempts;
+
+    /**
+     * 首次重试的等待时间（秒），之后每次翻倍
+     */
+    @Value("${zhiyan.mail.outbox.initial-backoff-seconds:10}")
+    private long initialBackoffSeconds;
+
+    /**
+     * 重试等待时间上限（秒）
+     */
+    @Value("${zhiyan.mail.outbox.max-backoff-seconds:600}")
+    private long maxBackoffSeconds;
+
+    /**
+     * 发送成功的邮件保留天数
+     */
+    @Value("${zhiyan.mail.outbox.retention-days:7}")
+    private long retentionDays;
+
+    /**
+     * 发送失败的邮件保留天数，便于排查后再清理
+     */
+    @Value("${zhiyan.mail.outbox.failed-retention-days:30}")
+    private long failedRetentionDays;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+
+    private ExecutorService executor;
+
+    private Semaphore sendPermits;
+
+    @PostConstruct
+    public void init() {
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.sendPermits = new Semaphore(Math.max(1, maxConcurrency));
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            // 未完成的邮件保持发送中状态，租约到期后由其他节点重新领取
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 写入邮件的事务提交后立即唤醒发送
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMailEnqueued(MailEnqueuedEvent event) {
+        requestDrain();
+    }
+
+    /**
+     * 定时轮询，处理到期的重试和租约过期的邮件
+     */
+    @Scheduled(fixedDelayString = "${zhiyan.mail.outbox.poll-interval-millis:5000}")
+    public void poll() {
+        requestDrain();
+    }
+
+    /**
+     * 每小时清理保留期之前发送成功和发送失败的邮件
+     */
+    @Scheduled(cron = "0 30 * * * ?")
+    public void purgeFinished() {
+        try {
+            int deleted = mailOutboxService.purgeFinished(
+                    Duration.ofDays(retentionDays), Duration.ofDays(failedRetentionDays));
+            if (deleted > 0) {
+                log.info("清理发件箱历史邮件完成，删除数量: {}", deleted);
+            }
+        } catch (Exception e) {
+            log.error("清理发件箱历史邮件失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 请求一次领取；已有领取任务在运行时只做标记，由该任务在结束前再领取一轮
+     */
+    private void requestDrain() {
+        drainRequested.set(true);
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (Exception e) {
+                draining.set(false);
+                log.warn("提交邮件发送任务失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            while (drainRequested.getAndSet(false)) {
+                List<MailOutbox> batch;
+                do {
+                    batch = mailOutboxService.claimDue(batchSize, Duration.ofSeconds(leaseSeconds));
+                    dispatch(batch);
+                } while (batch.size() >= batchSize);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("领取待发送邮件失败: {}", e.getMessage(), e);
+        } finally {
+            draining.set(false);
+            // 结束前到达的唤醒请求
+            if (drainRequested.get() && !executor.isShutdown()) {
+                requestDrain();
+            }
+        }
+    }
+
+    /**
+     * 按连接拆分批次，在并发上限内提交发送
+     */
+    private void dispatch(List<MailOutbox> batch) throws InterruptedException {
+        int chunkSize = Math.max(1, messagesPerConnection);
+        for (int from = 0; from < batch.size(); from += chunkSize) {
+            List<MailOutbox> chunk = batch.subList(from, Math.min(batch.size(), from + chunkSize));
+            sendPermits.acquire();
+            try {
+                executor.execute(() -> {
+                    try {
+                        send(chunk);
+                    } finally {
+                        sendPermits.release();
+                    }
+                });
+            } catch (Exception e) {
+                sendPermits.release();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 经同一个SMTP连接发送一组邮件，并按每封邮件的结果更新发件箱
+     */
+    private void send(List<MailOutbox> chunk) {
+        Map<SimpleMailMessage, MailOutbox> messages = new IdentityHashMap<>();
+        for (MailOutbox mail : chunk) {
+            messages.put(toMessage(mail), mail);
+        }
+
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        try {
+            mailSender.send(messages.keySet().toArray(new SimpleMailMessage[0]));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                messages.keySet().forEach(message -> failures.put(message, e));
+            } else {
+                failures.putAll(e.getFailedMessages());
+            }
+        } catch (Exception e) {
+            messages.keySet().forEach(message -> failures.put(message, e));
+        }
+
+        List<Long> sent = new ArrayList<>(chunk.size());
+        messages.forEach((message, mail) -> {
+            Exception failure = failures.get(message);
+            if (failure == null) {
+                sent.add(mail.getId());
+            } else {
+                recordFailure(mail, failure);
+            }
+        });
+
+        try {
+            // 同一批次领取的邮件共用一个租约标识
+            mailOutboxService.markSent(chunk.get(0).getLeaseOwner(), sent);
+            log.info("邮件发送完成 - 成功: {}, 失败: {}", sent.size(), chunk.size() - sent.size());
+        } catch (Exception e) {
+            // 状态未能更新时，租约到期后会被重新发送
+            log.error("更新邮件发送状态失败 - ID: {}, 错误: {}", sent, e.getMessage(), e);
+        }
+    }
+
+    private void recordFailure(MailOutbox mail, Exception failure) {
+        try {
+            mailOutboxService.markFailed(mail, failure, maxAttempts, backoff(mail.getAttempts() + 1));
+        } catch (Exception e) {
+            log.error("记录邮件发送失败状态失败 - ID: {}, 错误: {}", mail.getId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 计算第n次失败后的等待时间：初始等待时间按次数翻倍，不超过上限，并加入最多20%的随机抖动
+     */
+    private Duration backoff(int attempts) {
+        long seconds = initialBackoffSeconds << Math.min(20, Math.max(0, attempts - 1));
+        seconds = Math.min(seconds, maxBackoffSeconds);
+        long jitterMillis = ThreadLocalRandom.current().nextLong(seconds * 200 + 1);
+        return Duration.ofSeconds(seconds).plusMillis(jitterMillis);
+    }
+
+    private SimpleMailMessage toMessage(MailOutbox mail) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromEmail);
+        message.setTo(mail.getRecipient());
+        message.setSubject(mail.getSubject());
+        message.setText(mail.getContent());
+        return message;
+    }
+}
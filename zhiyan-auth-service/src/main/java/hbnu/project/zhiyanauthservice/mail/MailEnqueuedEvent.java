@@ -0,0 +1,10 @@
+package hbnu.project.zhiyanauthservice.mail;
+
+/**
+ * 发件箱写入新邮件的事件，在写入事务提交后唤醒 MailDispatcher
+ *
+ * @param outboxId 发件箱记录ID
+ * @author ErgouTree
+ */
+public record MailEnqueuedEvent(Long outboxId) {
+}
@@ -0,0 +1,159 @@
+package hbnu.project.zhiyanauthservice.mail;
+
+import hbnu.project.zhiyanauthservice.model.entity.MailOutbox;
+import hbnu.project.zhiyanauthservice.model.enums.MailOutboxStatus;
+import hbnu.project.zhiyanauthservice.repository.MailOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 邮件发件箱服务
+ * 业务方在自己的事务中调用 {@link #enqueue}，邮件与业务数据一起提交或回滚；
+ * 领取、标记结果等方法供 MailDispatcher 使用，每次调用为独立的短事务
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MailOutboxService {
+
+    private static final List<MailOutboxStatus> CLAIMABLE_STATUSES =
+            List.of(MailOutboxStatus.PENDING, MailOutboxStatus.SENDING);
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final MailOutboxRepository mailOutboxRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 写入一封待发送的邮件
+     * 加入调用方的事务，事务提交后才会被发送
+     *
+     * @param recipient 收件人邮箱
+     * @param subject   邮件主题
+     * @param content   邮件正文
+     * @return 发件箱记录
+     */
+    @Transactional(propagation = Propagation.REQUIRED)
+    public MailOutbox enqueue(String recipient, String subject, String content) {
+        LocalDateTime now = LocalDateTime.now();
+        MailOutbox mail = mailOutboxRepository.save(MailOutbox.builder()
+                .recipient(recipient)
+                .subject(subject)
+                .content(content)
+                .status(MailOutboxStatus.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+        eventPublisher.publishEvent(new MailEnqueuedEvent(mail.getId()));
+        return mail;
+    }
+
+    /**
+     * 领取一批到期的邮件
+     * 领取后状态置为发送中，并以租约到期时间作为下次可领取时间；节点在租约内宕机时，邮件到期后被其他节点重新领取。
+     * 每次领取写入新的租约标识，发送结果只在标识未变时写入
+     *
+     * @param batchSize 每批数量
+     * @param lease     领取租约时长
+     * @return 领取到的邮件
+     */
+    @Transactional
+    public List<MailOutbox> claimDue(int batchSize, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        List<MailOutbox> due = mailOutboxRepository.findDueForUpdate(CLAIMABLE_STATUSES, now, PageRequest.of(0, batchSize));
+        String leaseOwner = UUID.randomUUID().toString();
+        for (MailOutbox mail : due) {
+            if (mail.getStatus() == MailOutboxStatus.SENDING) {
+                log.warn("邮件领取租约已过期，重新发送 - ID: {}, 收件人: {}", mail.getId(), mail.getRecipient());
+            }
+            mail.setStatus(MailOutboxStatus.SENDING);
+            mail.setNextAttemptAt(now.plus(lease));
+            mail.setLeaseOwner(leaseOwner);
+        }
+        return due;
+    }
+
+    /**
+     * 标记为已发送
+     * 租约已过期并被其他节点重新领取的邮件不会被更新
+     *
+     * @param leaseOwner 领取时的租约标识
+     * @param ids        邮件ID
+     */
+    @Transactional
+    public void markSent(String leaseOwner, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        int updated = mailOutboxRepository.markSent(ids, leaseOwner, LocalDateTime.now());
+        if (updated < ids.size()) {
+            log.warn("部分邮件的领取租约已被其他节点接管，未更新为已发送 - 租约: {}, 邮件数: {}, 更新数: {}",
+                    leaseOwner, ids.size(), updated);
+        }
+    }
+
+    /**
+     * 记录一次发送失败
+     * 未超过最大次数时按退避时间重新置为等待发送，否则置为发送失败；
+     * 租约已过期并被其他节点重新领取时不做更新
+     *
+     * @param mail        领取到的邮件
+     * @param error       失败原因
+     * @param maxAttempts 最大发送次数
+     * @param backoff     本次失败后的等待时间
+     */
+    @Transactional
+    public void markFailed(MailOutbox mail, Exception error, int maxAttempts, Duration backoff) {
+        // 持有租约期间只有本节点会修改发送次数，领取时读到的次数即为当前值
+        int attempts = mail.getAttempts() + 1;
+        boolean exhausted = attempts >= maxAttempts;
+        LocalDateTime now = LocalDateTime.now();
+        int updated = mailOutboxRepository.markFailed(mail.getId(), mail.getLeaseOwner(),
+                exhausted ? MailOutboxStatus.FAILED : MailOutboxStatus.PENDING, attempts, abbreviate(error),
+                exhausted ? now : now.plus(backoff));
+        if (updated == 0) {
+            log.warn("邮件的领取租约已被其他节点接管，未记录本次发送失败 - ID: {}, 租约: {}, 错误: {}",
+                    mail.getId(), mail.getLeaseOwner(), error.getMessage());
+        } else if (exhausted) {
+            log.error("邮件发送失败且重试次数已用尽 - ID: {}, 收件人: {}, 次数: {}, 错误: {}",
+                    mail.getId(), mail.getRecipient(), attempts, error.getMessage());
+        } else {
+            log.warn("邮件发送失败，{}秒后重试 - ID: {}, 收件人: {}, 次数: {}, 错误: {}",
+                    backoff.toSeconds(), mail.getId(), mail.getRecipient(), attempts, error.getMessage());
+        }
+    }
+
+    /**
+     * 删除保留期之前发送成功和最终发送失败的邮件
+     *
+     * @param sentRetention   发送成功的邮件保留时长，从发送成功时间起算
+     * @param failedRetention 发送失败的邮件保留时长，从创建时间起算
+     * @return 删除的记录数
+     */
+    @Transactional
+    public int purgeFinished(Duration sentRetention, Duration failedRetention) {
+        LocalDateTime now = LocalDateTime.now();
+        return mailOutboxRepository.deleteSentBefore(now.minus(sentRetention))
+                + mailOutboxRepository.deleteFailedBefore(now.minus(failedRetention));
+    }
+
+    private String abbreviate(Exception error) {
+        String message = error.getClass().getSimpleName() + ": " + error.getMessage();
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
@@ -0,0 +1,29 @@
+package hbnu.project.zhiyanauthservice.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量分配结果
+ * 用户角色、角色权限的分配与移除接口返回实际变更的关联数
+ *
+ * @author ErgouTree
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssignmentResultDTO {
+
+    /**
+     * 新增的关联数
+     */
+    private Integer added;
+
+    /**
+     * 删除的关联数
+     */
+    private Integer removed;
+}
@@ -0,0 +1,35 @@
+package hbnu.project.zhiyanauthservice.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量权限校验结果
+ * 第i位表示第i个校验项是否通过，位图按 java.util.BitSet#toByteArray 的小端顺序编码为Base64，
+ * 调用方可用 BitSet.valueOf(Base64.getDecoder().decode(bitmap)) 还原
+ *
+ * @author ErgouTree
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PermissionCheckResultDTO {
+
+    /**
+     * 校验项总数
+     */
+    private Integer size;
+
+    /**
+     * 通过的校验项数量
+     */
+    private Integer grantedCount;
+
+    /**
+     * 结果位图（Base64）
+     */
+    private String bitmap;
+}
@@ -0,0 +1,99 @@
+package hbnu.project.zhiyanauthservice.model.dto;
+
+import hbnu.project.zhiyanauthservice.model.enums.UserImportStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 用户批量导入任务进度
+ * 每处理完一批写入Redis，任意节点都可查询
+ *
+ * @author ErgouTree
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportJobDTO {
+
+    /**
+     * 任务ID
+     */
+    private String jobId;
+
+    /**
+     * 上传的文件名
+     */
+    private String fileName;
+
+    /**
+     * 任务状态
+     */
+    private UserImportStatus status;
+
+    /**
+     * 已处理的数据行数（不含表头和空行）
+     */
+    private int processedRows;
+
+    /**
+     * 导入成功的用户数
+     */
+    private int importedRows;
+
+    /**
+     * 导入失败的行数
+     */
+    private int failedRows;
+
+    /**
+     * 失败行明细，最多保留前若干条
+     */
+    @Builder.Default
+    private List<RowError> errors = new ArrayList<>();
+
+    /**
+     * 任务失败时的原因
+     */
+    private String message;
+
+    /**
+     * 开始时间
+     */
+    private LocalDateTime startedAt;
+
+    /**
+     * 结束时间
+     */
+    private LocalDateTime finishedAt;
+
+    /**
+     * 失败行明细
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+
+        /**
+         * 文件中的行号（从1开始，含表头）
+         */
+        private int rowNumber;
+
+        /**
+         * 该行的邮箱
+         */
+        private String email;
+
+        /**
+         * 失败原因
+         */
+        private String reason;
+    }
+}
@@ -0,0 +1,119 @@
+package hbnu.project.zhiyanauthservice.model.entity;
+
+import hbnu.project.zhiyanauthservice.model.enums.MailOutboxStatus;
+import hbnu.project.zhiyancommon.annotation.LongToString;
+import hbnu.project.zhiyancommon.utils.id.SnowflakeIdUtil;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 邮件发件箱实体类
+ * 业务事务中只写入发件箱记录，由 MailDispatcher 在事务提交后异步发送
+ *
+ * @author ErgouTree
+ */
+@Entity
+@Table(name = "mail_outbox", indexes = {
+        @Index(name = "idx_mail_outbox_status_next", columnList = "status, next_attempt_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MailOutbox {
+
+    /**
+     * 雪花id
+     */
+    @Id
+    @LongToString
+    @Column(name = "id", nullable = false, columnDefinition = "BIGINT COMMENT '邮件唯一标识（雪花ID）'")
+    private Long id;
+
+    /**
+     * 收件人邮箱
+     */
+    @Column(name = "recipient", nullable = false, length = 255,
+            columnDefinition = "VARCHAR(255) COMMENT '收件人邮箱'")
+    private String recipient;
+
+    /**
+     * 邮件主题
+     */
+    @Column(name = "subject", nullable = false, length = 255,
+            columnDefinition = "VARCHAR(255) COMMENT '邮件主题'")
+    private String subject;
+
+    /**
+     * 邮件正文
+     */
+    @Column(name = "content", nullable = false,
+            columnDefinition = "TEXT COMMENT '邮件正文'")
+    private String content;
+
+    /**
+     * 发送状态
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20,
+            columnDefinition = "VARCHAR(20) COMMENT '发送状态（PENDING/SENDING/SENT/FAILED）'")
+    private MailOutboxStatus status;
+
+    /**
+     * 已尝试发送次数
+     */
+    @Column(name = "attempts", nullable = false,
+            columnDefinition = "INT DEFAULT 0 COMMENT '已尝试发送次数'")
+    @Builder.Default
+    private Integer attempts = 0;
+
+    /**
+     * 下次可发送时间；发送中时为领取租约的到期时间
+     */
+    @Column(name = "next_attempt_at", nullable = false,
+            columnDefinition = "DATETIME COMMENT '下次可发送时间'")
+    private LocalDateTime nextAttemptAt;
+
+    /**
+     * 领取租约标识，每次领取生成新值；发送结果只在标识未变时写入，租约过期被重新领取后旧的发送方无法覆盖状态
+     */
+    @Column(name = "lease_owner", length = 64,
+            columnDefinition = "VARCHAR(64) COMMENT '领取租约标识'")
+    private String leaseOwner;
+
+    /**
+     * 最近一次发送失败的原因
+     */
+    @Column(name = "last_error", length = 500,
+            columnDefinition = "VARCHAR(500) COMMENT '最近一次发送失败原因'")
+    private String lastError;
+
+    /**
+     * 创建时间
+     */
+    @Column(name = "created_at", nullable = false, updatable = false,
+            columnDefinition = "DATETIME COMMENT '创建时间'")
+    private LocalDateTime createdAt;
+
+    /**
+     * 发送成功时间
+     */
+    @Column(name = "sent_at",
+            columnDefinition = "DATETIME COMMENT '发送成功时间'")
+    private LocalDateTime sentAt;
+
+    /**
+     * 在持久化之前生成雪花ID
+     */
+    @PrePersist
+    public void generateId() {
+        if (this.id == null) {
+            this.id = SnowflakeIdUtil.nextId();
+        }
+    }
+}
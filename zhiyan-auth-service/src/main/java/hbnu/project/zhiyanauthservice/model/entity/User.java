@@ -20,7 +20,9 @@ import java.util.List;
  * @author ErgouTree
  */
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_deleted_created", columnList = "is_deleted, created_at, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
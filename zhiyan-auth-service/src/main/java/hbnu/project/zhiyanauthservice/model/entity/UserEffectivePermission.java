@@ -0,0 +1,82 @@
+package hbnu.project.zhiyanauthservice.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 用户有效权限投影实体类
+ * 保存用户经由全部角色得到的权限名称，每个用户一行，权限缓存未命中时只需一次主键查询，
+ * 不再对 permissions、role_permissions、roles、user_roles 四表联查
+ *
+ * 由 EffectivePermissionService 在角色、权限关联变更的同一事务中增量维护
+ *
+ * @author ErgouTree
+ */
+@Entity
+@Table(name = "user_effective_permissions")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserEffectivePermission {
+
+    /**
+     * 权限名称之间的分隔符，权限名称本身不含逗号
+     */
+    public static final String SEPARATOR = ",";
+
+    /**
+     * 用户ID
+     */
+    @Id
+    @Column(name = "user_id", nullable = false, columnDefinition = "BIGINT COMMENT '用户ID'")
+    private Long userId;
+
+    /**
+     * 按名称排序、逗号分隔的权限名称
+     */
+    @Column(name = "permission_names", nullable = false,
+            columnDefinition = "TEXT COMMENT '有效权限名称（排序后逗号分隔）'")
+    private String permissionNames;
+
+    /**
+     * 最近一次计算时间
+     */
+    @Column(name = "updated_at", nullable = false,
+            columnDefinition = "DATETIME(3) COMMENT '最近一次计算时间'")
+    private LocalDateTime updatedAt;
+
+    /**
+     * 解析为不可变的权限名称集合
+     *
+     * @return 权限名称集合
+     */
+    public Set<String> toPermissionSet() {
+        if (permissionNames == null || permissionNames.isEmpty()) {
+            return Set.of();
+        }
+        return Arrays.stream(permissionNames.split(SEPARATOR))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * 将权限名称集合编码为列值，排序后相同的集合总是得到相同的字符串
+     *
+     * @param permissions 权限名称集合
+     * @return 列值
+     */
+    public static String encode(Collection<String> permissions) {
+        return permissions.stream()
+                .sorted()
+                .collect(Collectors.joining(SEPARATOR));
+    }
+}
@@ -16,7 +16,10 @@ import java.time.LocalDateTime;
  * @author ErgouTree
  */
 @Entity
-@Table(name = "user_roles")
+@Table(name = "user_roles",
+        uniqueConstraints = @UniqueConstraint(
+                name = "UK_USER_ROLE",
+                columnNames = {"user_id", "role_id"}))
 @Data
 @Builder
 @NoArgsConstructor
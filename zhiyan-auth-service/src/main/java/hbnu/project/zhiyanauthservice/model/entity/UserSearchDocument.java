@@ -0,0 +1,59 @@
+package hbnu.project.zhiyanauthservice.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户搜索文档实体类
+ * 每个未删除用户一行，只保存参与搜索的字段；软删除时删除对应行，搜索无需再过滤 is_deleted
+ *
+ * (name, email, institution) 上的 ngram 全文索引在 sql/zhiyan-auth-service/zhiyan_userauth_db.sql 中创建，
+ * JPA 的 @Index 无法声明 FULLTEXT 索引和解析器
+ *
+ * @author ErgouTree
+ */
+@Entity
+@Table(name = "user_search_documents")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSearchDocument {
+
+    /**
+     * 用户ID
+     */
+    @Id
+    @Column(name = "user_id", nullable = false, columnDefinition = "BIGINT COMMENT '用户ID'")
+    private Long userId;
+
+    /**
+     * 用户姓名
+     */
+    @Column(name = "name", nullable = false, columnDefinition = "VARCHAR(100) COMMENT '用户姓名'")
+    private String name;
+
+    /**
+     * 用户邮箱
+     */
+    @Column(name = "email", nullable = false, columnDefinition = "VARCHAR(255) COMMENT '用户邮箱'")
+    private String email;
+
+    /**
+     * 所属机构
+     */
+    @Column(name = "institution", columnDefinition = "VARCHAR(200) COMMENT '所属机构'")
+    private String institution;
+
+    /**
+     * 最近一次同步时间
+     */
+    @Column(name = "updated_at", nullable = false,
+            columnDefinition = "DATETIME(3) COMMENT '最近一次同步时间'")
+    private LocalDateTime updatedAt;
+}
@@ -18,7 +18,9 @@ import java.time.LocalDateTime;
  * @author ErgouTree
  */
 @Entity
-@Table(name = "verification_codes")
+@Table(name = "verification_codes", indexes = {
+        @Index(name = "idx_verification_codes_expires_at", columnList = "expires_at")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -0,0 +1,38 @@
+package hbnu.project.zhiyanauthservice.model.enums;
+
+/**
+ * 验证码在Redis中的校验结果枚举
+ *
+ * @author ErgouTree
+ */
+public enum CodeValidationStatus {
+    /**
+     * 验证码正确，已被本次请求消费
+     */
+    VALID("验证码验证成功"),
+
+    /**
+     * 验证码不正确
+     */
+    MISMATCH("验证码错误或已过期"),
+
+    /**
+     * 验证码已被使用
+     */
+    USED("验证码已被使用"),
+
+    /**
+     * Redis中不存在该验证码（已过期或从未发送）
+     */
+    MISSING("验证码错误或已过期");
+
+    private final String description;
+
+    CodeValidationStatus(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
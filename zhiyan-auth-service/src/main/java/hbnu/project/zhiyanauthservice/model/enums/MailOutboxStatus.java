@@ -0,0 +1,38 @@
+package hbnu.project.zhiyanauthservice.model.enums;
+
+/**
+ * 发件箱邮件状态枚举
+ *
+ * @author ErgouTree
+ */
+public enum MailOutboxStatus {
+    /**
+     * 等待发送（含等待重试）
+     */
+    PENDING("等待发送"),
+
+    /**
+     * 已被发送节点领取，租约到期仍未完成时会被重新领取
+     */
+    SENDING("发送中"),
+
+    /**
+     * 已发送
+     */
+    SENT("已发送"),
+
+    /**
+     * 重试次数用尽，放弃发送
+     */
+    FAILED("发送失败");
+
+    private final String description;
+
+    MailOutboxStatus(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -1,5 +1,8 @@
 package hbnu.project.zhiyanauthservice.model.enums;
 
+import hbnu.project.zhiyancommon.enums.SystemPermission;
+import hbnu.project.zhiyancommon.utils.PermissionBitset;
+
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -54,10 +57,16 @@ public enum PermissionModule {
     private final String description;
     private final List<SystemPermission> permissions;
 
+    /**
+     * 模块包含权限的位图，用于按位判断
+     */
+    private final long[] permissionBits;
+
     PermissionModule(String moduleName, String description, List<SystemPermission> permissions) {
         this.moduleName = moduleName;
         this.description = description;
         this.permissions = permissions;
+        this.permissionBits = PermissionBitset.of(permissions);
     }
 
     public String getModuleName() {
@@ -92,14 +101,13 @@ public enum PermissionModule {
      * 检查是否包含指定权限
      */
     public boolean containsPermission(SystemPermission permission) {
-        return permissions.contains(permission);
+        return PermissionBitset.has(permissionBits, permission);
     }
 
     /**
      * 检查是否包含指定权限字符串
      */
     public boolean containsPermission(String permissionString) {
-        return permissions.stream()
-                .anyMatch(p -> p.getPermission().equals(permissionString));
+        return PermissionBitset.has(permissionBits, permissionString);
     }
 }
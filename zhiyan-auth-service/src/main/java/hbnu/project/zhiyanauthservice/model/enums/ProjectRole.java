@@ -1,5 +1,7 @@
 package hbnu.project.zhiyanauthservice.model.enums;
 
+import hbnu.project.zhiyancommon.enums.SystemPermission;
+
 import java.util.Arrays;
 import java.util.List;
 
@@ -0,0 +1,33 @@
+package hbnu.project.zhiyanauthservice.model.enums;
+
+/**
+ * 用户批量导入任务状态枚举
+ *
+ * @author ErgouTree
+ */
+public enum UserImportStatus {
+    /**
+     * 正在读取文件并写入
+     */
+    RUNNING("导入中"),
+
+    /**
+     * 文件已全部处理，个别行的错误见错误列表
+     */
+    COMPLETED("导入完成"),
+
+    /**
+     * 文件无法读取或表头不正确，已提交的批次不回滚
+     */
+    FAILED("导入失败");
+
+    private final String description;
+
+    UserImportStatus(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,63 @@
+package hbnu.project.zhiyanauthservice.model.form;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量权限校验请求体
+ * 支持两种写法，二者可同时使用，结果按 items 在前、permissions 在后的顺序排列：
+ * 1. items：任意多组（用户ID，权限）
+ * 2. userId + permissions：同一用户的多个权限
+ *
+ * @author ErgouTree
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PermissionCheckBody {
+
+    /**
+     * 待校验的（用户ID，权限）列表
+     */
+    @Valid
+    private List<Item> items;
+
+    /**
+     * 单用户校验时的用户ID
+     */
+    private Long userId;
+
+    /**
+     * 单用户校验时的权限列表
+     */
+    private List<String> permissions;
+
+    /**
+     * 单项校验
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+
+        /**
+         * 用户ID
+         */
+        @NotNull(message = "用户ID不能为空")
+        private Long userId;
+
+        /**
+         * 权限标识
+         */
+        @NotBlank(message = "权限标识不能为空")
+        private String permission;
+    }
+}
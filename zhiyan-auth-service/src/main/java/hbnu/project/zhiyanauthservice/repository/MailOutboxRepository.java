@@ -0,0 +1,106 @@
+package hbnu.project.zhiyanauthservice.repository;
+
+import hbnu.project.zhiyanauthservice.model.entity.MailOutbox;
+import hbnu.project.zhiyanauthservice.model.enums.MailOutboxStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 邮件发件箱数据访问接口
+ *
+ * @author ErgouTree
+ */
+@Repository
+public interface MailOutboxRepository extends JpaRepository<MailOutbox, Long> {
+
+    /**
+     * 查询到期待发送的邮件并加行锁
+     * 锁超时为-2即 SKIP LOCKED，多个节点同时领取时跳过已被其他节点锁定的行，互不等待
+     *
+     * @param statuses 可领取的状态
+     * @param now      当前时间
+     * @param pageable 每批数量（只使用pageSize）
+     * @return 到期的邮件
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT m FROM MailOutbox m WHERE m.status IN :statuses AND m.nextAttemptAt <= :now " +
+           "ORDER BY m.nextAttemptAt")
+    List<MailOutbox> findDueForUpdate(@Param("statuses") Collection<MailOutboxStatus> statuses,
+                                      @Param("now") LocalDateTime now,
+                                      Pageable pageable);
+
+    /**
+     * 批量标记为已发送，只更新仍由指定租约持有的邮件
+     *
+     * @param ids        邮件ID
+     * @param leaseOwner 领取时的租约标识
+     * @param sentAt     发送时间
+     * @return 更新的记录数
+     */
+    @Modifying
+    @Query("UPDATE MailOutbox m SET m.status = hbnu.project.zhiyanauthservice.model.enums.MailOutboxStatus.SENT, " +
+           "m.sentAt = :sentAt, m.attempts = m.attempts + 1, m.lastError = null, m.leaseOwner = null " +
+           "WHERE m.id IN :ids AND m.status = hbnu.project.zhiyanauthservice.model.enums.MailOutboxStatus.SENDING " +
+           "AND m.leaseOwner = :leaseOwner")
+    int markSent(@Param("ids") Collection<Long> ids,
+                 @Param("leaseOwner") String leaseOwner,
+                 @Param("sentAt") LocalDateTime sentAt);
+
+    /**
+     * 记录一次发送失败，只更新仍由指定租约持有的邮件
+     *
+     * @param id            邮件ID
+     * @param leaseOwner    领取时的租约标识
+     * @param status        失败后的状态（等待重试或发送失败）
+     * @param attempts      已尝试发送次数
+     * @param lastError     失败原因
+     * @param nextAttemptAt 下次可发送时间
+     * @return 更新的记录数
+     */
+    @Modifying
+    @Query("UPDATE MailOutbox m SET m.status = :status, m.attempts = :attempts, m.lastError = :lastError, " +
+           "m.nextAttemptAt = :nextAttemptAt, m.leaseOwner = null " +
+           "WHERE m.id = :id AND m.status = hbnu.project.zhiyanauthservice.model.enums.MailOutboxStatus.SENDING " +
+           "AND m.leaseOwner = :leaseOwner")
+    int markFailed(@Param("id") Long id,
+                   @Param("leaseOwner") String leaseOwner,
+                   @Param("status") MailOutboxStatus status,
+                   @Param("attempts") int attempts,
+                   @Param("lastError") String lastError,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    /**
+     * 删除指定时间之前发送成功的邮件
+     *
+     * @param before 截止时间
+     * @return 删除的记录数
+     */
+    @Modifying
+    @Query("DELETE FROM MailOutbox m WHERE m.status = hbnu.project.zhiyanauthservice.model.enums.MailOutboxStatus.SENT " +
+           "AND m.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+
+    /**
+     * 删除指定时间之前创建、最终发送失败的邮件
+     *
+     * @param before 截止时间
+     * @return 删除的记录数
+     */
+    @Modifying
+    @Query("DELETE FROM MailOutbox m WHERE m.status = hbnu.project.zhiyanauthservice.model.enums.MailOutboxStatus.FAILED " +
+           "AND m.createdAt < :before")
+    int deleteFailedBefore(@Param("before") LocalDateTime before);
+}
@@ -1,11 +1,13 @@
 package hbnu.project.zhiyanauthservice.repository;
 
 import hbnu.project.zhiyanauthservice.model.entity.Permission;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -64,4 +66,46 @@ public interface PermissionRepository extends JpaRepository<Permission, Long> {
            "JOIN r.userRoles ur " +
            "WHERE ur.user.id = :userId")
     List<Permission> findAllByUserId(@Param("userId") Long userId);
-}
\ No newline at end of file
+
+    /**
+     * 批量查询多个用户的权限名称
+     * 一次查询返回所有用户的（用户ID，权限名称）对，由调用方按用户分组
+     *
+     * @param userIds 用户ID集合
+     * @return 每行为 [用户ID, 权限名称]
+     */
+    @Query("SELECT DISTINCT ur.user.id, p.name FROM Permission p " +
+           "JOIN p.rolePermissions rp " +
+           "JOIN rp.role r " +
+           "JOIN r.userRoles ur " +
+           "WHERE ur.user.id IN :userIds")
+    List<Object[]> findPermissionNamesByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * 批量查询多个用户的权限名称，并对读到的关联行加共享锁
+     * 加锁读取总是读到最新提交的数据，并等待其他事务对相同关联的未提交修改结束；
+     * 供维护有效权限投影的写事务使用，避免两个并发变更事务各自基于旧快照计算而互相覆盖
+     *
+     * @param userIds 用户ID集合
+     * @return 每行为 [用户ID, 权限名称]
+     */
+    @Query(value = "SELECT DISTINCT ur.user_id, p.name FROM user_roles ur " +
+                   "JOIN role_permissions rp ON rp.role_id = ur.role_id " +
+                   "JOIN permissions p ON p.id = rp.permission_id " +
+                   "WHERE ur.user_id IN (:userIds) " +
+                   "LOCK IN SHARE MODE",
+           nativeQuery = true)
+    List<Object[]> lockPermissionNamesByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * 游标分页查询权限，按名称、ID升序
+     *
+     * @param name     上一页最后一个权限的名称，首页传空字符串
+     * @param id       上一页最后一个权限的ID，首页传0
+     * @param pageable 读取条数（只使用pageSize，调用方多取一条判断是否有下一页）
+     * @return 权限列表
+     */
+    @Query("SELECT p FROM Permission p WHERE p.name > :name OR (p.name = :name AND p.id > :id) " +
+           "ORDER BY p.name, p.id")
+    List<Permission> findPageAfter(@Param("name") String name, @Param("id") Long id, Pageable pageable);
+}
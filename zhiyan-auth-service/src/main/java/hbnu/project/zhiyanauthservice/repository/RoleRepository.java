@@ -1,6 +1,7 @@
 package hbnu.project.zhiyanauthservice.repository;
 
 import hbnu.project.zhiyanauthservice.model.entity.Role;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -55,4 +56,16 @@ public interface RoleRepository extends JpaRepository<Role, Long> {
            "LEFT JOIN FETCH rp.permission p " +
            "WHERE r.id = :roleId")
     Optional<Role> findByIdWithPermissions(@Param("roleId") Long roleId);
-}
\ No newline at end of file
+
+    /**
+     * 游标分页查询角色，按名称、ID升序
+     *
+     * @param name     上一页最后一个角色的名称，首页传空字符串
+     * @param id       上一页最后一个角色的ID，首页传0
+     * @param pageable 读取条数（只使用pageSize，调用方多取一条判断是否有下一页）
+     * @return 角色列表
+     */
+    @Query("SELECT r FROM Role r WHERE r.name > :name OR (r.name = :name AND r.id > :id) " +
+           "ORDER BY r.name, r.id")
+    List<Role> findPageAfter(@Param("name") String name, @Param("id") Long id, Pageable pageable);
+}
@@ -0,0 +1,65 @@
+package hbnu.project.zhiyanauthservice.repository;
+
+import hbnu.project.zhiyanauthservice.model.entity.UserEffectivePermission;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户有效权限投影数据访问接口
+ *
+ * @author ErgouTree
+ */
+@Repository
+public interface UserEffectivePermissionRepository extends JpaRepository<UserEffectivePermission, Long> {
+
+    /**
+     * 写入或覆盖用户的有效权限
+     * 供角色、权限关联变更时使用，结果以写入方事务内的最新关联为准
+     *
+     * @param userId          用户ID
+     * @param permissionNames 编码后的权限名称
+     * @param updatedAt       计算时间
+     * @return 影响的行数
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_effective_permissions (user_id, permission_names, updated_at) " +
+                   "VALUES (:userId, :permissionNames, :updatedAt) " +
+                   "ON DUPLICATE KEY UPDATE permission_names = VALUES(permission_names), updated_at = VALUES(updated_at)",
+           nativeQuery = true)
+    int upsert(@Param("userId") Long userId,
+               @Param("permissionNames") String permissionNames,
+               @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * 仅在用户尚无记录时写入
+     * 供读取未命中时补齐投影使用：若并发的变更事务已写入更新的结果，不会被读取方算出的旧结果覆盖
+     *
+     * @param userId          用户ID
+     * @param permissionNames 编码后的权限名称
+     * @param updatedAt       计算时间
+     * @return 影响的行数，已存在时为0
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO user_effective_permissions (user_id, permission_names, updated_at) " +
+                   "VALUES (:userId, :permissionNames, :updatedAt)",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId,
+                       @Param("permissionNames") String permissionNames,
+                       @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * 删除指定时间之前计算、此后未再更新的记录
+     * 全量重建结束后用于清理已删除用户的残留记录
+     *
+     * @param before 重建开始时间
+     * @return 删除的记录数
+     */
+    @Modifying
+    @Query("DELETE FROM UserEffectivePermission p WHERE p.updatedAt < :before")
+    int deleteUpdatedBefore(@Param("before") LocalDateTime before);
+}
@@ -8,6 +8,9 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -78,13 +81,87 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Page<User> findByIsDeletedFalse(Pageable pageable);
 
     /**
-     * 根据关键词搜索用户（姓名或邮箱包含关键词）
+     * 按全文检索条件分页查询未删除的用户，按创建时间倒序
+     * 匹配在 user_search_documents 的全文索引中完成，文档表只包含未删除用户，总数无需关联 users 表
      *
-     * @param nameKeyword 姓名关键词
-     * @param emailKeyword 邮箱关键词
-     * @param pageable 分页参数
+     * @param query    布尔模式检索式，由 UserSearchService#toMatchQuery 生成
+     * @param pageable 分页参数（只使用页码和页大小）
      * @return 用户分页结果
      */
-    Page<User> findByNameContainingOrEmailContainingAndIsDeletedFalse(
-            String nameKeyword, String emailKeyword, Pageable pageable);
-}
\ No newline at end of file
+    @Query(value = "SELECT u.* FROM users u WHERE u.is_deleted = false " +
+                   "AND u.id IN (SELECT d.user_id FROM user_search_documents d " +
+                   "WHERE MATCH(d.name, d.email, d.institution) AGAINST (:query IN BOOLEAN MODE)) " +
+                   "ORDER BY u.created_at DESC, u.id DESC",
+           countQuery = "SELECT COUNT(*) FROM user_search_documents " +
+                        "WHERE MATCH(name, email, institution) AGAINST (:query IN BOOLEAN MODE)",
+           nativeQuery = true)
+    Page<User> searchActive(@Param("query") String query, Pageable pageable);
+
+    /**
+     * 按ID顺序分批查询未删除用户的ID
+     * 以上一批的最大用户ID作为游标，避免深分页
+     *
+     * @param afterUserId 上一批最后一个用户ID，首批传0
+     * @param pageable    每批数量（只使用pageSize）
+     * @return 用户ID列表
+     */
+    @Query("SELECT u.id FROM User u WHERE u.isDeleted = false AND u.id > :afterUserId ORDER BY u.id")
+    List<Long> findActiveIdsAfter(@Param("afterUserId") Long afterUserId, Pageable pageable);
+
+    /**
+     * 查询给定ID中存在且未删除的用户ID
+     *
+     * @param userIds 用户ID集合
+     * @return 用户ID列表
+     */
+    @Query("SELECT u.id FROM User u WHERE u.id IN :userIds AND u.isDeleted = false")
+    List<Long> findActiveIdsIn(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * 游标分页查询未删除的用户，按创建时间倒序、ID倒序
+     * 从游标位置之后开始读取，耗时与翻页深度无关；首页传入最大时间和最大ID
+     *
+     * @param createdAt 上一页最后一个用户的创建时间
+     * @param id        上一页最后一个用户的ID
+     * @param pageable  读取条数（只使用pageSize，调用方多取一条判断是否有下一页）
+     * @return 用户列表
+     */
+    @Query("SELECT u FROM User u WHERE u.isDeleted = false " +
+           "AND (u.createdAt < :createdAt OR (u.createdAt = :createdAt AND u.id < :id)) " +
+           "ORDER BY u.createdAt DESC, u.id DESC")
+    List<User> findActivePageBefore(@Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") Long id,
+                                    Pageable pageable);
+
+    /**
+     * 按全文检索条件游标分页查询未删除的用户，排序与 findActivePageBefore 相同
+     * 匹配在 user_search_documents 的全文索引中完成，不对 users 表做 LIKE 扫描
+     *
+     * @param query     布尔模式检索式，由 UserSearchService#toMatchQuery 生成
+     * @param createdAt 上一页最后一个用户的创建时间
+     * @param id        上一页最后一个用户的ID
+     * @param limit     读取条数（调用方多取一条判断是否有下一页）
+     * @return 用户列表
+     */
+    @Query(value = "SELECT u.* FROM users u WHERE u.is_deleted = false " +
+                   "AND u.id IN (SELECT d.user_id FROM user_search_documents d " +
+                   "WHERE MATCH(d.name, d.email, d.institution) AGAINST (:query IN BOOLEAN MODE)) " +
+                   "AND (u.created_at < :createdAt OR (u.created_at = :createdAt AND u.id < :id)) " +
+                   "ORDER BY u.created_at DESC, u.id DESC LIMIT :limit",
+           nativeQuery = true)
+    List<User> searchActivePageBefore(@Param("query") String query,
+                                      @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id,
+                                      @Param("limit") int limit);
+
+    /**
+     * 从表统计信息读取users表的估算行数
+     * 不扫描数据，结果包含已删除用户且可能有一定偏差，仅用于列表展示总数
+     *
+     * @return 估算行数，统计信息不可用时为null
+     */
+    @Query(value = "SELECT TABLE_ROWS FROM information_schema.TABLES " +
+                   "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'users'",
+           nativeQuery = true)
+    Long estimateRowCount();
+}
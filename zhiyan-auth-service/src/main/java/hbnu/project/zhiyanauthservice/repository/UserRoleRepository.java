@@ -1,6 +1,7 @@
 package hbnu.project.zhiyanauthservice.repository;
 
 import hbnu.project.zhiyanauthservice.model.entity.UserRole;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -63,4 +64,37 @@ public interface UserRoleRepository extends JpaRepository<UserRole, Long> {
     @Modifying
     @Query("DELETE FROM UserRole ur WHERE ur.user.id = :userId AND ur.role.id = :roleId")
     int deleteByUserIdAndRoleId(@Param("userId") Long userId, @Param("roleId") Long roleId);
-}
\ No newline at end of file
+
+    /**
+     * 按用户ID顺序分批查询拥有指定角色的用户ID
+     * 以上一批的最大用户ID作为游标，避免深分页
+     *
+     * @param roleId      角色ID
+     * @param afterUserId 上一批最后一个用户ID，首批传0
+     * @param pageable    每批数量（只使用pageSize）
+     * @return 用户ID列表
+     */
+    @Query("SELECT ur.user.id FROM UserRole ur " +
+           "WHERE ur.role.id = :roleId AND ur.user.id > :afterUserId " +
+           "ORDER BY ur.user.id")
+    List<Long> findUserIdsByRoleId(@Param("roleId") Long roleId,
+                                   @Param("afterUserId") Long afterUserId,
+                                   Pageable pageable);
+
+    /**
+     * 按用户ID顺序分批查询经由任一角色拥有指定权限的用户ID
+     *
+     * @param permissionId 权限ID
+     * @param afterUserId  上一批最后一个用户ID，首批传0
+     * @param pageable     每批数量（只使用pageSize）
+     * @return 用户ID列表
+     */
+    @Query("SELECT DISTINCT ur.user.id FROM UserRole ur " +
+           "JOIN ur.role r " +
+           "JOIN r.rolePermissions rp " +
+           "WHERE rp.permission.id = :permissionId AND ur.user.id > :afterUserId " +
+           "ORDER BY ur.user.id")
+    List<Long> findUserIdsByPermissionId(@Param("permissionId") Long permissionId,
+                                         @Param("afterUserId") Long afterUserId,
+                                         Pageable pageable);
+}
@@ -0,0 +1,114 @@
+package hbnu.project.zhiyanauthservice.repository;
+
+import hbnu.project.zhiyanauthservice.model.entity.UserSearchDocument;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 用户搜索文档数据访问接口
+ * 搜索语句使用 MySQL 的 MATCH ... AGAINST，依赖 user_search_documents 上的 ngram 全文索引
+ *
+ * @author ErgouTree
+ */
+@Repository
+public interface UserSearchDocumentRepository extends JpaRepository<UserSearchDocument, Long> {
+
+    /**
+     * 写入或覆盖一个用户的搜索文档
+     *
+     * @param userId      用户ID
+     * @param name        姓名
+     * @param email       邮箱
+     * @param institution 机构
+     * @param updatedAt   同步时间
+     * @return 影响的行数
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_search_documents (user_id, name, email, institution, updated_at) " +
+                   "VALUES (:userId, :name, :email, :institution, :updatedAt) " +
+                   "ON DUPLICATE KEY UPDATE name = VALUES(name), email = VALUES(email), " +
+                   "institution = VALUES(institution), updated_at = VALUES(updated_at)",
+           nativeQuery = true)
+    int upsert(@Param("userId") Long userId,
+               @Param("name") String name,
+               @Param("email") String email,
+               @Param("institution") String institution,
+               @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * 从 users 表同步一批未删除用户的搜索文档
+     * 供批量导入和全量重建使用，已删除的用户不会写入
+     *
+     * @param userIds   用户ID集合
+     * @param updatedAt 同步时间
+     * @return 影响的行数
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_search_documents (user_id, name, email, institution, updated_at) " +
+                   "SELECT u.id, u.name, u.email, u.institution, :updatedAt FROM users u " +
+                   "WHERE u.id IN (:userIds) AND u.is_deleted = false " +
+                   "ON DUPLICATE KEY UPDATE name = VALUES(name), email = VALUES(email), " +
+                   "institution = VALUES(institution), updated_at = VALUES(updated_at)",
+           nativeQuery = true)
+    int upsertFromUsers(@Param("userIds") Collection<Long> userIds,
+                        @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * 全文检索并排序
+     * 内层按相关度取有限的候选集，外层在候选集内把邮箱完全匹配、前缀匹配排在前面，
+     * 排序只作用于候选集，耗时不随命中总数增长
+     *
+     * @param query      布尔模式检索式
+     * @param keyword    原始关键词，用于完全匹配
+     * @param prefix     已转义的前缀匹配模式（关键词加%）
+     * @param candidates 候选集大小
+     * @param limit      返回条数
+     * @return 排序后的用户ID
+     */
+    @Query(value = "SELECT d.user_id FROM (" +
+                   "SELECT user_id, name, email, institution, " +
+                   "MATCH(name, email, institution) AGAINST (:query IN BOOLEAN MODE) AS score " +
+                   "FROM user_search_documents " +
+                   "WHERE MATCH(name, email, institution) AGAINST (:query IN BOOLEAN MODE) " +
+                   "ORDER BY score DESC LIMIT :candidates) d " +
+                   "ORDER BY (d.email = :keyword) DESC, " +
+                   "(d.name LIKE :prefix OR d.email LIKE :prefix OR d.institution LIKE :prefix) DESC, " +
+                   "d.score DESC, d.user_id " +
+                   "LIMIT :limit",
+           nativeQuery = true)
+    List<Long> search(@Param("query") String query,
+                      @Param("keyword") String keyword,
+                      @Param("prefix") String prefix,
+                      @Param("candidates") int candidates,
+                      @Param("limit") int limit);
+
+    /**
+     * 统计匹配检索式的用户数
+     * 文档表只包含未删除用户，无需关联 users 表
+     *
+     * @param query 布尔模式检索式
+     * @return 用户数
+     */
+    @Query(value = "SELECT COUNT(*) FROM user_search_documents " +
+                   "WHERE MATCH(name, email, institution) AGAINST (:query IN BOOLEAN MODE)",
+           nativeQuery = true)
+    long countMatches(@Param("query") String query);
+
+    /**
+     * 删除指定时间之前同步、此后未再更新的文档
+     * 全量重建结束后用于清理已删除用户的残留文档
+     *
+     * @param before 重建开始时间
+     * @return 删除的文档数
+     */
+    @Modifying
+    @Query("DELETE FROM UserSearchDocument d WHERE d.updatedAt < :before")
+    int deleteUpdatedBefore(@Param("before") LocalDateTime before);
+}
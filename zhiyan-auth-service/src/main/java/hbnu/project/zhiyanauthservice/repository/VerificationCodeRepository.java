@@ -2,12 +2,17 @@ package hbnu.project.zhiyanauthservice.repository;
 
 import hbnu.project.zhiyanauthservice.model.entity.VerificationCode;
 import hbnu.project.zhiyanauthservice.model.enums.VerificationCodeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -40,11 +45,24 @@ public interface VerificationCodeRepository extends JpaRepository<VerificationCo
             String email, String code, VerificationCodeType type);
 
     /**
-     * 删除过期的验证码
+     * 按过期时间顺序查询一批已过期验证码的ID
+     * 沿 expires_at 索引读取，每批只触及索引上的一小段
      *
-     * @param now 当前时间
+     * @param now      当前时间
+     * @param pageable 每批数量（只使用pageSize）
+     * @return 验证码ID列表
+     */
+    @Query("SELECT vc.id FROM VerificationCode vc WHERE vc.expiresAt < :now ORDER BY vc.expiresAt, vc.id")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * 按ID批量删除验证码，每次调用为独立事务
+     *
+     * @param ids 验证码ID
      * @return 删除的记录数
      */
-    @Query("DELETE FROM VerificationCode vc WHERE vc.expiresAt < :now")
-    int deleteExpiredCodes(@Param("now") LocalDateTime now);
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM VerificationCode vc WHERE vc.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
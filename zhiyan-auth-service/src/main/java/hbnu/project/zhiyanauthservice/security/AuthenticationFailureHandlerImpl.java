@@ -56,13 +56,13 @@ public class AuthenticationFailureHandlerImpl implements AuthenticationFailureHa
                 email, clientIp, exception.getClass().getSimpleName(), exception.getMessage());
 
         // 记录登录失败（如果不是账户锁定异常）
-        boolean shouldLock = false;
+        LoginFailureService.FailureResult failure = null;
         if (!(exception instanceof LockedException) && StringUtils.isNotBlank(email)) {
-            shouldLock = loginFailureService.recordLoginFailure(email, request);
+            failure = loginFailureService.recordLoginFailure(email, request);
         }
 
         // 构建响应信息
-        R<Object> result = buildFailureResponse(exception, email, shouldLock);
+        R<Object> result = buildFailureResponse(exception, email, failure);
 
         // 设置响应
         writeResponse(response, result);
@@ -72,18 +72,21 @@ public class AuthenticationFailureHandlerImpl implements AuthenticationFailureHa
     /**
      * 构建失败响应
      */
-    private R<Object> buildFailureResponse(AuthenticationException exception, String email, boolean shouldLock) {
+    private R<Object> buildFailureResponse(AuthenticationException exception, String email, LoginFailureService.FailureResult failure) {
         String message;
         int code = 401;
 
         if(exception instanceof BadCredentialsException){
             // 密码错误
-            if (shouldLock) {
+            if (failure != null && failure.locked()) {
                 message = "邮箱或密码错误，账户已被临时锁定";
                 // 423 Locked
                 code = 423;
             } else{
-                int remainingAttempts = loginFailureService.getRemainingAttempts(email);
+                // 剩余次数由记录失败的脚本一并返回，无需再次查询
+                int remainingAttempts = failure != null
+                        ? failure.remainingAttempts()
+                        : loginFailureService.getRemainingAttempts(email);
                 if (remainingAttempts > 0) {
                     message = String.format("邮箱或密码错误，还有 %d 次尝试机会", remainingAttempts);
                 } else {
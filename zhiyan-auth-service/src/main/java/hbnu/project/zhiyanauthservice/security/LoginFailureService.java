@@ -2,34 +2,49 @@ package hbnu.project.zhiyanauthservice.security;
 
 import hbnu.project.zhiyanauthservice.service.UserService;
 import hbnu.project.zhiyancommon.constants.CacheConstants;
-import hbnu.project.zhiyancommon.service.RedisService;
+import hbnu.project.zhiyancommon.ratelimit.RateLimitProperties;
 import hbnu.project.zhiyancommon.utils.IpUtils;
 import hbnu.project.zhiyancommon.utils.StringUtils;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 
 /**
  * 登录失败处理服务
  * 实现登录失败次数限制和账户锁定
+ *
+ * 失败次数按滑动窗口统计，邮箱和IP两个维度的记录、判断阈值、加锁和计算剩余次数由Lua脚本在一次调用中原子完成；
+ * IP取自直接连接方或可信代理追加的转发地址，客户端无法通过伪造请求头绕过IP锁定
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class LoginFailureService {
 
-    private final RedisService redisService;
+    private final StringRedisTemplate stringRedisTemplate;
     private final UserService userService;
+    private final RateLimitProperties rateLimitProperties;
 
-    private static final String LOGIN_FAILURE_KEY_PREFIX = "login:failure:";
-    private static final String LOGIN_IP_FAILURE_PREFIX = "login:ip:failure:";
+    /**
+     * 失败记录为有序集合，与旧版本的计数键类型不同，使用新的前缀
+     */
+    private static final String LOGIN_FAILURE_KEY_PREFIX = "login:failure:window:";
+    private static final String LOGIN_IP_FAILURE_PREFIX = "login:ip:failure:window:";
     private static final String LOGIN_LOCK_KEY_PREFIX = "login:lock:";
+    private static final String LOGIN_IP_LOCK_KEY_PREFIX = LOGIN_LOCK_KEY_PREFIX + "ip:";
 
     // 邮箱登录失败限制
     private static final int MAX_EMAIL_FAILURE_COUNT = 5; // 最大失败次数
@@ -39,8 +54,10 @@ public class LoginFailureService {
     private static final int MAX_IP_FAILURE_COUNT = 10; // IP最大失败次数
     private static final int IP_LOCK_TIME_MINUTES = 60; // IP锁定时间（分钟）
 
-    // 失败记录过期时间
-    private static final int FAILURE_RECORD_EXPIRE_MINUTES = 60; // 失败记录过期时间
+    // 失败记录滑动窗口
+    private static final int FAILURE_RECORD_EXPIRE_MINUTES = 60; // 只统计最近60分钟内的失败
+
+    private static final RedisScript<List<Long>> RECORD_FAILURE_SCRIPT = loadScript("lua/login_failure.lua");
 
 
     /**
@@ -48,90 +65,56 @@ public class LoginFailureService {
      *
      * @param email 用户邮箱
      * @param request HTTP请求对象，用于获取IP地址
-     * @return 是否已达到锁定条件
+     * @return 本次记录后的失败状态（邮箱、IP是否已锁定，剩余尝试次数）
      */
-    public boolean recordLoginFailure(String email, HttpServletRequest request) {
+    public FailureResult recordLoginFailure(String email, HttpServletRequest request) {
         if (StringUtils.isBlank(email)) {
-            return false;
+            return new FailureResult(false, false, MAX_EMAIL_FAILURE_COUNT);
         }
 
-        String clientIp = IpUtils.getIpAddr(request);
+        String clientIp = getClientIp(request);
         String userAgent = request.getHeader("User-Agent");
 
         log.warn("登录失败记录 - 邮箱: {}, IP: {}, UserAgent: {}, 时间: {}",
-                email, clientIp, userAgent, LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));‘
-
-        // 1. 记录邮箱失败次数
-        boolean emailLocked = recordEmailFailure(email);
-
-        // 2. 记录IP失败次数
-        // 当某个 IP 地址（clientIp）登录失败时，系统会记录其失败次数，并在达到阈值时锁定该 IP，禁止其继续登录。
-        boolean ipLocked = recordIpFailure(clientIp);
-
-        return emailLocked || ipLocked;
-    }
-
-
-    /**
-     * 记录邮箱登录失败
-     */
-    private boolean recordEmailFailure(String email) {
-        String failureKey = LOGIN_FAILURE_KEY_PREFIX + email;
-        String lockKey = LOGIN_LOCK_KEY_PREFIX + email;
-
-        // 获取当前失败次数
-        Integer failureCount = redisService.getCacheObject(failureKey);
-        if (failureCount == null) {
-            failureCount = 0;
+                email, clientIp, userAgent, LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+
+        // 邮箱和IP两个维度的计数、阈值判断与锁定在一次脚本调用中原子完成
+        long now = System.currentTimeMillis();
+        List<String> keys = List.of(
+                LOGIN_FAILURE_KEY_PREFIX + email,
+                LOGIN_LOCK_KEY_PREFIX + email,
+                LOGIN_IP_FAILURE_PREFIX + clientIp,
+                LOGIN_IP_LOCK_KEY_PREFIX + clientIp);
+        List<Long> result = stringRedisTemplate.execute(RECORD_FAILURE_SCRIPT, keys,
+                String.valueOf(now),
+                String.valueOf(TimeUnit.MINUTES.toMillis(FAILURE_RECORD_EXPIRE_MINUTES)),
+                now + "-" + ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE),
+                LocalDateTime.now().toString(),
+                String.valueOf(MAX_EMAIL_FAILURE_COUNT),
+                String.valueOf(TimeUnit.MINUTES.toMillis(EMAIL_LOCK_TIME_MINUTES)),
+                String.valueOf(MAX_IP_FAILURE_COUNT),
+                String.valueOf(TimeUnit.MINUTES.toMillis(IP_LOCK_TIME_MINUTES)));
+        if (result == null || result.size() < 5) {
+            log.error("登录失败计数脚本返回异常结果: {}", result);
+            return new FailureResult(false, false, getRemainingAttempts(email));
         }
 
-        failureCount++;
-
-        // 更新失败次数，设置过期时间
-        redisService.setCacheObject(failureKey, failureCount, (long) FAILURE_RECORD_EXPIRE_MINUTES, TimeUnit.MINUTES);
+        long failureCount = result.get(0);
+        boolean emailLocked = result.get(1) == 1L;
+        int remainingAttempts = result.get(2).intValue();
+        long ipFailureCount = result.get(3);
+        boolean ipLocked = result.get(4) == 1L;
 
         log.debug("邮箱[{}]登录失败次数: {}/{}", email, failureCount, MAX_EMAIL_FAILURE_COUNT);
-
-        // 检查是否需要锁定
-        if (failureCount >= MAX_EMAIL_FAILURE_COUNT) {
-            // 锁定邮箱
-            redisService.setCacheObject(lockKey, LocalDateTime.now().toString(), (long) EMAIL_LOCK_TIME_MINUTES, TimeUnit.MINUTES);
+        log.debug("IP[{}]登录失败次数: {}/{}", clientIp, ipFailureCount, MAX_IP_FAILURE_COUNT);
+        if (emailLocked) {
             log.warn("邮箱[{}]因登录失败次数过多被锁定 {}分钟", email, EMAIL_LOCK_TIME_MINUTES);
-            return true;
-        }
-
-        return false;
-    }
-
-
-    /**
-     * 记录IP登陆失败,防止特定 IP 地址的恶意登录尝试
-     */
-    private boolean recordIpFailure(String clientIp) {
-        String ipFailureKey = LOGIN_IP_FAILURE_PREFIX + clientIp;
-        String ipLockKey = LOGIN_LOCK_KEY_PREFIX + "ip:" + clientIp;
-
-        // 获取当前IP失败次数
-        Integer ipFailureCount = redisService.getCacheObject(ipFailureKey);
-        if (ipFailureCount == null) {
-            ipFailureCount = 0;
         }
-
-        ipFailureCount++;
-
-        // 更新IP失败次数
-        redisService.setCacheObject(ipFailureKey, ipFailureCount, (long) FAILURE_RECORD_EXPIRE_MINUTES, TimeUnit.MINUTES);
-
-        log.debug("IP[{}]登录失败次数: {}/{}", clientIp, ipFailureCount, MAX_IP_FAILURE_COUNT);
-
-        // 检查是否需要锁定IP
-        if (ipFailureCount >= MAX_IP_FAILURE_COUNT) {
-            redisService.setCacheObject(ipLockKey, LocalDateTime.now().toString(), (long) IP_LOCK_TIME_MINUTES, TimeUnit.MINUTES);
+        if (ipLocked) {
             log.warn("IP[{}]因登录失败次数过多被锁定 {}分钟", clientIp, IP_LOCK_TIME_MINUTES);
-            return true;
         }
 
-        return false;
+        return new FailureResult(emailLocked, ipLocked, remainingAttempts);
     }
 
 
@@ -144,7 +127,7 @@ public class LoginFailureService {
         }
 
         String lockKey = LOGIN_LOCK_KEY_PREFIX + email;
-        String lockTime = redisService.getCacheObject(lockKey);
+        String lockTime = stringRedisTemplate.opsForValue().get(lockKey);
 
         boolean locked = StringUtils.isNotBlank(lockTime);
         if (locked) {
@@ -156,15 +139,11 @@ public class LoginFailureService {
 
 
     /**
-     * 检查IP是否被锁定
+     * 检查请求来源IP是否被锁定
      */
-    public boolean isIpLocked(String clientIp, HttpServletRequest request) {
-        if (StringUtils.isBlank(clientIp)) {
-            clientIp = IpUtils.getIpAddr(request);
-        }
-
-        String ipLockKey = LOGIN_LOCK_KEY_PREFIX + "ip:" + clientIp;
-        String lockTime = redisService.getCacheObject(ipLockKey);
+    public boolean isIpLocked(HttpServletRequest request) {
+        String clientIp = getClientIp(request);
+        String lockTime = stringRedisTemplate.opsForValue().get(LOGIN_IP_LOCK_KEY_PREFIX + clientIp);
 
         boolean locked = StringUtils.isNotBlank(lockTime);
         if (locked) {
@@ -183,14 +162,16 @@ public class LoginFailureService {
             return MAX_EMAIL_FAILURE_COUNT;
         }
 
+        // 只统计滑动窗口内的失败记录
         String failureKey = LOGIN_FAILURE_KEY_PREFIX + email;
-        Integer failureCount = redisService.getCacheObject(failureKey);
+        long windowStart = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(FAILURE_RECORD_EXPIRE_MINUTES);
+        Long failureCount = stringRedisTemplate.opsForZSet().count(failureKey, windowStart, Double.POSITIVE_INFINITY);
 
         if (failureCount == null) {
             return MAX_EMAIL_FAILURE_COUNT;
         }
 
-        return Math.max(0, MAX_EMAIL_FAILURE_COUNT - failureCount);
+        return (int) Math.max(0, MAX_EMAIL_FAILURE_COUNT - failureCount);
     }
 
 
@@ -203,31 +184,34 @@ public class LoginFailureService {
         }
 
         String lockKey = LOGIN_LOCK_KEY_PREFIX + email;
-        return redisService.getExpire(lockKey) / 60; // 转换为分钟
+        Long expire = stringRedisTemplate.getExpire(lockKey);
+        return expire != null ? expire / 60 : 0; // 转换为分钟
+    }
+
+
+    /**
+     * 获取请求来源IP锁定剩余时间（分钟）
+     */
+    public long getIpLockRemainingTime(HttpServletRequest request) {
+        Long expire = stringRedisTemplate.getExpire(LOGIN_IP_LOCK_KEY_PREFIX + getClientIp(request));
+        return expire != null ? expire / 60 : 0; // 转换为分钟
     }
 
 
     /**
      * 清除登录失败记录（登录成功时调用）
+     * 只清除邮箱维度，IP可能被多个用户共用，其失败记录和锁定随窗口自然过期
      */
     public void clearLoginFailure(String email, HttpServletRequest request) {
         if (StringUtils.isNotBlank(email)) {
             String failureKey = LOGIN_FAILURE_KEY_PREFIX + email;
             String lockKey = LOGIN_LOCK_KEY_PREFIX + email;
 
-            redisService.deleteObject(failureKey);
-            redisService.deleteObject(lockKey);
+            // 两个键合并为一条DEL命令
+            stringRedisTemplate.delete(List.of(failureKey, lockKey));
 
             log.debug("清除邮箱[{}]的登录失败记录", email);
         }
-
-        // 可选：清除IP失败记录（如果需要的话）
-        String clientIp = IpUtils.getIpAddr(request);
-        if (StringUtils.isNotBlank(clientIp)) {
-            String ipFailureKey = LOGIN_IP_FAILURE_PREFIX + clientIp;
-            // 注意：这里不清除IP锁定，因为IP可能被多个用户使用
-            // redisService.deleteObject(ipFailureKey);
-        }
     }
 
 
@@ -250,8 +234,7 @@ public class LoginFailureService {
             String failureKey = LOGIN_FAILURE_KEY_PREFIX + email;
             String lockKey = LOGIN_LOCK_KEY_PREFIX + email;
 
-            redisService.deleteObject(failureKey);
-            redisService.deleteObject(lockKey);
+            stringRedisTemplate.delete(List.of(failureKey, lockKey));
 
             log.info("管理员手动解锁用户: {}", email);
         }
@@ -259,17 +242,39 @@ public class LoginFailureService {
 
 
     /**
-     * 手动解锁IP（后台预留功能）
+     * 加载返回整数数组的脚本，Redis将整数数组转换为 List&lt;Long&gt;，泛型的未检查转换只出现在这里
      */
-    public void unlockIp(String clientIp) {
-        if (StringUtils.isNotBlank(clientIp)) {
-            String ipFailureKey = LOGIN_IP_FAILURE_PREFIX + clientIp;
-            String ipLockKey = LOGIN_LOCK_KEY_PREFIX + "ip:" + clientIp;
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static RedisScript<List<Long>> loadScript(String path) {
+        DefaultRedisScript<List<Long>> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        script.setResultType((Class<List<Long>>) (Class) List.class);
+        return script;
+    }
 
-            redisService.deleteObject(ipFailureKey);
-            redisService.deleteObject(ipLockKey);
 
-            log.info("管理员手动解锁IP: {}", clientIp);
+    /**
+     * 计数使用的客户端IP，只信任可信代理追加的转发地址
+     */
+    private String getClientIp(HttpServletRequest request) {
+        return IpUtils.getTrustedClientIp(request, rateLimitProperties.getTrustedProxies());
+    }
+
+
+    /**
+     * 一次登录失败记录后的状态
+     *
+     * @param emailLocked       邮箱是否已被锁定
+     * @param ipLocked          请求来源IP是否已被锁定
+     * @param remainingAttempts 邮箱剩余尝试次数
+     */
+    public record FailureResult(boolean emailLocked, boolean ipLocked, int remainingAttempts) {
+
+        /**
+         * 邮箱或IP任一维度被锁定
+         */
+        public boolean locked() {
+            return emailLocked || ipLocked;
         }
     }
 }
@@ -63,4 +63,12 @@ public interface AuthService {
      * @return 是否在黑名单中
      */
     boolean isTokenBlacklisted(String token);
+
+    /**
+     * 吊销用户当前持有的全部令牌
+     * 用于修改密码、锁定账号、删除账号等场景
+     *
+     * @param userId 用户ID
+     */
+    void revokeUserTokens(Long userId);
 }
@@ -0,0 +1,63 @@
+package hbnu.project.zhiyanauthservice.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 用户有效权限投影服务接口
+ * 维护 user_effective_permissions 表：角色、权限关联变更时在同一事务中增量更新受影响用户，
+ * 读取时按主键查询，投影缺失的用户现算后补齐
+ *
+ * @author ErgouTree
+ */
+public interface EffectivePermissionService {
+
+    /**
+     * 获取用户的有效权限
+     *
+     * @param userId 用户ID
+     * @return 不可变的权限名称集合
+     */
+    Set<String> getPermissions(Long userId);
+
+    /**
+     * 批量获取多个用户的有效权限
+     *
+     * @param userIds 用户ID集合
+     * @return 用户ID到权限名称集合的映射，每个用户都有对应的集合（可能为空）
+     */
+    Map<Long, Set<String>> getPermissions(Collection<Long> userIds);
+
+    /**
+     * 重新计算指定用户的有效权限
+     * 必须在变更关联的事务中调用，失败时整个事务回滚；提交后失效这些用户的权限缓存
+     *
+     * @param userIds 用户ID集合
+     */
+    void refreshUsers(Collection<Long> userIds);
+
+    /**
+     * 重新计算拥有指定角色的全部用户
+     *
+     * @param roleId 角色ID
+     * @return 受影响的用户数
+     */
+    int refreshRoleUsers(Long roleId);
+
+    /**
+     * 重新计算经由任一角色拥有指定权限的全部用户
+     *
+     * @param permissionId 权限ID
+     * @return 受影响的用户数
+     */
+    int refreshPermissionUsers(Long permissionId);
+
+    /**
+     * 全量重建投影
+     * 按用户ID分批、多线程并行计算，每批为独立事务
+     *
+     * @return 重建的用户数
+     */
+    int rebuildAll();
+}
@@ -1,7 +1,10 @@
 package hbnu.project.zhiyanauthservice.service;
 
+import hbnu.project.zhiyanauthservice.model.dto.PermissionCheckResultDTO;
 import hbnu.project.zhiyanauthservice.model.dto.PermissionDTO;
 import hbnu.project.zhiyanauthservice.model.entity.Permission;
+import hbnu.project.zhiyanauthservice.model.form.PermissionCheckBody;
+import hbnu.project.zhiyancommon.domain.CursorPage;
 import hbnu.project.zhiyancommon.domain.R;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -43,6 +46,15 @@ public interface PermissionService {
      */
     R<Boolean> hasAnyPermission(Long userId, List<String> permissions);
 
+    /**
+     * 批量校验多组（用户ID，权限）
+     * 每个用户的权限集合只解析一次，结果以位图形式返回
+     *
+     * @param checkBody 批量校验请求
+     * @return 校验结果位图
+     */
+    R<PermissionCheckResultDTO> checkPermissions(PermissionCheckBody checkBody);
+
     /**
      * 获取所有权限列表
      *
@@ -51,6 +63,16 @@ public interface PermissionService {
      */
     R<Page<PermissionDTO>> getAllPermissions(Pageable pageable);
 
+    /**
+     * 游标分页查询权限列表，按权限名称升序
+     *
+     * @param cursor    上一页返回的游标，首页为空
+     * @param size      每页条数
+     * @param withTotal 是否返回总数
+     * @return 权限列表
+     */
+    R<CursorPage<PermissionDTO>> getPermissionsByCursor(String cursor, Integer size, boolean withTotal);
+
     /**
      * 创建权限
      *
@@ -83,4 +105,11 @@ public interface PermissionService {
      * @return 权限信息
      */
     Permission findById(Long permissionId);
+
+    /**
+     * 全量重建用户有效权限投影（管理员操作）
+     *
+     * @return 重建的用户数
+     */
+    R<Integer> rebuildEffectivePermissions();
 }
@@ -1,9 +1,11 @@
 package hbnu.project.zhiyanauthservice.service;
 
+import hbnu.project.zhiyanauthservice.model.dto.AssignmentResultDTO;
 import hbnu.project.zhiyanauthservice.model.dto.RoleDTO;
 import hbnu.project.zhiyanauthservice.model.entity.Role;
 import hbnu.project.zhiyanauthservice.model.enums.PermissionModule;
 import hbnu.project.zhiyanauthservice.utils.PermissionAssignmentUtil;
+import hbnu.project.zhiyancommon.domain.CursorPage;
 import hbnu.project.zhiyancommon.domain.R;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -32,18 +34,36 @@ public interface RoleService {
      *
      * @param userId 用户ID
      * @param roleIds 角色ID列表
-     * @return 分配结果
+     * @return 新增的关联数
      */
-    R<Void> assignRolesToUser(Long userId, List<Long> roleIds);
+    R<AssignmentResultDTO> assignRolesToUser(Long userId, List<Long> roleIds);
 
     /**
      * 移除用户角色
      *
      * @param userId 用户ID
      * @param roleIds 角色ID列表
-     * @return 移除结果
+     * @return 删除的关联数
      */
-    R<Void> removeRolesFromUser(Long userId, List<Long> roleIds);
+    R<AssignmentResultDTO> removeRolesFromUser(Long userId, List<Long> roleIds);
+
+    /**
+     * 把一个角色批量分配给多个用户
+     *
+     * @param roleId  角色ID
+     * @param userIds 用户ID列表
+     * @return 新增的关联数
+     */
+    R<AssignmentResultDTO> assignRoleToUsers(Long roleId, List<Long> userIds);
+
+    /**
+     * 批量移除多个用户的同一角色
+     *
+     * @param roleId  角色ID
+     * @param userIds 用户ID列表
+     * @return 删除的关联数
+     */
+    R<AssignmentResultDTO> removeRoleFromUsers(Long roleId, List<Long> userIds);
 
     /**
      * 获取所有角色列表
@@ -53,6 +73,16 @@ public interface RoleService {
      */
     R<Page<RoleDTO>> getAllRoles(Pageable pageable);
 
+    /**
+     * 游标分页查询角色列表，按角色名称升序
+     *
+     * @param cursor    上一页返回的游标，首页为空
+     * @param size      每页条数
+     * @param withTotal 是否返回总数
+     * @return 角色列表
+     */
+    R<CursorPage<RoleDTO>> getRolesByCursor(String cursor, Integer size, boolean withTotal);
+
     /**
      * 创建角色
      *
@@ -83,18 +113,18 @@ public interface RoleService {
      *
      * @param roleId 角色ID
      * @param permissionIds 权限ID列表
-     * @return 分配结果
+     * @return 新增的关联数
      */
-    R<Void> assignPermissionsToRole(Long roleId, List<Long> permissionIds);
+    R<AssignmentResultDTO> assignPermissionsToRole(Long roleId, List<Long> permissionIds);
 
     /**
      * 移除角色权限
      *
      * @param roleId 角色ID
      * @param permissionIds 权限ID列表
-     * @return 移除结果
+     * @return 删除的关联数
      */
-    R<Void> removePermissionsFromRole(Long roleId, List<Long> permissionIds);
+    R<AssignmentResultDTO> removePermissionsFromRole(Long roleId, List<Long> permissionIds);
 
     /**
      * 根据ID查找角色
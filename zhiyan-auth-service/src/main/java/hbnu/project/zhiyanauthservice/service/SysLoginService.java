@@ -5,6 +5,7 @@ import hbnu.project.zhiyanauthservice.model.dto.UserDTO;
 import hbnu.project.zhiyanauthservice.model.form.LoginBody;
 import hbnu.project.zhiyanauthservice.model.form.RegisterBody;
 import hbnu.project.zhiyancommon.domain.R;
+import jakarta.servlet.http.HttpServletRequest;
 
 /**
  * 登录注册核心业务接口
@@ -17,11 +18,13 @@ public interface SysLoginService {
     /**
      * 用户登录
      * 根据邮箱和密码验证用户身份，生成登录Token并返回用户信息
+     * 邮箱或IP因连续登录失败被锁定时直接拒绝，不再校验密码
      *
      * @param loginBody 登录表单数据（包含邮箱、密码、记住我标识）
+     * @param request   当前请求，用于按来源IP统计登录失败
      * @return R<TokenDTO> - 登录成功返回 Token 信息（含 accessToken、refreshToken、用户DTO）；失败返回错误提示
      */
-    R<TokenDTO> login(LoginBody loginBody);
+    R<TokenDTO> login(LoginBody loginBody, HttpServletRequest request);
 
     /**
      * 用户登出
@@ -0,0 +1,73 @@
+package hbnu.project.zhiyanauthservice.service;
+
+import hbnu.project.zhiyanauthservice.model.entity.User;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 用户搜索服务接口
+ * 维护 user_search_documents 表及其 ngram 全文索引：用户注册、资料修改、导入时在同一事务中同步，
+ * 软删除时移除；搜索在全文索引中完成前缀和中缀匹配，不再对 users 表做 LIKE 扫描
+ *
+ * @author ErgouTree
+ */
+public interface UserSearchService {
+
+    /**
+     * 搜索用户
+     * 邮箱完全匹配优先，其次是姓名、邮箱或机构以关键词开头的用户，再按全文相关度排序
+     *
+     * @param keyword 关键词，可包含多个以空格分隔的词，全部命中才算匹配
+     * @param limit   返回条数
+     * @return 排序后的用户ID，关键词过短时为空
+     */
+    List<Long> search(String keyword, Integer limit);
+
+    /**
+     * 统计匹配关键词的用户数
+     *
+     * @param keyword 关键词
+     * @return 用户数
+     */
+    long count(String keyword);
+
+    /**
+     * 将关键词转换为全文索引的布尔模式检索式
+     *
+     * @param keyword 关键词
+     * @return 检索式，关键词中没有可检索的内容时返回null
+     */
+    String toMatchQuery(String keyword);
+
+    /**
+     * 同步一个用户的搜索文档，已删除的用户移除文档
+     * 必须在写入用户的事务中调用
+     *
+     * @param user 用户实体
+     */
+    void index(User user);
+
+    /**
+     * 从 users 表同步一批用户的搜索文档
+     * 必须在写入用户的事务中调用，用于以JDBC批量写入用户的场景
+     *
+     * @param userIds 用户ID集合
+     */
+    void indexUsers(Collection<Long> userIds);
+
+    /**
+     * 移除用户的搜索文档
+     *
+     * @param userId 用户ID
+     */
+    void remove(Long userId);
+
+    /**
+     * 全量重建搜索文档
+     * 按用户ID分批，每批为独立事务，结束后清理已删除用户的残留文档
+     *
+     * @return 重建的用户数
+     */
+    int rebuildAll();
+}
@@ -7,6 +7,7 @@ import hbnu.project.zhiyanauthservice.model.form.LoginBody;
 import hbnu.project.zhiyanauthservice.model.form.RegisterBody;
 import hbnu.project.zhiyanauthservice.model.form.ResetPasswordBody;
 import hbnu.project.zhiyanauthservice.model.form.UserProfileUpdateBody;
+import hbnu.project.zhiyancommon.domain.CursorPage;
 import hbnu.project.zhiyancommon.domain.R;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -47,6 +48,35 @@ public interface UserService {
      */
     R<Page<UserDTO>> getUserList(Pageable pageable, String keyword);
 
+    /**
+     * 游标分页查询用户列表（管理员功能）
+     * 按创建时间倒序，每页耗时与翻页深度无关
+     *
+     * @param cursor    上一页返回的游标，首页为空
+     * @param size      每页条数
+     * @param keyword   搜索关键词
+     * @param withTotal 是否返回总数（无关键词时为估算值）
+     * @return 用户列表
+     */
+    R<CursorPage<UserDTO>> getUserListByCursor(String cursor, Integer size, String keyword, boolean withTotal);
+
+    /**
+     * 搜索用户（邀请成员等输入即搜场景）
+     * 在姓名、邮箱、机构上做前缀和中缀匹配，按匹配程度排序
+     *
+     * @param keyword 关键词
+     * @param limit   返回条数
+     * @return 排序后的用户列表
+     */
+    R<List<UserDTO>> searchUsers(String keyword, Integer limit);
+
+    /**
+     * 全量重建用户搜索文档（管理员操作）
+     *
+     * @return 重建的用户数
+     */
+    R<Integer> rebuildSearchIndex();
+
     /**
      * 锁定/解锁用户
      *
@@ -29,15 +29,6 @@ public interface VerificationCodeService {
      */
     R<Boolean> validateCode(String email, String code, VerificationCodeType type);
 
-    /**
-     * 检查验证码发送频率限制
-     *
-     * @param email 邮箱地址
-     * @param type 验证码类型
-     * @return 是否可以发送
-     */
-    boolean canSendCode(String email, VerificationCodeType type);
-
     /**
      * 清理过期的验证码
      */
@@ -7,17 +7,26 @@ import hbnu.project.zhiyanauthservice.model.form.ChangeEmailBody;
 import hbnu.project.zhiyanauthservice.model.form.VerificationCodeBody;
 import hbnu.project.zhiyanauthservice.repository.UserRepository;
 import hbnu.project.zhiyanauthservice.service.AuthService;
+import hbnu.project.zhiyanauthservice.service.PermissionService;
 import hbnu.project.zhiyanauthservice.service.VerificationCodeService;
 import hbnu.project.zhiyancommon.constants.CacheConstants;
 import hbnu.project.zhiyancommon.constants.TokenConstants;
+import hbnu.project.zhiyancommon.domain.ParsedToken;
 import hbnu.project.zhiyancommon.domain.R;
 import hbnu.project.zhiyancommon.service.RedisService;
+import hbnu.project.zhiyancommon.service.TokenEpochService;
+import hbnu.project.zhiyancommon.service.TokenRevocationService;
 import hbnu.project.zhiyancommon.utils.JwtUtils;
+import hbnu.project.zhiyancommon.utils.PermissionBitset;
+import hbnu.project.zhiyancommon.utils.StringUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -35,6 +44,9 @@ public class AuthServiceImpl implements AuthService {
     private final UserRepository userRepository;
     private final RedisService redisService;
     private final JwtUtils jwtUtils;
+    private final TokenRevocationService tokenRevocationService;
+    private final TokenEpochService tokenEpochService;
+    private final PermissionService permissionService;
 
 
     /**
@@ -96,11 +108,23 @@ public class AuthServiceImpl implements AuthService {
             int refreshTokenExpireMinutes = rememberMe ? 
                 TokenConstants.REMEMBER_ME_REFRESH_TOKEN_EXPIRE_MINUTES : TokenConstants.DEFAULT_REFRESH_TOKEN_EXPIRE_MINUTES;
             
+            // 写入用户ID和当前令牌纪元，纪元递增后此前签发的令牌全部失效
+            Map<String, Object> claims = new HashMap<>();
+            claims.put(TokenConstants.JWT_CLAIM_USER_ID, userId);
+            claims.put(TokenConstants.JWT_CLAIM_TOKEN_EPOCH, tokenEpochService.currentEpoch(userId));
+
+            // 访问令牌额外携带权限位图，下游服务按位判断权限，无需再查询权限集合
+            Map<String, Object> accessClaims = new HashMap<>(claims);
+            String permissionBits = resolvePermissionBits(userId);
+            if (permissionBits != null) {
+                accessClaims.put(TokenConstants.JWT_CLAIM_PERMISSION_BITS, permissionBits);
+            }
+
             // 生成访问令牌
-            String accessToken = jwtUtils.createToken(userId.toString(), accessTokenExpireMinutes);
+            String accessToken = jwtUtils.createToken(userId.toString(), accessTokenExpireMinutes, accessClaims);
 
             // 生成刷新令牌（长期有效，用于获取新的访问令牌）
-            String refreshToken = jwtUtils.createToken(userId.toString(), refreshTokenExpireMinutes);
+            String refreshToken = jwtUtils.createToken(userId.toString(), refreshTokenExpireMinutes, claims);
 
             // 构建令牌DTO对象
             TokenDTO tokenDTO = new TokenDTO();
@@ -135,13 +159,19 @@ public class AuthServiceImpl implements AuthService {
     @Override
     public String validateToken(String token) {
         try {
-            // 先通过JWT工具类验证令牌格式和签名
-            if (!jwtUtils.validateToken(token)) {
+            // 一次完成签名校验和解析，有效时返回主题中的用户ID字符串
+            ParsedToken parsedToken = jwtUtils.parse(token);
+            if (!parsedToken.isValid()) {
+                log.debug("JWT令牌验证失败 - 原因: {}", parsedToken.getFailureReason());
                 return null;
             }
 
-            // 解析令牌获取用户ID字符串
-            return jwtUtils.parseToken(token);
+            // 用户令牌纪元已递增（修改密码、锁定等）时，此前签发的令牌一律视为无效
+            if (tokenEpochService.isRevoked(parsedToken.getUserId(), parsedToken.getTokenEpoch())) {
+                log.debug("JWT令牌已随用户纪元变更失效 - 用户ID: {}", parsedToken.getUserId());
+                return null;
+            }
+            return parsedToken.getSubject();
             
         } catch (Exception e) {
             log.debug("JWT令牌验证失败 - token: {}, 错误: {}", token, e.getMessage());
@@ -152,15 +182,21 @@ public class AuthServiceImpl implements AuthService {
 
     /**
      * 将token加入黑名单
+     * 携带jti的令牌按jti吊销并通知所有节点，早期无jti的令牌仍按完整令牌记录
      */
     @Override
     public void blacklistToken(String token, Long userId) {
         try {
-            // 获取token的剩余有效时间
-            Long remainingTime = jwtUtils.getRemainingTime(token);
+            // 解析一次token，获取jti和剩余有效时间
+            ParsedToken parsedToken = jwtUtils.parse(token);
+            Long remainingTime = parsedToken.getRemainingSeconds();
             if (remainingTime != null && remainingTime > 0) {
-                String blacklistKey = CacheConstants.TOKEN_BLACKLIST_PREFIX + token;
-                redisService.setCacheObject(blacklistKey, userId.toString(), remainingTime, TimeUnit.SECONDS);
+                if (StringUtils.isNotBlank(parsedToken.getTokenId())) {
+                    tokenRevocationService.revoke(parsedToken.getTokenId(), parsedToken.getExpiration().getTime());
+                } else {
+                    String blacklistKey = CacheConstants.TOKEN_BLACKLIST_PREFIX + token;
+                    redisService.setCacheObject(blacklistKey, userId.toString(), remainingTime, TimeUnit.SECONDS);
+                }
             }
             
             // 同时清除用户的token缓存
@@ -177,15 +213,56 @@ public class AuthServiceImpl implements AuthService {
 
     /**
      * 检查token是否在黑名单中
+     * 本地布隆过滤器判断一定未吊销时直接返回，不访问Redis
      */
     @Override
     public boolean isTokenBlacklisted(String token) {
         try {
+            ParsedToken parsedToken = jwtUtils.parse(token);
+            if (tokenEpochService.isRevoked(parsedToken.getUserId(), parsedToken.getTokenEpoch())) {
+                return true;
+            }
+            String tokenId = parsedToken.getTokenId();
+            if (StringUtils.isNotBlank(tokenId)) {
+                return tokenRevocationService.isRevoked(tokenId);
+            }
             String blacklistKey = CacheConstants.TOKEN_BLACKLIST_PREFIX + token;
             return redisService.hasKey(blacklistKey);
         } catch (Exception e) {
-            log.debug("检查token黑名单状态失败 - token: {}, 错误: {}", token, e.getMessage());
+            log.debug("检查token黑名单状态失败 - 错误: {}", e.getMessage());
             return false;
         }
     }
+
+
+    /**
+     * 吊销用户当前持有的全部令牌
+     * 只递增一次用户令牌纪元，无需逐个记录令牌；在事务中调用时纪元在事务提交后递增
+     */
+    @Override
+    public void revokeUserTokens(Long userId) {
+        try {
+            tokenEpochService.bumpAfterCommit(userId);
+            redisService.deleteObject(CacheConstants.USER_TOKEN_PREFIX + userId);
+            log.info("已吊销用户全部令牌 - 用户ID: {}", userId);
+        } catch (Exception e) {
+            log.error("吊销用户全部令牌失败 - 用户ID: {}, 错误: {}", userId, e.getMessage(), e);
+        }
+    }
+
+
+    /**
+     * 将用户当前权限编译为位图
+     *
+     * @param userId 用户ID
+     * @return 编码后的权限位图，获取权限失败时返回null，令牌不携带位图
+     */
+    private String resolvePermissionBits(Long userId) {
+        R<Set<String>> permissions = permissionService.getUserPermissions(userId);
+        if (!R.isSuccess(permissions)) {
+            log.warn("获取用户权限失败，令牌不携带权限位图 - 用户ID: {}", userId);
+            return null;
+        }
+        return PermissionBitset.encode(PermissionBitset.compile(permissions.getData()));
+    }
 }
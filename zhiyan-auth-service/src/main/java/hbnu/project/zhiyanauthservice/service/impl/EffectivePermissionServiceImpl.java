@@ -0,0 +1,300 @@
+package hbnu.project.zhiyanauthservice.service.impl;
+
+import hbnu.project.zhiyanauthservice.cache.UserAuthorityCache;
+import hbnu.project.zhiyanauthservice.model.entity.UserEffectivePermission;
+import hbnu.project.zhiyanauthservice.repository.PermissionRepository;
+import hbnu.project.zhiyanauthservice.repository.UserEffectivePermissionRepository;
+import hbnu.project.zhiyanauthservice.repository.UserRepository;
+import hbnu.project.zhiyanauthservice.repository.UserRoleRepository;
+import hbnu.project.zhiyanauthservice.service.EffectivePermissionService;
+import hbnu.project.zhiyancommon.service.TokenEpochService;
+import hbnu.project.zhiyancommon.utils.PermissionBitset;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 用户有效权限投影服务实现类
+ *
+ * <ul>
+ *     <li>读取：按主键查询投影；缺失的用户现算后以 INSERT IGNORE 补齐，不会覆盖并发变更事务写入的新结果</li>
+ *     <li>增量维护：在变更关联的事务中以加锁读取重新计算受影响用户并覆盖写入，随业务数据一起提交或回滚</li>
+ *     <li>缓存：投影提交后才失效权限缓存，避免提交前被并发读取以旧投影回填</li>
+ *     <li>令牌：访问令牌携带签发时的权限位图，位图实际发生变化的用户在提交后递增令牌纪元，旧令牌随之失效</li>
+ *     <li>全量重建：按用户ID分批并行，每批为独立事务；结束后清理未被本次重建覆盖的残留记录</li>
+ * </ul>
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EffectivePermissionServiceImpl implements EffectivePermissionService {
+
+    private final UserEffectivePermissionRepository userEffectivePermissionRepository;
+    private final PermissionRepository permissionRepository;
+    private final UserRoleRepository userRoleRepository;
+    private final UserRepository userRepository;
+    private final UserAuthorityCache userAuthorityCache;
+    private final TokenEpochService tokenEpochService;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * 每批重新计算的用户数
+     */
+    @Value("${zhiyan.auth.effective-permissions.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 全量重建的并行线程数
+     */
+    @Value("${zhiyan.auth.effective-permissions.rebuild-parallelism:4}")
+    private int rebuildParallelism;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    /**
+     * 独立事务模板，用于补齐投影和全量重建的每一批
+     */
+    private TransactionTemplate newTransactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public Set<String> getPermissions(Long userId) {
+        return userEffectivePermissionRepository.findById(userId)
+                .map(UserEffectivePermission::toPermissionSet)
+                .orElseGet(() -> materialize(List.of(userId)).get(userId));
+    }
+
+    @Override
+    public Map<Long, Set<String>> getPermissions(Collection<Long> userIds) {
+        Map<Long, Set<String>> result = new HashMap<>(userIds.size() * 2);
+        if (userIds.isEmpty()) {
+            return result;
+        }
+        for (UserEffectivePermission row : userEffectivePermissionRepository.findAllById(userIds)) {
+            result.put(row.getUserId(), row.toPermissionSet());
+        }
+        List<Long> missedIds = userIds.stream()
+                .filter(userId -> !result.containsKey(userId))
+                .collect(Collectors.toList());
+        if (!missedIds.isEmpty()) {
+            result.putAll(materialize(missedIds));
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refreshUsers(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        // 批量分配可能一次涉及上万个用户，按批计算，控制IN列表长度和单条失效广播的大小
+        List<Long> ids = List.copyOf(userIds);
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> batch = ids.subList(from, Math.min(ids.size(), from + batchSize));
+            Map<Long, Set<String>> computed = compute(batch, permissionRepository::lockPermissionNamesByUserIds);
+            List<Long> changedIds = findChanged(computed);
+            computed.forEach((userId, permissions) ->
+                    userEffectivePermissionRepository.upsert(userId, UserEffectivePermission.encode(permissions), now));
+            evictAfterCommit(batch, changedIds);
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int refreshRoleUsers(Long roleId) {
+        int affectedUsers = refreshInBatches(userRoleRepository::findUserIdsByRoleId, roleId);
+        log.debug("角色[{}]权限变更，已重新计算{}个用户的有效权限", roleId, affectedUsers);
+        return affectedUsers;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int refreshPermissionUsers(Long permissionId) {
+        int affectedUsers = refreshInBatches(userRoleRepository::findUserIdsByPermissionId, permissionId);
+        log.debug("权限[{}]变更，已重新计算{}个用户的有效权限", permissionId, affectedUsers);
+        return affectedUsers;
+    }
+
+    @Override
+    public int rebuildAll() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new IllegalStateException("有效权限投影正在重建，请稍后再试");
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, rebuildParallelism));
+        try {
+            List<Future<Integer>> batches = new ArrayList<>();
+            Pageable batch = PageRequest.of(0, batchSize);
+            long afterUserId = 0L;
+            List<Long> userIds;
+            do {
+                userIds = userRepository.findActiveIdsAfter(afterUserId, batch);
+                if (userIds.isEmpty()) {
+                    break;
+                }
+                List<Long> batchUserIds = userIds;
+                batches.add(executor.submit(() -> newTransactionTemplate.execute(status -> {
+                    refreshUsers(batchUserIds);
+                    return batchUserIds.size();
+                })));
+                afterUserId = userIds.get(userIds.size() - 1);
+            } while (userIds.size() == batchSize);
+
+            int rebuiltUsers = 0;
+            for (Future<Integer> future : batches) {
+                rebuiltUsers += future.get();
+            }
+
+            // 本次重建及重建期间的增量维护都会刷新计算时间，早于开始时间的只剩已删除用户的记录
+            Integer purged = newTransactionTemplate.execute(status ->
+                    userEffectivePermissionRepository.deleteUpdatedBefore(startedAt));
+            log.info("有效权限投影重建完成，用户数: {}, 批次数: {}, 清理残留记录: {}", rebuiltUsers, batches.size(), purged);
+            return rebuiltUsers;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("有效权限投影重建被中断", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("有效权限投影重建失败: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * 按用户ID游标分批查出受影响的用户并逐批重新计算
+     */
+    private int refreshInBatches(UserIdBatchQuery query, Long id) {
+        Pageable batch = PageRequest.of(0, batchSize);
+        int affectedUsers = 0;
+        long afterUserId = 0L;
+        List<Long> userIds;
+        do {
+            userIds = query.find(id, afterUserId, batch);
+            if (userIds.isEmpty()) {
+                break;
+            }
+            refreshUsers(userIds);
+            affectedUsers += userIds.size();
+            afterUserId = userIds.get(userIds.size() - 1);
+        } while (userIds.size() == batchSize);
+        return affectedUsers;
+    }
+
+    /**
+     * 现算投影缺失用户的有效权限并补齐
+     * 补齐失败不影响本次读取，下次未命中时再补
+     */
+    private Map<Long, Set<String>> materialize(Collection<Long> userIds) {
+        Map<Long, Set<String>> computed = compute(userIds, permissionRepository::findPermissionNamesByUserIds);
+        try {
+            newTransactionTemplate.executeWithoutResult(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                computed.forEach((userId, permissions) ->
+                        userEffectivePermissionRepository.insertIfAbsent(userId, UserEffectivePermission.encode(permissions), now));
+            });
+        } catch (Exception e) {
+            log.warn("补齐有效权限投影失败: userIds={}, 错误: {}", userIds, e.getMessage());
+        }
+        return computed;
+    }
+
+    /**
+     * 联查关联表计算用户的有效权限
+     *
+     * @param userIds 用户ID集合
+     * @param query   返回 [用户ID, 权限名称] 行的查询
+     * @return 用户ID到不可变权限名称集合的映射，没有任何权限的用户对应空集合
+     */
+    private Map<Long, Set<String>> compute(Collection<Long> userIds,
+                                           Function<Collection<Long>, List<Object[]>> query) {
+        Map<Long, Set<String>> grouped = new HashMap<>(userIds.size() * 2);
+        userIds.forEach(userId -> grouped.put(userId, new HashSet<>()));
+        for (Object[] row : query.apply(userIds)) {
+            grouped.get(((Number) row[0]).longValue()).add((String) row[1]);
+        }
+        Map<Long, Set<String>> result = new HashMap<>(grouped.size() * 2);
+        grouped.forEach((userId, permissions) -> result.put(userId, Set.copyOf(permissions)));
+        return result;
+    }
+
+    /**
+     * 找出权限位图与现有投影不同的用户，只比较令牌中携带的系统权限
+     * 没有投影的用户从未以投影签发过令牌（签发时读取权限会补齐投影），不视为变化，全量重建时不会让所有用户下线
+     */
+    private List<Long> findChanged(Map<Long, Set<String>> computed) {
+        List<Long> changedIds = new ArrayList<>();
+        for (UserEffectivePermission row : userEffectivePermissionRepository.findAllById(computed.keySet())) {
+            long[] previous = PermissionBitset.compile(row.toPermissionSet());
+            long[] current = PermissionBitset.compile(computed.get(row.getUserId()));
+            if (!PermissionBitset.hasAll(previous, current) || !PermissionBitset.hasAll(current, previous)) {
+                changedIds.add(row.getUserId());
+            }
+        }
+        return changedIds;
+    }
+
+    /**
+     * 事务提交后失效权限缓存，并递增权限位图发生变化的用户的令牌纪元
+     * 纪元递增失败只记录日志，不影响已提交的业务数据
+     */
+    private void evictAfterCommit(List<Long> userIds, List<Long> changedIds) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                userAuthorityCache.evict(UserAuthorityCache.Type.PERMISSIONS, userIds);
+                for (Long userId : changedIds) {
+                    try {
+                        tokenEpochService.bump(userId);
+                    } catch (Exception e) {
+                        log.error("权限变更后递增令牌纪元失败 - 用户ID: {}, 错误: {}", userId, e.getMessage(), e);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * 按游标分批查询用户ID
+     */
+    @FunctionalInterface
+    private interface UserIdBatchQuery {
+        List<Long> find(Long id, Long afterUserId, Pageable pageable);
+    }
+}
@@ -1,25 +1,40 @@
 package hbnu.project.zhiyanauthservice.service.impl;
 
+import hbnu.project.zhiyanauthservice.cache.CachePolicy;
+import hbnu.project.zhiyanauthservice.cache.PolicyCache;
+import hbnu.project.zhiyanauthservice.cache.SingleFlightLoader;
+import hbnu.project.zhiyanauthservice.cache.UserAuthorityCache;
 import hbnu.project.zhiyanauthservice.mapper.MapperManager;
+import hbnu.project.zhiyanauthservice.model.dto.PermissionCheckResultDTO;
 import hbnu.project.zhiyanauthservice.model.dto.PermissionDTO;
 import hbnu.project.zhiyanauthservice.model.entity.Permission;
+import hbnu.project.zhiyanauthservice.model.form.PermissionCheckBody;
 import hbnu.project.zhiyanauthservice.repository.PermissionRepository;
+import hbnu.project.zhiyanauthservice.service.EffectivePermissionService;
 import hbnu.project.zhiyanauthservice.service.PermissionService;
+import hbnu.project.zhiyancommon.domain.CursorPage;
+import hbnu.project.zhiyancommon.domain.PageCursor;
 import hbnu.project.zhiyancommon.domain.R;
 import hbnu.project.zhiyancommon.service.RedisService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -37,12 +52,21 @@ public class PermissionServiceImpl implements PermissionService {
     private final PermissionRepository permissionRepository;
     private final MapperManager mapperManager;
     private final RedisService redisService;
+    private final UserAuthorityCache userAuthorityCache;
+    private final SingleFlightLoader singleFlightLoader;
+    private final PolicyCache policyCache;
+    private final EffectivePermissionService effectivePermissionService;
 
     // 缓存相关常量
-    private static final String USER_PERMISSIONS_CACHE_PREFIX = "user:permissions:";
     private static final String PERMISSION_CACHE_PREFIX = "permission:";
-    // 30分钟过期
-    private static final long CACHE_EXPIRE_TIME = 1800L;
+    // 30分钟过期（带随机抖动），不存在的权限缓存1分钟，剩余20%存活时间时后台刷新
+    private static final CachePolicy PERMISSION_CACHE_POLICY = CachePolicy.builder()
+            .ttlSeconds(1800L)
+            .nullTtlSeconds(60L)
+            .refreshAheadRatio(0.2)
+            .build();
+    // 单次批量校验的最大项数
+    private static final int MAX_BATCH_CHECK_SIZE = 1000;
 
 
     /**
@@ -63,15 +87,8 @@ public class PermissionServiceImpl implements PermissionService {
             // 先从缓存获取用户权限
             Set<String> userPermissions = getUserPermissionsFromCache(userId);
             if (userPermissions == null) {
-                // 缓存未命中，从数据库查询
-                List<Permission> permissions = permissionRepository.findAllByUserId(userId);
-                // 转set去重
-                userPermissions = permissions.stream()
-                        .map(Permission::getName)
-                        .collect(Collectors.toSet());
-                
-                // 缓存用户权限
-                cacheUserPermissions(userId, userPermissions);
+                // 缓存未命中，同一用户的并发请求合并为一次数据库查询
+                userPermissions = loadUserPermissions(userId);
             }
 
             // 判断用户权限集合中是否包含目标权限
@@ -103,14 +120,8 @@ public class PermissionServiceImpl implements PermissionService {
             // 先从缓存获取
             Set<String> userPermissions = getUserPermissionsFromCache(userId);
             if (userPermissions == null) {
-                // 缓存未命中，从数据库查询
-                List<Permission> permissions = permissionRepository.findAllByUserId(userId);
-                userPermissions = permissions.stream()
-                        .map(Permission::getName)
-                        .collect(Collectors.toSet());
-                
-                // 缓存用户权限
-                cacheUserPermissions(userId, userPermissions);
+                // 缓存未命中，同一用户的并发请求合并为一次数据库查询
+                userPermissions = loadUserPermissions(userId);
             }
 
             log.debug("获取用户[{}]权限列表，共{}个权限", userId, userPermissions.size());
@@ -158,6 +169,67 @@ public class PermissionServiceImpl implements PermissionService {
     }
 
 
+    /**
+     * 批量校验多组（用户ID，权限）
+     * 先对用户去重，缓存命中部分一次MGET取回，未命中部分一次分组SQL查出，
+     * 每个用户的权限集合只解析一次；结果按请求顺序写入位图，供调用方一次鉴权整页数据
+     *
+     * @param checkBody 批量校验请求
+     * @return R<PermissionCheckResultDTO> - 校验结果位图
+     */
+    @Override
+    public R<PermissionCheckResultDTO> checkPermissions(PermissionCheckBody checkBody) {
+        try {
+            if (checkBody == null) {
+                return R.fail("校验项不能为空");
+            }
+
+            // 展开为统一的校验项列表：items在前，单用户的permissions在后
+            List<PermissionCheckBody.Item> items = new ArrayList<>();
+            if (checkBody.getItems() != null) {
+                items.addAll(checkBody.getItems());
+            }
+            if (checkBody.getUserId() != null && checkBody.getPermissions() != null) {
+                for (String permission : checkBody.getPermissions()) {
+                    items.add(new PermissionCheckBody.Item(checkBody.getUserId(), permission));
+                }
+            }
+            if (items.isEmpty()) {
+                return R.fail("校验项不能为空");
+            }
+            if (items.size() > MAX_BATCH_CHECK_SIZE) {
+                return R.fail("单次最多校验" + MAX_BATCH_CHECK_SIZE + "项");
+            }
+
+            Set<Long> userIds = items.stream()
+                    .map(PermissionCheckBody.Item::getUserId)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+            Map<Long, Set<String>> userPermissions = loadUserPermissions(userIds);
+
+            BitSet granted = new BitSet(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                PermissionCheckBody.Item item = items.get(i);
+                Set<String> permissions = item.getUserId() != null ? userPermissions.get(item.getUserId()) : null;
+                if (permissions != null && item.getPermission() != null && permissions.contains(item.getPermission())) {
+                    granted.set(i);
+                }
+            }
+
+            PermissionCheckResultDTO result = PermissionCheckResultDTO.builder()
+                    .size(items.size())
+                    .grantedCount(granted.cardinality())
+                    .bitmap(Base64.getEncoder().encodeToString(granted.toByteArray()))
+                    .build();
+            log.debug("批量权限校验完成: 校验项={}, 用户数={}, 通过={}", items.size(), userIds.size(), result.getGrantedCount());
+            return R.ok(result);
+        } catch (Exception e) {
+            log.error("批量权限校验失败: {}", checkBody, e);
+            return R.fail("批量权限检查失败");
+        }
+    }
+
+
     /**
      * 分页查询所有权限（管理员后台常用）
      * 支持分页、排序，返回DTO对象避免暴露数据库实体细节
@@ -183,6 +255,38 @@ public class PermissionServiceImpl implements PermissionService {
     }
 
 
+    /**
+     * 游标分页查询权限列表
+     * 按 (权限名称, ID) 定位下一页，不执行 OFFSET；权限数量有限，需要总数时精确统计
+     *
+     * @param cursor    上一页返回的游标，首页为空
+     * @param size      每页条数
+     * @param withTotal 是否返回总数
+     * @return R<CursorPage<PermissionDTO>> - 本页权限DTO列表和下一页游标
+     */
+    @Override
+    public R<CursorPage<PermissionDTO>> getPermissionsByCursor(String cursor, Integer size, boolean withTotal) {
+        try {
+            PageCursor position = PageCursor.decode(cursor);
+            int pageSize = CursorPage.normalizeSize(size);
+            List<Permission> rows = permissionRepository.findPageAfter(
+                    position != null ? position.getSortKey() : "",
+                    position != null ? position.getId() : 0L,
+                    PageRequest.of(0, pageSize + 1));
+
+            CursorPage<PermissionDTO> page = CursorPage.of(rows, pageSize,
+                    row -> PageCursor.of(row.getName(), row.getId()),
+                    mapperManager::convertToPermissionDTOList);
+            return R.ok(withTotal ? page.withTotal(permissionRepository.count(), false) : page);
+        } catch (IllegalArgumentException e) {
+            return R.fail(e.getMessage());
+        } catch (Exception e) {
+            log.error("游标获取权限列表失败", e);
+            return R.fail("获取权限列表失败");
+        }
+    }
+
+
 
     /**
      * 创建新权限（高级别管理员操作）
@@ -248,8 +352,9 @@ public class PermissionServiceImpl implements PermissionService {
             }
 
             // 如果修改了名称，检查新名称是否已存在
-            if (StringUtils.hasText(permissionDTO.getName()) && 
-                !permissionDTO.getName().equals(existingPermission.getName())) {
+            boolean renamed = StringUtils.hasText(permissionDTO.getName()) &&
+                    !permissionDTO.getName().equals(existingPermission.getName());
+            if (renamed) {
                 if (permissionRepository.existsByName(permissionDTO.getName())) {
                     return R.fail("权限名称已存在: " + permissionDTO.getName());
                 }
@@ -263,9 +368,11 @@ public class PermissionServiceImpl implements PermissionService {
             // 实体转换为DTO返回
             PermissionDTO result = mapperManager.convertToPermissionDTO(updatedPermission);
             
-            // 清理相关缓存
+            // 清理相关缓存；改名时在同一事务中重新计算持有该权限的用户，提交后失效其权限缓存
             clearPermissionCache(permissionId);
-            clearAllUserPermissionsCache();
+            if (renamed) {
+                effectivePermissionService.refreshPermissionUsers(permissionId);
+            }
             
             log.info("更新权限成功: id={}, name={}", permissionId, updatedPermission.getName());
             return R.ok(result, "权限更新成功");
@@ -332,23 +439,10 @@ public class PermissionServiceImpl implements PermissionService {
         }
 
         try {
-            // 先从缓存查找
+            // 按缓存策略读取：不存在的ID缓存空值标记，热点条目在过期前后台刷新
             String cacheKey = PERMISSION_CACHE_PREFIX + permissionId;
-            Permission cachedPermission = redisService.getCacheObject(cacheKey);
-            
-            if (cachedPermission != null) {
-                return cachedPermission;
-            }
-
-            // 缓存未命中，从数据库查询
-            Permission permission = permissionRepository.findById(permissionId).orElse(null);
-            
-            if (permission != null) {
-                // 查询到权限实体时，存入缓存
-                redisService.setCacheObject(cacheKey, permission, CACHE_EXPIRE_TIME, TimeUnit.SECONDS);
-            }
-
-            return permission;
+            return policyCache.get(cacheKey, PERMISSION_CACHE_POLICY,
+                    () -> permissionRepository.findById(permissionId).orElse(null));
         } catch (Exception e) {
             log.error("根据ID查找权限失败: id={}", permissionId, e);
             // 如果缓存出错，直接从数据库查询
@@ -357,6 +451,76 @@ public class PermissionServiceImpl implements PermissionService {
     }
 
 
+    /**
+     * 全量重建用户有效权限投影（管理员操作）
+     * 按用户ID分批并行重新计算，用于上线初始化或修复投影与关联数据的偏差
+     *
+     * @return R<Integer> - 成功返回重建的用户数；失败返回错误信息
+     */
+    @Override
+    public R<Integer> rebuildEffectivePermissions() {
+        try {
+            int rebuiltUsers = effectivePermissionService.rebuildAll();
+            return R.ok(rebuiltUsers, "有效权限重建完成");
+        } catch (IllegalStateException e) {
+            log.warn("重建有效权限失败: {}", e.getMessage());
+            return R.fail(e.getMessage());
+        } catch (Exception e) {
+            log.error("重建有效权限失败", e);
+            return R.fail("重建有效权限失败");
+        }
+    }
+
+
+    /**
+     * 批量解析多个用户的权限集合
+     * 缓存命中的用户从两级缓存取回，未命中的用户合并为一次有效权限投影的主键查询，查询结果回填缓存
+     *
+     * @param userIds 已去重的用户ID集合
+     * @return 用户ID到权限名称集合的映射，每个用户都有对应的集合（可能为空）
+     */
+    private Map<Long, Set<String>> loadUserPermissions(Collection<Long> userIds) {
+        Map<Long, Set<String>> result = new HashMap<>(userIds.size() * 2);
+        if (userIds.isEmpty()) {
+            return result;
+        }
+
+        // 两级缓存命中的用户直接取用，一级缓存未命中的用户合并为一次MGET
+        result.putAll(userAuthorityCache.getAll(UserAuthorityCache.Type.PERMISSIONS, userIds));
+        List<Long> missedIds = userIds.stream()
+                .filter(userId -> !result.containsKey(userId))
+                .collect(Collectors.toList());
+
+        if (!missedIds.isEmpty()) {
+            long generation = userAuthorityCache.generation(UserAuthorityCache.Type.PERMISSIONS);
+            Map<Long, Set<String>> loaded = effectivePermissionService.getPermissions(missedIds);
+            // 没有任何权限的用户同样缓存空集合，避免重复查询数据库
+            loaded.forEach((userId, permissions) -> cacheUserPermissions(userId, generation, permissions));
+            result.putAll(loaded);
+        }
+        return result;
+    }
+
+
+    /**
+     * 从有效权限投影加载单个用户的权限并回填缓存
+     * 同一用户的并发加载经 SingleFlightLoader 合并，跨节点只有持有租约的节点查询数据库
+     *
+     * @param userId 用户ID
+     * @return 不可变的权限名称集合
+     */
+    private Set<String> loadUserPermissions(Long userId) {
+        return singleFlightLoader.load(UserAuthorityCache.Type.PERMISSIONS.getPrefix() + userId,
+                () -> getUserPermissionsFromCache(userId),
+                () -> {
+                    long generation = userAuthorityCache.generation(UserAuthorityCache.Type.PERMISSIONS);
+                    Set<String> permissions = effectivePermissionService.getPermissions(userId);
+                    cacheUserPermissions(userId, generation, permissions);
+                    return permissions;
+                });
+    }
+
+
     /**
      * 从Redis缓存中获取用户的权限列表
      * 封装缓存查询逻辑，避免重复代码
@@ -365,14 +529,8 @@ public class PermissionServiceImpl implements PermissionService {
      * @return Set<String> - 缓存中的权限名称集合；缓存不存在或异常时返回null
      */
     private Set<String> getUserPermissionsFromCache(Long userId) {
-        try {
-            String cacheKey = USER_PERMISSIONS_CACHE_PREFIX + userId;
-            // 从Redis读取缓存：依赖RedisService封装的通用缓存查询方法，返回权限集合
-            return redisService.getCacheObject(cacheKey);
-        } catch (Exception e) {
-            log.warn("从缓存获取用户权限失败: userId={}", userId, e);
-            return null;
-        }
+        // 先查本地一级缓存，未命中再查Redis，两级缓存的异常处理由UserAuthorityCache统一完成
+        return userAuthorityCache.get(UserAuthorityCache.Type.PERMISSIONS, userId);
     }
 
 
@@ -381,16 +539,12 @@ public class PermissionServiceImpl implements PermissionService {
      * 封装用户权限的缓存写入逻辑，统一设置缓存过期时间，确保缓存数据时效性
      *
      * @param userId      用户ID（缓存键核心标识，与查询时的键保持一致）
+     * @param generation  查询数据库之前取得的缓存失效计数
      * @param permissions 需缓存的用户权限集合（从数据库查询后的数据，确保数据准确性）
      */
-    private void cacheUserPermissions(Long userId, Set<String> permissions) {
-        try {
-            // 构建与查询逻辑一致的缓存键，保证缓存读写键的统一性，然后查询
-            String cacheKey = USER_PERMISSIONS_CACHE_PREFIX + userId;
-            redisService.setCacheObject(cacheKey, permissions, CACHE_EXPIRE_TIME, TimeUnit.SECONDS);
-        } catch (Exception e) {
-            log.warn("缓存用户权限失败: userId={}", userId, e);
-        }
+    private void cacheUserPermissions(Long userId, long generation, Set<String> permissions) {
+        // 同时写入Redis和本地一级缓存
+        userAuthorityCache.put(UserAuthorityCache.Type.PERMISSIONS, userId, generation, permissions);
     }
 
 
@@ -417,14 +571,7 @@ public class PermissionServiceImpl implements PermissionService {
      * 避免部分用户使用旧的权限缓存，导致权限校验结果不准确
      */
     private void clearAllUserPermissionsCache() {
-        try {
-            // 清理用户权限相关的缓存
-            Collection<String> keys = redisService.keys(USER_PERMISSIONS_CACHE_PREFIX + "*");
-            if (keys != null && !keys.isEmpty()) {
-                redisService.deleteObject(keys);
-            }
-        } catch (Exception e) {
-            log.warn("清理用户权限缓存失败", e);
-        }
+        // 清理Redis中的用户权限缓存，并广播通知所有节点清空本地一级缓存
+        userAuthorityCache.evictAll(UserAuthorityCache.Type.PERMISSIONS);
     }
 }
@@ -1,11 +1,13 @@
 package hbnu.project.zhiyanauthservice.service.impl;
 
+import hbnu.project.zhiyanauthservice.cache.CachePolicy;
+import hbnu.project.zhiyanauthservice.cache.PolicyCache;
+import hbnu.project.zhiyanauthservice.cache.SingleFlightLoader;
+import hbnu.project.zhiyanauthservice.cache.UserAuthorityCache;
 import hbnu.project.zhiyanauthservice.mapper.MapperManager;
+import hbnu.project.zhiyanauthservice.model.dto.AssignmentResultDTO;
 import hbnu.project.zhiyanauthservice.model.dto.RoleDTO;
-import hbnu.project.zhiyanauthservice.model.entity.Permission;
 import hbnu.project.zhiyanauthservice.model.entity.Role;
-import hbnu.project.zhiyanauthservice.model.entity.RolePermission;
-import hbnu.project.zhiyanauthservice.model.entity.User;
 import hbnu.project.zhiyanauthservice.model.entity.UserRole;
 import hbnu.project.zhiyanauthservice.model.enums.PermissionModule;
 import hbnu.project.zhiyanauthservice.repository.PermissionRepository;
@@ -13,8 +15,12 @@ import hbnu.project.zhiyanauthservice.repository.RolePermissionRepository;
 import hbnu.project.zhiyanauthservice.repository.RoleRepository;
 import hbnu.project.zhiyanauthservice.repository.UserRepository;
 import hbnu.project.zhiyanauthservice.repository.UserRoleRepository;
+import hbnu.project.zhiyanauthservice.service.EffectivePermissionService;
 import hbnu.project.zhiyanauthservice.service.RoleService;
+import hbnu.project.zhiyanauthservice.utils.BulkAssignmentUtil;
 import hbnu.project.zhiyanauthservice.utils.PermissionAssignmentUtil;
+import hbnu.project.zhiyancommon.domain.CursorPage;
+import hbnu.project.zhiyancommon.domain.PageCursor;
 import hbnu.project.zhiyancommon.domain.R;
 import hbnu.project.zhiyancommon.service.RedisService;
 import hbnu.project.zhiyancommon.utils.id.SnowflakeIdUtil;
@@ -22,15 +28,16 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
-import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -52,13 +59,23 @@ public class RoleServiceImpl implements RoleService {
     private final PermissionRepository permissionRepository;
     private final MapperManager mapperManager;
     private final RedisService redisService;
+    private final UserAuthorityCache userAuthorityCache;
+    private final SingleFlightLoader singleFlightLoader;
+    private final PolicyCache policyCache;
     private final PermissionAssignmentUtil permissionAssignmentUtil;
+    private final EffectivePermissionService effectivePermissionService;
+    private final BulkAssignmentUtil bulkAssignmentUtil;
 
     // 缓存相关常量
-    private static final String USER_ROLES_CACHE_PREFIX = "user:roles:";
     private static final String ROLE_CACHE_PREFIX = "role:";
     private static final String ROLE_PERMISSIONS_CACHE_PREFIX = "role:permissions:";
-    private static final long CACHE_EXPIRE_TIME = 1800L; // 30分钟
+    // 30分钟过期（带随机抖动），不存在的角色缓存1分钟，剩余20%存活时间时后台刷新
+    private static final CachePolicy ROLE_CACHE_POLICY = CachePolicy.builder()
+            .ttlSeconds(1800L)
+            .nullTtlSeconds(60L)
+            .refreshAheadRatio(0.2)
+            .build();
+    private static final int ROLE_USERS_BATCH_SIZE = 500; // 按角色清理用户缓存时每批用户数
 
 
     /**
@@ -77,15 +94,18 @@ public class RoleServiceImpl implements RoleService {
             // 先从缓存获取
             Set<String> userRoles = getUserRolesFromCache(userId);
             if (userRoles == null) {
-                // 缓存未命中，从数据库查询
-                List<Role> roles = roleRepository.findAllByUserId(userId);
-                // 提取角色名称，转换为Set集合
-                userRoles = roles.stream()
-                        .map(Role::getName)
-                        .collect(Collectors.toSet());
-                
-                // 缓存用户角色
-                cacheUserRoles(userId, userRoles);
+                // 缓存未命中，同一用户的并发请求合并为一次数据库查询
+                userRoles = singleFlightLoader.load(UserAuthorityCache.Type.ROLES.getPrefix() + userId,
+                        () -> getUserRolesFromCache(userId),
+                        () -> {
+                            long generation = userAuthorityCache.generation(UserAuthorityCache.Type.ROLES);
+                            // 提取角色名称，转换为Set集合
+                            Set<String> roles = roleRepository.findAllByUserId(userId).stream()
+                                    .map(Role::getName)
+                                    .collect(Collectors.toUnmodifiableSet());
+                            cacheUserRoles(userId, generation, roles);
+                            return roles;
+                        });
             }
 
             log.debug("获取用户[{}]角色列表，共{}个角色", userId, userRoles.size());
@@ -99,74 +119,44 @@ public class RoleServiceImpl implements RoleService {
 
     /**
      * 为用户分配角色（多对多关联）
-     * 核心逻辑：验证用户/角色存在性 → 过滤已存在关联 → 新增关联关系 → 清理缓存
+     * 核心逻辑：验证用户/角色存在性 → 以集合差异过滤已存在关联 → 多行插入新增关联 → 重新计算有效权限、清理缓存
      *
      * @param userId  被分配角色的用户ID
      * @param roleIds 待分配的角色ID列表（不能为空）
-     * @return R<Void> - 成功返回"角色分配成功"；失败返回错误信息（如用户不存在、部分角色不存在）
+     * @return R<AssignmentResultDTO> - 成功返回新增的关联数；失败返回错误信息（如用户不存在、部分角色不存在）
      */
     @Override
     @Transactional
-    public R<Void> assignRolesToUser(Long userId, List<Long> roleIds) {
+    public R<AssignmentResultDTO> assignRolesToUser(Long userId, List<Long> roleIds) {
         try {
             if (userId == null || roleIds == null || roleIds.isEmpty()) {
                 return R.fail("用户ID和角色ID列表不能为空");
             }
 
             // 验证用户是否存在
-            User user = userRepository.findById(userId).orElse(null);
-            if (user == null) {
+            if (!userRepository.existsById(userId)) {
                 return R.fail("用户不存在: " + userId);
             }
 
-            // 验证角色是否存在
-            List<Role> roles = roleRepository.findAllById(roleIds);
-            if (roles.size() != roleIds.size()) {
+            // 验证角色是否存在（按去重后的ID计数，重复传入同一角色不算缺失）
+            Set<Long> distinctRoleIds = new HashSet<>(roleIds);
+            if (roleRepository.findAllById(distinctRoleIds).size() != distinctRoleIds.size()) {
                 return R.fail("部分角色不存在");
             }
 
-            // 查询用户已有的角色关联，避免重复分配
-            List<UserRole> existingUserRoles = userRoleRepository.findByUserId(userId);
-            // 提取已关联的角色ID，存入Set便于快速判断
-            Set<Long> existingRoleIds = existingUserRoles.stream()
-                    .map(ur -> ur.getRole().getId())
-                    .collect(Collectors.toSet());
-
-            // 过滤掉已存在的角色ID，只保留需要新增的角色
-            List<Long> newRoleIds = roleIds.stream()
-                    .filter(roleId -> !existingRoleIds.contains(roleId))
-                    .collect(Collectors.toList());
-
-            if (newRoleIds.isEmpty()) {
-                return R.ok(null, "用户已拥有所有指定角色");
-            }
-
-            // 构建新的用户-角色关联实体
-            List<UserRole> newUserRoles = newRoleIds.stream()
-                    .map(roleId -> {
-                        // 从已查询的角色列表中匹配当前角色ID
-                        Role role = roles.stream()
-                                .filter(r -> r.getId().equals(roleId))
-                                .findFirst()
-                                .orElse(null);
-                        
-                        return UserRole.builder()
-                                .id(SnowflakeIdUtil.nextId())
-                                .user(user)
-                                .role(role)
-                                .build();
-                    })
-                    .collect(Collectors.toList());
-
-            // 写入数据库
-            userRoleRepository.saveAll(newUserRoles);
+            BulkAssignmentUtil.AssignmentResult result =
+                    bulkAssignmentUtil.assign(BulkAssignmentUtil.Relation.USER_ROLES, userId, distinctRoleIds);
+            if (result.addedIds().isEmpty()) {
+                return R.ok(toAssignmentDTO(result), "用户已拥有所有指定角色");
+            }
 
             // 清理相关缓存
             clearUserRolesCache(userId);
-            clearUserPermissionsCache(userId);
+            // 在同一事务中重新计算有效权限，提交后失效权限缓存
+            effectivePermissionService.refreshUsers(List.of(userId));
 
-            log.info("为用户[{}]分配角色成功: {}", userId, newRoleIds);
-            return R.ok(null, "角色分配成功");
+            log.info("为用户[{}]分配角色成功: {}", userId, result.addedIds());
+            return R.ok(toAssignmentDTO(result), "角色分配成功");
         } catch (Exception e) {
             log.error("为用户分配角色失败: userId={}, roleIds={}", userId, roleIds, e);
             return R.fail("角色分配失败");
@@ -176,31 +166,33 @@ public class RoleServiceImpl implements RoleService {
 
     /**
      * 从用户身上移除角色（解除多对多关联）
+     * 一条 DELETE ... IN 删除全部指定关联
      *
      * @param userId  被移除角色的用户ID
      * @param roleIds 待移除的角色ID列表（不能为空）
-     * @return R<Void> - 成功返回"角色移除成功"；失败返回错误信息
+     * @return R<AssignmentResultDTO> - 成功返回删除的关联数；失败返回错误信息
      */
     @Override
     @Transactional
-    public R<Void> removeRolesFromUser(Long userId, List<Long> roleIds) {
+    public R<AssignmentResultDTO> removeRolesFromUser(Long userId, List<Long> roleIds) {
         try {
             if (userId == null || roleIds == null || roleIds.isEmpty()) {
                 return R.fail("用户ID和角色ID列表不能为空");
             }
 
             // 删除用户角色关联
-            int deletedCount = 0;
-            for (Long roleId : roleIds) {
-                deletedCount += userRoleRepository.deleteByUserIdAndRoleId(userId, roleId);
-            }
+            BulkAssignmentUtil.AssignmentResult result =
+                    bulkAssignmentUtil.remove(BulkAssignmentUtil.Relation.USER_ROLES, userId, roleIds);
 
-            // 清理相关缓存
-            clearUserRolesCache(userId);
-            clearUserPermissionsCache(userId);
+            if (result.removedCount() > 0) {
+                // 清理相关缓存
+                clearUserRolesCache(userId);
+                // 在同一事务中重新计算有效权限，提交后失效权限缓存
+                effectivePermissionService.refreshUsers(List.of(userId));
+            }
 
-            log.info("移除用户[{}]角色成功: {}, 删除了{}条记录", userId, roleIds, deletedCount);
-            return R.ok(null, "角色移除成功");
+            log.info("移除用户[{}]角色成功: {}, 删除了{}条记录", userId, roleIds, result.removedCount());
+            return R.ok(toAssignmentDTO(result), "角色移除成功");
         } catch (Exception e) {
             log.error("移除用户角色失败: userId={}, roleIds={}", userId, roleIds, e);
             return R.fail("角色移除失败");
@@ -208,6 +200,84 @@ public class RoleServiceImpl implements RoleService {
     }
 
 
+    /**
+     * 把一个角色批量分配给多个用户
+     * 可一次处理上万个用户：存在性校验、差异计算和写入都按块执行，不加载用户实体
+     *
+     * @param roleId  角色ID
+     * @param userIds 用户ID列表（不能为空）
+     * @return R<AssignmentResultDTO> - 成功返回新增的关联数；失败返回错误信息（如角色不存在、部分用户不存在）
+     */
+    @Override
+    @Transactional
+    public R<AssignmentResultDTO> assignRoleToUsers(Long roleId, List<Long> userIds) {
+        try {
+            if (roleId == null || userIds == null || userIds.isEmpty()) {
+                return R.fail("角色ID和用户ID列表不能为空");
+            }
+
+            if (!roleRepository.existsById(roleId)) {
+                return R.fail("角色不存在: " + roleId);
+            }
+
+            // 验证用户是否存在且未删除
+            List<Long> distinctUserIds = List.copyOf(new LinkedHashSet<>(userIds));
+            int activeUsers = 0;
+            for (int from = 0; from < distinctUserIds.size(); from += ROLE_USERS_BATCH_SIZE) {
+                List<Long> chunk = distinctUserIds.subList(from, Math.min(distinctUserIds.size(), from + ROLE_USERS_BATCH_SIZE));
+                activeUsers += userRepository.findActiveIdsIn(chunk).size();
+            }
+            if (activeUsers != distinctUserIds.size()) {
+                return R.fail("部分用户不存在或已删除");
+            }
+
+            BulkAssignmentUtil.AssignmentResult result =
+                    bulkAssignmentUtil.assign(BulkAssignmentUtil.Relation.ROLE_USERS, roleId, distinctUserIds);
+            if (!result.addedIds().isEmpty()) {
+                clearUsersRolesCache(result.addedIds());
+                effectivePermissionService.refreshUsers(result.addedIds());
+            }
+
+            log.info("角色[{}]批量分配给用户完成: 请求{}个, 新增{}个", roleId, distinctUserIds.size(), result.addedCount());
+            return R.ok(toAssignmentDTO(result), "角色分配成功");
+        } catch (Exception e) {
+            log.error("角色批量分配给用户失败: roleId={}, 用户数={}", roleId, userIds != null ? userIds.size() : 0, e);
+            return R.fail("角色分配失败");
+        }
+    }
+
+
+    /**
+     * 批量移除多个用户的同一角色
+     *
+     * @param roleId  角色ID
+     * @param userIds 用户ID列表（不能为空）
+     * @return R<AssignmentResultDTO> - 成功返回删除的关联数；失败返回错误信息
+     */
+    @Override
+    @Transactional
+    public R<AssignmentResultDTO> removeRoleFromUsers(Long roleId, List<Long> userIds) {
+        try {
+            if (roleId == null || userIds == null || userIds.isEmpty()) {
+                return R.fail("角色ID和用户ID列表不能为空");
+            }
+
+            BulkAssignmentUtil.AssignmentResult result =
+                    bulkAssignmentUtil.remove(BulkAssignmentUtil.Relation.ROLE_USERS, roleId, userIds);
+            if (result.removedCount() > 0) {
+                clearUsersRolesCache(result.removedIds());
+                effectivePermissionService.refreshUsers(result.removedIds());
+            }
+
+            log.info("批量移除用户角色[{}]完成: 请求{}个, 删除{}条记录", roleId, result.removedIds().size(), result.removedCount());
+            return R.ok(toAssignmentDTO(result), "角色移除成功");
+        } catch (Exception e) {
+            log.error("批量移除用户角色失败: roleId={}, 用户数={}", roleId, userIds != null ? userIds.size() : 0, e);
+            return R.fail("角色移除失败");
+        }
+    }
+
+
     /**
      * 分页查询所有角色（管理员后台角色管理功能常用）
      * 支持分页、排序，返回DTO避免暴露数据库实体细节
@@ -233,6 +303,38 @@ public class RoleServiceImpl implements RoleService {
     }
 
 
+    /**
+     * 游标分页查询角色列表
+     * 按 (角色名称, ID) 定位下一页，不执行 OFFSET；角色数量有限，需要总数时精确统计
+     *
+     * @param cursor    上一页返回的游标，首页为空
+     * @param size      每页条数
+     * @param withTotal 是否返回总数
+     * @return R<CursorPage<RoleDTO>> - 本页角色DTO列表和下一页游标
+     */
+    @Override
+    public R<CursorPage<RoleDTO>> getRolesByCursor(String cursor, Integer size, boolean withTotal) {
+        try {
+            PageCursor position = PageCursor.decode(cursor);
+            int pageSize = CursorPage.normalizeSize(size);
+            List<Role> rows = roleRepository.findPageAfter(
+                    position != null ? position.getSortKey() : "",
+                    position != null ? position.getId() : 0L,
+                    PageRequest.of(0, pageSize + 1));
+
+            CursorPage<RoleDTO> page = CursorPage.of(rows, pageSize,
+                    row -> PageCursor.of(row.getName(), row.getId()),
+                    mapperManager::convertToRoleDTOList);
+            return R.ok(withTotal ? page.withTotal(roleRepository.count(), false) : page);
+        } catch (IllegalArgumentException e) {
+            return R.fail(e.getMessage());
+        } catch (Exception e) {
+            log.error("游标获取角色列表失败", e);
+            return R.fail("获取角色列表失败");
+        }
+    }
+
+
     /**
      * 创建新角色
      *
@@ -309,8 +411,7 @@ public class RoleServiceImpl implements RoleService {
             
             // 清理相关缓存
             clearRoleCache(roleId);
-            clearAllUserRolesCache();
-            clearAllUserPermissionsCache();
+            clearRoleUsersCache(roleId, UserAuthorityCache.Type.ROLES, UserAuthorityCache.Type.PERMISSIONS);
             
             log.info("更新角色成功: id={}, name={}", roleId, updatedRole.getName());
             return R.ok(result, "角色更新成功");
@@ -370,68 +471,39 @@ public class RoleServiceImpl implements RoleService {
      *
      * @param roleId        被分配权限的角色ID
      * @param permissionIds 待分配的权限ID列表（不能为空）
-     * @return R<Void> - 成功返回"权限分配成功"；失败返回错误信息（如角色不存在、部分权限无效）
+     * @return R<AssignmentResultDTO> - 成功返回新增的关联数；失败返回错误信息（如角色不存在、部分权限无效）
      */
     @Override
     @Transactional
-    public R<Void> assignPermissionsToRole(Long roleId, List<Long> permissionIds) {
+    public R<AssignmentResultDTO> assignPermissionsToRole(Long roleId, List<Long> permissionIds) {
         try {
             if (roleId == null || permissionIds == null || permissionIds.isEmpty()) {
                 return R.fail("角色ID和权限ID列表不能为空");
             }
 
             // 验证角色是否存在
-            Role role = roleRepository.findById(roleId).orElse(null);
-            if (role == null) {
+            if (!roleRepository.existsById(roleId)) {
                 return R.fail("角色不存在: " + roleId);
             }
 
-            // 验证权限是否存在
-            List<Permission> permissions = permissionRepository.findAllById(permissionIds);
-            if (permissions.size() != permissionIds.size()) {
+            // 验证权限是否存在（按去重后的ID计数）
+            Set<Long> distinctPermissionIds = new HashSet<>(permissionIds);
+            if (permissionRepository.findAllById(distinctPermissionIds).size() != distinctPermissionIds.size()) {
                 return R.fail("部分权限不存在");
             }
 
-            // 获取角色已有的权限关联
-            List<RolePermission> existingRolePermissions = rolePermissionRepository.findByRoleId(roleId);
-            Set<Long> existingPermissionIds = existingRolePermissions.stream()
-                    .map(rp -> rp.getPermission().getId())
-                    .collect(Collectors.toSet());
-
-            // 过滤掉已存在的权限关联
-            List<Long> newPermissionIds = permissionIds.stream()
-                    .filter(permissionId -> !existingPermissionIds.contains(permissionId))
-                    .collect(Collectors.toList());
-
-            if (newPermissionIds.isEmpty()) {
-                return R.ok(null, "角色已拥有所有指定权限");
-            }
-
-            // 创建新的权限关联
-            List<RolePermission> newRolePermissions = newPermissionIds.stream()
-                    .map(permissionId -> {
-                        // 从已查询的权限列表中匹配当前权限ID
-                        Permission permission = permissions.stream()
-                                .filter(p -> p.getId().equals(permissionId))
-                                .findFirst()
-                                .orElse(null);
-                        
-                        return RolePermission.builder()
-                                .id(SnowflakeIdUtil.nextId())
-                                .role(role)
-                                .permission(permission)
-                                .build();
-                    })
-                    .collect(Collectors.toList());
-
-            rolePermissionRepository.saveAll(newRolePermissions);
+            BulkAssignmentUtil.AssignmentResult result =
+                    bulkAssignmentUtil.assign(BulkAssignmentUtil.Relation.ROLE_PERMISSIONS, roleId, distinctPermissionIds);
+            if (result.addedIds().isEmpty()) {
+                return R.ok(toAssignmentDTO(result), "角色已拥有所有指定权限");
+            }
 
             // 清理相关缓存
             clearRolePermissionsCache(roleId);
-            clearAllUserPermissionsCache();
+            int affectedUsers = effectivePermissionService.refreshRoleUsers(roleId);
 
-            log.info("为角色[{}]分配权限成功: {}", roleId, newPermissionIds);
-            return R.ok(null, "权限分配成功");
+            log.info("为角色[{}]分配权限成功: {}, 影响用户数: {}", roleId, result.addedIds(), affectedUsers);
+            return R.ok(toAssignmentDTO(result), "权限分配成功");
         } catch (Exception e) {
             log.error("为角色分配权限失败: roleId={}, permissionIds={}", roleId, permissionIds, e);
             return R.fail("权限分配失败");
@@ -441,31 +513,33 @@ public class RoleServiceImpl implements RoleService {
 
     /**
      * 从角色中移除权限（解除角色-权限关联）
+     * 一条 DELETE ... IN 删除全部指定关联
      *
      * @param roleId        被移除权限的角色ID
      * @param permissionIds 待移除的权限ID列表（不能为空）
-     * @return R<Void> - 成功返回"权限移除成功"；失败返回错误信息
+     * @return R<AssignmentResultDTO> - 成功返回删除的关联数；失败返回错误信息
      */
     @Override
     @Transactional
-    public R<Void> removePermissionsFromRole(Long roleId, List<Long> permissionIds) {
+    public R<AssignmentResultDTO> removePermissionsFromRole(Long roleId, List<Long> permissionIds) {
         try {
             if (roleId == null || permissionIds == null || permissionIds.isEmpty()) {
                 return R.fail("角色ID和权限ID列表不能为空");
             }
 
             // 删除角色权限关联
-            int deletedCount = 0;
-            for (Long permissionId : permissionIds) {
-                deletedCount += rolePermissionRepository.deleteByRoleIdAndPermissionId(roleId, permissionId);
-            }
+            BulkAssignmentUtil.AssignmentResult result =
+                    bulkAssignmentUtil.remove(BulkAssignmentUtil.Relation.ROLE_PERMISSIONS, roleId, permissionIds);
 
-            // 清理相关缓存
-            clearRolePermissionsCache(roleId);
-            clearAllUserPermissionsCache();
+            int affectedUsers = 0;
+            if (result.removedCount() > 0) {
+                // 清理相关缓存
+                clearRolePermissionsCache(roleId);
+                affectedUsers = effectivePermissionService.refreshRoleUsers(roleId);
+            }
 
-            log.info("移除角色[{}]权限成功: {}, 删除了{}条记录", roleId, permissionIds, deletedCount);
-            return R.ok(null, "权限移除成功");
+            log.info("移除角色[{}]权限成功: {}, 删除了{}条记录, 影响用户数: {}", roleId, permissionIds, result.removedCount(), affectedUsers);
+            return R.ok(toAssignmentDTO(result), "权限移除成功");
         } catch (Exception e) {
             log.error("移除角色权限失败: roleId={}, permissionIds={}", roleId, permissionIds, e);
             return R.fail("权限移除失败");
@@ -486,23 +560,10 @@ public class RoleServiceImpl implements RoleService {
         }
 
         try {
-            // 先从缓存查找
+            // 按缓存策略读取：不存在的ID缓存空值标记，热点条目在过期前后台刷新
             String cacheKey = ROLE_CACHE_PREFIX + roleId;
-            Role cachedRole = redisService.getCacheObject(cacheKey);
-            
-            if (cachedRole != null) {
-                return cachedRole;
-            }
-
-            // 缓存未命中，从数据库查询
-            Role role = roleRepository.findById(roleId).orElse(null);
-            
-            if (role != null) {
-                // 缓存角色信息
-                redisService.setCacheObject(cacheKey, role, CACHE_EXPIRE_TIME, TimeUnit.SECONDS);
-            }
-
-            return role;
+            return policyCache.get(cacheKey, ROLE_CACHE_POLICY,
+                    () -> roleRepository.findById(roleId).orElse(null));
         } catch (Exception e) {
             log.error("根据ID查找角色失败: id={}", roleId, e);
             // 如果缓存出错，直接从数据库查询
@@ -541,13 +602,8 @@ public class RoleServiceImpl implements RoleService {
      * @return Set<String> - 缓存命中返回角色名称集合；未命中或异常返回null（触发数据库查询）
      */
     private Set<String> getUserRolesFromCache(Long userId) {
-        try {
-            String cacheKey = USER_ROLES_CACHE_PREFIX + userId;
-            return redisService.getCacheObject(cacheKey);
-        } catch (Exception e) {
-            log.warn("从缓存获取用户角色失败: userId={}", userId, e);
-            return null;
-        }
+        // 先查本地一级缓存，未命中再查Redis
+        return userAuthorityCache.get(UserAuthorityCache.Type.ROLES, userId);
     }
 
 
@@ -555,16 +611,12 @@ public class RoleServiceImpl implements RoleService {
      * 将用户角色列表存入Redis缓存
      * 封装缓存写入逻辑，统一设置过期时间，确保缓存数据时效性
      *
-     * @param userId 用户ID（缓存键标识）
-     * @param roles 需缓存的角色名称集合（从数据库查询的最新数据）
+     * @param userId     用户ID（缓存键标识）
+     * @param generation 查询数据库之前取得的缓存失效计数
+     * @param roles      需缓存的角色名称集合（从数据库查询的最新数据）
      */
-    private void cacheUserRoles(Long userId, Set<String> roles) {
-        try {
-            String cacheKey = USER_ROLES_CACHE_PREFIX + userId;
-            redisService.setCacheObject(cacheKey, roles, CACHE_EXPIRE_TIME, TimeUnit.SECONDS);
-        } catch (Exception e) {
-            log.warn("缓存用户角色失败: userId={}", userId, e);
-        }
+    private void cacheUserRoles(Long userId, long generation, Set<String> roles) {
+        userAuthorityCache.put(UserAuthorityCache.Type.ROLES, userId, generation, roles);
     }
 
 
@@ -591,32 +643,36 @@ public class RoleServiceImpl implements RoleService {
      * @param userId 用户ID（缓存键核心标识）
      */
     private void clearUserRolesCache(Long userId) {
-        try {
-            String cacheKey = USER_ROLES_CACHE_PREFIX + userId;
-            redisService.deleteObject(cacheKey);
-        } catch (Exception e) {
-            log.warn("清理用户角色缓存失败: userId={}", userId, e);
-        }
+        // 删除Redis缓存并广播，所有节点同步清除本地一级缓存
+        userAuthorityCache.evict(UserAuthorityCache.Type.ROLES, userId);
     }
 
 
     /**
-     * 批量清理所有用户的角色缓存
-     * 用于全局角色信息变更（如角色名称修改）后，确保所有用户的角色列表同步更新
+     * 分批清理多个用户的角色缓存
+     * 批量分配可能涉及上万个用户，按批发送DEL和广播，避免单条命令和消息过大
+     *
+     * @param userIds 用户ID列表
      */
-    private void clearAllUserRolesCache() {
-        try {
-            // 模糊匹配所有用户角色缓存键（如"user:roles:*"）
-            Collection<String> keys = redisService.keys(USER_ROLES_CACHE_PREFIX + "*");
-            if (keys != null && !keys.isEmpty()) {
-                redisService.deleteObject(keys);
-            }
-        } catch (Exception e) {
-            log.warn("清理所有用户角色缓存失败", e);
+    private void clearUsersRolesCache(List<Long> userIds) {
+        for (int from = 0; from < userIds.size(); from += ROLE_USERS_BATCH_SIZE) {
+            userAuthorityCache.evict(UserAuthorityCache.Type.ROLES,
+                    userIds.subList(from, Math.min(userIds.size(), from + ROLE_USERS_BATCH_SIZE)));
         }
     }
 
 
+    /**
+     * 将批量分配结果转换为返回给调用方的计数
+     */
+    private AssignmentResultDTO toAssignmentDTO(BulkAssignmentUtil.AssignmentResult result) {
+        return AssignmentResultDTO.builder()
+                .added(result.addedCount())
+                .removed(result.removedCount())
+                .build();
+    }
+
+
     /**
      * 清理指定角色的权限缓存
      * 用于角色权限变更（如分配/移除权限）后，确保角色的权限列表重新加载
@@ -634,36 +690,40 @@ public class RoleServiceImpl implements RoleService {
 
 
     /**
-     * 清理指定用户的权限缓存
-     * 用于用户角色变更（间接影响权限）后，确保用户的权限列表重新加载
+     * 清理拥有指定角色的用户缓存
+     * 角色变更只影响持有该角色的用户，按用户ID分批查出后逐批失效，避免清空全部用户缓存引发集中回源
      *
-     * @param userId 用户ID（缓存键核心标识）
+     * @param roleId 角色ID
+     * @param types  需要清理的缓存类型
+     * @return 受影响的用户数
      */
-    private void clearUserPermissionsCache(Long userId) {
+    private int clearRoleUsersCache(Long roleId, UserAuthorityCache.Type... types) {
+        int affectedUsers = 0;
         try {
-            // 注意：此处直接使用"user:permissions:"前缀（与权限服务保持一致）
-            String cacheKey = "user:permissions:" + userId;
-            redisService.deleteObject(cacheKey);
-        } catch (Exception e) {
-            log.warn("清理用户权限缓存失败: userId={}", userId, e);
-        }
-    }
-
+            Pageable batch = PageRequest.of(0, ROLE_USERS_BATCH_SIZE);
+            long afterUserId = 0L;
+            List<Long> userIds;
+            do {
+                userIds = userRoleRepository.findUserIdsByRoleId(roleId, afterUserId, batch);
+                if (userIds.isEmpty()) {
+                    break;
+                }
+                for (UserAuthorityCache.Type type : types) {
+                    userAuthorityCache.evict(type, userIds);
+                }
+                affectedUsers += userIds.size();
+                afterUserId = userIds.get(userIds.size() - 1);
+            } while (userIds.size() == ROLE_USERS_BATCH_SIZE);
 
-    /**
-     * 批量清理所有用户的权限缓存
-     * 用于全局权限变更（如角色权限调整）后，确保所有用户的权限列表同步更新
-     */
-    private void clearAllUserPermissionsCache() {
-        try {
-            // 模糊匹配所有用户权限缓存键（与权限服务的缓存键规则一致）
-            Collection<String> keys = redisService.keys("user:permissions:*");
-            if (keys != null && !keys.isEmpty()) {
-                redisService.deleteObject(keys);
-            }
+            log.debug("角色[{}]变更，已清理{}个用户的缓存", roleId, affectedUsers);
         } catch (Exception e) {
-            log.warn("清理所有用户权限缓存失败", e);
+            // 精确清理失败时退化为整体失效，保证不读到旧权限
+            log.warn("清理角色用户缓存失败，改为整体失效: roleId={}", roleId, e);
+            for (UserAuthorityCache.Type type : types) {
+                userAuthorityCache.evictAll(type);
+            }
         }
+        return affectedUsers;
     }
 
     // ========== 批量权限分配方法实现 ==========
@@ -684,7 +744,7 @@ public class RoleServiceImpl implements RoleService {
             
             // 清理相关缓存
             clearRolePermissionsCache(roleId);
-            clearAllUserPermissionsCache();
+            effectivePermissionService.refreshRoleUsers(roleId);
 
             return R.ok(assignedCount, String.format("成功为角色 '%s' 分配权限模块 '%s'，共分配 %d 个权限", 
                     role.getName(), permissionModule.getModuleName(), assignedCount));
@@ -711,7 +771,7 @@ public class RoleServiceImpl implements RoleService {
 
             // 清理相关缓存
             clearRolePermissionsCache(roleId);
-            clearAllUserPermissionsCache();
+            effectivePermissionService.refreshRoleUsers(roleId);
 
             String moduleNames = permissionModules.stream()
                     .map(PermissionModule::getModuleName)
@@ -790,7 +850,8 @@ public class RoleServiceImpl implements RoleService {
 
             // 清理相关缓存
             clearRolePermissionsCache(roleId);
-            clearAllUserPermissionsCache();
+            int affectedUsers = effectivePermissionService.refreshRoleUsers(roleId);
+            log.info("角色[{}]应用模板[{}]完成, 影响用户数: {}", roleId, roleTemplate.getRoleName(), affectedUsers);
 
             String mode = resetMode ? "重置" : "增量";
             return R.ok(assignedCount, String.format("成功以%s模式为角色 '%s' 应用模板 '%s'，分配 %d 个权限",
@@ -818,7 +879,7 @@ public class RoleServiceImpl implements RoleService {
             
             // 清理相关缓存
             clearRolePermissionsCache(roleId);
-            clearAllUserPermissionsCache();
+            effectivePermissionService.refreshRoleUsers(roleId);
 
             return R.ok(removedCount, String.format("成功从角色 '%s' 移除权限模块 '%s'，共移除 %d 个权限", 
                     role.getName(), permissionModule.getModuleName(), removedCount));
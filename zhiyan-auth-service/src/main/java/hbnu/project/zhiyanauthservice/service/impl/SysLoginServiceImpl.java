@@ -10,13 +10,16 @@ import hbnu.project.zhiyanauthservice.model.form.RegisterBody;
 import hbnu.project.zhiyanauthservice.repository.RoleRepository;
 import hbnu.project.zhiyanauthservice.repository.UserRepository;
 import hbnu.project.zhiyanauthservice.repository.UserRoleRepository;
+import hbnu.project.zhiyanauthservice.security.LoginFailureService;
 import hbnu.project.zhiyanauthservice.service.AuthService;
 import hbnu.project.zhiyanauthservice.service.SysLoginService;
+import hbnu.project.zhiyanauthservice.service.UserSearchService;
 import hbnu.project.zhiyanauthservice.service.VerificationCodeService;
 import hbnu.project.zhiyancommon.constants.GeneralConstants;
 import hbnu.project.zhiyancommon.domain.R;
 import hbnu.project.zhiyancommon.utils.StringUtils;
 import hbnu.project.zhiyansecurity.utils.SecurityUtils;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -41,14 +44,17 @@ public class SysLoginServiceImpl implements SysLoginService {
     private final VerificationCodeService verificationCodeService;
     private final AuthService authService;
     private final MapperManager mapperManager;
+    private final UserSearchService userSearchService;
+    private final LoginFailureService loginFailureService;
 
     /**
      * 用户登录
      * 
      * @param loginBody 登录表单数据
+     * @param request   当前请求
      * @return 登录结果，包含用户信息和Token
      */
-    public R<TokenDTO> login(LoginBody loginBody) {
+    public R<TokenDTO> login(LoginBody loginBody, HttpServletRequest request) {
         try {
             // 基础参数校验
             if (loginBody == null || StringUtils.isBlank(loginBody.getEmail()) || StringUtils.isBlank(loginBody.getPassword())) {
@@ -56,11 +62,27 @@ public class SysLoginServiceImpl implements SysLoginService {
                 return R.fail("邮箱和密码不能为空");
             }
 
-            // 查找用户
+            // 连续失败被锁定时不再校验密码
+            if (loginFailureService.isEmailLocked(loginBody.getEmail())) {
+                log.warn("用户登录失败 - 邮箱因连续登录失败被锁定: {}", loginBody.getEmail());
+                long remainingTime = loginFailureService.getLockRemainingTime(loginBody.getEmail());
+                return R.fail(423, remainingTime > 0
+                        ? String.format("账户已被锁定，请 %d 分钟后重试", remainingTime)
+                        : "账户已被锁定，请稍后重试");
+            }
+            if (loginFailureService.isIpLocked(request)) {
+                log.warn("用户登录失败 - 来源IP因连续登录失败被锁定: {}", loginBody.getEmail());
+                long remainingTime = loginFailureService.getIpLockRemainingTime(request);
+                return R.fail(423, remainingTime > 0
+                        ? String.format("登录失败次数过多，请 %d 分钟后重试", remainingTime)
+                        : "登录失败次数过多，请稍后重试");
+            }
+
+            // 查找用户，用户不存在同样计入失败次数，避免借此探测邮箱
             Optional<User> optionalUser = userRepository.findByEmailAndIsDeletedFalse(loginBody.getEmail());
             if (optionalUser.isEmpty()) {
                 log.warn("用户登录失败 - 用户不存在: {}", loginBody.getEmail());
-                return R.fail("邮箱或密码错误");
+                return loginFailed(loginBody.getEmail(), request);
             }
 
             User user = optionalUser.get();
@@ -74,9 +96,12 @@ public class SysLoginServiceImpl implements SysLoginService {
             // 验证密码
             if (!SecurityUtils.matchesPassword(loginBody.getPassword(), user.getPasswordHash())) {
                 log.warn("用户登录失败 - 密码错误: {}", loginBody.getEmail());
-                return R.fail("邮箱或密码错误");
+                return loginFailed(loginBody.getEmail(), request);
             }
 
+            // 登录成功，清除邮箱的失败记录
+            loginFailureService.clearLoginFailure(loginBody.getEmail(), request);
+
             // 生成Token
             boolean rememberMe = loginBody.getRememberMe() != null && loginBody.getRememberMe();
             TokenDTO tokenDTO = authService.generateTokens(user.getId(), rememberMe);
@@ -95,6 +120,24 @@ public class SysLoginServiceImpl implements SysLoginService {
     }
 
 
+    /**
+     * 记录一次登录失败，并按记录后的状态返回锁定或剩余次数提示
+     */
+    private R<TokenDTO> loginFailed(String email, HttpServletRequest request) {
+        LoginFailureService.FailureResult failure = loginFailureService.recordLoginFailure(email, request);
+        if (failure.emailLocked()) {
+            return R.fail(423, "邮箱或密码错误，账户已被临时锁定");
+        }
+        if (failure.ipLocked()) {
+            return R.fail(423, "邮箱或密码错误，登录失败次数过多，请稍后重试");
+        }
+        if (failure.remainingAttempts() > 0) {
+            return R.fail(String.format("邮箱或密码错误，还有 %d 次尝试机会", failure.remainingAttempts()));
+        }
+        return R.fail("邮箱或密码错误");
+    }
+
+
     /**
      * 用户登出
      * 
@@ -152,8 +195,9 @@ public class SysLoginServiceImpl implements SysLoginService {
             String passwordHash = SecurityUtils.encryptPassword(registerBody.getPassword());
             User user = mapperManager.convertFromRegisterBody(registerBody, passwordHash);
 
-            // 5. 保存用户
+            // 5. 保存用户，同步搜索文档
             user = userRepository.save(user);
+            userSearchService.index(user);
 
             // 6. 为新用户分配默认角色（普通用户）
             assignDefaultRole(user.getId());
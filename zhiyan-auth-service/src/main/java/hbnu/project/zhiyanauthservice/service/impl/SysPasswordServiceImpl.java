@@ -7,7 +7,9 @@ import hbnu.project.zhiyanauthservice.model.form.ChangeEmailBody;
 import hbnu.project.zhiyanauthservice.model.form.ChangePasswordBody;
 import hbnu.project.zhiyanauthservice.mapper.MapperManager;
 import hbnu.project.zhiyanauthservice.repository.UserRepository;
+import hbnu.project.zhiyanauthservice.service.AuthService;
 import hbnu.project.zhiyanauthservice.service.SysPasswordService;
+import hbnu.project.zhiyanauthservice.service.UserSearchService;
 import hbnu.project.zhiyanauthservice.service.VerificationCodeService;
 import hbnu.project.zhiyancommon.domain.R;
 import hbnu.project.zhiyansecurity.utils.SecurityUtils;
@@ -33,6 +35,8 @@ public class SysPasswordServiceImpl implements SysPasswordService {
     private final UserRepository userRepository;
     private final VerificationCodeService verificationCodeService;
     private final MapperManager mapperManager;
+    private final AuthService authService;
+    private final UserSearchService userSearchService;
 
     /**
      * 修改密码
@@ -72,6 +76,9 @@ public class SysPasswordServiceImpl implements SysPasswordService {
             user.setPasswordHash(SecurityUtils.encryptPassword(changePasswordBody.getNewPassword()));
             userRepository.save(user);
 
+            // 6. 吊销该用户此前签发的全部令牌，需要重新登录
+            authService.revokeUserTokens(userId);
+
             log.info("密码修改成功 - 用户ID: {}", userId);
             return R.ok(null, "密码修改成功");
 
@@ -115,8 +122,10 @@ public class SysPasswordServiceImpl implements SysPasswordService {
             }
 
             User user = optionalUser.get();
+            // 同步搜索文档，按新邮箱可以搜到
             user.setEmail(changeEmailBody.getNewEmail());
-            userRepository.save(user);
+            user = userRepository.save(user);
+            userSearchService.index(user);
 
             log.info("用户邮箱修改成功 - 用户ID: {}, 新邮箱: {}", userId, changeEmailBody.getNewEmail());
             return R.ok(null, "邮箱修改成功");
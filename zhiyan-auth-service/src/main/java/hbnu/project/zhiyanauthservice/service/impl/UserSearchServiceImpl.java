@@ -0,0 +1,238 @@
+package hbnu.project.zhiyanauthservice.service.impl;
+
+import hbnu.project.zhiyanauthservice.model.entity.User;
+import hbnu.project.zhiyanauthservice.repository.UserRepository;
+import hbnu.project.zhiyanauthservice.repository.UserSearchDocumentRepository;
+import hbnu.project.zhiyanauthservice.service.UserSearchService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 用户搜索服务实现类
+ *
+ * <ul>
+ *     <li>索引：user_search_documents 上的 FULLTEXT ... WITH PARSER ngram 索引，任意连续两个字符都是一个词元，
+ *     中文姓名、邮箱片段都能做中缀匹配；建索引时关闭停用词，避免 "an"、"in" 这类片段被丢弃。
+ *     表和索引由 sql/zhiyan-auth-service/zhiyan_userauth_db.sql 创建，服务启动时只检查索引是否存在</li>
+ *     <li>同步：文档与用户在同一事务中写入，软删除时移除，搜索结果天然不含已删除用户</li>
+ *     <li>耗时：全文索引只返回有限的候选集，排序和回表都只作用于候选集；短于 ngram 词元长度的关键词直接返回空</li>
+ * </ul>
+ *
+ * 依赖 MySQL 默认的 ngram_token_size=2
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserSearchServiceImpl implements UserSearchService {
+
+    private static final String TABLE_NAME = "user_search_documents";
+
+    private static final String INDEX_NAME = "ft_user_search";
+
+    /**
+     * 布尔模式下有特殊含义的字符，单独出现时忽略；双引号在任何位置都去除，其余字符放在短语内按字面匹配
+     */
+    private static final String OPERATOR_CHARS = "\"+-<>()~*@";
+
+    private final UserSearchDocumentRepository userSearchDocumentRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * 默认返回条数
+     */
+    @Value("${zhiyan.auth.user-search.default-results:10}")
+    private int defaultResults;
+
+    /**
+     * 返回条数上限
+     */
+    @Value("${zhiyan.auth.user-search.max-results:50}")
+    private int maxResults;
+
+    /**
+     * 全文索引返回的候选集大小
+     */
+    @Value("${zhiyan.auth.user-search.candidate-limit:200}")
+    private int candidateLimit;
+
+    /**
+     * 关键词最小长度（去除空白后），不应小于 ngram_token_size
+     */
+    @Value("${zhiyan.auth.user-search.min-keyword-length:2}")
+    private int minKeywordLength;
+
+    /**
+     * 全量重建时每批同步的用户数
+     */
+    @Value("${zhiyan.auth.user-search.batch-size:1000}")
+    private int batchSize;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private TransactionTemplate newTransactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 启动后检查全文索引是否存在，文档表为空时从 users 表全量构建
+     * 索引由数据库脚本创建，服务账号不需要 ALTER 权限，缺失时只记录警告，搜索接口在补建前不可用
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndex() {
+        try {
+            Integer exists = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.STATISTICS " +
+                    "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND INDEX_NAME = ?",
+                    Integer.class, TABLE_NAME, INDEX_NAME);
+            if (exists == null || exists == 0) {
+                log.warn("用户搜索全文索引不存在: {}.{}，请执行 sql/zhiyan-auth-service/zhiyan_userauth_db.sql 中的建索引语句",
+                        TABLE_NAME, INDEX_NAME);
+            }
+
+            if (userSearchDocumentRepository.count() == 0 && userRepository.count() > 0) {
+                log.info("用户搜索文档为空，开始全量构建");
+                rebuildAll();
+            }
+        } catch (Exception e) {
+            log.warn("初始化用户搜索索引失败: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<Long> search(String keyword, Integer limit) {
+        String query = toMatchQuery(keyword);
+        if (query == null) {
+            return List.of();
+        }
+        int size = limit == null || limit <= 0 ? defaultResults : Math.min(limit, maxResults);
+        String trimmed = keyword.trim();
+        return userSearchDocumentRepository.search(query, trimmed, escapeLike(trimmed) + "%",
+                Math.max(candidateLimit, size), size);
+    }
+
+    @Override
+    public long count(String keyword) {
+        String query = toMatchQuery(keyword);
+        return query != null ? userSearchDocumentRepository.countMatches(query) : 0L;
+    }
+
+    @Override
+    public String toMatchQuery(String keyword) {
+        if (keyword == null || keyword.isBlank()) {
+            return null;
+        }
+        List<String> terms = new ArrayList<>();
+        int length = 0;
+        for (String word : keyword.trim().split("\\s+")) {
+            String term = word.replace("\"", "");
+            int termLength = term.codePointCount(0, term.length());
+            if (termLength == 0 || (termLength == 1 && OPERATOR_CHARS.indexOf(term.charAt(0)) >= 0)) {
+                continue;
+            }
+            // 短于词元长度的词只能做前缀匹配；其余以短语检索，经 ngram 解析后即为中缀匹配
+            terms.add(termLength == 1 ? "+" + term + "*" : "+\"" + term + "\"");
+            length += termLength;
+        }
+        if (terms.isEmpty() || length < minKeywordLength) {
+            return null;
+        }
+        return String.join(" ", terms);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void index(User user) {
+        if (Boolean.TRUE.equals(user.getIsDeleted())) {
+            remove(user.getId());
+            return;
+        }
+        userSearchDocumentRepository.upsert(user.getId(), user.getName(), user.getEmail(),
+                user.getInstitution(), LocalDateTime.now());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void indexUsers(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(userIds);
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            userSearchDocumentRepository.upsertFromUsers(ids.subList(from, Math.min(ids.size(), from + batchSize)), now);
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void remove(Long userId) {
+        if (userSearchDocumentRepository.existsById(userId)) {
+            userSearchDocumentRepository.deleteById(userId);
+        }
+    }
+
+    @Override
+    public int rebuildAll() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new IllegalStateException("用户搜索文档正在重建，请稍后再试");
+        }
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+            Pageable batch = PageRequest.of(0, batchSize);
+            int rebuiltUsers = 0;
+            long afterUserId = 0L;
+            List<Long> userIds;
+            do {
+                userIds = userRepository.findActiveIdsAfter(afterUserId, batch);
+                if (userIds.isEmpty()) {
+                    break;
+                }
+                List<Long> batchUserIds = userIds;
+                newTransactionTemplate.executeWithoutResult(status -> indexUsers(batchUserIds));
+                rebuiltUsers += userIds.size();
+                afterUserId = userIds.get(userIds.size() - 1);
+            } while (userIds.size() == batchSize);
+
+            Integer purged = newTransactionTemplate.execute(status ->
+                    userSearchDocumentRepository.deleteUpdatedBefore(startedAt));
+            log.info("用户搜索文档重建完成，用户数: {}, 清理残留文档: {}", rebuiltUsers, purged);
+            return rebuiltUsers;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * 转义LIKE模式中的通配符
+     */
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
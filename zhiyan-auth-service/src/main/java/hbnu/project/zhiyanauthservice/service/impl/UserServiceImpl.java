@@ -1,6 +1,7 @@
 package hbnu.project.zhiyanauthservice.service.impl;
 
 import hbnu.project.zhiyanauthservice.model.dto.UserDTO;
+import hbnu.project.zhiyanauthservice.model.entity.Role;
 import hbnu.project.zhiyanauthservice.model.entity.User;
 import hbnu.project.zhiyanauthservice.model.form.UserProfileUpdateBody;
 import hbnu.project.zhiyanauthservice.repository.RoleRepository;
@@ -9,8 +10,11 @@ import hbnu.project.zhiyanauthservice.repository.UserRoleRepository;
 import hbnu.project.zhiyanauthservice.mapper.MapperManager;
 import hbnu.project.zhiyanauthservice.service.AuthService;
 import hbnu.project.zhiyanauthservice.service.PermissionService;
+import hbnu.project.zhiyanauthservice.service.UserSearchService;
 import hbnu.project.zhiyanauthservice.service.UserService;
 import hbnu.project.zhiyanauthservice.service.VerificationCodeService;
+import hbnu.project.zhiyancommon.domain.CursorPage;
+import hbnu.project.zhiyancommon.domain.PageCursor;
 import hbnu.project.zhiyancommon.domain.R;
 import hbnu.project.zhiyancommon.utils.StringUtils;
 
@@ -18,10 +22,12 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.*;
 
 
@@ -43,6 +49,12 @@ public class UserServiceImpl implements UserService {
     private final AuthService authService;
     private final PermissionService permissionService;
     private final MapperManager mapperManager;
+    private final UserSearchService userSearchService;
+
+    /**
+     * 用户列表首页的起始位置，首页从该时间之前的用户开始读取
+     */
+    private static final LocalDateTime FIRST_PAGE_CREATED_AT = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
 
 
     /**
@@ -54,12 +66,12 @@ public class UserServiceImpl implements UserService {
     @Override
     public R<UserDTO> getCurrentUser(Long userId) {
         try {
-            Optional<User> optionalUser = userRepository.findByIdWithRolesAndPermissions(userId);
+            Optional<User> optionalUser = userRepository.findByIdAndIsDeletedFalse(userId);
             if (optionalUser.isEmpty()) {
                 return R.fail("用户不存在");
             }
 
-            UserDTO userDTO = mapperManager.convertToUserDTOWithRolesAndPermissions(optionalUser.get());
+            UserDTO userDTO = buildUserDTOWithRolesAndPermissions(optionalUser.get());
             return R.ok(userDTO);
 
         } catch (Exception e) {
@@ -91,6 +103,7 @@ public class UserServiceImpl implements UserService {
             mapperManager.updateUserProfile(user, updateBody);
 
             user = userRepository.save(user);
+            userSearchService.index(user);
             UserDTO userDTO = mapperManager.convertToUserDTO(user);
 
             log.info("用户资料更新成功 - 用户ID: {}", userId);
@@ -116,8 +129,12 @@ public class UserServiceImpl implements UserService {
             Page<User> userPage;
 
             if (StringUtils.isNotBlank(keyword)) {
-                userPage = userRepository.findByNameContainingOrEmailContainingAndIsDeletedFalse(
-                        keyword, keyword, pageable);
+                String query = userSearchService.toMatchQuery(keyword);
+                if (query == null) {
+                    return R.ok(Page.empty(pageable));
+                }
+                userPage = userRepository.searchActive(query,
+                        PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
             } else {
                 userPage = userRepository.findByIsDeletedFalse(pageable);
             }
@@ -134,6 +151,107 @@ public class UserServiceImpl implements UserService {
     }
 
 
+    /**
+     * 游标分页查询用户列表（管理员功能）
+     * 按 (创建时间, ID) 定位下一页，不执行 COUNT(*) 和 OFFSET；
+     * 需要总数时，无关键词取表统计信息的估算值，有关键词时由全文索引统计
+     *
+     * @param cursor    上一页返回的游标，首页为空
+     * @param size      每页条数
+     * @param keyword   搜索关键词
+     * @param withTotal 是否返回总数
+     * @return 用户列表
+     */
+    @Override
+    public R<CursorPage<UserDTO>> getUserListByCursor(String cursor, Integer size, String keyword, boolean withTotal) {
+        try {
+            PageCursor position = PageCursor.decode(cursor);
+            LocalDateTime createdAt = position != null ? position.getSortKeyAsDateTime() : FIRST_PAGE_CREATED_AT;
+            long id = position != null ? position.getId() : Long.MAX_VALUE;
+            int pageSize = CursorPage.normalizeSize(size);
+
+            String query = StringUtils.isNotBlank(keyword) ? userSearchService.toMatchQuery(keyword) : null;
+            if (StringUtils.isNotBlank(keyword) && query == null) {
+                return R.ok(CursorPage.empty());
+            }
+            boolean hasKeyword = query != null;
+            List<User> users = hasKeyword
+                    ? userRepository.searchActivePageBefore(query, createdAt, id, pageSize + 1)
+                    : userRepository.findActivePageBefore(createdAt, id, PageRequest.of(0, pageSize + 1));
+
+            CursorPage<UserDTO> page = CursorPage.of(users, pageSize,
+                    user -> PageCursor.of(user.getCreatedAt(), user.getId()),
+                    mapperManager::convertToUserDTOList);
+            if (withTotal) {
+                page = hasKeyword
+                        ? page.withTotal(userSearchService.count(keyword), false)
+                        : page.withTotal(userRepository.estimateRowCount(), true);
+            }
+            return R.ok(page);
+        } catch (IllegalArgumentException e) {
+            return R.fail(e.getMessage());
+        } catch (Exception e) {
+            log.error("游标查询用户列表异常 - 错误: {}", e.getMessage(), e);
+            return R.fail("查询用户列表失败");
+        }
+    }
+
+
+    /**
+     * 搜索用户
+     * 由全文索引给出排序后的用户ID，再按主键批量加载，保持索引给出的顺序
+     *
+     * @param keyword 关键词
+     * @param limit   返回条数
+     * @return 排序后的用户列表
+     */
+    @Override
+    public R<List<UserDTO>> searchUsers(String keyword, Integer limit) {
+        try {
+            List<Long> userIds = userSearchService.search(keyword, limit);
+            if (userIds.isEmpty()) {
+                return R.ok(List.of());
+            }
+
+            Map<Long, User> usersById = new HashMap<>(userIds.size() * 2);
+            for (User user : userRepository.findAllById(userIds)) {
+                if (!Boolean.TRUE.equals(user.getIsDeleted())) {
+                    usersById.put(user.getId(), user);
+                }
+            }
+            List<User> users = userIds.stream()
+                    .map(usersById::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+            return R.ok(mapperManager.convertToUserDTOList(users));
+        } catch (Exception e) {
+            log.error("搜索用户异常 - 关键词: {}, 错误: {}", keyword, e.getMessage(), e);
+            return R.fail("搜索用户失败");
+        }
+    }
+
+
+    /**
+     * 全量重建用户搜索文档（管理员操作）
+     * 日常由用户写入同步维护，用于修复文档与用户数据的偏差
+     *
+     * @return 重建的用户数
+     */
+    @Override
+    public R<Integer> rebuildSearchIndex() {
+        try {
+            int rebuiltUsers = userSearchService.rebuildAll();
+            return R.ok(rebuiltUsers, "用户搜索文档重建完成");
+        } catch (IllegalStateException e) {
+            log.warn("重建用户搜索文档失败: {}", e.getMessage());
+            return R.fail(e.getMessage());
+        } catch (Exception e) {
+            log.error("重建用户搜索文档失败", e);
+            return R.fail("重建用户搜索文档失败");
+        }
+    }
+
+
     /**
      * 锁定/解锁用户
      *
@@ -154,6 +272,11 @@ public class UserServiceImpl implements UserService {
             user.setIsLocked(isLocked);
             userRepository.save(user);
 
+            // 锁定时吊销该用户此前签发的全部令牌
+            if (isLocked) {
+                authService.revokeUserTokens(userId);
+            }
+
             String action = isLocked ? "锁定" : "解锁";
             log.info("用户{}成功 - 用户ID: {}", action, userId);
             return R.ok(null, "用户" + action + "成功");
@@ -183,6 +306,10 @@ public class UserServiceImpl implements UserService {
             User user = optionalUser.get();
             user.setIsDeleted(true);
             userRepository.save(user);
+            userSearchService.remove(userId);
+
+            // 吊销该用户此前签发的全部令牌
+            authService.revokeUserTokens(userId);
 
             log.info("用户删除成功 - 用户ID: {}", userId);
             return R.ok(null, "用户删除成功");
@@ -203,12 +330,12 @@ public class UserServiceImpl implements UserService {
     @Override
     public R<UserDTO> getUserWithRolesAndPermissions(Long userId) {
         try {
-            Optional<User> optionalUser = userRepository.findByIdWithRolesAndPermissions(userId);
+            Optional<User> optionalUser = userRepository.findByIdAndIsDeletedFalse(userId);
             if (optionalUser.isEmpty()) {
                 return R.fail("用户不存在");
             }
 
-            UserDTO userDTO = mapperManager.convertToUserDTOWithRolesAndPermissions(optionalUser.get());
+            UserDTO userDTO = buildUserDTOWithRolesAndPermissions(optionalUser.get());
             return R.ok(userDTO);
 
         } catch (Exception e) {
@@ -216,4 +343,27 @@ public class UserServiceImpl implements UserService {
             return R.fail("获取用户信息失败");
         }
     }
+
+
+    /**
+     * 组装包含角色和权限的用户信息
+     * 角色单独查询，权限取自权限缓存（未命中时读取有效权限投影），
+     * 不再将用户、角色、权限整张关联图一次抓取为笛卡尔积
+     *
+     * @param user 用户实体
+     * @return 用户信息
+     */
+    private UserDTO buildUserDTOWithRolesAndPermissions(User user) {
+        UserDTO userDTO = mapperManager.convertToUserDTO(user);
+        userDTO.setRoles(roleRepository.findAllByUserId(user.getId()).stream()
+                .map(Role::getName)
+                .sorted()
+                .toList());
+
+        R<Set<String>> permissions = permissionService.getUserPermissions(user.getId());
+        userDTO.setPermissions(R.isSuccess(permissions) && permissions.getData() != null
+                ? permissions.getData().stream().sorted().toList()
+                : new ArrayList<>());
+        return userDTO;
+    }
 }
@@ -1,23 +1,33 @@
 package hbnu.project.zhiyanauthservice.service.impl;
 
+import hbnu.project.zhiyanauthservice.mail.MailOutboxService;
 import hbnu.project.zhiyanauthservice.model.entity.VerificationCode;
+import hbnu.project.zhiyanauthservice.model.enums.CodeValidationStatus;
 import hbnu.project.zhiyanauthservice.model.enums.VerificationCodeType;
 import hbnu.project.zhiyanauthservice.repository.VerificationCodeRepository;
 import hbnu.project.zhiyanauthservice.service.VerificationCodeService;
 import hbnu.project.zhiyanauthservice.utils.VerificationCodeGenerator;
+import hbnu.project.zhiyancommon.constants.CacheConstants;
 import hbnu.project.zhiyancommon.domain.R;
 import hbnu.project.zhiyancommon.service.RedisService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scripting.support.ResourceScriptSource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -31,29 +41,54 @@ import java.util.concurrent.TimeUnit;
 public class VerificationCodeServiceImpl implements VerificationCodeService {
 
     private final RedisService redisService;
+    private final StringRedisTemplate stringRedisTemplate;
     private final VerificationCodeRepository verificationCodeRepository;
-    private final JavaMailSender mailSender;
+    private final MailOutboxService mailOutboxService;
 
     // Redis键前缀，用于区分不同类型的缓存键
     private static final String VERIFICATION_CODE_PREFIX = "verification_code:";   // 验证码缓存前缀
-    private static final String RATE_LIMIT_PREFIX = "rate_limit:verification_code:";   // 发送频率限制前缀
     private static final String USED_CODE_PREFIX = "used_verification_code:";    // 已使用验证码标记前缀
 
     // 验证码配置
     private static final int CODE_LENGTH = 6;
     private static final int CODE_EXPIRE_MINUTES = 10;     // 验证码10分钟过期
-    private static final int RATE_LIMIT_MINUTES = 1;       // 1分钟内只能发送一次
-
-    // 发送验证码的邮箱地址
-    @Value("${spring.mail.username:zhiyan163verif@163.com}")
-    private String fromEmail;
 
     @Value("${app.name:智研平台}")
     private String appName;
 
+    // Redis中不存在验证码时是否查询数据库兜底
+    @Value("${app.verification-code.enable-audit-fallback:false}")
+    private boolean enableAuditFallback;
+
+    // 校验并消费验证码的脚本
+    private static final RedisScript<String> CONSUME_CODE_SCRIPT = loadConsumeCodeScript();
+
+    // 过期验证码清理任务
+    private static final String CLEANUP_LOCK_KEY = CacheConstants.TASK_LOCK_PREFIX + "verification-code-cleanup";
+    private static final int CLEANUP_PROGRESS_LOG_BATCHES = 20;
+    private static final RedisScript<Long> RELEASE_LEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    @Value("${app.verification-code.enable-cleanup-task:true}")
+    private boolean enableCleanupTask;
+
+    // 每批删除的行数 / 每批遍历的键数
+    @Value("${app.verification-code.cleanup.batch-size:500}")
+    private int cleanupBatchSize;
+
+    // 批次之间的暂停时间（毫秒）
+    @Value("${app.verification-code.cleanup.pause-millis:100}")
+    private long cleanupPauseMillis;
+
+    // 单次清理数据库的时间上限（秒）
+    @Value("${app.verification-code.cleanup.max-run-seconds:300}")
+    private long cleanupMaxRunSeconds;
+
     /**
      * 生成并发送验证码
-     * 流程：检查发送频率 -> 生成验证码 -> 缓存到Redis -> 持久化到数据库 -> 发送邮件 -> 设置频率限制
+     * 流程：检查发送频率 -> 生成验证码 -> 缓存到Redis -> 持久化到数据库 -> 写入邮件发件箱 -> 设置频率限制
+     * 邮件由 MailDispatcher 在事务提交后异步发送，接口不等待SMTP
      *
      * @param email 接收验证码的邮箱地址
      * @param type  验证码类型（注册、密码重置等）
@@ -63,17 +98,15 @@ public class VerificationCodeServiceImpl implements VerificationCodeService {
     @Transactional
     public R<Void> generateAndSendCode(String email, VerificationCodeType type) {
         try {
-            // 检查发送频率限制
-            if (!canSendCode(email, type)) {
-                return R.fail("验证码发送过于频繁，请稍后再试");
-            }
+            // 发送频率由接口上的 @RateLimit 按邮箱限制，此处不再单独计数
 
             // 生成指定长度的数字验证码
             String code = VerificationCodeGenerator.generateNumericCode(CODE_LENGTH);
 
             // 构建Redis缓存键，并将验证码存入Redis，设置过期时间
             String redisKey = buildRedisKey(email, type);
-            redisService.setCacheObject(redisKey, code, (long) CODE_EXPIRE_MINUTES, TimeUnit.MINUTES);
+            // 以纯字符串写入，供校验脚本直接比对
+            stringRedisTemplate.opsForValue().set(redisKey, code, CODE_EXPIRE_MINUTES, TimeUnit.MINUTES);
 
             // 构建验证码实体，并存入数据库（用于审计和Redis失效后的兜底验证）
             VerificationCode verificationCode = VerificationCode.builder()
@@ -86,14 +119,10 @@ public class VerificationCodeServiceImpl implements VerificationCodeService {
                     .build();
             verificationCodeRepository.save(verificationCode);
 
-            // 发送验证码邮件
-            sendCodeByEmail(email, code, type);
+            // 邮件写入发件箱，与验证码记录在同一事务中提交
+            mailOutboxService.enqueue(email, buildEmailSubject(type), buildEmailContent(code, type));
 
-            // 设置频率限制：1分钟内不允许再次发送
-            String rateLimitKey = buildRateLimitKey(email, type);
-            redisService.setCacheObject(rateLimitKey, "1", (long) RATE_LIMIT_MINUTES, TimeUnit.MINUTES);
-
-            log.info("验证码发送成功 - 邮箱: {}, 类型: {}", email, type);
+            log.info("验证码已生成，邮件已加入发件箱 - 邮箱: {}, 类型: {}", email, type);
             return R.ok(null, "验证码发送成功");
 
         } catch (Exception e) {
@@ -105,7 +134,8 @@ public class VerificationCodeServiceImpl implements VerificationCodeService {
 
     /**
      * 验证验证码的有效性
-     * 流程：检查是否已使用 -> Redis验证 -> 数据库兜底验证 -> 标记为已使用
+     * 流程：Redis脚本原子完成 检查已使用标记 -> 比对 -> 消费并标记已使用；
+     * 仅当Redis中不存在该验证码且开启了审计兜底时，才查询数据库
      *
      * @param email 接收验证码的邮箱
      * @param code  待验证的验证码
@@ -115,51 +145,26 @@ public class VerificationCodeServiceImpl implements VerificationCodeService {
     @Override
     public R<Boolean> validateCode(String email, String code, VerificationCodeType type) {
         try {
-            // 检查验证码是否已被使用
-            String usedKey = buildUsedCodeKey(email, code, type);
-            if (redisService.hasKey(usedKey)) {
-                log.warn("验证码已被使用 - 邮箱: {}, 验证码: {}, 类型: {}", email, code, type);
-                return R.ok(false, "验证码已被使用");
-            }
-
-            // 先从Redis验证（快速）
-            String redisKey = buildRedisKey(email, type);
-            String storedCode = redisService.getCacheObject(redisKey);
-
-            if (storedCode != null && storedCode.equals(code)) {
-                // Redis验证成功，标记为已使用
-                markCodeAsUsed(email, code, type);
-                log.info("验证码验证成功(Redis) - 邮箱: {}, 类型: {}", email, type);
-                return R.ok(true, "验证码验证成功");
-            }
-
-            // Redis中没有，从数据库验证（兜底）
-            var optionalCode = verificationCodeRepository
-                    .findByEmailAndCodeAndTypeAndIsUsedFalse(email, code, type);
-
-            if (optionalCode.isPresent()) {
-                VerificationCode verificationCode = optionalCode.get();
-
-                // 检查数据库中的验证码是否过期
-                if (verificationCode.getExpiresAt().isBefore(LocalDateTime.now())) {
-                    log.warn("验证码已过期 - 邮箱: {}, 类型: {}", email, type);
-                    return R.ok(false, "验证码已过期");
-                }
-
-                // 标记数据库中的验证码为已使用
-                verificationCode.setIsUsed(true);
-                verificationCodeRepository.save(verificationCode);
-
-                // 同时标记Redis中的验证码为已使用
-                markCodeAsUsed(email, code, type);
-
-                log.info("验证码验证成功(数据库) - 邮箱: {}, 类型: {}", email, type);
-                return R.ok(true, "验证码验证成功");
+            CodeValidationStatus status = consumeCode(email, code, type);
+            switch (status) {
+                case VALID:
+                    log.info("验证码验证成功(Redis) - 邮箱: {}, 类型: {}", email, type);
+                    return R.ok(true, status.getDescription());
+                case USED:
+                    log.warn("验证码已被使用 - 邮箱: {}, 验证码: {}, 类型: {}", email, code, type);
+                    return R.ok(false, status.getDescription());
+                case MISSING:
+                    if (enableAuditFallback) {
+                        return validateCodeFromDatabase(email, code, type);
+                    }
+                    break;
+                default:
+                    break;
             }
 
-            // 所有验证途径均失败（验证码错误或已过期）
-            log.warn("验证码验证失败 - 邮箱: {}, 验证码: {}, 类型: {}", email, code, type);
-            return R.ok(false, "验证码错误或已过期");
+            // 验证码错误或已过期
+            log.warn("验证码验证失败 - 邮箱: {}, 验证码: {}, 类型: {}, 结果: {}", email, code, type, status);
+            return R.ok(false, status.getDescription());
 
         } catch (Exception e) {
             log.error("验证码验证异常 - 邮箱: {}, 类型: {}, 错误: {}", email, type, e.getMessage(), e);
@@ -169,84 +174,140 @@ public class VerificationCodeServiceImpl implements VerificationCodeService {
 
 
     /**
-     * 检查是否允许发送验证码（频率控制）
+     * 在Redis中校验并消费验证码，一次脚本调用完成，并发提交同一验证码时只有一个请求成功
      *
      * @param email 接收邮箱
+     * @param code  验证码
      * @param type  验证码类型
-     * @return true-允许发送，false-不允许（频率超限）
+     * @return 校验结果
      */
-    @Override
-    public boolean canSendCode(String email, VerificationCodeType type) {
-        String rateLimitKey = buildRateLimitKey(email, type);
-        // 如果Redis中存在该键，说明在频率限制时间内已发送过
-        return !redisService.hasKey(rateLimitKey);
+    private CodeValidationStatus consumeCode(String email, String code, VerificationCodeType type) {
+        String result = stringRedisTemplate.execute(CONSUME_CODE_SCRIPT,
+                List.of(buildRedisKey(email, type), buildUsedCodeKey(email, code, type)),
+                code,
+                "\"" + code + "\"",
+                String.valueOf(TimeUnit.MINUTES.toMillis(CODE_EXPIRE_MINUTES)));
+        return result != null ? CodeValidationStatus.valueOf(result) : CodeValidationStatus.MISSING;
+    }
+
+
+    /**
+     * 从数据库验证验证码（审计兜底）
+     * 仅在Redis中已不存在该验证码时使用，如Redis数据丢失后的恢复期
+     */
+    private R<Boolean> validateCodeFromDatabase(String email, String code, VerificationCodeType type) {
+        var optionalCode = verificationCodeRepository
+                .findByEmailAndCodeAndTypeAndIsUsedFalse(email, code, type);
+
+        if (optionalCode.isEmpty()) {
+            log.warn("验证码验证失败(数据库) - 邮箱: {}, 验证码: {}, 类型: {}", email, code, type);
+            return R.ok(false, "验证码错误或已过期");
+        }
+
+        VerificationCode verificationCode = optionalCode.get();
+
+        // 检查数据库中的验证码是否过期
+        if (verificationCode.getExpiresAt().isBefore(LocalDateTime.now())) {
+            log.warn("验证码已过期 - 邮箱: {}, 类型: {}", email, type);
+            return R.ok(false, "验证码已过期");
+        }
+
+        // 标记数据库中的验证码为已使用
+        verificationCode.setIsUsed(true);
+        verificationCodeRepository.save(verificationCode);
+
+        // 同时标记Redis中的验证码为已使用
+        markCodeAsUsed(email, code, type);
+
+        log.info("验证码验证成功(数据库) - 邮箱: {}, 类型: {}", email, type);
+        return R.ok(true, "验证码验证成功");
     }
 
 
     /**
      * 清理过期的验证码（数据库层面）
-     * 定期执行，删除已过期且未使用的验证码，释放存储空间
+     * 按过期时间索引顺序分批删除，每批为独立的短事务，批次之间暂停，避免一次大范围DELETE长时间锁表；
+     * 单次运行超过时间预算后停止，剩余部分由下一次运行继续
      */
     @Override
-    @Transactional
     public void cleanExpiredCodes() {
+        long startedAt = System.currentTimeMillis();
+        long deadline = startedAt + TimeUnit.SECONDS.toMillis(cleanupMaxRunSeconds);
+        LocalDateTime now = LocalDateTime.now();
+        long deletedCount = 0;
+        int batches = 0;
         try {
-            LocalDateTime now = LocalDateTime.now();
-            int deletedCount = verificationCodeRepository.deleteExpiredCodes(now);
-            log.info("清理过期验证码完成，删除数量: {}", deletedCount);
+            while (true) {
+                List<Long> ids = verificationCodeRepository.findExpiredIds(now, PageRequest.of(0, cleanupBatchSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                deletedCount += verificationCodeRepository.deleteByIdIn(ids);
+                batches++;
+                if (batches % CLEANUP_PROGRESS_LOG_BATCHES == 0) {
+                    log.info("清理过期验证码进行中 - 已删除: {}, 批次: {}, 耗时: {}ms",
+                            deletedCount, batches, System.currentTimeMillis() - startedAt);
+                }
+                if (ids.size() < cleanupBatchSize) {
+                    break;
+                }
+                if (System.currentTimeMillis() >= deadline) {
+                    log.info("清理过期验证码达到单次运行时间上限，剩余部分下次继续");
+                    break;
+                }
+                pauseBetweenBatches();
+            }
+            log.info("清理过期验证码完成，删除数量: {}, 批次: {}, 耗时: {}ms",
+                    deletedCount, batches, System.currentTimeMillis() - startedAt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("清理过期验证码被中断，已删除数量: {}", deletedCount);
         } catch (Exception e) {
-            log.error("清理过期验证码失败: {}", e.getMessage(), e);
+            log.error("清理过期验证码失败，已删除数量: {}, 错误: {}", deletedCount, e.getMessage(), e);
         }
     }
 
 
     /**
      * 定时清理过期验证码任务
-     * 每小时执行一次，自动清理数据库中的过期验证码
-     * 可通过配置 app.verification-code.enable-cleanup-task 控制是否启用
+     * 每小时执行一次，清理数据库中的过期验证码和Redis中没有过期时间的残留键
+     * 通过Redis租约保证同一时间只有一个实例执行；可通过配置 app.verification-code.enable-cleanup-task 控制是否启用
      */
     @Scheduled(cron = "0 0 * * * ?")
-    @ConditionalOnProperty(name = "app.verification-code.enable-cleanup-task", havingValue = "true", matchIfMissing = true)
     public void scheduledCleanupExpiredCodes() {
+        if (!enableCleanupTask) {
+            return;
+        }
+        String owner = UUID.randomUUID().toString();
+        if (!acquireCleanupLease(owner)) {
+            log.debug("其他实例正在执行过期验证码清理任务，本实例跳过");
+            return;
+        }
         log.debug("开始执行定时清理过期验证码任务");
         try {
             cleanExpiredCodes();
-            // 可以在这里添加更多清理逻辑，比如清理Redis中的过期键
             cleanupRedisExpiredKeys();
             log.debug("定时清理过期验证码任务执行完成");
         } catch (Exception e) {
             log.error("定时清理过期验证码任务执行失败", e);
+        } finally {
+            releaseCleanupLease(owner);
         }
     }
 
 
     /**
-     * 清理Redis中可能残留的过期验证码键
-     * 虽然Redis有TTL自动过期机制，但为了确保清理彻底，定期检查并清理，由yui提供
+     * 清理Redis中残留的验证码键
+     * 正常写入的验证码键和已使用标记都带有过期时间，由Redis自动删除；
+     * 以SCAN游标分批遍历，删除没有过期时间的残留键，不使用会阻塞Redis的KEYS
      */
     private void cleanupRedisExpiredKeys() {
+        long startedAt = System.currentTimeMillis();
         try {
-            // 清理验证码键
-            var codeKeys = redisService.keys(VERIFICATION_CODE_PREFIX + "*");
-            int cleanedCodeKeys = 0;
-            for (String key : codeKeys) {
-                if (!redisService.hasKey(key)) {
-                    cleanedCodeKeys++;
-                }
-            }
-
-            // 清理已使用验证码键（这些键可能因为TTL设置问题而残留）
-            var usedKeys = redisService.keys(USED_CODE_PREFIX + "*");
-            int cleanedUsedKeys = 0;
-            for (String key : usedKeys) {
-                if (!redisService.hasKey(key)) {
-                    cleanedUsedKeys++;
-                }
-            }
-
-            if (cleanedCodeKeys > 0 || cleanedUsedKeys > 0) {
-                log.info("Redis清理完成 - 验证码键: {}, 已使用键: {}", cleanedCodeKeys, cleanedUsedKeys);
-            }
+            long[] codeKeys = sweepKeysWithoutExpire(VERIFICATION_CODE_PREFIX + "*");
+            long[] usedKeys = sweepKeysWithoutExpire(USED_CODE_PREFIX + "*");
+            log.info("Redis验证码键清理完成 - 验证码键: 遍历{}/删除{}, 已使用键: 遍历{}/删除{}, 耗时: {}ms",
+                    codeKeys[0], codeKeys[1], usedKeys[0], usedKeys[1], System.currentTimeMillis() - startedAt);
         } catch (Exception e) {
             log.warn("Redis验证码键清理失败: {}", e.getMessage());
         }
@@ -254,72 +315,98 @@ public class VerificationCodeServiceImpl implements VerificationCodeService {
 
 
     /**
-     * 标记验证码为已使用
+     * 遍历匹配的键，每批用一次管道读取TTL，删除没有过期时间的键
      *
-     * @param email 接收邮箱
-     * @param code  验证码
-     * @param type  验证码类型
+     * @param pattern 匹配模式
+     * @return {遍历的键数量, 删除的键数量}
      */
-    @Override
-    public void markCodeAsUsed(String email, String code, VerificationCodeType type) {
-        // 在Redis中标记为已使用，设置与验证码相同的过期时间
-        String usedKey = buildUsedCodeKey(email, code, type);
-        redisService.setCacheObject(usedKey, "1", (long) CODE_EXPIRE_MINUTES, TimeUnit.MINUTES);
+    private long[] sweepKeysWithoutExpire(String pattern) {
+        long[] deleted = {0};
+        long scanned = redisService.scanKeys(pattern, cleanupBatchSize, keys -> {
+            List<Object> ttls = redisService.executePipelined(pipeline -> keys.forEach(pipeline::getExpire));
+            List<String> orphaned = new ArrayList<>();
+            for (int i = 0; i < keys.size(); i++) {
+                // -1 表示键存在但没有过期时间
+                if (ttls.get(i) instanceof Long ttl && ttl == -1L) {
+                    orphaned.add(keys.get(i));
+                }
+            }
+            if (!orphaned.isEmpty()) {
+                redisService.deleteObject(orphaned);
+                deleted[0] += orphaned.size();
+            }
+            try {
+                pauseBetweenBatches();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Redis验证码键清理被中断", e);
+            }
+        });
+        return new long[]{scanned, deleted[0]};
+    }
 
-        // 删除原始验证码缓存，防止重复验证
-        String redisKey = buildRedisKey(email, type);
-        redisService.deleteObject(redisKey);
+
+    private void pauseBetweenBatches() throws InterruptedException {
+        if (cleanupPauseMillis > 0) {
+            Thread.sleep(cleanupPauseMillis);
+        }
     }
 
 
     /**
-     * 发送验证码邮件
-     *
-     * @param email 接收邮箱
-     * @param code  验证码
-     * @param type  验证码类型
+     * 获取清理任务租约，租约时长大于单次运行时间上限，运行期间不会过期
      */
-    private void sendCodeByEmail(String email, String code, VerificationCodeType type) {
+    private boolean acquireCleanupLease(String owner) {
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(email);
-            message.setSubject(buildEmailSubject(type));
-            message.setText(buildEmailContent(code, type));
+            Boolean acquired = stringRedisTemplate.opsForValue().setIfAbsent(CLEANUP_LOCK_KEY, owner,
+                    Duration.ofSeconds(cleanupMaxRunSeconds * 2 + 60));
+            return Boolean.TRUE.equals(acquired);
+        } catch (Exception e) {
+            log.warn("获取过期验证码清理租约失败，本次跳过: {}", e.getMessage());
+            return false;
+        }
+    }
 
-            mailSender.send(message);
-            log.info("验证码邮件发送成功 - 邮箱: {}", email);
 
+    private void releaseCleanupLease(String owner) {
+        try {
+            stringRedisTemplate.execute(RELEASE_LEASE_SCRIPT, List.of(CLEANUP_LOCK_KEY), owner);
         } catch (Exception e) {
-            log.error("验证码邮件发送失败 - 邮箱: {}, 错误: {}", email, e.getMessage(), e);
-            throw new RuntimeException("邮件发送失败", e);
+            // 释放失败时租约到期后自动失效
+            log.warn("释放过期验证码清理租约失败: {}", e.getMessage());
         }
     }
 
 
     /**
-     * 构建验证码在Redis中的缓存键
-     * 格式：verification_code:类型:邮箱
+     * 标记验证码为已使用
      *
      * @param email 接收邮箱
+     * @param code  验证码
      * @param type  验证码类型
-     * @return 构建后的Redis键
      */
-    private String buildRedisKey(String email, VerificationCodeType type) {
-        return VERIFICATION_CODE_PREFIX + type.name().toLowerCase() + ":" + email;
+    @Override
+    public void markCodeAsUsed(String email, String code, VerificationCodeType type) {
+        // 在Redis中标记为已使用，设置与验证码相同的过期时间；同时删除原始验证码缓存，防止重复验证
+        // 两条命令在一次管道往返中发出
+        String usedKey = buildUsedCodeKey(email, code, type);
+        String redisKey = buildRedisKey(email, type);
+        redisService.executePipelined(pipeline -> pipeline
+                .set(usedKey, "1", CODE_EXPIRE_MINUTES, TimeUnit.MINUTES)
+                .delete(redisKey));
     }
 
 
     /**
-     * 构建频率限制在Redis中的缓存键
-     * 格式：rate_limit:verification_code:类型:邮箱
+     * 构建验证码在Redis中的缓存键
+     * 格式：verification_code:类型:邮箱
      *
      * @param email 接收邮箱
      * @param type  验证码类型
      * @return 构建后的Redis键
      */
-    private String buildRateLimitKey(String email, VerificationCodeType type) {
-        return RATE_LIMIT_PREFIX + type.name().toLowerCase() + ":" + email;
+    private String buildRedisKey(String email, VerificationCodeType type) {
+        return VERIFICATION_CODE_PREFIX + type.name().toLowerCase() + ":" + email;
     }
 
 
@@ -379,4 +466,12 @@ public class VerificationCodeServiceImpl implements VerificationCodeService {
                 action, code, CODE_EXPIRE_MINUTES, appName
         );
     }
+
+
+    private static RedisScript<String> loadConsumeCodeScript() {
+        DefaultRedisScript<String> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/verification_code_consume.lua")));
+        script.setResultType(String.class);
+        return script;
+    }
 }
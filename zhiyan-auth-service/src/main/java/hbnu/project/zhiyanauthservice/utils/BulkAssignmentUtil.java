@@ -0,0 +1,212 @@
+package hbnu.project.zhiyanauthservice.utils;
+
+import hbnu.project.zhiyancommon.utils.id.SnowflakeIdUtil;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 关联关系批量分配工具类
+ * 以集合运算代替逐条处理：先在内存中用哈希集合算出差异，再用分块的 DELETE ... IN 和多行 INSERT 落库，
+ * 一次为上万个用户分配同一角色也只需几十条SQL
+ *
+ * 直接通过 JdbcTemplate 执行，参与调用方的JPA事务；写入的关联不会进入持久化上下文，
+ * 调用方不应在同一事务中继续读取已加载实体上的关联集合
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BulkAssignmentUtil {
+
+    /**
+     * 每条SQL携带的最大ID数，控制语句长度和占位符数量
+     */
+    private static final int CHUNK_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 为一个主体添加一批关联，已存在的关联跳过
+     *
+     * @param relation  关联关系
+     * @param ownerId   主体ID（如按用户分配角色时为用户ID）
+     * @param targetIds 待关联的ID（可重复，内部去重）
+     * @return 实际新增的关联
+     */
+    public AssignmentResult assign(Relation relation, Long ownerId, Collection<Long> targetIds) {
+        Set<Long> requested = new LinkedHashSet<>(targetIds);
+        if (requested.isEmpty()) {
+            return AssignmentResult.EMPTY;
+        }
+
+        Set<Long> existing = findExisting(relation, ownerId, requested);
+        List<Long> toInsert = new ArrayList<>(requested.size() - existing.size());
+        for (Long targetId : requested) {
+            if (!existing.contains(targetId)) {
+                toInsert.add(targetId);
+            }
+        }
+
+        int added = 0;
+        LocalDateTime now = LocalDateTime.now();
+        for (List<Long> chunk : chunks(toInsert)) {
+            added += insert(relation, ownerId, chunk, now);
+        }
+        log.debug("批量添加{}关联: {}={}, 请求{}条, 已存在{}条, 新增{}条",
+                relation.getTable(), relation.getOwnerColumn(), ownerId, requested.size(), existing.size(), added);
+        return new AssignmentResult(toInsert, added, List.of(), 0);
+    }
+
+    /**
+     * 移除一个主体的一批关联，不存在的关联忽略
+     *
+     * @param relation  关联关系
+     * @param ownerId   主体ID
+     * @param targetIds 待移除的ID（可重复，内部去重）
+     * @return 实际删除的关联数
+     */
+    public AssignmentResult remove(Relation relation, Long ownerId, Collection<Long> targetIds) {
+        List<Long> requested = new ArrayList<>(new LinkedHashSet<>(targetIds));
+        if (requested.isEmpty()) {
+            return AssignmentResult.EMPTY;
+        }
+
+        int removed = 0;
+        for (List<Long> chunk : chunks(requested)) {
+            String sql = "DELETE FROM " + relation.getTable()
+                    + " WHERE " + relation.getOwnerColumn() + " = ?"
+                    + " AND " + relation.getTargetColumn() + " IN (" + placeholders(chunk.size()) + ")";
+            removed += jdbcTemplate.update(sql, withOwner(ownerId, chunk));
+        }
+        log.debug("批量移除{}关联: {}={}, 请求{}条, 删除{}条",
+                relation.getTable(), relation.getOwnerColumn(), ownerId, requested.size(), removed);
+        return new AssignmentResult(List.of(), 0, requested, removed);
+    }
+
+    /**
+     * 查询请求的ID中已与主体关联的部分
+     */
+    private Set<Long> findExisting(Relation relation, Long ownerId, Set<Long> requested) {
+        Set<Long> existing = new HashSet<>();
+        for (List<Long> chunk : chunks(new ArrayList<>(requested))) {
+            String sql = "SELECT " + relation.getTargetColumn() + " FROM " + relation.getTable()
+                    + " WHERE " + relation.getOwnerColumn() + " = ?"
+                    + " AND " + relation.getTargetColumn() + " IN (" + placeholders(chunk.size()) + ")";
+            existing.addAll(jdbcTemplate.queryForList(sql, Long.class, withOwner(ownerId, chunk)));
+        }
+        return existing;
+    }
+
+    /**
+     * 以一条多行INSERT写入一块关联
+     * 使用 INSERT IGNORE，并发请求已写入的相同关联由唯一约束跳过，返回值只计实际写入的行
+     */
+    private int insert(Relation relation, Long ownerId, List<Long> targetIds, LocalDateTime now) {
+        StringBuilder sql = new StringBuilder("INSERT IGNORE INTO ").append(relation.getTable())
+                .append(" (id, ").append(relation.getOwnerColumn())
+                .append(", ").append(relation.getTargetColumn())
+                .append(", ").append(relation.getTimeColumn()).append(") VALUES ");
+        Object[] args = new Object[targetIds.size() * 4];
+        for (int i = 0; i < targetIds.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?)" : ", (?, ?, ?, ?)");
+            args[i * 4] = SnowflakeIdUtil.nextId();
+            args[i * 4 + 1] = ownerId;
+            args[i * 4 + 2] = targetIds.get(i);
+            args[i * 4 + 3] = now;
+        }
+        return jdbcTemplate.update(sql.toString(), args);
+    }
+
+    private static Object[] withOwner(Long ownerId, List<Long> ids) {
+        Object[] args = new Object[ids.size() + 1];
+        args[0] = ownerId;
+        for (int i = 0; i < ids.size(); i++) {
+            args[i + 1] = ids.get(i);
+        }
+        return args;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>((ids.size() + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(ids.size(), from + CHUNK_SIZE)));
+        }
+        return chunks;
+    }
+
+    /**
+     * 支持批量分配的关联关系
+     * 表名和列名为固定常量，不接受外部输入
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public enum Relation {
+
+        /**
+         * 为一个用户分配多个角色
+         */
+        USER_ROLES("user_roles", "user_id", "role_id", "assigned_at"),
+
+        /**
+         * 把一个角色分配给多个用户
+         */
+        ROLE_USERS("user_roles", "role_id", "user_id", "assigned_at"),
+
+        /**
+         * 为一个角色分配多个权限
+         */
+        ROLE_PERMISSIONS("role_permissions", "role_id", "permission_id", "granted_at");
+
+        private final String table;
+        private final String ownerColumn;
+        private final String targetColumn;
+        private final String timeColumn;
+    }
+
+    /**
+     * 批量分配结果
+     *
+     * @param addedIds     新增关联的ID（并发写入被唯一约束跳过的也包含在内）
+     * @param addedCount   实际新增的关联数
+     * @param removedIds   请求移除的ID
+     * @param removedCount 实际删除的关联数
+     */
+    public record AssignmentResult(List<Long> addedIds, int addedCount, List<Long> removedIds, int removedCount) {
+
+        static final AssignmentResult EMPTY = new AssignmentResult(List.of(), 0, List.of(), 0);
+
+        /**
+         * 新增或删除的ID，用于失效缓存和重新计算有效权限
+         *
+         * @return 受影响的ID
+         */
+        public List<Long> affectedIds() {
+            if (removedIds.isEmpty()) {
+                return addedIds;
+            }
+            if (addedIds.isEmpty()) {
+                return removedIds;
+            }
+            List<Long> affected = new ArrayList<>(addedIds);
+            affected.addAll(removedIds);
+            return affected;
+        }
+    }
+}
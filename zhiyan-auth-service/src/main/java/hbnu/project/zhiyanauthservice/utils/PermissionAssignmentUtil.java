@@ -4,9 +4,9 @@ import hbnu.project.zhiyanauthservice.model.entity.Permission;
 import hbnu.project.zhiyanauthservice.model.entity.Role;
 import hbnu.project.zhiyanauthservice.model.entity.RolePermission;
 import hbnu.project.zhiyanauthservice.model.enums.PermissionModule;
-import hbnu.project.zhiyanauthservice.model.enums.SystemPermission;
 import hbnu.project.zhiyanauthservice.repository.PermissionRepository;
 import hbnu.project.zhiyanauthservice.repository.RolePermissionRepository;
+import hbnu.project.zhiyancommon.enums.SystemPermission;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -0,0 +1,44 @@
+-- 登录失败滑动窗口计数：记录一次失败、判断阈值、按需加锁，并返回剩余尝试次数
+-- 邮箱和IP两个维度在同一次调用中原子完成
+--
+-- KEYS[1] 邮箱失败记录（有序集合，score为失败时间戳）
+-- KEYS[2] 邮箱锁定标记
+-- KEYS[3] IP失败记录
+-- KEYS[4] IP锁定标记
+-- ARGV[1] 当前时间戳（毫秒）
+-- ARGV[2] 滑动窗口长度（毫秒）
+-- ARGV[3] 本次失败的唯一标识
+-- ARGV[4] 锁定标记的值
+-- ARGV[5] 邮箱最大失败次数
+-- ARGV[6] 邮箱锁定时长（毫秒）
+-- ARGV[7] IP最大失败次数
+-- ARGV[8] IP锁定时长（毫秒）
+--
+-- 返回 {邮箱失败次数, 邮箱是否锁定, 邮箱剩余次数, IP失败次数, IP是否锁定}
+
+local now = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+
+local function record(failureKey, lockKey, maxCount, lockMillis)
+    redis.call('ZREMRANGEBYSCORE', failureKey, '-inf', now - window)
+    redis.call('ZADD', failureKey, now, ARGV[3])
+    local count = redis.call('ZCARD', failureKey)
+    -- 超过阈值后只保留最近的记录，避免暴力请求使集合无限增长
+    if count > maxCount then
+        redis.call('ZREMRANGEBYRANK', failureKey, 0, count - maxCount - 1)
+        count = maxCount
+    end
+    redis.call('PEXPIRE', failureKey, window)
+
+    local locked = 0
+    if count >= maxCount then
+        redis.call('SET', lockKey, ARGV[4], 'PX', lockMillis)
+        locked = 1
+    end
+    return count, locked
+end
+
+local emailCount, emailLocked = record(KEYS[1], KEYS[2], tonumber(ARGV[5]), tonumber(ARGV[6]))
+local ipCount, ipLocked = record(KEYS[3], KEYS[4], tonumber(ARGV[7]), tonumber(ARGV[8]))
+
+return {emailCount, emailLocked, math.max(0, tonumber(ARGV[5]) - emailCount), ipCount, ipLocked}
@@ -0,0 +1,26 @@
+-- 校验并消费验证码：比对验证码、删除验证码并写入已使用标记，在一次调用中原子完成
+-- 两个请求同时提交同一个验证码时只有一个会得到 VALID
+--
+-- KEYS[1] 验证码键
+-- KEYS[2] 已使用标记键
+-- ARGV[1] 待校验的验证码
+-- ARGV[2] 待校验验证码的JSON字符串形式，兼容以JSON序列化写入的旧值
+-- ARGV[3] 已使用标记的过期时间（毫秒）
+--
+-- 返回 VALID / MISMATCH / USED / MISSING
+
+if redis.call('EXISTS', KEYS[2]) == 1 then
+    return 'USED'
+end
+
+local stored = redis.call('GET', KEYS[1])
+if not stored then
+    return 'MISSING'
+end
+if stored ~= ARGV[1] and stored ~= ARGV[2] then
+    return 'MISMATCH'
+end
+
+redis.call('DEL', KEYS[1])
+redis.call('SET', KEYS[2], '1', 'PX', ARGV[3])
+return 'VALID'
@@ -0,0 +1,57 @@
+package hbnu.project.zhiyanauthservice.imports;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 导入文件读取器测试
+ */
+public class ImportFileReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parsePlainLine() {
+        assertEquals(List.of("a@b.com", "张三", "123456"), ImportFileReader.parseCsvLine("a@b.com,张三,123456"));
+        assertEquals(List.of("a", "", ""), ImportFileReader.parseCsvLine("a,,"));
+        assertEquals(List.of(""), ImportFileReader.parseCsvLine(""));
+    }
+
+    @Test
+    void parseQuotedFieldWithComma() {
+        assertEquals(List.of("a@b.com", "湖北师范大学, 计算机学院", "x"),
+                ImportFileReader.parseCsvLine("a@b.com,\"湖北师范大学, 计算机学院\",x"));
+    }
+
+    @Test
+    void parseEscapedQuotes() {
+        assertEquals(List.of("他说\"你好\"", "end"), ImportFileReader.parseCsvLine("\"他说\"\"你好\"\"\",end"));
+        assertEquals(List.of("\"", ""), ImportFileReader.parseCsvLine("\"\"\"\","));
+    }
+
+    @Test
+    void readStripsBomFromFirstLineOnly() throws Exception {
+        Path file = tempDir.resolve("users.csv");
+        Files.writeString(file, "\uFEFFemail,name\n\"a@b.com\",\uFEFF李四\n", StandardCharsets.UTF_8);
+
+        List<Integer> rowNumbers = new ArrayList<>();
+        List<List<String>> rows = new ArrayList<>();
+        ImportFileReader.read(file, "USERS.CSV", (rowNumber, cells) -> {
+            rowNumbers.add(rowNumber);
+            rows.add(cells);
+        });
+
+        assertEquals(List.of(1, 2), rowNumbers);
+        assertEquals(List.of("email", "name"), rows.get(0));
+        assertEquals(List.of("a@b.com", "\uFEFF李四"), rows.get(1));
+    }
+}
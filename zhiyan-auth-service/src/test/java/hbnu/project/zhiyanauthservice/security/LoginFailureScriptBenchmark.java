@@ -0,0 +1,109 @@
+package hbnu.project.zhiyanauthservice.security;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录失败计数并发对比
+ * 同一邮箱被大量线程同时记录失败时，比较旧的 读取-加一-写回 方式与 login_failure.lua 脚本的
+ * 计数丢失情况和吞吐量
+ *
+ * 说明：需要本地Redis（默认 localhost:6379，可用 -Dredis.host / -Dredis.port 指定），会写入 bench:login: 前缀的键；
+ * 项目未引入JMH，沿用其他 Benchmark 的计时方式，结果只作为相对量级参考
+ */
+public class LoginFailureScriptBenchmark {
+
+    private static final int THREADS = 64;
+
+    private static final int FAILURES_PER_THREAD = 200;
+
+    private static final long WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(60);
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== 登录失败计数并发对比 ===");
+
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(
+                System.getProperty("redis.host", "localhost"), Integer.getInteger("redis.port", 6379)));
+        factory.afterPropertiesSet();
+        StringRedisTemplate template = new StringRedisTemplate(factory);
+        template.afterPropertiesSet();
+
+        DefaultRedisScript<List> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/login_failure.lua")));
+        script.setResultType(List.class);
+
+        int total = THREADS * FAILURES_PER_THREAD;
+        try {
+            String counterKey = "bench:login:counter";
+            template.delete(counterKey);
+            long elapsed = run(() -> {
+                String current = template.opsForValue().get(counterKey);
+                int count = current == null ? 1 : Integer.parseInt(current) + 1;
+                template.opsForValue().set(counterKey, String.valueOf(count), 60, TimeUnit.MINUTES);
+            });
+            report("读取-加一-写回", total, Integer.parseInt(template.opsForValue().get(counterKey)), elapsed);
+
+            // 阈值设为总次数，脚本不会截断记录，最终集合大小即为成功记录的失败次数
+            List<String> keys = List.of("bench:login:email", "bench:login:email:lock",
+                    "bench:login:ip", "bench:login:ip:lock");
+            template.delete(keys);
+            String max = String.valueOf(total);
+            elapsed = run(() -> {
+                long now = System.currentTimeMillis();
+                template.execute(script, keys, String.valueOf(now), String.valueOf(WINDOW_MILLIS),
+                        now + "-" + ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE), "locked",
+                        max, "60000", max, "60000");
+            });
+            Long recorded = template.opsForZSet().zCard("bench:login:email");
+            report("Lua脚本", total, recorded == null ? 0 : recorded, elapsed);
+
+            template.delete(keys);
+            template.delete(counterKey);
+        } finally {
+            factory.destroy();
+        }
+    }
+
+    private static long run(Runnable task) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < FAILURES_PER_THREAD; j++) {
+                        task.run();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        return elapsed;
+    }
+
+    private static void report(String name, int expected, long actual, long elapsedNanos) {
+        System.out.printf("%-12s 期望 %d 次, 实际记录 %d 次, 丢失 %d 次, 耗时 %d ms, 吞吐 %.0f 次/秒%n",
+                name, expected, actual, expected - actual, elapsedNanos / 1_000_000,
+                expected / (elapsedNanos / 1_000_000_000D));
+    }
+}
@@ -0,0 +1,163 @@
+package hbnu.project.zhiyanauthservice.service.impl;
+
+import hbnu.project.zhiyanauthservice.mapper.MapperManager;
+import hbnu.project.zhiyanauthservice.model.dto.TokenDTO;
+import hbnu.project.zhiyanauthservice.model.entity.User;
+import hbnu.project.zhiyanauthservice.model.form.LoginBody;
+import hbnu.project.zhiyanauthservice.repository.RoleRepository;
+import hbnu.project.zhiyanauthservice.repository.UserRepository;
+import hbnu.project.zhiyanauthservice.repository.UserRoleRepository;
+import hbnu.project.zhiyanauthservice.security.LoginFailureService;
+import hbnu.project.zhiyanauthservice.service.AuthService;
+import hbnu.project.zhiyanauthservice.service.UserSearchService;
+import hbnu.project.zhiyanauthservice.service.UserService;
+import hbnu.project.zhiyanauthservice.service.VerificationCodeService;
+import hbnu.project.zhiyancommon.domain.R;
+import hbnu.project.zhiyancommon.ratelimit.RateLimitProperties;
+import hbnu.project.zhiyansecurity.utils.SecurityUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 登录失败锁定测试
+ * Redis以内存计数模拟登录失败脚本：每次失败邮箱和IP各计一次，达到阈值写入锁定键
+ */
+public class SysLoginServiceImplTest {
+
+    private static final String EMAIL = "user@hbnu.edu.cn";
+    private static final String PASSWORD = "right-password";
+    private static final int MAX_EMAIL_FAILURE_COUNT = 5;
+
+    private final Map<String, Long> counters = new HashMap<>();
+    private final Map<String, String> values = new HashMap<>();
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final AuthService authService = mock(AuthService.class);
+
+    private SysLoginServiceImpl sysLoginService;
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(anyString())).thenAnswer(invocation -> values.get(invocation.<String>getArgument(0)));
+        when(redis.getExpire(anyString())).thenReturn(1800L);
+        when(redis.delete(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> keys = invocation.getArgument(0);
+            keys.forEach(key -> {
+                counters.remove(key);
+                values.remove(key);
+            });
+            return (long) keys.size();
+        });
+        when(redis.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenAnswer(invocation -> {
+            List<String> keys = invocation.getArgument(1);
+            // 展开后的参数：脚本、键、now、window、member、lockValue、emailMax、emailLockMs、ipMax、ipLockMs
+            Object[] args = invocation.getArguments();
+            long emailMax = Long.parseLong((String) args[6]);
+            long emailCount = record(keys.get(0), keys.get(1), emailMax);
+            long ipCount = record(keys.get(2), keys.get(3), Long.parseLong((String) args[8]));
+            return List.of(emailCount, values.containsKey(keys.get(1)) ? 1L : 0L,
+                    Math.max(0, emailMax - emailCount), ipCount, values.containsKey(keys.get(3)) ? 1L : 0L);
+        });
+
+        LoginFailureService loginFailureService =
+                new LoginFailureService(redis, mock(UserService.class), new RateLimitProperties());
+        sysLoginService = new SysLoginServiceImpl(userRepository, mock(RoleRepository.class),
+                mock(UserRoleRepository.class), mock(VerificationCodeService.class), authService,
+                mock(MapperManager.class), mock(UserSearchService.class), loginFailureService);
+
+        User user = User.builder()
+                .id(1L)
+                .email(EMAIL)
+                .passwordHash(SecurityUtils.encryptPassword(PASSWORD))
+                .isLocked(false)
+                .build();
+        when(userRepository.findByEmailAndIsDeletedFalse(EMAIL)).thenReturn(Optional.of(user));
+        when(authService.generateTokens(anyLong(), anyBoolean())).thenAnswer(invocation -> new TokenDTO());
+
+        request = new MockHttpServletRequest();
+        request.setRemoteAddr("203.0.113.7");
+    }
+
+    private long record(String windowKey, String lockKey, long max) {
+        long count = counters.merge(windowKey, 1L, Long::sum);
+        if (count >= max) {
+            values.put(lockKey, "locked");
+        }
+        return count;
+    }
+
+    private R<TokenDTO> login(String password) {
+        return sysLoginService.login(LoginBody.builder().email(EMAIL).password(password).build(), request);
+    }
+
+    @Test
+    void repeatedBadPasswordsLockTheAccount() {
+        for (int i = 1; i < MAX_EMAIL_FAILURE_COUNT; i++) {
+            R<TokenDTO> result = login("wrong-password");
+            assertTrue(result.getMsg().contains("还有 " + (MAX_EMAIL_FAILURE_COUNT - i) + " 次"), result.getMsg());
+        }
+
+        R<TokenDTO> locked = login("wrong-password");
+        assertEquals(423, locked.getCode());
+
+        // 锁定后正确密码也被拒绝，且不再校验密码
+        R<TokenDTO> afterLock = login(PASSWORD);
+        assertEquals(423, afterLock.getCode());
+        verify(authService, never()).generateTokens(anyLong(), anyBoolean());
+        assertEquals((long) MAX_EMAIL_FAILURE_COUNT, counters.get("login:failure:window:" + EMAIL));
+    }
+
+    @Test
+    void successfulLoginClearsFailures() {
+        login("wrong-password");
+        login("wrong-password");
+
+        R<TokenDTO> result = login(PASSWORD);
+
+        assertEquals(200, result.getCode());
+        verify(authService, times(1)).generateTokens(1L, false);
+        assertNull(counters.get("login:failure:window:" + EMAIL));
+        assertTrue(login("wrong-password").getMsg().contains("还有 " + (MAX_EMAIL_FAILURE_COUNT - 1) + " 次"));
+    }
+
+    @Test
+    void unknownEmailCountsAsFailure() {
+        when(userRepository.findByEmailAndIsDeletedFalse(EMAIL)).thenReturn(Optional.empty());
+
+        for (int i = 0; i < MAX_EMAIL_FAILURE_COUNT; i++) {
+            login(PASSWORD);
+        }
+
+        assertEquals(423, login(PASSWORD).getCode());
+    }
+}
@@ -0,0 +1,57 @@
+package hbnu.project.zhiyancommon.annotation;
+
+import hbnu.project.zhiyancommon.enums.LimitAlgorithm;
+import hbnu.project.zhiyancommon.enums.LimitType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 接口限流注解
+ * 标注在控制器方法或类上，由 RateLimitInterceptor 在进入接口前按规则限流，超出限制时返回429
+ *
+ * 注解上的次数和周期是默认规则，可通过 zhiyan.rate-limit.rules.{name} 在配置中心覆盖，配置刷新后立即生效
+ *
+ * @author ErgouTree
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimit {
+
+    /**
+     * 规则名称，用于配置覆盖和Redis键，默认为 类名.方法名（在YAML中覆盖时需写成 "[类名.方法名]"）
+     */
+    String name() default "";
+
+    /**
+     * 计数维度
+     */
+    LimitType limitType() default LimitType.IP;
+
+    /**
+     * 限流算法
+     */
+    LimitAlgorithm algorithm() default LimitAlgorithm.SLIDING_WINDOW;
+
+    /**
+     * 一个周期内允许的次数；令牌桶时为桶容量
+     */
+    int permits() default 10;
+
+    /**
+     * 周期（秒）
+     */
+    int periodSeconds() default 60;
+
+    /**
+     * 按邮箱计数时读取的请求参数名，请求参数中没有时读取请求体的同名属性
+     */
+    String emailParam() default "email";
+
+    /**
+     * 被限流时的提示信息
+     */
+    String message() default "请求过于频繁，请稍后再试";
+}
@@ -0,0 +1,46 @@
+package hbnu.project.zhiyancommon.config;
+
+import hbnu.project.zhiyancommon.ratelimit.RateLimitInterceptor;
+import hbnu.project.zhiyancommon.ratelimit.RateLimitProperties;
+import hbnu.project.zhiyancommon.ratelimit.RateLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * 接口限流配置
+ * 在Servlet应用中注册限流拦截器，只有标注了 @RateLimit 的接口会被限流
+ *
+ * @author ErgouTree
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+public class RateLimitConfig implements WebMvcConfigurer {
+
+    private final RateLimiter rateLimiter;
+
+    private final RateLimitProperties rateLimitProperties;
+
+    /**
+     * 限流拦截器，同时供 RateLimitBodyAdvice 按请求体中的邮箱判定
+     */
+    @Bean
+    public RateLimitInterceptor rateLimitInterceptor() {
+        return new RateLimitInterceptor(rateLimiter, rateLimitProperties);
+    }
+
+    /**
+     * 注册限流拦截器
+     *
+     * @param registry 拦截器注册器
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(rateLimitInterceptor())
+                .addPathPatterns("/**");
+    }
+}
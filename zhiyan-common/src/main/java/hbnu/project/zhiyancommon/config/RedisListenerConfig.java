@@ -0,0 +1,32 @@
+package hbnu.project.zhiyancommon.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Redis消息监听配置
+ * 提供共享的发布/订阅监听容器，供令牌吊销、缓存失效等跨节点通知使用
+ *
+ * @author ErgouTree
+ */
+@Configuration
+public class RedisListenerConfig {
+
+    /**
+     * Redis消息监听容器
+     * 各组件在初始化时自行注册监听的频道
+     *
+     * @param connectionFactory Redis连接工厂
+     * @return 监听容器
+     */
+    @Bean
+    @ConditionalOnMissingBean(RedisMessageListenerContainer.class)
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+}
@@ -20,6 +20,46 @@ public class CacheConstants {
     public static final String TOKEN_BLACKLIST_PREFIX = "blacklist:token:";
     public static final String USER_TOKEN_PREFIX = "user:token:";
     public static final String USER_SESSION_PREFIX = "user:session:";
+
+    /**
+     * 令牌吊销相关缓存键
+     * 按jti记录已吊销的令牌，有序集合按过期时间记录全部吊销jti，用于重建本地布隆过滤器
+     */
+    public static final String TOKEN_REVOKED_JTI_PREFIX = "blacklist:jti:";
+    public static final String TOKEN_REVOKED_INDEX_KEY = "blacklist:jti:index";
+    public static final String TOKEN_REVOCATION_CHANNEL = "channel:token:revocation";
+
+    /**
+     * 用户令牌纪元，哈希结构，field为用户ID，value为当前纪元
+     * 纪元递增后，该用户此前签发的全部令牌失效
+     */
+    public static final String USER_TOKEN_EPOCH_KEY = "user:token_epoch";
+    public static final String TOKEN_EPOCH_CHANNEL = "channel:token:epoch";
+
+    /**
+     * 用户权限、角色缓存键前缀
+     * 各节点另有本地一级缓存，失效时通过频道广播，所有节点同步清除
+     */
+    public static final String USER_PERMISSIONS_PREFIX = "user:permissions:";
+    public static final String USER_ROLES_PREFIX = "user:roles:";
+    public static final String USER_AUTHORITY_INVALIDATION_CHANNEL = "channel:cache:user-authority";
+
+    /**
+     * 缓存命名空间版本号键前缀
+     * 版本号是缓存键的一部分，整体失效只需INCR一次，旧版本的键随TTL自然过期
+     */
+    public static final String CACHE_VERSION_PREFIX = "cache:version:";
+
+    /**
+     * 缓存重建租约键前缀
+     * 缓存未命中时只有持有租约的节点查询数据库，其他节点等待重建结果
+     */
+    public static final String CACHE_LOAD_LOCK_PREFIX = "lock:cache:";
+
+    /**
+     * 定时任务租约前缀，多实例部署时同一任务同一时间只在一个实例上执行
+     */
+    public static final String TASK_LOCK_PREFIX = "lock:task:";
     
     /**
      * 登录失败相关缓存键前缀
@@ -52,6 +52,11 @@ public class SecurityConstants {
      */
     public static final String LOGIN_USER_PERMISSIONS = "login_user_permissions";
 
+    /**
+     * 登录用户权限位图（long[]）
+     */
+    public static final String LOGIN_USER_PERMISSION_BITS = "login_user_permission_bits";
+
     /**
      * 登录用户角色
      */
@@ -111,4 +116,19 @@ public class SecurityConstants {
      * 用户token
      */
     public static final String USER_TOKEN = "user_token";
-}
\ No newline at end of file
+
+    /**
+     * 网关签名后的用户身份请求头
+     */
+    public static final String IDENTITY_HEADER = "X-Zhiyan-Identity";
+
+    /**
+     * 请求属性：已通过网关身份头完成认证
+     */
+    public static final String IDENTITY_VERIFIED_ATTRIBUTE = "zhiyan.identity.verified";
+
+    /**
+     * 请求属性：经令牌或网关身份头认证后的用户ID
+     */
+    public static final String AUTHENTICATED_USER_ID_ATTRIBUTE = "zhiyan.identity.userId";
+}
@@ -41,6 +41,16 @@ public class TokenConstants {
      */
     public static final String JWT_CLAIM_USER_ID = "userId";
 
+    /**
+     * JWT声明中的用户令牌纪元键
+     */
+    public static final String JWT_CLAIM_TOKEN_EPOCH = "ep";
+
+    /**
+     * JWT声明中的用户权限位图键（PermissionBitset编码）
+     */
+    public static final String JWT_CLAIM_PERMISSION_BITS = "pb";
+
     /**
      * JWT声明中的Token类型键
      */
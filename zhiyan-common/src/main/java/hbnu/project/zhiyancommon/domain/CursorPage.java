@@ -0,0 +1,120 @@
+package hbnu.project.zhiyancommon.domain;
+
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页结果
+ * 与 Page 并存，用于数据量大、需要深度翻页的列表：每页按 (排序键, ID) 定位，不执行 COUNT(*) 和 OFFSET，
+ * 总数按需返回，可以是精确值或来自表统计信息的估算值
+ *
+ * 使用方式：仓库按游标条件多查一条（size + 1），交给 {@link #of} 判断是否还有下一页并生成下一页游标
+ *
+ * @param <T> 数据类型
+ * @author ErgouTree
+ */
+@Getter
+public final class CursorPage<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 默认每页条数
+     */
+    public static final int DEFAULT_SIZE = 20;
+
+    /**
+     * 每页条数上限
+     */
+    public static final int MAX_SIZE = 200;
+
+    /**
+     * 本页数据
+     */
+    private final List<T> records;
+
+    /**
+     * 下一页游标，没有下一页时为null
+     */
+    private final String nextCursor;
+
+    /**
+     * 是否还有下一页
+     */
+    private final boolean hasMore;
+
+    /**
+     * 总条数，未请求总数时为null
+     */
+    private final Long total;
+
+    /**
+     * 总条数是否为估算值
+     */
+    private final boolean totalApproximate;
+
+    private CursorPage(List<T> records, String nextCursor, Long total, boolean totalApproximate) {
+        this.records = records;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+        this.total = total;
+        this.totalApproximate = totalApproximate;
+    }
+
+    /**
+     * 由多查一条的查询结果构建分页
+     *
+     * @param rows      按游标条件查询的结果，最多 size + 1 条
+     * @param size      每页条数
+     * @param cursorOf  由一条数据生成其游标
+     * @param converter 实体到返回对象的转换
+     * @param <E>       查询结果类型
+     * @param <T>       返回数据类型
+     * @return 不含总数的分页结果
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int size,
+                                          Function<E, PageCursor> cursorOf,
+                                          Function<List<E>, List<T>> converter) {
+        boolean hasMore = rows.size() > size;
+        List<E> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = hasMore ? cursorOf.apply(page.get(page.size() - 1)).encode() : null;
+        return new CursorPage<>(converter.apply(page), nextCursor, null, false);
+    }
+
+    /**
+     * 空分页
+     *
+     * @param <T> 数据类型
+     * @return 没有数据和下一页的分页结果
+     */
+    public static <T> CursorPage<T> empty() {
+        return new CursorPage<>(List.of(), null, null, false);
+    }
+
+    /**
+     * 附加总条数
+     *
+     * @param total       总条数
+     * @param approximate 是否为估算值
+     * @return 新的分页结果
+     */
+    public CursorPage<T> withTotal(Long total, boolean approximate) {
+        return new CursorPage<>(records, nextCursor, total, approximate);
+    }
+
+    /**
+     * 规范化每页条数，未指定或不合法时取默认值，超过上限时取上限
+     *
+     * @param size 请求的每页条数
+     * @return 实际每页条数
+     */
+    public static int normalizeSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+}
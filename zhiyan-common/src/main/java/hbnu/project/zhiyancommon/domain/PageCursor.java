@@ -0,0 +1,108 @@
+package hbnu.project.zhiyancommon.domain;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 游标分页位置
+ * 记录上一页最后一条数据的排序键和ID，下一页从该位置之后继续查询（WHERE (sort_key, id) > (?, ?)），
+ * 不需要OFFSET扫描，翻到多深的页耗时都相同
+ *
+ * 对外以不透明的Base64URL令牌传递，调用方不应解析或拼接令牌内容
+ *
+ * @author ErgouTree
+ */
+@Getter
+public final class PageCursor {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private static final char SEPARATOR = ':';
+
+    /**
+     * 排序键的文本形式
+     */
+    private final String sortKey;
+
+    /**
+     * 数据ID，排序键相同时用于确定先后
+     */
+    private final long id;
+
+    private PageCursor(String sortKey, long id) {
+        this.sortKey = sortKey;
+        this.id = id;
+    }
+
+    /**
+     * 构建游标
+     *
+     * @param sortKey 排序键（字符串、数字或时间），以toString的结果保存
+     * @param id      数据ID
+     * @return 游标
+     */
+    public static PageCursor of(Object sortKey, long id) {
+        return new PageCursor(sortKey != null ? sortKey.toString() : "", id);
+    }
+
+    /**
+     * 解析游标令牌
+     *
+     * @param token 游标令牌，为空表示第一页
+     * @return 游标，第一页返回null
+     * @throws IllegalArgumentException 令牌格式错误
+     */
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String text = new String(DECODER.decode(token), StandardCharsets.UTF_8);
+            int separator = text.indexOf(SEPARATOR);
+            return new PageCursor(text.substring(separator + 1), Long.parseLong(text.substring(0, separator)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+
+    /**
+     * 编码为令牌
+     * ID在前，排序键中出现分隔符也不影响解析
+     *
+     * @return 游标令牌
+     */
+    public String encode() {
+        return ENCODER.encodeToString((id + String.valueOf(SEPARATOR) + sortKey).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 以时间读取排序键
+     *
+     * @throws IllegalArgumentException 排序键不是时间
+     */
+    public LocalDateTime getSortKeyAsDateTime() {
+        try {
+            return LocalDateTime.parse(sortKey);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+
+    /**
+     * 以长整数读取排序键
+     *
+     * @throws IllegalArgumentException 排序键不是数字
+     */
+    public long getSortKeyAsLong() {
+        try {
+            return Long.parseLong(sortKey);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+}
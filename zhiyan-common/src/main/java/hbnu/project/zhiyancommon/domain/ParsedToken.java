@@ -0,0 +1,185 @@
+package hbnu.project.zhiyancommon.domain;
+
+import hbnu.project.zhiyancommon.constants.TokenConstants;
+import io.jsonwebtoken.Claims;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * JWT令牌解析结果
+ * 由 JwtUtils#parse 一次性完成验签和解析，调用方从同一个对象中读取所需的全部信息，
+ * 不再为获取主题、过期时间、剩余时间等分别重复解析令牌
+ *
+ * @author ErgouTree
+ */
+@Getter
+public final class ParsedToken {
+
+    /**
+     * 解析失败原因
+     */
+    public enum FailureReason {
+        /**
+         * 令牌为空
+         */
+        EMPTY,
+        /**
+         * 令牌已过期
+         */
+        EXPIRED,
+        /**
+         * 不支持的令牌
+         */
+        UNSUPPORTED,
+        /**
+         * 令牌格式错误
+         */
+        MALFORMED,
+        /**
+         * 签名验证失败
+         */
+        INVALID_SIGNATURE,
+        /**
+         * 令牌参数错误
+         */
+        ILLEGAL_ARGUMENT,
+        /**
+         * 其他未知错误
+         */
+        UNKNOWN
+    }
+
+    /**
+     * 验签通过后的Claims，解析失败时为null
+     */
+    private final Claims claims;
+
+    /**
+     * 解析失败原因，解析成功时为null
+     */
+    private final FailureReason failureReason;
+
+    private ParsedToken(Claims claims, FailureReason failureReason) {
+        this.claims = claims;
+        this.failureReason = failureReason;
+    }
+
+    /**
+     * 构建解析成功的结果
+     */
+    public static ParsedToken valid(Claims claims) {
+        return new ParsedToken(claims, null);
+    }
+
+    /**
+     * 构建解析失败的结果
+     */
+    public static ParsedToken invalid(FailureReason failureReason) {
+        return new ParsedToken(null, failureReason);
+    }
+
+    /**
+     * 令牌是否有效（签名正确且未过期）
+     */
+    public boolean isValid() {
+        return claims != null;
+    }
+
+    /**
+     * 令牌主题
+     */
+    public String getSubject() {
+        return claims != null ? claims.getSubject() : null;
+    }
+
+    /**
+     * 令牌唯一标识（jti），早期签发的令牌不包含该声明
+     */
+    public String getTokenId() {
+        return claims != null ? claims.getId() : null;
+    }
+
+    /**
+     * 用户ID
+     * 优先读取userId声明，兼容早期仅以用户ID作为主题签发的令牌
+     */
+    public Long getUserId() {
+        if (claims == null) {
+            return null;
+        }
+        Object userId = claims.get(TokenConstants.JWT_CLAIM_USER_ID);
+        if (userId != null) {
+            return Long.valueOf(String.valueOf(userId));
+        }
+        String subject = claims.getSubject();
+        if (subject != null && !subject.isEmpty() && subject.chars().allMatch(Character::isDigit)) {
+            return Long.valueOf(subject);
+        }
+        return null;
+    }
+
+    /**
+     * 用户令牌纪元，早期签发的令牌不含该声明，视为0
+     */
+    public long getTokenEpoch() {
+        if (claims == null) {
+            return 0L;
+        }
+        Object epoch = claims.get(TokenConstants.JWT_CLAIM_TOKEN_EPOCH);
+        return epoch != null ? Long.parseLong(String.valueOf(epoch)) : 0L;
+    }
+
+    /**
+     * 用户权限位图（PermissionBitset编码），未携带时返回null
+     */
+    public String getPermissionBits() {
+        if (claims == null) {
+            return null;
+        }
+        Object bits = claims.get(TokenConstants.JWT_CLAIM_PERMISSION_BITS);
+        return bits != null ? bits.toString() : null;
+    }
+
+    /**
+     * 过期时间
+     */
+    public Date getExpiration() {
+        return claims != null ? claims.getExpiration() : null;
+    }
+
+    /**
+     * 签发时间
+     */
+    public Date getIssuedAt() {
+        return claims != null ? claims.getIssuedAt() : null;
+    }
+
+    /**
+     * 获取剩余有效时间（秒）
+     *
+     * @return 剩余时间（秒），如果已过期或无效则返回null
+     */
+    public Long getRemainingSeconds() {
+        Date expiration = getExpiration();
+        if (expiration == null) {
+            return null;
+        }
+        long remaining = expiration.getTime() - System.currentTimeMillis();
+        return remaining > 0 ? remaining / 1000 : null;
+    }
+
+    /**
+     * 检查令牌是否即将过期，无效令牌视为即将过期
+     *
+     * @param minutes 提前多少分钟算作即将过期
+     * @return 是否即将过期
+     */
+    public boolean isExpiringSoon(int minutes) {
+        Date expiration = getExpiration();
+        if (expiration == null) {
+            return true;
+        }
+        return expiration.getTime() < System.currentTimeMillis() + minutes * 60 * 1000L;
+    }
+}
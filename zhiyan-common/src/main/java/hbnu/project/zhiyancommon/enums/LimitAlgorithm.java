@@ -0,0 +1,19 @@
+package hbnu.project.zhiyancommon.enums;
+
+/**
+ * 限流算法
+ *
+ * @author ErgouTree
+ */
+public enum LimitAlgorithm
+{
+    /**
+     * 令牌桶：桶容量为允许的突发请求数，令牌按 次数/周期 的速率匀速补充
+     */
+    TOKEN_BUCKET,
+
+    /**
+     * 滑动窗口：任意一个周期长度的时间段内最多允许指定次数
+     */
+    SLIDING_WINDOW
+}
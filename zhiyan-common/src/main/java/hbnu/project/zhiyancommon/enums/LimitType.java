@@ -0,0 +1,29 @@
+package hbnu.project.zhiyancommon.enums;
+
+/**
+ * 限流的计数维度
+ *
+ * @author ErgouTree
+ */
+public enum LimitType
+{
+    /**
+     * 所有请求共用一个计数
+     */
+    GLOBAL,
+
+    /**
+     * 按客户端IP计数
+     */
+    IP,
+
+    /**
+     * 按登录用户计数，未登录时按IP计数
+     */
+    USER,
+
+    /**
+     * 按请求参数或JSON请求体中的邮箱计数，都没有时按IP计数
+     */
+    EMAIL
+}
@@ -0,0 +1,124 @@
+package hbnu.project.zhiyancommon.enums;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 系统权限枚举
+ * 单条权限在这里管理，方便后期随时管理
+ *
+ * 每个权限有固定的位索引，用于将用户权限编译为位图（见 PermissionBitset），
+ * 位索引会写入令牌，一经分配不能修改或复用，新增权限只能使用新的索引
+ *
+ * @author ErgouTree
+ */
+public enum SystemPermission {
+
+    // ============ 基础权限 ============
+    /**
+     * 个人信息管理 - 所有注册用户都拥有
+     */
+    PROFILE_MANAGE(0, "profile:manage", "管理个人信息"),
+
+    /**
+     * 项目创建权限 - 普通用户及以上拥有
+     */
+    PROJECT_CREATE(1, "project:create", "创建新项目"),
+
+    // ============ 项目级权限（基于项目成员身份动态分配） ============
+    /**
+     * 项目管理权限 - 项目创建者和负责人拥有
+     */
+    PROJECT_MANAGE(2, "project:manage", "管理项目基本信息、任务、成员"),
+
+    /**
+     * 项目删除权限 - 仅项目创建者拥有
+     */
+    PROJECT_DELETE(3, "project:delete", "删除项目"),
+
+    /**
+     * 知识库管理权限 - 项目团队所有成员拥有
+     */
+    KNOWLEDGE_MANAGE(4, "knowledge:manage", "管理项目知识库"),
+
+    // ============ 系统管理权限 ============
+    /**
+     * 用户管理权限 - 仅系统管理员拥有
+     */
+    USER_ADMIN(5, "user:admin", "管理系统用户"),
+
+    /**
+     * 系统配置权限 - 仅系统管理员拥有
+     */
+    SYSTEM_ADMIN(6, "system:admin", "系统配置和监控");
+
+    /**
+     * 权限代码到枚举的索引
+     */
+    private static final Map<String, SystemPermission> BY_CODE = new HashMap<>();
+
+    /**
+     * 已分配的最大位索引
+     */
+    private static final int MAX_BIT;
+
+    static {
+        int maxBit = -1;
+        for (SystemPermission permission : values()) {
+            if (BY_CODE.put(permission.permission, permission) != null) {
+                throw new IllegalStateException("权限代码重复: " + permission.permission);
+            }
+            maxBit = Math.max(maxBit, permission.bit);
+        }
+        MAX_BIT = maxBit;
+    }
+
+    private final int bit;
+    private final String permission;
+    private final String description;
+
+    SystemPermission(int bit, String permission, String description) {
+        this.bit = bit;
+        this.permission = permission;
+        this.description = description;
+    }
+
+    /**
+     * 获取位索引
+     */
+    public int getBit() {
+        return bit;
+    }
+
+    public String getPermission() {
+        return permission;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * 获取权限代码（用于权限判断）
+     */
+    public String getCode() {
+        return this.permission;
+    }
+
+    /**
+     * 根据权限代码查找权限
+     *
+     * @param code 权限代码
+     * @return 对应的权限，不是系统权限时返回null
+     */
+    public static SystemPermission fromCode(String code) {
+        return code != null ? BY_CODE.get(code) : null;
+    }
+
+    /**
+     * 已分配的最大位索引
+     */
+    public static int maxBit() {
+        return MAX_BIT;
+    }
+}
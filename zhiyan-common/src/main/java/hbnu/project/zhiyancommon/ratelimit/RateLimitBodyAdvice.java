@@ -0,0 +1,100 @@
+package hbnu.project.zhiyancommon.ratelimit;
+
+import hbnu.project.zhiyancommon.annotation.RateLimit;
+import hbnu.project.zhiyancommon.constants.HttpStatus;
+import hbnu.project.zhiyancommon.domain.R;
+import hbnu.project.zhiyancommon.enums.LimitType;
+import hbnu.project.zhiyancommon.utils.ServletUtils;
+import hbnu.project.zhiyancommon.utils.StringUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+
+/**
+ * 请求体限流
+ * 按邮箱计数的接口多以JSON请求体提交邮箱，拦截器阶段读不到，在请求体反序列化后从中取出邮箱再判定；
+ * 请求体中也没有邮箱时与拦截器一致，退化为按IP计数
+ *
+ * @author ErgouTree
+ */
+@ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+public class RateLimitBodyAdvice extends RequestBodyAdviceAdapter {
+
+    private final RateLimitInterceptor rateLimitInterceptor;
+
+    private final RateLimitProperties rateLimitProperties;
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        RateLimit rateLimit = RateLimitInterceptor.findRateLimit(methodParameter.getMethod(),
+                methodParameter.getContainingClass());
+        return rateLimit != null && rateLimit.limitType() == LimitType.EMAIL;
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter,
+                                Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        HttpServletRequest request = ServletUtils.getRequest();
+        RateLimit rateLimit = RateLimitInterceptor.findRateLimit(parameter.getMethod(), parameter.getContainingClass());
+        // 请求参数中带有邮箱时拦截器已经判定过
+        if (!rateLimitProperties.isEnabled() || request == null
+                || StringUtils.isNotBlank(request.getParameter(rateLimit.emailParam()))) {
+            return body;
+        }
+
+        String email = readEmail(body, rateLimit.emailParam());
+        String dimension = StringUtils.isNotBlank(email)
+                ? RateLimitInterceptor.emailKey(email) : RateLimitInterceptor.ipKey(request, rateLimitProperties);
+        RateLimiter.Decision decision = rateLimitInterceptor.acquire(rateLimit, parameter.getMethod(),
+                parameter.getContainingClass(), dimension);
+        if (!decision.allowed()) {
+            throw new RateLimitExceededException(rateLimit.message(), decision.retryAfterMillis());
+        }
+        return body;
+    }
+
+    /**
+     * 将限流异常转换为429响应，并给出重试等待时间
+     */
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<R<Void>> handleRateLimitExceeded(RateLimitExceededException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1L, (e.getRetryAfterMillis() + 999) / 1000)))
+                .body(R.fail(HttpStatus.TOO_MANY_REQUESTS, e.getMessage()));
+    }
+
+    /**
+     * 从请求体中读取邮箱属性，支持表单对象和Map
+     */
+    private static String readEmail(Object body, String property) {
+        if (body instanceof Map<?, ?> map) {
+            Object value = map.get(property);
+            return value != null ? value.toString() : null;
+        }
+        if (body == null) {
+            return null;
+        }
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(body);
+        if (!wrapper.isReadableProperty(property)) {
+            return null;
+        }
+        Object value = wrapper.getPropertyValue(property);
+        return value != null ? value.toString() : null;
+    }
+}
@@ -0,0 +1,25 @@
+package hbnu.project.zhiyancommon.ratelimit;
+
+import lombok.Getter;
+
+/**
+ * 请求被限流异常
+ * 读取请求体后才能判定的限流规则以此异常中断请求，由 {@link RateLimitBodyAdvice} 转换为429响应
+ *
+ * @author ErgouTree
+ */
+@Getter
+public class RateLimitExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 建议的重试等待时间（毫秒）
+     */
+    private final long retryAfterMillis;
+
+    public RateLimitExceededException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+}
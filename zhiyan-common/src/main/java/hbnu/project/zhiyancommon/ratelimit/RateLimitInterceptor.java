@@ -0,0 +1,169 @@
+package hbnu.project.zhiyancommon.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hbnu.project.zhiyancommon.annotation.RateLimit;
+import hbnu.project.zhiyancommon.constants.HttpStatus;
+import hbnu.project.zhiyancommon.constants.SecurityConstants;
+import hbnu.project.zhiyancommon.domain.R;
+import hbnu.project.zhiyancommon.enums.LimitType;
+import hbnu.project.zhiyancommon.utils.IpUtils;
+import hbnu.project.zhiyancommon.utils.StringUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 接口限流拦截器
+ * 读取处理方法（或其所在类）上的 {@link RateLimit}，按计数维度生成限流键并交给 {@link RateLimiter} 判定；
+ * 按邮箱计数且邮箱位于JSON请求体中的接口由 {@link RateLimitBodyAdvice} 在读取请求体后判定
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final RateLimiter rateLimiter;
+
+    private final RateLimitProperties rateLimitProperties;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!rateLimitProperties.isEnabled() || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        RateLimit rateLimit = findRateLimit(handlerMethod.getMethod(), handlerMethod.getBeanType());
+        if (rateLimit == null) {
+            return true;
+        }
+        // 邮箱在JSON请求体中时此处还读不到，读取请求体后由 RateLimitBodyAdvice 判定
+        if (rateLimit.limitType() == LimitType.EMAIL
+                && StringUtils.isBlank(request.getParameter(rateLimit.emailParam()))
+                && hasRequestBody(handlerMethod)) {
+            return true;
+        }
+
+        RateLimiter.Decision decision = acquire(rateLimit, handlerMethod.getMethod(), handlerMethod.getBeanType(),
+                resolveKey(rateLimit, request));
+        if (decision.allowed()) {
+            return true;
+        }
+        writeRejected(response, rateLimit.message(), decision.retryAfterMillis());
+        return false;
+    }
+
+    /**
+     * 查找处理方法上的限流注解，方法上没有时查找所在类
+     */
+    static RateLimit findRateLimit(Method method, Class<?> beanType) {
+        RateLimit rateLimit = AnnotatedElementUtils.findMergedAnnotation(method, RateLimit.class);
+        return rateLimit != null ? rateLimit : AnnotatedElementUtils.findMergedAnnotation(beanType, RateLimit.class);
+    }
+
+    /**
+     * 按规则获取一次许可
+     *
+     * @param rateLimit 限流注解
+     * @param method    处理方法
+     * @param beanType  控制器类型
+     * @param dimension 计数维度键，如 ip:127.0.0.1
+     * @return 判定结果，规则被配置关闭时直接放行
+     */
+    RateLimiter.Decision acquire(RateLimit rateLimit, Method method, Class<?> beanType, String dimension) {
+        String name = StringUtils.isNotBlank(rateLimit.name()) ? rateLimit.name()
+                : beanType.getSimpleName() + "." + method.getName();
+        RateLimitProperties.Rule override = rateLimitProperties.getRules().get(name);
+        if (override != null && !override.isEnabled()) {
+            return RateLimiter.Decision.ALLOWED;
+        }
+
+        RateLimitRule rule = resolveRule(rateLimit, override);
+        String key = name + ":" + dimension;
+        RateLimiter.Decision decision = rateLimiter.tryAcquire(key, rule);
+        if (!decision.allowed()) {
+            log.warn("请求被限流: key={}, 规则={}", key, rule);
+        }
+        return decision;
+    }
+
+    /**
+     * 合并注解默认值与配置覆盖
+     */
+    private RateLimitRule resolveRule(RateLimit rateLimit, RateLimitProperties.Rule override) {
+        if (override == null) {
+            return new RateLimitRule(rateLimit.algorithm(), rateLimit.permits(), rateLimit.periodSeconds());
+        }
+        return new RateLimitRule(
+                override.getAlgorithm() != null ? override.getAlgorithm() : rateLimit.algorithm(),
+                override.getPermits() != null ? override.getPermits() : rateLimit.permits(),
+                override.getPeriodSeconds() != null ? override.getPeriodSeconds() : rateLimit.periodSeconds());
+    }
+
+    /**
+     * 按计数维度生成限流键，用户、邮箱取不到时退化为按IP计数
+     * 用户维度只认已认证的用户ID，不读取客户端可以伪造的明文请求头
+     */
+    private String resolveKey(RateLimit rateLimit, HttpServletRequest request) {
+        switch (rateLimit.limitType()) {
+            case GLOBAL:
+                return "global";
+            case USER:
+                Object userId = request.getAttribute(SecurityConstants.AUTHENTICATED_USER_ID_ATTRIBUTE);
+                if (userId != null) {
+                    return "user:" + userId;
+                }
+                break;
+            case EMAIL:
+                String email = request.getParameter(rateLimit.emailParam());
+                if (StringUtils.isNotBlank(email)) {
+                    return emailKey(email);
+                }
+                break;
+            default:
+                break;
+        }
+        return ipKey(request, rateLimitProperties);
+    }
+
+    static String emailKey(String email) {
+        return "email:" + email.trim().toLowerCase();
+    }
+
+    /**
+     * 按IP计数的键，IP取自直接连接方或可信代理追加的转发地址，客户端无法通过伪造请求头绕过
+     */
+    static String ipKey(HttpServletRequest request, RateLimitProperties properties) {
+        return "ip:" + IpUtils.getTrustedClientIp(request, properties.getTrustedProxies());
+    }
+
+    private static boolean hasRequestBody(HandlerMethod handlerMethod) {
+        for (MethodParameter parameter : handlerMethod.getMethodParameters()) {
+            if (parameter.hasParameterAnnotation(RequestBody.class)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeRejected(HttpServletResponse response, String message, long retryAfterMillis) throws Exception {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1L, (retryAfterMillis + 999) / 1000)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(objectMapper.writeValueAsString(R.fail(HttpStatus.TOO_MANY_REQUESTS, message)));
+        response.getWriter().flush();
+    }
+}
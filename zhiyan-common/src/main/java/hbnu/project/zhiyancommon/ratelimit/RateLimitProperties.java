@@ -0,0 +1,66 @@
+package hbnu.project.zhiyancommon.ratelimit;
+
+import hbnu.project.zhiyancommon.enums.LimitAlgorithm;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 限流配置
+ * 规则在启动时绑定一次，未接入配置中心刷新，修改后需重启服务生效
+ *
+ * <pre>
+ * zhiyan:
+ *   rate-limit:
+ *     rules:
+ *       send-code:
+ *         permits: 1
+ *         period-seconds: 60
+ * </pre>
+ *
+ * @author ErgouTree
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "zhiyan.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * 是否启用限流
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本地拒绝表的最大条目数，超出后不再记录新的被拒绝键，仍由Redis判定
+     */
+    private int localBlockMaxEntries = 10000;
+
+    /**
+     * 可信的反向代理地址，按IP计数时只有直接连接方属于这些地址才读取 X-Forwarded-For
+     * 多个地址以分号分隔，支持 * 通配和 a.b.c.d-e.f.g.h 网段；默认为本机和私有网段，即网关所在的内网
+     */
+    private String trustedProxies = "127.0.0.1;10.*.*.*;172.16.0.0-172.31.255.255;192.168.*.*";
+
+    /**
+     * 按规则名称覆盖注解上的默认值，未配置的字段沿用注解
+     */
+    private Map<String, Rule> rules = new HashMap<>();
+
+    @Data
+    public static class Rule {
+
+        /**
+         * 为false时该规则不限流
+         */
+        private boolean enabled = true;
+
+        private LimitAlgorithm algorithm;
+
+        private Integer permits;
+
+        private Long periodSeconds;
+    }
+}
@@ -0,0 +1,27 @@
+package hbnu.project.zhiyancommon.ratelimit;
+
+import hbnu.project.zhiyancommon.enums.LimitAlgorithm;
+
+/**
+ * 限流规则
+ *
+ * @param algorithm     限流算法
+ * @param permits       一个周期内允许的次数，令牌桶时为桶容量
+ * @param periodSeconds 周期（秒）
+ * @author ErgouTree
+ */
+public record RateLimitRule(LimitAlgorithm algorithm, int permits, long periodSeconds) {
+
+    public RateLimitRule {
+        if (algorithm == null) {
+            algorithm = LimitAlgorithm.SLIDING_WINDOW;
+        }
+        if (permits < 1 || periodSeconds < 1) {
+            throw new IllegalArgumentException("限流次数和周期必须大于0: permits=" + permits + ", periodSeconds=" + periodSeconds);
+        }
+    }
+
+    public long periodMillis() {
+        return periodSeconds * 1000L;
+    }
+}
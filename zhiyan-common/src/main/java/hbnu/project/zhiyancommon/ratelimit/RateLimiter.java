@@ -0,0 +1,137 @@
+package hbnu.project.zhiyancommon.ratelimit;
+
+import hbnu.project.zhiyancommon.enums.LimitAlgorithm;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 分布式限流器
+ * 令牌桶和滑动窗口的判断与扣减都在Redis脚本中原子完成，多个节点共享同一份计数
+ *
+ * 被Redis拒绝的键会在本地记录到可重试的时间，在此之前的请求直接在本地拒绝，不再访问Redis；
+ * 其他节点只会继续消耗配额，本地拒绝不会拒绝Redis本应放行的请求。规则变化后本地记录随即失效
+ *
+ * Redis不可用时放行请求，限流不影响主流程
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RateLimiter {
+
+    private static final String RATE_LIMIT_KEY_PREFIX = "rate_limit:";
+
+    private static final RedisScript<List<Long>> TOKEN_BUCKET_SCRIPT = loadScript("lua/rate_limit_token_bucket.lua");
+
+    private static final RedisScript<List<Long>> SLIDING_WINDOW_SCRIPT = loadScript("lua/rate_limit_sliding_window.lua");
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RateLimitProperties rateLimitProperties;
+
+    /**
+     * 本地拒绝表，键为限流键，值为可重试的时间和当时的规则
+     */
+    private final Map<String, LocalBlock> localBlocks = new ConcurrentHashMap<>();
+
+    /**
+     * 尝试获取一次许可
+     *
+     * @param key  限流键，不含前缀，如 send-code:email:a@b.com
+     * @param rule 限流规则
+     * @return 判定结果
+     */
+    public Decision tryAcquire(String key, RateLimitRule rule) {
+        long now = System.currentTimeMillis();
+        LocalBlock block = localBlocks.get(key);
+        if (block != null) {
+            if (now < block.until() && block.rule().equals(rule)) {
+                return Decision.rejected(block.until() - now);
+            }
+            localBlocks.remove(key, block);
+        }
+
+        List<Long> result;
+        try {
+            result = execute(RATE_LIMIT_KEY_PREFIX + key, rule, now);
+        } catch (Exception e) {
+            log.warn("限流脚本执行失败，放行请求: key={}, error={}", key, e.getMessage());
+            return Decision.ALLOWED;
+        }
+        if (result == null || result.size() < 2) {
+            log.warn("限流脚本返回异常结果，放行请求: key={}, result={}", key, result);
+            return Decision.ALLOWED;
+        }
+
+        if (result.get(0) == 1L) {
+            return Decision.ALLOWED;
+        }
+        long waitMillis = Math.max(1L, result.get(1));
+        rememberBlock(key, new LocalBlock(now + waitMillis, rule), now);
+        return Decision.rejected(waitMillis);
+    }
+
+    private List<Long> execute(String redisKey, RateLimitRule rule, long now) {
+        if (rule.algorithm() == LimitAlgorithm.TOKEN_BUCKET) {
+            return stringRedisTemplate.execute(TOKEN_BUCKET_SCRIPT, List.of(redisKey),
+                    String.valueOf(now), String.valueOf(rule.permits()), String.valueOf(rule.periodMillis()));
+        }
+        return stringRedisTemplate.execute(SLIDING_WINDOW_SCRIPT, List.of(redisKey),
+                String.valueOf(now), String.valueOf(rule.periodMillis()), String.valueOf(rule.permits()),
+                now + "-" + ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE));
+    }
+
+    /**
+     * 记录本地拒绝，表满时先清理已过期的条目，仍然满时不再记录
+     */
+    private void rememberBlock(String key, LocalBlock block, long now) {
+        if (localBlocks.size() >= rateLimitProperties.getLocalBlockMaxEntries()) {
+            localBlocks.values().removeIf(existing -> existing.until() <= now);
+            if (localBlocks.size() >= rateLimitProperties.getLocalBlockMaxEntries()) {
+                return;
+            }
+        }
+        localBlocks.put(key, block);
+    }
+
+    /**
+     * 加载返回整数数组的脚本，Redis将整数数组转换为 List&lt;Long&gt;，泛型的未检查转换只出现在这里
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static RedisScript<List<Long>> loadScript(String path) {
+        DefaultRedisScript<List<Long>> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        script.setResultType((Class<List<Long>>) (Class) List.class);
+        return script;
+    }
+
+    private record LocalBlock(long until, RateLimitRule rule) {
+    }
+
+    /**
+     * 限流判定结果
+     *
+     * @param allowed          是否放行
+     * @param retryAfterMillis 被拒绝时建议的重试等待时间（毫秒）
+     */
+    public record Decision(boolean allowed, long retryAfterMillis) {
+
+        static final Decision ALLOWED = new Decision(true, 0L);
+
+        static Decision rejected(long retryAfterMillis) {
+            return new Decision(false, retryAfterMillis);
+        }
+    }
+}
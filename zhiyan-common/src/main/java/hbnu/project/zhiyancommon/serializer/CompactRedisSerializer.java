@@ -0,0 +1,228 @@
+package hbnu.project.zhiyancommon.serializer;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 紧凑二进制Redis序列化器
+ * 字符串、整数、布尔值和字符串集合使用长度前缀的二进制格式，不写入类名，其他类型交给委托的JSON序列化器
+ *
+ * 只有用 {@link #compact(Object)} 包装的值才以二进制写入，是否包装由调用方按键的命名空间决定（见 RedisService）；
+ * 读取时按首字节识别格式，二进制与JSON两种格式都能读取，便于灰度切换
+ *
+ * 二进制格式：0x00 | 类型 | 数据
+ * <ul>
+ *     <li>字符串：UTF-8字节</li>
+ *     <li>Integer/Long：ZigZag变长整数</li>
+ *     <li>Set/List&lt;String&gt;：元素个数（变长整数），每个元素为 长度（变长整数）+ UTF-8字节</li>
+ * </ul>
+ *
+ * @author ErgouTree
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    /**
+     * 二进制格式的首字节，JSON文本不会以0x00开头
+     */
+    private static final byte MAGIC = 0x00;
+
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_INTEGER = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_TRUE = 4;
+    private static final byte TYPE_FALSE = 5;
+    private static final byte TYPE_STRING_SET = 6;
+    private static final byte TYPE_STRING_LIST = 7;
+
+    private final RedisSerializer<Object> fallback;
+
+    /**
+     * @param fallback 非紧凑值和不支持的类型使用的序列化器，同时用于读取旧格式
+     */
+    public CompactRedisSerializer(RedisSerializer<Object> fallback) {
+        this.fallback = fallback;
+    }
+
+    /**
+     * 标记值以紧凑格式写入
+     *
+     * @param value 值
+     * @return 包装后的值，交给使用本序列化器的RedisTemplate写入
+     */
+    public static Object compact(Object value) {
+        return value == null ? null : new Compact(value);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value instanceof Compact compact) {
+            byte[] bytes = encode(compact.value());
+            return bytes != null ? bytes : fallback.serialize(compact.value());
+        }
+        return fallback.serialize(value);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+        return decode(bytes);
+    }
+
+    /**
+     * 编码为紧凑格式
+     *
+     * @return 编码结果，类型不支持时返回null
+     */
+    static byte[] encode(Object value) {
+        if (value instanceof String string) {
+            byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+            byte[] bytes = new byte[utf8.length + 2];
+            bytes[0] = MAGIC;
+            bytes[1] = TYPE_STRING;
+            System.arraycopy(utf8, 0, bytes, 2, utf8.length);
+            return bytes;
+        }
+        if (value instanceof Integer number) {
+            Output out = new Output(7, TYPE_INTEGER);
+            out.writeVarLong(zigZag(number));
+            return out.toByteArray();
+        }
+        if (value instanceof Long number) {
+            Output out = new Output(12, TYPE_LONG);
+            out.writeVarLong(zigZag(number));
+            return out.toByteArray();
+        }
+        if (value instanceof Boolean bool) {
+            return new byte[]{MAGIC, bool ? TYPE_TRUE : TYPE_FALSE};
+        }
+        if (value instanceof Set<?> set && containsOnlyStrings(set)) {
+            return encodeStrings(TYPE_STRING_SET, set);
+        }
+        if (value instanceof List<?> list && containsOnlyStrings(list)) {
+            return encodeStrings(TYPE_STRING_LIST, list);
+        }
+        return null;
+    }
+
+    static Object decode(byte[] bytes) {
+        if (bytes.length < 2) {
+            throw new SerializationException("紧凑格式数据不完整");
+        }
+        Input in = new Input(bytes, 2);
+        try {
+            return switch (bytes[1]) {
+                case TYPE_STRING -> new String(bytes, 2, bytes.length - 2, StandardCharsets.UTF_8);
+                case TYPE_INTEGER -> (int) unZigZag(in.readVarLong());
+                case TYPE_LONG -> unZigZag(in.readVarLong());
+                case TYPE_TRUE -> Boolean.TRUE;
+                case TYPE_FALSE -> Boolean.FALSE;
+                case TYPE_STRING_SET -> in.readStrings(new HashSet<>());
+                case TYPE_STRING_LIST -> in.readStrings(new ArrayList<>());
+                default -> throw new SerializationException("未知的紧凑格式类型: " + bytes[1]);
+            };
+        } catch (IndexOutOfBoundsException e) {
+            throw new SerializationException("紧凑格式数据不完整", e);
+        }
+    }
+
+    private static byte[] encodeStrings(byte type, Collection<?> values) {
+        Output out = new Output(8 + values.size() * 16, type);
+        out.writeVarLong(values.size());
+        for (Object value : values) {
+            byte[] utf8 = ((String) value).getBytes(StandardCharsets.UTF_8);
+            out.writeVarLong(utf8.length);
+            out.write(utf8, 0, utf8.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean containsOnlyStrings(Collection<?> values) {
+        for (Object value : values) {
+            if (!(value instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * 需要以紧凑格式写入的值
+     */
+    private record Compact(Object value) {
+    }
+
+    private static final class Output extends ByteArrayOutputStream {
+
+        private Output(int initialSize, byte type) {
+            super(initialSize);
+            write(MAGIC);
+            write(type);
+        }
+
+        private void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] bytes;
+
+        private int position;
+
+        private Input(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        private long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = bytes[position++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new SerializationException("变长整数格式错误");
+        }
+
+        private <C extends Collection<String>> C readStrings(C target) {
+            long size = readVarLong();
+            for (long i = 0; i < size; i++) {
+                int length = (int) readVarLong();
+                if (length < 0 || position + length > bytes.length) {
+                    throw new SerializationException("紧凑格式数据不完整");
+                }
+                target.add(new String(bytes, position, length, StandardCharsets.UTF_8));
+                position += length;
+            }
+            return target;
+        }
+    }
+}
@@ -1,14 +1,21 @@
 package hbnu.project.zhiyancommon.service;
 
+import hbnu.project.zhiyancommon.serializer.CompactRedisSerializer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.BoundSetOperations;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * spring redis 工具类
@@ -22,6 +29,13 @@ public class RedisService {
     @Autowired
     public RedisTemplate redisTemplate;
 
+    /**
+     * 以紧凑二进制格式写入的键前缀，仅在值序列化器为 CompactRedisSerializer 时生效
+     * 切换时先以空列表部署，所有节点都能读取两种格式后再配置前缀
+     */
+    @Value("${zhiyan.redis.compact-namespaces:}")
+    private String[] compactNamespaces;
+
     /**
      * 缓存基本的对象，Integer、String、实体类等
      *
@@ -30,7 +44,7 @@ public class RedisService {
      */
     public <T> void setCacheObject(final String key, final T value)
     {
-        redisTemplate.opsForValue().set(key, value);
+        redisTemplate.opsForValue().set(key, encodeValue(key, value));
     }
 
     /**
@@ -43,7 +57,7 @@ public class RedisService {
      */
     public <T> void setCacheObject(final String key, final T value, final Long timeout, final TimeUnit timeUnit)
     {
-        redisTemplate.opsForValue().set(key, value, timeout, timeUnit);
+        redisTemplate.opsForValue().set(key, encodeValue(key, value), timeout, timeUnit);
     }
 
     /**
@@ -105,6 +119,84 @@ public class RedisService {
         return operation.get(key);
     }
 
+    /**
+     * 批量获得缓存的基本对象（一次MGET）
+     *
+     * @param keys 缓存键值集合
+     * @return 与键顺序一致的数据列表，不存在的键对应位置为null
+     */
+    public <T> List<T> getMultiCacheObject(final Collection<String> keys)
+    {
+        ValueOperations<String, T> operation = redisTemplate.opsForValue();
+        return operation.multiGet(keys);
+    }
+
+    /**
+     * 批量缓存基本的对象，所有键使用相同的有效时间（一次管道往返）
+     *
+     * @param values 键值对
+     * @param timeout 时间
+     * @param timeUnit 时间颗粒度
+     */
+    public <T> void setMultiCacheObject(final Map<String, T> values, final long timeout, final TimeUnit timeUnit)
+    {
+        if (values == null || values.isEmpty())
+        {
+            return;
+        }
+        executePipelined(pipeline -> values.forEach((key, value) -> pipeline.set(key, value, timeout, timeUnit)));
+    }
+
+    /**
+     * 批量判断键是否存在（一次管道往返）
+     *
+     * @param keys 键列表
+     * @return 与键顺序一致的结果
+     */
+    public List<Boolean> hasKeys(final List<String> keys)
+    {
+        if (keys == null || keys.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+        List<Object> results = executePipelined(pipeline -> keys.forEach(pipeline::hasKey));
+        List<Boolean> exists = new ArrayList<>(results.size());
+        for (Object result : results)
+        {
+            exists.add(Boolean.TRUE.equals(result) || (result instanceof Long count && count > 0));
+        }
+        return exists;
+    }
+
+    /**
+     * 以管道方式执行一组命令，所有命令在一次网络往返中发出
+     * 命令之间不保证原子性，需要原子性的读改写应使用Lua脚本
+     *
+     * @param builder 向管道中添加命令
+     * @return 与命令添加顺序一一对应的结果
+     */
+    public List<Object> executePipelined(final Consumer<Pipeline> builder)
+    {
+        Pipeline pipeline = new Pipeline();
+        builder.accept(pipeline);
+        if (pipeline.commands.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+        return redisTemplate.executePipelined(new SessionCallback<Object>()
+        {
+            @Override
+            public Object execute(RedisOperations operations)
+            {
+                for (Consumer<RedisOperations> command : pipeline.commands)
+                {
+                    command.accept(operations);
+                }
+                return null;
+            }
+        });
+    }
+
     /**
      * 删除单个对象
      *
@@ -116,7 +208,7 @@ public class RedisService {
     }
 
     /**
-     * 删除集合对象
+     * 删除集合对象，多个键合并为一条DEL命令
      *
      * @param collection 多个对象
      * @return
@@ -254,6 +346,7 @@ public class RedisService {
 
     /**
      * 获得缓存的基本对象列表
+     * KEYS会阻塞Redis直到遍历完整个键空间，键数量较多时应使用 {@link #scanKeys}
      *
      * @param pattern 字符串前缀
      * @return 对象列表
@@ -262,4 +355,150 @@ public class RedisService {
     {
         return redisTemplate.keys(pattern);
     }
+
+    /**
+     * 以SCAN游标增量遍历匹配的键，按批交给调用方处理
+     * 每次SCAN只遍历一小段键空间，不会长时间阻塞Redis；遍历期间新增或删除的键可能被遗漏或重复返回
+     *
+     * @param pattern   匹配模式
+     * @param batchSize 每批键数量，同时作为SCAN的COUNT提示
+     * @param consumer  每批键的处理逻辑
+     * @return 遍历到的键总数
+     */
+    public long scanKeys(final String pattern, final int batchSize, final Consumer<List<String>> consumer)
+    {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(batchSize).build();
+        long total = 0;
+        List<String> batch = new ArrayList<>(batchSize);
+        try (Cursor<String> cursor = redisTemplate.scan(options))
+        {
+            while (cursor.hasNext())
+            {
+                batch.add(cursor.next());
+                if (batch.size() >= batchSize)
+                {
+                    consumer.accept(batch);
+                    total += batch.size();
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty())
+        {
+            consumer.accept(batch);
+            total += batch.size();
+        }
+        return total;
+    }
+
+    /**
+     * 以SCAN游标分批删除匹配的键
+     * 每批使用UNLINK，由Redis在后台线程释放内存
+     *
+     * @param pattern   匹配模式
+     * @param batchSize 每批键数量
+     * @return 删除的键数量
+     */
+    public long deleteKeysByPattern(final String pattern, final int batchSize)
+    {
+        return scanKeys(pattern, batchSize, batch -> redisTemplate.unlink(batch));
+    }
+
+    /**
+     * 键属于紧凑命名空间时，标记值以紧凑格式写入
+     */
+    private Object encodeValue(final String key, final Object value)
+    {
+        if (compactNamespaces == null || compactNamespaces.length == 0
+                || !(redisTemplate.getValueSerializer() instanceof CompactRedisSerializer))
+        {
+            return value;
+        }
+        for (String namespace : compactNamespaces)
+        {
+            if (!namespace.isEmpty() && key.startsWith(namespace))
+            {
+                return CompactRedisSerializer.compact(value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 管道命令构建器
+     * 每个方法恰好对应一条Redis命令，执行结果按添加顺序返回
+     */
+    public final class Pipeline
+    {
+        private final List<Consumer<RedisOperations>> commands = new ArrayList<>();
+
+        private Pipeline()
+        {
+        }
+
+        /**
+         * GET，结果为缓存的对象或null
+         */
+        public Pipeline get(final String key)
+        {
+            commands.add(operations -> operations.opsForValue().get(key));
+            return this;
+        }
+
+        /**
+         * SET，结果为Boolean
+         */
+        public Pipeline set(final String key, final Object value)
+        {
+            Object encoded = encodeValue(key, value);
+            commands.add(operations -> operations.opsForValue().set(key, encoded));
+            return this;
+        }
+
+        /**
+         * 带有效时间的SET，结果为Boolean
+         */
+        public Pipeline set(final String key, final Object value, final long timeout, final TimeUnit timeUnit)
+        {
+            Object encoded = encodeValue(key, value);
+            commands.add(operations -> operations.opsForValue().set(key, encoded, timeout, timeUnit));
+            return this;
+        }
+
+        /**
+         * EXISTS，结果为Boolean
+         */
+        public Pipeline hasKey(final String key)
+        {
+            commands.add(operations -> operations.hasKey(key));
+            return this;
+        }
+
+        /**
+         * DEL，结果为删除的键数量
+         */
+        public Pipeline delete(final String key)
+        {
+            commands.add(operations -> operations.delete(key));
+            return this;
+        }
+
+        /**
+         * EXPIRE，结果为Boolean
+         */
+        public Pipeline expire(final String key, final long timeout, final TimeUnit timeUnit)
+        {
+            commands.add(operations -> operations.expire(key, timeout, timeUnit));
+            return this;
+        }
+
+        /**
+         * TTL，结果为剩余秒数
+         */
+        public Pipeline getExpire(final String key)
+        {
+            commands.add(operations -> operations.getExpire(key));
+            return this;
+        }
+    }
 }
@@ -0,0 +1,219 @@
+package hbnu.project.zhiyancommon.service;
+
+import hbnu.project.zhiyancommon.constants.CacheConstants;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 用户令牌纪元服务
+ * 每个用户维护一个单调递增的纪元，签发令牌时写入ep声明；
+ * 修改密码、锁定、删除账号时只需递增一次纪元，该用户此前签发的全部令牌即刻失效，无需逐个加入黑名单
+ *
+ * 各节点在本地缓存用户纪元，通过发布/订阅接收纪元变更，校验为O(1)的本地比较；
+ * 本地缓存有条数上限，超出时先淘汰超过信任时间的条目，被淘汰的用户下次校验时从Redis重新加载
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenEpochService {
+
+    private static final String MESSAGE_SEPARATOR = ":";
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RedisMessageListenerContainer listenerContainer;
+
+    /**
+     * 本地纪元的最长信任时间（秒），超过后从Redis重新加载，兜底丢失的变更通知
+     */
+    @Value("${zhiyan.security.token-epoch.local-ttl-seconds:300}")
+    private long localTtlSeconds;
+
+    /**
+     * 本地缓存的最大用户数
+     */
+    @Value("${zhiyan.security.token-epoch.local-max-size:100000}")
+    private int localMaxSize;
+
+    private final Map<Long, CachedEpoch> localEpochs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener((message, pattern) ->
+                        onEpochChanged(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CacheConstants.TOKEN_EPOCH_CHANNEL));
+    }
+
+    /**
+     * 获取用户当前纪元
+     *
+     * @param userId 用户ID
+     * @return 当前纪元，从未变更过的用户为0
+     */
+    public long currentEpoch(Long userId) {
+        Long cached = peekEpoch(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        Object value = stringRedisTemplate.opsForHash().get(CacheConstants.USER_TOKEN_EPOCH_KEY, userId.toString());
+        long epoch = value != null ? Long.parseLong(value.toString()) : 0L;
+        // 与并发到达的变更通知合并，只保留较大的纪元
+        return recordEpoch(userId, epoch);
+    }
+
+    /**
+     * 仅从本地读取用户纪元，不访问Redis，供响应式调用方使用
+     *
+     * @param userId 用户ID
+     * @return 本地有效的纪元，未缓存或已超过信任时间时返回null
+     */
+    public Long peekEpoch(Long userId) {
+        CachedEpoch cached = localEpochs.get(userId);
+        if (cached != null && System.currentTimeMillis() - cached.loadedAt() < localTtlSeconds * 1000L) {
+            return cached.epoch();
+        }
+        return null;
+    }
+
+    /**
+     * 记录调用方自行从Redis读取到的用户纪元
+     *
+     * @param userId 用户ID
+     * @param epoch  纪元
+     * @return 合并后的本地纪元
+     */
+    public long recordEpoch(Long userId, long epoch) {
+        long now = System.currentTimeMillis();
+        long merged = localEpochs.merge(userId, new CachedEpoch(epoch, now),
+                (oldValue, newValue) -> oldValue.epoch() > newValue.epoch() ? new CachedEpoch(oldValue.epoch(), now) : newValue)
+                .epoch();
+        trimIfNeeded();
+        return merged;
+    }
+
+    /**
+     * 判断令牌是否因纪元变更而失效
+     *
+     * @param userId     用户ID
+     * @param tokenEpoch 令牌中的纪元
+     * @return 是否已失效
+     */
+    public boolean isRevoked(Long userId, long tokenEpoch) {
+        if (userId == null) {
+            return false;
+        }
+        try {
+            return tokenEpoch < currentEpoch(userId);
+        } catch (Exception e) {
+            // Redis不可用时放行，与黑名单检查的处理保持一致
+            log.warn("获取用户令牌纪元失败 - 用户ID: {}, 错误: {}", userId, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 在当前事务提交后递增用户纪元
+     * 避免事务回滚时令牌已被吊销，或其他节点在提交前按旧数据重新签发令牌；不在事务中时立即递增
+     *
+     * @param userId 用户ID
+     */
+    public void bumpAfterCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    bump(userId);
+                } catch (Exception e) {
+                    log.error("事务提交后递增用户令牌纪元失败 - 用户ID: {}, 错误: {}", userId, e.getMessage(), e);
+                }
+            }
+        });
+    }
+
+    /**
+     * 递增用户纪元，使该用户此前签发的全部令牌失效
+     * 在事务中调用时应使用 {@link #bumpAfterCommit}
+     *
+     * @param userId 用户ID
+     * @return 新的纪元
+     */
+    public long bump(Long userId) {
+        Long epoch = stringRedisTemplate.opsForHash().increment(CacheConstants.USER_TOKEN_EPOCH_KEY, userId.toString(), 1L);
+        long newEpoch = epoch != null ? epoch : 0L;
+        stringRedisTemplate.convertAndSend(CacheConstants.TOKEN_EPOCH_CHANNEL, userId + MESSAGE_SEPARATOR + newEpoch);
+        // 本节点立即生效
+        onEpochChanged(userId + MESSAGE_SEPARATOR + newEpoch);
+        log.info("用户令牌纪元已递增 - 用户ID: {}, 新纪元: {}", userId, newEpoch);
+        return newEpoch;
+    }
+
+    /**
+     * 收到纪元变更通知
+     *
+     * @param message 格式为 用户ID:纪元
+     */
+    private void onEpochChanged(String message) {
+        int separator = message.indexOf(MESSAGE_SEPARATOR);
+        if (separator <= 0) {
+            return;
+        }
+        try {
+            Long userId = Long.valueOf(message.substring(0, separator));
+            long epoch = Long.parseLong(message.substring(separator + 1));
+            long now = System.currentTimeMillis();
+            localEpochs.merge(userId, new CachedEpoch(epoch, now),
+                    (oldValue, newValue) -> oldValue.epoch() >= newValue.epoch() ? oldValue : newValue);
+            trimIfNeeded();
+        } catch (NumberFormatException e) {
+            log.warn("无效的令牌纪元变更通知: {}", message);
+        }
+    }
+
+    /**
+     * 超出条数上限时先淘汰超过信任时间的条目，仍超出时任意淘汰到上限的90%，
+     * 避免在上限附近每次写入都遍历整个缓存
+     */
+    private void trimIfNeeded() {
+        if (localEpochs.size() <= localMaxSize) {
+            return;
+        }
+        long expiredBefore = System.currentTimeMillis() - localTtlSeconds * 1000L;
+        localEpochs.values().removeIf(cached -> cached.loadedAt() < expiredBefore);
+
+        int target = localMaxSize - localMaxSize / 10;
+        Iterator<Long> iterator = localEpochs.keySet().iterator();
+        while (localEpochs.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 本地缓存的纪元
+     *
+     * @param epoch    纪元
+     * @param loadedAt 加载时间戳（毫秒）
+     */
+    private record CachedEpoch(long epoch, long loadedAt) {
+    }
+}
@@ -0,0 +1,203 @@
+package hbnu.project.zhiyancommon.service;
+
+import hbnu.project.zhiyancommon.constants.CacheConstants;
+import hbnu.project.zhiyancommon.utils.BloomFilter;
+import hbnu.project.zhiyancommon.utils.StringUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌吊销服务
+ * 每个节点在本地维护已吊销jti的布隆过滤器：
+ * 1. 吊销时写入Redis，并通过发布/订阅通知所有节点加入本地过滤器
+ * 2. 启动时及定期根据Redis中的吊销快照重建过滤器，同时淘汰已过期的jti
+ * 3. 校验时只有过滤器判断"可能已吊销"才查询Redis确认，绝大多数请求不产生网络往返
+ *
+ * 过滤器首次从快照构建成功之前视为未就绪，所有令牌都查询Redis确认，避免空过滤器放行已吊销的令牌
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenRevocationService {
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RedisMessageListenerContainer listenerContainer;
+
+    /**
+     * 布隆过滤器预计容量
+     */
+    @Value("${zhiyan.security.revocation.expected-insertions:100000}")
+    private long expectedInsertions;
+
+    /**
+     * 布隆过滤器误判率
+     */
+    @Value("${zhiyan.security.revocation.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    /**
+     * 快照重建间隔（秒）
+     */
+    @Value("${zhiyan.security.revocation.snapshot-seconds:600}")
+    private long snapshotSeconds;
+
+    /**
+     * 首次构建失败后的重试间隔（秒）
+     */
+    private static final long RETRY_SECONDS = 5;
+
+    private volatile BloomFilter filter;
+
+    /**
+     * 过滤器是否已由快照完整构建
+     */
+    private volatile boolean ready;
+
+    /**
+     * 重建期间收到的吊销通知，重建完成后补充到新过滤器中，避免丢失
+     */
+    private volatile Set<String> rebuildBuffer;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        this.filter = new BloomFilter(expectedInsertions, falsePositiveRate);
+        listenerContainer.addMessageListener((message, pattern) ->
+                        onRevoked(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CacheConstants.TOKEN_REVOCATION_CHANNEL));
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "token-revocation-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 首次构建在启动线程上同步完成，失败时由 rebuild 安排重试
+        rebuild();
+        scheduler.scheduleWithFixedDelay(this::rebuild, snapshotSeconds, snapshotSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 吊销令牌
+     *
+     * @param tokenId   令牌jti
+     * @param expiresAt 令牌过期时间戳（毫秒），超过该时间后吊销记录自动清除
+     */
+    public void revoke(String tokenId, long expiresAt) {
+        long ttl = expiresAt - System.currentTimeMillis();
+        if (StringUtils.isBlank(tokenId) || ttl <= 0) {
+            return;
+        }
+        stringRedisTemplate.opsForValue().set(CacheConstants.TOKEN_REVOKED_JTI_PREFIX + tokenId, "1", ttl, TimeUnit.MILLISECONDS);
+        stringRedisTemplate.opsForZSet().add(CacheConstants.TOKEN_REVOKED_INDEX_KEY, tokenId, expiresAt);
+        stringRedisTemplate.convertAndSend(CacheConstants.TOKEN_REVOCATION_CHANNEL, tokenId);
+        // 本节点立即生效，不依赖自身订阅的回环消息
+        onRevoked(tokenId);
+    }
+
+    /**
+     * 本地判断令牌是否可能已吊销，不产生网络请求
+     * 过滤器未就绪时一律返回true，由调用方查询Redis确认
+     *
+     * @param tokenId 令牌jti
+     * @return false表示一定未吊销，true表示需要进一步确认
+     */
+    public boolean mightBeRevoked(String tokenId) {
+        return StringUtils.isNotBlank(tokenId) && (!ready || filter.mightContain(tokenId));
+    }
+
+    /**
+     * 判断令牌是否已吊销
+     * 仅在本地过滤器判断可能已吊销或过滤器未就绪时才查询Redis
+     *
+     * @param tokenId 令牌jti
+     * @return 是否已吊销
+     */
+    public boolean isRevoked(String tokenId) {
+        if (!mightBeRevoked(tokenId)) {
+            return false;
+        }
+        return Boolean.TRUE.equals(stringRedisTemplate.hasKey(getRevokedKey(tokenId)));
+    }
+
+    /**
+     * 获取吊销记录的Redis键，供响应式调用方自行查询
+     */
+    public String getRevokedKey(String tokenId) {
+        return CacheConstants.TOKEN_REVOKED_JTI_PREFIX + tokenId;
+    }
+
+    /**
+     * 收到吊销通知
+     */
+    private void onRevoked(String tokenId) {
+        filter.put(tokenId);
+        Set<String> buffer = rebuildBuffer;
+        if (buffer != null) {
+            buffer.add(tokenId);
+        }
+    }
+
+    /**
+     * 根据Redis中的吊销快照重建本地过滤器
+     * 布隆过滤器不支持删除，定期重建同时完成过期jti的淘汰
+     */
+    public void rebuild() {
+        try {
+            rebuildBuffer = ConcurrentHashMap.newKeySet();
+
+            long now = System.currentTimeMillis();
+            stringRedisTemplate.opsForZSet().removeRangeByScore(CacheConstants.TOKEN_REVOKED_INDEX_KEY, 0, now);
+            Set<String> revoked = stringRedisTemplate.opsForZSet()
+                    .rangeByScore(CacheConstants.TOKEN_REVOKED_INDEX_KEY, now, Double.MAX_VALUE);
+            if (revoked == null) {
+                revoked = Collections.emptySet();
+            }
+
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedInsertions, revoked.size() * 2L), falsePositiveRate);
+            revoked.forEach(rebuilt::put);
+            this.filter = rebuilt;
+            // 切换后补充重建期间收到的通知
+            rebuildBuffer.forEach(rebuilt::put);
+            this.ready = true;
+            log.debug("令牌吊销过滤器重建完成，有效吊销记录数: {}", revoked.size());
+
+        } catch (Exception e) {
+            if (ready) {
+                // 已就绪的过滤器仍在接收吊销通知，继续使用
+                log.warn("重建令牌吊销过滤器失败，继续使用当前过滤器: {}", e.getMessage());
+            } else {
+                log.warn("构建令牌吊销过滤器失败，{}秒后重试，在此之前吊销校验直接查询Redis: {}",
+                        RETRY_SECONDS, e.getMessage());
+                scheduler.schedule(this::rebuild, RETRY_SECONDS, TimeUnit.SECONDS);
+            }
+        } finally {
+            rebuildBuffer = null;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package hbnu.project.zhiyancommon.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 线程安全的字符串布隆过滤器
+ * 只会出现误判存在、不会出现漏判，适合作为"一定不存在"的快速判断，命中后再查询权威数据源
+ *
+ * @author ErgouTree
+ */
+public class BloomFilter {
+
+    /**
+     * 位数组
+     */
+    private final AtomicLongArray bits;
+
+    /**
+     * 位数组长度
+     */
+    private final long bitSize;
+
+    /**
+     * 哈希函数个数
+     */
+    private final int hashCount;
+
+    /**
+     * 创建布隆过滤器
+     *
+     * @param expectedInsertions 预计插入元素个数
+     * @param falsePositiveRate  期望误判率
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(expectedInsertions, 1);
+        double p = Math.min(Math.max(falsePositiveRate, 1e-9), 0.5);
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        // 按64位对齐
+        int words = (int) Math.max(1, Math.min((m + 63) / 64, Integer.MAX_VALUE));
+        this.bits = new AtomicLongArray(words);
+        this.bitSize = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / n * Math.log(2)));
+    }
+
+    /**
+     * 添加元素
+     */
+    public void put(String value) {
+        long hash = murmur64(value.getBytes(StandardCharsets.UTF_8));
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = indexOf(h1 + i * h2);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    /**
+     * 判断元素是否可能存在
+     *
+     * @return false表示一定不存在，true表示可能存在
+     */
+    public boolean mightContain(String value) {
+        long hash = murmur64(value.getBytes(StandardCharsets.UTF_8));
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = indexOf(h1 + i * h2);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 位数组长度
+     */
+    public long bitSize() {
+        return bitSize;
+    }
+
+    private long indexOf(int combinedHash) {
+        // 负数取反，保证下标非负
+        long positive = combinedHash < 0 ? ~combinedHash : combinedHash;
+        return positive % bitSize;
+    }
+
+    /**
+     * MurmurHash3 64位变体（取x64_128的前64位）
+     */
+    private static long murmur64(byte[] data) {
+        final long c1 = 0x87c37b91114253d5L;
+        final long c2 = 0x4cf5ad432745937fL;
+        long h1 = 0;
+        long h2 = 0;
+        int length = data.length;
+        int blocks = length / 16;
+
+        for (int i = 0; i < blocks; i++) {
+            long k1 = getLong(data, i * 16);
+            long k2 = getLong(data, i * 16 + 8);
+
+            k1 *= c1; k1 = Long.rotateLeft(k1, 31); k1 *= c2; h1 ^= k1;
+            h1 = Long.rotateLeft(h1, 27); h1 += h2; h1 = h1 * 5 + 0x52dce729;
+
+            k2 *= c2; k2 = Long.rotateLeft(k2, 33); k2 *= c1; h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31); h2 += h1; h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        long k1 = 0;
+        long k2 = 0;
+        int tail = blocks * 16;
+        for (int i = length - tail - 1; i >= 0; i--) {
+            long b = data[tail + i] & 0xffL;
+            if (i >= 8) {
+                k2 |= b << ((i - 8) * 8);
+            } else {
+                k1 |= b << (i * 8);
+            }
+        }
+        if (k2 != 0) {
+            k2 *= c2; k2 = Long.rotateLeft(k2, 33); k2 *= c1; h2 ^= k2;
+        }
+        if (k1 != 0) {
+            k1 *= c1; k1 = Long.rotateLeft(k1, 31); k1 *= c2; h1 ^= k1;
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        return h1;
+    }
+
+    private static long getLong(byte[] data, int offset) {
+        long value = 0;
+        for (int i = 7; i >= 0; i--) {
+            value = (value << 8) | (data[offset + i] & 0xffL);
+        }
+        return value;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
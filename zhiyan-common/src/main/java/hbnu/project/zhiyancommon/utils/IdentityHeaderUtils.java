@@ -0,0 +1,157 @@
+package hbnu.project.zhiyancommon.utils;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * 网关身份头签名工具类
+ * 网关验证JWT后，将用户身份签名写入请求头转发给下游服务，
+ * 下游服务只需校验HMAC签名即可信任该身份，无需再次解析JWT
+ *
+ * 头部格式：base64url(userId \n subject \n 签发时间戳 [\n 权限位图]) . base64url(HMAC-SHA256)
+ * 权限位图为可选字段，旧格式的三段载荷仍可校验
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Component
+public class IdentityHeaderUtils {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private static final String FIELD_SEPARATOR = "\n";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * 身份头签名密钥，仅在网关与内部服务间共享
+     */
+    @Value("${security.identity.secret:${jwt.secret:zhiyan-platform-secret-key-2025}}")
+    private String secret;
+
+    /**
+     * 身份头最大有效期（秒），超过后视为重放
+     */
+    @Value("${security.identity.max-age-seconds:60}")
+    private long maxAgeSeconds;
+
+    private SecretKeySpec keySpec;
+
+    /**
+     * 每个线程复用一个Mac实例
+     */
+    private ThreadLocal<Mac> macHolder;
+
+    @PostConstruct
+    public void init() {
+        this.keySpec = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.macHolder = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(keySpec);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("初始化身份头签名算法失败", e);
+            }
+        });
+    }
+
+    /**
+     * 签名用户身份
+     *
+     * @param userId  用户ID
+     * @param subject 令牌主题，可为空
+     * @return 身份头的值
+     */
+    public String sign(Long userId, String subject) {
+        return sign(userId, subject, null);
+    }
+
+    /**
+     * 签名用户身份及其权限位图
+     *
+     * @param userId         用户ID
+     * @param subject        令牌主题，可为空
+     * @param permissionBits 编码后的权限位图（见 PermissionBitset），可为空
+     * @return 身份头的值
+     */
+    public String sign(Long userId, String subject, String permissionBits) {
+        String payload = userId + FIELD_SEPARATOR
+                + (subject != null ? subject : "") + FIELD_SEPARATOR
+                + System.currentTimeMillis();
+        if (permissionBits != null) {
+            payload += FIELD_SEPARATOR + permissionBits;
+        }
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(hmac(payloadBytes));
+    }
+
+    /**
+     * 校验身份头
+     *
+     * @param headerValue 身份头的值
+     * @return 校验通过的身份信息，签名错误、格式错误或已超过有效期时返回null
+     */
+    public Identity verify(String headerValue) {
+        if (StringUtils.isBlank(headerValue)) {
+            return null;
+        }
+        try {
+            int dot = headerValue.indexOf('.');
+            if (dot <= 0) {
+                return null;
+            }
+            byte[] payloadBytes = DECODER.decode(headerValue.substring(0, dot));
+            byte[] signature = DECODER.decode(headerValue.substring(dot + 1));
+
+            // 常量时间比较，避免时序攻击
+            if (!MessageDigest.isEqual(hmac(payloadBytes), signature)) {
+                log.debug("身份头签名校验失败");
+                return null;
+            }
+
+            String[] fields = new String(payloadBytes, StandardCharsets.UTF_8).split(FIELD_SEPARATOR, -1);
+            if (fields.length != 3 && fields.length != 4) {
+                return null;
+            }
+            long issuedAt = Long.parseLong(fields[2]);
+            if (Math.abs(System.currentTimeMillis() - issuedAt) > maxAgeSeconds * 1000L) {
+                log.debug("身份头已超过有效期，签发时间: {}", issuedAt);
+                return null;
+            }
+            return new Identity(Long.valueOf(fields[0]), StringUtils.isEmpty(fields[1]) ? null : fields[1], issuedAt,
+                    fields.length == 4 ? fields[3] : null);
+
+        } catch (IllegalArgumentException e) {
+            log.debug("身份头格式错误: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private byte[] hmac(byte[] payload) {
+        Mac mac = macHolder.get();
+        return mac.doFinal(payload);
+    }
+
+    /**
+     * 网关签名的用户身份
+     *
+     * @param userId         用户ID
+     * @param subject        令牌主题
+     * @param issuedAt       签发时间戳（毫秒）
+     * @param permissionBits 编码后的权限位图，网关未携带时为null
+     */
+    public record Identity(Long userId, String subject, long issuedAt, String permissionBits) {
+    }
+}
@@ -50,6 +50,54 @@ public class IpUtils {
         return "0:0:0:0:0:0:0:1".equals(ip) ? "127.0.0.1" : getMultistageReverseProxyIp(ip);
     }
 
+    /**
+     * 获取可信的客户端IP，用于限流、登录失败统计等安全判断
+     * 与 {@link #getIpAddr} 不同，只有直接连接方是可信代理时才读取 X-Forwarded-For，
+     * 并从右向左跳过可信代理，取第一个不可信的地址；客户端自己伪造的靠左的值不会被采用
+     *
+     * @param request        请求对象
+     * @param trustedProxies 可信代理，格式同 {@link #isMatchedIp} 的过滤串，为空时只使用直接连接方地址
+     * @return IP地址
+     */
+    public static String getTrustedClientIp(HttpServletRequest request, String trustedProxies) {
+        if (request == null) {
+            return "unknown";
+        }
+        String remote = normalize(request.getRemoteAddr());
+        if (!isTrustedProxy(trustedProxies, remote)) {
+            return remote;
+        }
+
+        String forwarded = request.getHeader("X-Forwarded-For");
+        if (StringUtils.isBlank(forwarded)) {
+            return remote;
+        }
+        String[] hops = forwarded.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = normalize(hops[i].trim());
+            if (isUnknown(hop)) {
+                continue;
+            }
+            if (!isTrustedProxy(trustedProxies, hop)) {
+                return StringUtils.substring(hop, 0, 255);
+            }
+            remote = hop;
+        }
+        // 整条链路都是可信代理
+        return remote;
+    }
+
+    /**
+     * 只对合法的IPv4地址做匹配，isMatchedIp 对任意字符串按分段下标比较，不能直接接收请求头中的值
+     */
+    private static boolean isTrustedProxy(String trustedProxies, String ip) {
+        return isIP(ip) && isMatchedIp(trustedProxies, ip);
+    }
+
+    private static String normalize(String ip) {
+        return "0:0:0:0:0:0:0:1".equals(ip) || "::1".equals(ip) ? "127.0.0.1" : ip;
+    }
+
     /**
      * 检查是否为内部IP地址
      *
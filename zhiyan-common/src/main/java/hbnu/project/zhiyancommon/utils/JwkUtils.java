@@ -0,0 +1,105 @@
+package hbnu.project.zhiyancommon.utils;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JWK（JSON Web Key）工具类
+ * 负责RSA公钥与JWK结构之间的转换，以及PEM/Base64格式密钥的加载
+ *
+ * @author ErgouTree
+ */
+public class JwkUtils {
+
+    /**
+     * RSA密钥类型
+     */
+    public static final String KEY_TYPE_RSA = "RSA";
+
+    /**
+     * RS256签名算法
+     */
+    public static final String ALGORITHM_RS256 = "RS256";
+
+    private static final Base64.Encoder URL_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder URL_DECODER = Base64.getUrlDecoder();
+
+    private JwkUtils() {
+    }
+
+    /**
+     * 将RSA公钥转换为JWK
+     *
+     * @param kid       密钥ID
+     * @param publicKey RSA公钥
+     * @return JWK结构
+     */
+    public static Map<String, Object> toJwk(String kid, RSAPublicKey publicKey) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kty", KEY_TYPE_RSA);
+        jwk.put("kid", kid);
+        jwk.put("use", "sig");
+        jwk.put("alg", ALGORITHM_RS256);
+        jwk.put("n", URL_ENCODER.encodeToString(toUnsignedBytes(publicKey.getModulus())));
+        jwk.put("e", URL_ENCODER.encodeToString(toUnsignedBytes(publicKey.getPublicExponent())));
+        return jwk;
+    }
+
+    /**
+     * 将JWK转换为RSA公钥
+     *
+     * @param jwk JWK结构
+     * @return RSA公钥，非RSA类型时返回null
+     */
+    public static PublicKey fromJwk(Map<String, Object> jwk) throws GeneralSecurityException {
+        if (!KEY_TYPE_RSA.equals(jwk.get("kty"))) {
+            return null;
+        }
+        BigInteger modulus = new BigInteger(1, URL_DECODER.decode(String.valueOf(jwk.get("n"))));
+        BigInteger exponent = new BigInteger(1, URL_DECODER.decode(String.valueOf(jwk.get("e"))));
+        return KeyFactory.getInstance(KEY_TYPE_RSA).generatePublic(new RSAPublicKeySpec(modulus, exponent));
+    }
+
+    /**
+     * 加载PKCS#8格式的RSA私钥，支持PEM或纯Base64
+     */
+    public static PrivateKey loadPrivateKey(String encoded) throws GeneralSecurityException {
+        return KeyFactory.getInstance(KEY_TYPE_RSA).generatePrivate(new PKCS8EncodedKeySpec(decodePem(encoded)));
+    }
+
+    /**
+     * 加载X.509格式的RSA公钥，支持PEM或纯Base64
+     */
+    public static PublicKey loadPublicKey(String encoded) throws GeneralSecurityException {
+        return KeyFactory.getInstance(KEY_TYPE_RSA).generatePublic(new X509EncodedKeySpec(decodePem(encoded)));
+    }
+
+    private static byte[] decodePem(String encoded) {
+        String base64 = encoded.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+        return Base64.getDecoder().decode(base64);
+    }
+
+    /**
+     * 去掉BigInteger补码表示中的符号位字节
+     */
+    private static byte[] toUnsignedBytes(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            byte[] unsigned = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, unsigned, 0, unsigned.length);
+            return unsigned;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,264 @@
+package hbnu.project.zhiyancommon.utils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JWT非对称签名密钥仓库
+ * 签发方（认证服务）持有当前私钥，并通过密钥集端点对外提供公钥；
+ * 验证方在本地缓存公钥并在后台定期刷新，密钥轮换无需重启，验签过程也不会请求认证服务
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Component
+public class JwksKeyStore {
+
+    /**
+     * 当前签名密钥ID
+     */
+    @Value("${jwt.keys.kid:}")
+    private String activeKid;
+
+    /**
+     * 当前签名私钥（PKCS#8，PEM或Base64），仅签发方配置
+     */
+    @Value("${jwt.keys.private-key:}")
+    private String privateKeyText;
+
+    /**
+     * 当前签名公钥（X.509，PEM或Base64）
+     */
+    @Value("${jwt.keys.public-key:}")
+    private String publicKeyText;
+
+    /**
+     * 轮换前仍需验证的历史公钥，格式为 kid:Base64公钥，多个以逗号分隔
+     */
+    @Value("${jwt.keys.previous-public-keys:}")
+    private List<String> previousPublicKeys;
+
+    /**
+     * 远程密钥集地址，验证方配置
+     */
+    @Value("${jwt.jwks-uri:}")
+    private String jwksUri;
+
+    /**
+     * 后台刷新间隔（秒）
+     */
+    @Value("${jwt.jwks-refresh-seconds:300}")
+    private long refreshSeconds;
+
+    /**
+     * 遇到未知kid时两次按需刷新的最小间隔（秒）
+     */
+    @Value("${jwt.jwks-min-refresh-interval-seconds:30}")
+    private long minRefreshIntervalSeconds;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicLong lastRefreshAt = new AtomicLong();
+
+    /**
+     * 本地配置的公钥，初始化后不再修改
+     */
+    private Map<String, RSAPublicKey> localKeys = Collections.emptyMap();
+
+    /**
+     * 从密钥集端点获取的公钥，每次刷新整体替换
+     */
+    private volatile Map<String, PublicKey> remoteKeys = Collections.emptyMap();
+
+    private PrivateKey signingKey;
+
+    private HttpClient httpClient;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        Map<String, RSAPublicKey> keys = new LinkedHashMap<>();
+        try {
+            if (StringUtils.isNotBlank(publicKeyText) && StringUtils.isNotBlank(activeKid)) {
+                keys.put(activeKid, (RSAPublicKey) JwkUtils.loadPublicKey(publicKeyText));
+            }
+            if (StringUtils.isNotBlank(privateKeyText)) {
+                signingKey = JwkUtils.loadPrivateKey(privateKeyText);
+            }
+            for (String entry : previousPublicKeys) {
+                int separator = entry.indexOf(':');
+                if (separator > 0) {
+                    keys.put(entry.substring(0, separator).trim(),
+                            (RSAPublicKey) JwkUtils.loadPublicKey(entry.substring(separator + 1)));
+                }
+            }
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("加载JWT签名密钥失败", e);
+        }
+        this.localKeys = Collections.unmodifiableMap(keys);
+
+        if (StringUtils.isNotBlank(jwksUri)) {
+            this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(3)).build();
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "jwks-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // 启动时立即拉取一次，之后按固定间隔在后台刷新
+            scheduler.scheduleWithFixedDelay(this::refresh, 0, refreshSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 根据kid获取验签公钥
+     * 未命中时异步触发一次按需刷新（受最小间隔限制），本次验签直接失败，不阻塞请求线程
+     *
+     * @param kid 密钥ID
+     * @return 公钥，未知kid返回null
+     */
+    public PublicKey getPublicKey(String kid) {
+        PublicKey key = localKeys.get(kid);
+        if (key != null) {
+            return key;
+        }
+        key = remoteKeys.get(kid);
+        if (key == null && scheduler != null) {
+            long now = System.currentTimeMillis();
+            long last = lastRefreshAt.get();
+            if (now - last >= minRefreshIntervalSeconds * 1000L && lastRefreshAt.compareAndSet(last, now)) {
+                log.info("遇到未知的JWT密钥ID: {}，触发密钥集刷新", kid);
+                scheduler.execute(this::refresh);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * 是否持有签名私钥
+     */
+    public boolean hasSigningKey() {
+        return signingKey != null && StringUtils.isNotBlank(activeKid);
+    }
+
+    /**
+     * 当前签名私钥
+     */
+    public PrivateKey getSigningKey() {
+        return signingKey;
+    }
+
+    /**
+     * 当前签名密钥ID
+     */
+    public String getActiveKid() {
+        return activeKid;
+    }
+
+    /**
+     * 生成临时签名密钥对
+     * 仅用于未配置密钥的本地开发环境，多实例部署时各实例密钥不同，必须显式配置
+     */
+    public synchronized void generateEphemeralKey() {
+        if (hasSigningKey()) {
+            return;
+        }
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance(JwkUtils.KEY_TYPE_RSA);
+            generator.initialize(2048);
+            KeyPair keyPair = generator.generateKeyPair();
+            String kid = "ephemeral-" + UUID.randomUUID();
+
+            Map<String, RSAPublicKey> keys = new LinkedHashMap<>(localKeys);
+            keys.put(kid, (RSAPublicKey) keyPair.getPublic());
+            this.localKeys = Collections.unmodifiableMap(keys);
+            this.signingKey = keyPair.getPrivate();
+            this.activeKid = kid;
+            log.warn("未配置JWT签名私钥，已生成临时密钥对，kid: {}，多实例部署请配置 jwt.keys.*", kid);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("生成JWT临时密钥对失败", e);
+        }
+    }
+
+    /**
+     * 导出本地公钥，供密钥集端点使用
+     *
+     * @return JWK列表
+     */
+    public List<Map<String, Object>> getLocalJwks() {
+        List<Map<String, Object>> jwks = new ArrayList<>();
+        localKeys.forEach((kid, key) -> jwks.add(JwkUtils.toJwk(kid, key)));
+        return jwks;
+    }
+
+    /**
+     * 从密钥集端点刷新公钥
+     * 失败时保留上一次的公钥，不影响已缓存密钥的验签
+     */
+    public void refresh() {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(jwksUri))
+                    .timeout(Duration.ofSeconds(5))
+                    .GET()
+                    .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                log.warn("刷新JWT密钥集失败，HTTP状态码: {}", response.statusCode());
+                return;
+            }
+
+            Map<String, List<Map<String, Object>>> body = objectMapper.readValue(response.body(),
+                    new TypeReference<Map<String, List<Map<String, Object>>>>() {});
+            Map<String, PublicKey> keys = new HashMap<>();
+            for (Map<String, Object> jwk : body.getOrDefault("keys", Collections.emptyList())) {
+                PublicKey key = JwkUtils.fromJwk(jwk);
+                if (key != null && jwk.get("kid") != null) {
+                    keys.put(String.valueOf(jwk.get("kid")), key);
+                }
+            }
+            this.remoteKeys = Collections.unmodifiableMap(keys);
+            lastRefreshAt.set(System.currentTimeMillis());
+            log.debug("JWT密钥集刷新完成，公钥数量: {}", keys.size());
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("刷新JWT密钥集失败: {}", e.getMessage());
+        }
+    }
+}
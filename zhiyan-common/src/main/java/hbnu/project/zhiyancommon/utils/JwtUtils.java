@@ -1,16 +1,29 @@
 package hbnu.project.zhiyancommon.utils;
 
+import hbnu.project.zhiyancommon.domain.ParsedToken;
+import hbnu.project.zhiyancommon.utils.id.IdUtils;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.impl.TextCodec;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.Key;
+import java.security.PublicKey;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -23,14 +36,77 @@ import java.util.Map;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class JwtUtils {
 
+    private final JwksKeyStore jwksKeyStore;
+
     @Value("${jwt.secret:zhiyan-platform-secret-key-2025}")
     private String secret;
 
     @Value("${jwt.issuer:zhiyan-platform}")
     private String issuer;
 
+    /**
+     * 签名算法，HS512（共享密钥）或 RS256（非对称，携带kid）
+     * 无论签名算法如何配置，验签时均同时支持两种令牌，便于平滑切换
+     */
+    @Value("${jwt.algorithm:HS512}")
+    private String algorithm;
+
+    /**
+     * 是否仍接受未携带kid的HS512令牌
+     * 切换到RS256且旧令牌全部过期后关闭，此后共享密钥泄露也无法伪造令牌
+     */
+    @Value("${jwt.accept-legacy-hs512:true}")
+    private boolean acceptLegacyHs512;
+
+    /**
+     * RS256未配置私钥时是否允许生成临时密钥对，仅限单实例开发环境
+     */
+    @Value("${jwt.keys.allow-ephemeral:false}")
+    private boolean allowEphemeralKey;
+
+    /**
+     * HS512签名密钥，启动时由secret派生一次
+     * 与 setSigningKey(String) 一致按Base64解码，保证已签发的令牌仍可验证
+     */
+    private SecretKey hmacKey;
+
+    /**
+     * 是否使用RS256签名
+     */
+    private boolean rsaSigning;
+
+    /**
+     * 共享的令牌解析器
+     * 初始化完成后不再修改，解析过程不改变解析器状态，可被多线程并发使用
+     */
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    public void init() {
+        this.hmacKey = new SecretKeySpec(TextCodec.BASE64.decode(secret), SignatureAlgorithm.HS512.getJcaName());
+        this.rsaSigning = SignatureAlgorithm.RS256.getValue().equalsIgnoreCase(algorithm);
+        if (rsaSigning && !jwksKeyStore.hasSigningKey()) {
+            // 各实例的临时密钥互不相同且重启即失效，生产环境未配置私钥时直接拒绝启动
+            if (!allowEphemeralKey) {
+                throw new IllegalStateException("JWT签名算法为RS256但未配置签名私钥，请配置 jwt.keys.*，" +
+                        "本地开发可设置 jwt.keys.allow-ephemeral=true");
+            }
+            jwksKeyStore.generateEphemeralKey();
+        }
+        if (!rsaSigning && !acceptLegacyHs512 && SignatureAlgorithm.HS512.getValue().equalsIgnoreCase(algorithm)) {
+            throw new IllegalStateException("JWT签名算法为HS512时不能关闭 jwt.accept-legacy-hs512");
+        }
+        this.jwtParser = Jwts.parser().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+            @Override
+            public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                return resolveVerifyKey(header);
+            }
+        });
+    }
+
     /**
      * 创建JWT令牌
      *
@@ -54,56 +130,98 @@ public class JwtUtils {
         Date now = new Date();
         Date expireDate = new Date(now.getTime() + expireMinutes * 60 * 1000L);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
+                .setId(IdUtils.fastSimpleUUID())
                 .setSubject(subject)
                 .setIssuer(issuer)
                 .setIssuedAt(now)
                 .setExpiration(expireDate)
-                .addClaims(claims)
-                .signWith(SignatureAlgorithm.HS512, secret)
-                .compact();
+                .addClaims(claims);
+
+        if (rsaSigning) {
+            return builder.setHeaderParam(JwsHeader.KEY_ID, jwksKeyStore.getActiveKid())
+                    .signWith(SignatureAlgorithm.RS256, jwksKeyStore.getSigningKey())
+                    .compact();
+        }
+        return builder.signWith(SignatureAlgorithm.HS512, hmacKey).compact();
     }
 
     /**
-     * 解析JWT令牌
+     * 根据令牌头选择验签密钥
+     * 未携带kid的令牌只接受HS512，携带kid的令牌只接受RS256，避免算法混淆；
+     * 关闭 jwt.accept-legacy-hs512 后未携带kid的令牌一律拒绝
      *
-     * @param token JWT令牌
-     * @return 用户ID
+     * @param header 令牌头
+     * @return 验签密钥
      */
-    public String parseToken(String token) {
-        try {
-            if (StringUtils.isBlank(token)) {
-                return null;
+    private Key resolveVerifyKey(JwsHeader header) {
+        String kid = header.getKeyId();
+        String alg = header.getAlgorithm();
+        if (StringUtils.isBlank(kid)) {
+            if (!acceptLegacyHs512) {
+                throw new UnsupportedJwtException("已停止接受未携带kid的HS512令牌");
             }
+            if (!SignatureAlgorithm.HS512.getValue().equals(alg)) {
+                throw new UnsupportedJwtException("未携带kid的令牌仅支持HS512签名: " + alg);
+            }
+            return hmacKey;
+        }
+        if (!SignatureAlgorithm.RS256.getValue().equals(alg)) {
+            throw new UnsupportedJwtException("携带kid的令牌仅支持RS256签名: " + alg);
+        }
+        PublicKey publicKey = jwksKeyStore.getPublicKey(kid);
+        if (publicKey == null) {
+            throw new SignatureException("未知的签名密钥: " + kid);
+        }
+        return publicKey;
+    }
 
-            Claims claims = Jwts.parser()
-                    .setSigningKey(secret)
-                    .parseClaimsJws(token)
-                    .getBody();
-
-            return claims.getSubject();
+    /**
+     * 解析并验证JWT令牌
+     * 签名校验与Claims解析只进行一次，结果中包含调用方需要的全部信息
+     *
+     * @param token JWT令牌
+     * @return 解析结果，失败时携带失败原因
+     */
+    public ParsedToken parse(String token) {
+        if (StringUtils.isBlank(token)) {
+            return ParsedToken.invalid(ParsedToken.FailureReason.EMPTY);
+        }
+        try {
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            return ParsedToken.valid(claims);
 
         } catch (ExpiredJwtException e) {
             log.debug("JWT令牌已过期: {}", e.getMessage());
-            return null;
+            return ParsedToken.invalid(ParsedToken.FailureReason.EXPIRED);
         } catch (UnsupportedJwtException e) {
             log.debug("不支持的JWT令牌: {}", e.getMessage());
-            return null;
+            return ParsedToken.invalid(ParsedToken.FailureReason.UNSUPPORTED);
         } catch (MalformedJwtException e) {
             log.debug("JWT令牌格式错误: {}", e.getMessage());
-            return null;
+            return ParsedToken.invalid(ParsedToken.FailureReason.MALFORMED);
         } catch (SignatureException e) {
             log.debug("JWT令牌签名验证失败: {}", e.getMessage());
-            return null;
+            return ParsedToken.invalid(ParsedToken.FailureReason.INVALID_SIGNATURE);
         } catch (IllegalArgumentException e) {
             log.debug("JWT令牌参数错误: {}", e.getMessage());
-            return null;
+            return ParsedToken.invalid(ParsedToken.FailureReason.ILLEGAL_ARGUMENT);
         } catch (Exception e) {
             log.error("JWT令牌解析失败: {}", e.getMessage(), e);
-            return null;
+            return ParsedToken.invalid(ParsedToken.FailureReason.UNKNOWN);
         }
     }
 
+    /**
+     * 解析JWT令牌
+     *
+     * @param token JWT令牌
+     * @return 用户ID
+     */
+    public String parseToken(String token) {
+        return parse(token).getSubject();
+    }
+
     /**
      * 获取JWT令牌的Claims
      *
@@ -111,20 +229,7 @@ public class JwtUtils {
      * @return Claims
      */
     public Claims getClaims(String token) {
-        try {
-            if (StringUtils.isBlank(token)) {
-                return null;
-            }
-
-            return Jwts.parser()
-                    .setSigningKey(secret)
-                    .parseClaimsJws(token)
-                    .getBody();
-
-        } catch (Exception e) {
-            log.debug("获取JWT Claims失败: {}", e.getMessage());
-            return null;
-        }
+        return parse(token).getClaims();
     }
 
     /**
@@ -134,25 +239,7 @@ public class JwtUtils {
      * @return 剩余时间（秒），如果已过期或无效则返回null
      */
     public Long getRemainingTime(String token) {
-        try {
-            Claims claims = getClaims(token);
-            if (claims == null) {
-                return null;
-            }
-
-            Date expiration = claims.getExpiration();
-            Date now = new Date();
-
-            if (expiration.before(now)) {
-                return null;
-            }
-
-            return (expiration.getTime() - now.getTime()) / 1000;
-
-        } catch (Exception e) {
-            log.debug("获取JWT剩余时间失败: {}", e.getMessage());
-            return null;
-        }
+        return parse(token).getRemainingSeconds();
     }
 
     /**
@@ -162,7 +249,7 @@ public class JwtUtils {
      * @return 是否有效
      */
     public boolean validateToken(String token) {
-        return parseToken(token) != null;
+        return parse(token).isValid();
     }
 
     /**
@@ -172,8 +259,7 @@ public class JwtUtils {
      * @return 过期时间
      */
     public Date getExpirationDate(String token) {
-        Claims claims = getClaims(token);
-        return claims != null ? claims.getExpiration() : null;
+        return parse(token).getExpiration();
     }
 
     /**
@@ -183,8 +269,7 @@ public class JwtUtils {
      * @return 签发时间
      */
     public Date getIssuedAt(String token) {
-        Claims claims = getClaims(token);
-        return claims != null ? claims.getIssuedAt() : null;
+        return parse(token).getIssuedAt();
     }
 
     /**
@@ -195,20 +280,6 @@ public class JwtUtils {
      * @return 是否即将过期
      */
     public boolean isTokenExpiringSoon(String token, int minutes) {
-        try {
-            Claims claims = getClaims(token);
-            if (claims == null) {
-                return true;
-            }
-
-            Date expiration = claims.getExpiration();
-            Date threshold = new Date(System.currentTimeMillis() + minutes * 60 * 1000L);
-
-            return expiration.before(threshold);
-
-        } catch (Exception e) {
-            log.debug("检查JWT过期状态失败: {}", e.getMessage());
-            return true;
-        }
+        return parse(token).isExpiringSoon(minutes);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,209 @@
+package hbnu.project.zhiyancommon.utils;
+
+import hbnu.project.zhiyancommon.enums.SystemPermission;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Collection;
+
+/**
+ * 权限位图工具类
+ * 按 SystemPermission 的位索引把权限集合编译为 long[]，权限判断只需按位运算，不做字符串比较也不分配对象
+ *
+ * 编码格式：各long按大端序拼接后做Base64url（无填充），用于写入令牌声明和上下文
+ *
+ * @author ErgouTree
+ */
+public final class PermissionBitset {
+
+    private static final long[] EMPTY = new long[0];
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private PermissionBitset() {
+    }
+
+    /**
+     * 把权限代码集合编译为位图，不属于 SystemPermission 的代码被忽略
+     *
+     * @param codes 权限代码集合
+     * @return 位图
+     */
+    public static long[] compile(Collection<String> codes) {
+        if (codes == null || codes.isEmpty()) {
+            return EMPTY;
+        }
+        long[] bits = new long[wordCount()];
+        for (String code : codes) {
+            SystemPermission permission = SystemPermission.fromCode(code);
+            if (permission != null) {
+                set(bits, permission.getBit());
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * 把权限代码字符串（逗号分隔）编译为位图
+     *
+     * @param codes 逗号分隔的权限代码
+     * @return 位图
+     */
+    public static long[] compile(String codes) {
+        if (StringUtils.isBlank(codes)) {
+            return EMPTY;
+        }
+        long[] bits = new long[wordCount()];
+        for (String code : codes.split(",")) {
+            SystemPermission permission = SystemPermission.fromCode(code.trim());
+            if (permission != null) {
+                set(bits, permission.getBit());
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * 由权限枚举构建位图
+     *
+     * @param permissions 权限
+     * @return 位图
+     */
+    public static long[] of(Collection<SystemPermission> permissions) {
+        long[] bits = new long[wordCount()];
+        for (SystemPermission permission : permissions) {
+            set(bits, permission.getBit());
+        }
+        return bits;
+    }
+
+    /**
+     * 由权限枚举构建位图
+     *
+     * @param permissions 权限
+     * @return 位图
+     */
+    public static long[] of(SystemPermission... permissions) {
+        long[] bits = new long[wordCount()];
+        for (SystemPermission permission : permissions) {
+            set(bits, permission.getBit());
+        }
+        return bits;
+    }
+
+    /**
+     * 判断位图是否包含指定权限
+     */
+    public static boolean has(long[] bits, SystemPermission permission) {
+        return permission != null && has(bits, permission.getBit());
+    }
+
+    /**
+     * 判断位图是否包含指定权限代码，代码不属于 SystemPermission 时返回false
+     */
+    public static boolean has(long[] bits, String code) {
+        return has(bits, SystemPermission.fromCode(code));
+    }
+
+    /**
+     * 判断位图是否包含指定位
+     */
+    public static boolean has(long[] bits, int bit) {
+        int word = bit >>> 6;
+        return bits != null && word < bits.length && (bits[word] & (1L << bit)) != 0;
+    }
+
+    /**
+     * 判断位图是否包含掩码中的任一权限
+     *
+     * @param bits 用户权限位图
+     * @param mask 待判断的权限位图
+     */
+    public static boolean hasAny(long[] bits, long[] mask) {
+        if (bits == null || mask == null) {
+            return false;
+        }
+        int length = Math.min(bits.length, mask.length);
+        for (int i = 0; i < length; i++) {
+            if ((bits[i] & mask[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 判断位图是否包含掩码中的全部权限
+     *
+     * @param bits 用户权限位图
+     * @param mask 待判断的权限位图
+     */
+    public static boolean hasAll(long[] bits, long[] mask) {
+        if (mask == null) {
+            return true;
+        }
+        for (int i = 0; i < mask.length; i++) {
+            long word = bits != null && i < bits.length ? bits[i] : 0L;
+            if ((word & mask[i]) != mask[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 编码为字符串
+     *
+     * @param bits 位图
+     * @return Base64url字符串，空位图返回空字符串
+     */
+    public static String encode(long[] bits) {
+        if (bits == null || bits.length == 0) {
+            return StringUtils.EMPTY;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(bits.length * Long.BYTES);
+        for (long word : bits) {
+            buffer.putLong(word);
+        }
+        return ENCODER.encodeToString(buffer.array());
+    }
+
+    /**
+     * 从字符串解码
+     *
+     * @param encoded Base64url字符串
+     * @return 位图，格式错误时返回null，调用方应回退到字符串权限判断
+     */
+    public static long[] decode(String encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        if (encoded.isEmpty()) {
+            return EMPTY;
+        }
+        try {
+            byte[] bytes = DECODER.decode(encoded);
+            if (bytes.length % Long.BYTES != 0) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            long[] bits = new long[bytes.length / Long.BYTES];
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] = buffer.getLong();
+            }
+            return bits;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void set(long[] bits, int bit) {
+        bits[bit >>> 6] |= 1L << bit;
+    }
+
+    private static int wordCount() {
+        return (SystemPermission.maxBit() >>> 6) + 1;
+    }
+}
@@ -0,0 +1,29 @@
+-- 滑动窗口限流：统计窗口内的请求数，未超出时记录本次请求
+--
+-- KEYS[1] 请求记录（有序集合，score为请求时间戳）
+-- ARGV[1] 当前时间戳（毫秒）
+-- ARGV[2] 窗口长度（毫秒）
+-- ARGV[3] 窗口内允许的次数
+-- ARGV[4] 本次请求的唯一标识
+--
+-- 返回 {是否通过, 需等待的毫秒数}
+
+local now = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local permits = tonumber(ARGV[3])
+
+redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - window)
+local count = redis.call('ZCARD', KEYS[1])
+if count < permits then
+    redis.call('ZADD', KEYS[1], now, ARGV[4])
+    redis.call('PEXPIRE', KEYS[1], window)
+    return {1, 0}
+end
+
+-- 窗口内最早的 count - permits + 1 个请求移出窗口后才会有空位
+local oldest = redis.call('ZRANGE', KEYS[1], count - permits, count - permits, 'WITHSCORES')
+local wait = 1
+if oldest[2] ~= nil then
+    wait = math.max(1, tonumber(oldest[2]) + window - now)
+end
+return {0, wait}
@@ -0,0 +1,39 @@
+-- 令牌桶限流：按经过的时间补充令牌，取走一个令牌
+--
+-- KEYS[1] 令牌桶（哈希，tokens为剩余令牌，ts为上次补充时间）
+-- ARGV[1] 当前时间戳（毫秒）
+-- ARGV[2] 桶容量
+-- ARGV[3] 补满整个桶所需时间（毫秒）
+--
+-- 返回 {是否通过, 需等待的毫秒数}
+
+local now = tonumber(ARGV[1])
+local capacity = tonumber(ARGV[2])
+local period = tonumber(ARGV[3])
+local rate = capacity / period
+
+local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+local tokens = tonumber(bucket[1])
+local ts = tonumber(bucket[2])
+if tokens == nil or ts == nil then
+    tokens = capacity
+    ts = now
+end
+if now > ts then
+    tokens = math.min(capacity, tokens + (now - ts) * rate)
+    ts = now
+end
+
+local allowed = 0
+local wait = 0
+if tokens >= 1 then
+    tokens = tokens - 1
+    allowed = 1
+else
+    wait = math.ceil((1 - tokens) / rate)
+end
+
+redis.call('HMSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(ts))
+-- 一个周期后桶必然补满，键可以过期
+redis.call('PEXPIRE', KEYS[1], period)
+return {allowed, wait}
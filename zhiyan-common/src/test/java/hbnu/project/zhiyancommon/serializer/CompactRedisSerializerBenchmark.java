@@ -0,0 +1,75 @@
+package hbnu.project.zhiyancommon.serializer;
+
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Redis值序列化对比
+ * 比较 GenericJackson2JsonRedisSerializer 与 CompactRedisSerializer 对认证缓存中常见值的
+ * 序列化大小、编码耗时和解码耗时
+ *
+ * 说明：项目未引入JMH，沿用 JwtVerifyBenchmark 的预热+计时方式，结果只作为相对量级参考；
+ * 实体类等非紧凑类型两者都走JSON，不在对比范围内
+ */
+public class CompactRedisSerializerBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 100_000;
+
+    private static final int MEASURE_ITERATIONS = 1_000_000;
+
+    private static int sink;
+
+    public static void main(String[] args) {
+        System.out.println("=== Redis值序列化对比 ===");
+
+        GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+        CompactRedisSerializer compact = new CompactRedisSerializer(json);
+
+        Set<String> permissions = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            permissions.add("module" + i + ":manage");
+        }
+
+        compare("Set<String>(20)", permissions, json, compact);
+        compare("Integer", 3, json, compact);
+        compare("String", "2025-01-01T10:00:00", json, compact);
+
+        System.out.println(sink == Integer.MIN_VALUE ? "" : "完成");
+    }
+
+    private static void compare(String name, Object value, GenericJackson2JsonRedisSerializer json,
+                                CompactRedisSerializer compact) {
+        byte[] jsonBytes = json.serialize(value);
+        byte[] compactBytes = compact.serialize(CompactRedisSerializer.compact(value));
+        if (!value.equals(compact.deserialize(compactBytes)) || !value.equals(compact.deserialize(jsonBytes))) {
+            throw new IllegalStateException(name + " 往返结果不一致");
+        }
+
+        System.out.printf("--- %s ---%n", name);
+        System.out.printf("大小: JSON %d 字节, 紧凑 %d 字节%n", jsonBytes.length, compactBytes.length);
+        report("JSON编码", () -> json.serialize(value).length);
+        report("紧凑编码", () -> compact.serialize(CompactRedisSerializer.compact(value)).length);
+        report("JSON解码", () -> json.deserialize(jsonBytes).hashCode());
+        report("紧凑解码", () -> compact.deserialize(compactBytes).hashCode());
+    }
+
+    private static void report(String name, Task task) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink += task.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+            sink += task.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-8s %d 次耗时: %d ms, 平均: %.0f ns%n",
+                name, MEASURE_ITERATIONS, elapsed / 1_000_000, (double) elapsed / MEASURE_ITERATIONS);
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        int run();
+    }
+}
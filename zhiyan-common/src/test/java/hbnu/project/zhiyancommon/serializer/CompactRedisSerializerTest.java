@@ -0,0 +1,94 @@
+package hbnu.project.zhiyancommon.serializer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 紧凑二进制Redis序列化器测试
+ */
+public class CompactRedisSerializerTest {
+
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+
+    private final CompactRedisSerializer serializer = new CompactRedisSerializer(json);
+
+    private Object roundTrip(Object value) {
+        byte[] bytes = serializer.serialize(CompactRedisSerializer.compact(value));
+        assertEquals(0x00, bytes[0]);
+        return serializer.deserialize(bytes);
+    }
+
+    @Test
+    void roundTripSupportedTypes() {
+        assertEquals("", roundTrip(""));
+        assertEquals("权限:管理", roundTrip("权限:管理"));
+        assertEquals(0, roundTrip(0));
+        assertEquals(Integer.MIN_VALUE, roundTrip(Integer.MIN_VALUE));
+        assertEquals(Integer.MAX_VALUE, roundTrip(Integer.MAX_VALUE));
+        assertEquals(-1L, roundTrip(-1L));
+        assertEquals(Long.MIN_VALUE, roundTrip(Long.MIN_VALUE));
+        assertEquals(Long.MAX_VALUE, roundTrip(Long.MAX_VALUE));
+        assertEquals(Boolean.TRUE, roundTrip(true));
+        assertEquals(Boolean.FALSE, roundTrip(false));
+        assertEquals(Set.of("project:create", "user:admin", "角色"), roundTrip(Set.of("project:create", "user:admin", "角色")));
+        assertEquals(Set.of(), roundTrip(Set.of()));
+        assertEquals(List.of("b", "a", "", "b"), roundTrip(List.of("b", "a", "", "b")));
+    }
+
+    @Test
+    void unsupportedTypesFallBackToJson() {
+        Map<String, Object> map = new HashMap<>(Map.of("id", 1));
+        byte[] bytes = serializer.serialize(CompactRedisSerializer.compact(map));
+
+        assertArrayEquals(json.serialize(map), bytes);
+        assertEquals(map, serializer.deserialize(bytes));
+        // 含非字符串元素的集合同样走JSON
+        assertNotEquals(0x00, serializer.serialize(CompactRedisSerializer.compact(List.of(1, 2)))[0]);
+    }
+
+    @Test
+    void unwrappedValuesAndLegacyJsonAreReadable() {
+        Set<String> permissions = new HashSet<>(Set.of("project:create"));
+        byte[] legacy = json.serialize(permissions);
+
+        assertArrayEquals(legacy, serializer.serialize(permissions));
+        assertEquals(permissions, serializer.deserialize(legacy));
+        assertNull(serializer.deserialize(null));
+        assertNull(serializer.deserialize(new byte[0]));
+        assertNull(CompactRedisSerializer.compact(null));
+    }
+
+    @Test
+    void malformedInputThrowsSerializationException() {
+        // 只有首字节
+        assertThrows(SerializationException.class, () -> serializer.deserialize(new byte[]{0x00}));
+        // 未知类型
+        assertThrows(SerializationException.class, () -> serializer.deserialize(new byte[]{0x00, 0x7F}));
+        // 整数缺少数据、变长整数未结束
+        assertThrows(SerializationException.class, () -> serializer.deserialize(new byte[]{0x00, 2}));
+        assertThrows(SerializationException.class, () -> serializer.deserialize(new byte[]{0x00, 3, (byte) 0x80}));
+        // 变长整数超过10字节
+        byte[] overlong = new byte[14];
+        overlong[1] = 3;
+        for (int i = 2; i < overlong.length; i++) {
+            overlong[i] = (byte) 0x80;
+        }
+        assertThrows(SerializationException.class, () -> serializer.deserialize(overlong));
+        // 集合声明2个元素只给1个、元素长度超出数据
+        assertThrows(SerializationException.class, () -> serializer.deserialize(new byte[]{0x00, 6, 2, 1, 'a'}));
+        assertThrows(SerializationException.class, () -> serializer.deserialize(new byte[]{0x00, 7, 1, 5, 'a'}));
+    }
+}
@@ -0,0 +1,102 @@
+package hbnu.project.zhiyancommon.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 布隆过滤器测试
+ */
+public class BloomFilterTest {
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(1000, 0.001);
+
+        assertFalse(filter.mightContain("jti-1"));
+        assertFalse(filter.mightContain(""));
+    }
+
+    @Test
+    void noFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.001);
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            values.add(UUID.randomUUID().toString());
+        }
+        values.add("");
+        values.add("短");
+        values.add("a-value-longer-than-one-murmur-block-of-sixteen-bytes");
+        values.forEach(filter::put);
+
+        for (String value : values) {
+            assertTrue(filter.mightContain(value), value);
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("revoked-" + i);
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("active-" + i)) {
+                falsePositives++;
+            }
+        }
+        // 目标1%，留出统计波动余量
+        assertTrue(falsePositives < probes * 0.02, "误判数: " + falsePositives);
+    }
+
+    @Test
+    void bitSizeIsWordAligned() {
+        assertEquals(0, new BloomFilter(100_000, 0.001).bitSize() % 64);
+        // 非法参数按下限处理
+        assertEquals(64, new BloomFilter(0, 0.5).bitSize());
+        assertTrue(new BloomFilter(1, 0).bitSize() >= 64);
+    }
+
+    @Test
+    void concurrentPutsAreNotLost() throws InterruptedException {
+        BloomFilter filter = new BloomFilter(80_000, 0.001);
+        int threads = 8;
+        int perThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int offset = t * perThread;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    filter.put("jti-" + (offset + i));
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        for (int i = 0; i < threads * perThread; i++) {
+            assertTrue(filter.mightContain("jti-" + i));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package hbnu.project.zhiyancommon.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * IP工具类测试
+ */
+public class IpUtilsTest {
+
+    private static final String TRUSTED = "127.0.0.1;10.*.*.*;172.16.0.0-172.31.255.255;192.168.*.*";
+
+    private static MockHttpServletRequest request(String remoteAddr, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddr);
+        if (forwardedFor != null) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        return request;
+    }
+
+    @Test
+    void untrustedPeerIgnoresForwardedHeader() {
+        assertEquals("203.0.113.7", IpUtils.getTrustedClientIp(request("203.0.113.7", "1.2.3.4"), TRUSTED));
+        assertEquals("203.0.113.7", IpUtils.getTrustedClientIp(request("203.0.113.7", null), TRUSTED));
+    }
+
+    @Test
+    void trustedProxyUsesRightmostUntrustedHop() {
+        // 客户端伪造的 1.2.3.4 在左侧，网关追加的真实地址在右侧
+        assertEquals("198.51.100.9",
+                IpUtils.getTrustedClientIp(request("10.0.0.5", "1.2.3.4, 198.51.100.9"), TRUSTED));
+        assertEquals("198.51.100.9",
+                IpUtils.getTrustedClientIp(request("10.0.0.5", "198.51.100.9, 172.20.1.1"), TRUSTED));
+    }
+
+    @Test
+    void emptyTrustListUsesPeerAddress() {
+        assertEquals("10.0.0.5", IpUtils.getTrustedClientIp(request("10.0.0.5", "1.2.3.4"), ""));
+        assertEquals("127.0.0.1", IpUtils.getTrustedClientIp(request("0:0:0:0:0:0:0:1", "1.2.3.4"), null));
+    }
+
+    @Test
+    void malformedHopsDoNotBreakMatching() {
+        assertEquals("192", IpUtils.getTrustedClientIp(request("10.0.0.5", "1.2.3.4, 192"), TRUSTED));
+        assertEquals("198.51.100.9",
+                IpUtils.getTrustedClientIp(request("10.0.0.5", "198.51.100.9, unknown, "), TRUSTED));
+        assertEquals("10.0.0.6", IpUtils.getTrustedClientIp(request("10.0.0.5", "10.0.0.6"), TRUSTED));
+    }
+}
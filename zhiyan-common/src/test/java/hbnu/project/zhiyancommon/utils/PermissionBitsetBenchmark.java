@@ -0,0 +1,105 @@
+package hbnu.project.zhiyancommon.utils;
+
+import hbnu.project.zhiyancommon.enums.SystemPermission;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 权限判断吞吐量对比
+ * 比较原有的字符串权限判断（权限集合contains、上下文逗号字符串拆分匹配）与位图按位判断
+ *
+ * 说明：项目未引入JMH，这里沿用 JwtVerifyBenchmark 的预热+计时方式，
+ * 结果受JIT和GC影响，只作为相对量级参考
+ */
+public class PermissionBitsetBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 1_000_000;
+
+    private static final int MEASURE_ITERATIONS = 10_000_000;
+
+    /**
+     * 防止JIT消除判断结果
+     */
+    private static int sink;
+
+    public static void main(String[] args) {
+        System.out.println("=== 权限判断吞吐量对比 ===");
+
+        Set<String> permissionSet = new HashSet<>();
+        permissionSet.add(SystemPermission.PROFILE_MANAGE.getCode());
+        permissionSet.add(SystemPermission.PROJECT_CREATE.getCode());
+        permissionSet.add(SystemPermission.KNOWLEDGE_MANAGE.getCode());
+        String permissionString = String.join(",", permissionSet);
+        long[] bits = PermissionBitset.compile(permissionSet);
+
+        String[] anyOf = {SystemPermission.USER_ADMIN.getCode(), SystemPermission.KNOWLEDGE_MANAGE.getCode()};
+        long[] anyMask = PermissionBitset.of(SystemPermission.USER_ADMIN, SystemPermission.KNOWLEDGE_MANAGE);
+        String[] allOf = {SystemPermission.PROFILE_MANAGE.getCode(), SystemPermission.PROJECT_CREATE.getCode()};
+        long[] allMask = PermissionBitset.of(SystemPermission.PROFILE_MANAGE, SystemPermission.PROJECT_CREATE);
+
+        System.out.println("--- hasPermission ---");
+        report("Set.contains", () -> permissionSet.contains("project:create"));
+        report("String.split", () -> splitContains(permissionString, "project:create"));
+        report("bitset(code)", () -> PermissionBitset.has(bits, "project:create"));
+        report("bitset(enum)", () -> PermissionBitset.has(bits, SystemPermission.PROJECT_CREATE));
+
+        System.out.println("--- hasAnyPermission ---");
+        report("Set.contains", () -> {
+            for (String permission : anyOf) {
+                if (permissionSet.contains(permission)) {
+                    return true;
+                }
+            }
+            return false;
+        });
+        report("bitset(mask)", () -> PermissionBitset.hasAny(bits, anyMask));
+
+        System.out.println("--- hasAllPermissions ---");
+        report("Set.contains", () -> {
+            for (String permission : allOf) {
+                if (!permissionSet.contains(permission)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+        report("bitset(mask)", () -> PermissionBitset.hasAll(bits, allMask));
+
+        System.out.println("--- 令牌编解码 ---");
+        String encoded = PermissionBitset.encode(bits);
+        System.out.printf("编码结果: %s (%d 字符), 逗号字符串: %d 字符%n",
+                encoded, encoded.length(), permissionString.length());
+        report("decode", () -> PermissionBitset.decode(encoded) != null);
+
+        System.out.println(sink == Integer.MIN_VALUE ? "" : "完成");
+    }
+
+    private static boolean splitContains(String permissions, String permission) {
+        for (String code : permissions.split(",")) {
+            if (permission.equals(code.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void report(String name, CheckTask task) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink += task.run() ? 1 : 0;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+            sink += task.run() ? 1 : 0;
+        }
+        long elapsed = System.nanoTime() - start;
+        double opsPerSecond = MEASURE_ITERATIONS / (elapsed / 1_000_000_000.0);
+        System.out.printf("%-14s 判断 %d 次耗时: %d ms, 吞吐量: %.0f ops/s, 平均: %.2f ns%n",
+                name, MEASURE_ITERATIONS, elapsed / 1_000_000, opsPerSecond, (double) elapsed / MEASURE_ITERATIONS);
+    }
+
+    @FunctionalInterface
+    private interface CheckTask {
+        boolean run();
+    }
+}
@@ -0,0 +1,93 @@
+package hbnu.project.zhiyancommon.utils;
+
+import hbnu.project.zhiyancommon.enums.SystemPermission;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 权限位图工具类测试
+ */
+public class PermissionBitsetTest {
+
+    @Test
+    void compileSetsOnlyKnownPermissions() {
+        long[] bits = PermissionBitset.compile(Set.of("project:create", "user:admin", "unknown:code"));
+
+        assertTrue(PermissionBitset.has(bits, SystemPermission.PROJECT_CREATE));
+        assertTrue(PermissionBitset.has(bits, "user:admin"));
+        assertFalse(PermissionBitset.has(bits, SystemPermission.SYSTEM_ADMIN));
+        assertFalse(PermissionBitset.has(bits, "unknown:code"));
+        assertArrayEquals(PermissionBitset.of(SystemPermission.PROJECT_CREATE, SystemPermission.USER_ADMIN), bits);
+    }
+
+    @Test
+    void compileCommaSeparatedMatchesCollection() {
+        assertArrayEquals(PermissionBitset.compile(List.of("profile:manage", "knowledge:manage")),
+                PermissionBitset.compile(" profile:manage , knowledge:manage"));
+    }
+
+    @Test
+    void emptyInputCompilesToEmptyBitset() {
+        assertEquals(0, PermissionBitset.compile((String) null).length);
+        assertEquals(0, PermissionBitset.compile(" ").length);
+        assertEquals(0, PermissionBitset.compile(Set.of()).length);
+        assertFalse(PermissionBitset.has(PermissionBitset.compile(Set.of()), SystemPermission.PROFILE_MANAGE));
+    }
+
+    @Test
+    void hasIgnoresOutOfRangeBitsAndNulls() {
+        long[] bits = PermissionBitset.of(SystemPermission.PROFILE_MANAGE);
+
+        assertFalse(PermissionBitset.has(bits, 64 * bits.length));
+        assertFalse(PermissionBitset.has(null, 0));
+        assertFalse(PermissionBitset.has(bits, (SystemPermission) null));
+    }
+
+    @Test
+    void hasAnyAndHasAll() {
+        long[] bits = PermissionBitset.of(SystemPermission.PROJECT_MANAGE, SystemPermission.PROJECT_DELETE);
+
+        assertTrue(PermissionBitset.hasAny(bits, PermissionBitset.of(SystemPermission.PROJECT_DELETE, SystemPermission.SYSTEM_ADMIN)));
+        assertFalse(PermissionBitset.hasAny(bits, PermissionBitset.of(SystemPermission.SYSTEM_ADMIN)));
+        assertFalse(PermissionBitset.hasAny(null, bits));
+
+        assertTrue(PermissionBitset.hasAll(bits, PermissionBitset.of(SystemPermission.PROJECT_MANAGE)));
+        assertFalse(PermissionBitset.hasAll(bits, PermissionBitset.of(SystemPermission.PROJECT_MANAGE, SystemPermission.SYSTEM_ADMIN)));
+        assertTrue(PermissionBitset.hasAll(bits, null));
+        assertTrue(PermissionBitset.hasAll(new long[0], PermissionBitset.compile(Set.of("unknown:code"))));
+        assertFalse(PermissionBitset.hasAll(null, PermissionBitset.of(SystemPermission.PROFILE_MANAGE)));
+    }
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        long[] bits = PermissionBitset.of(Arrays.asList(SystemPermission.values()));
+
+        String encoded = PermissionBitset.encode(bits);
+        assertFalse(encoded.contains("="));
+        assertArrayEquals(bits, PermissionBitset.decode(encoded));
+
+        long[] wide = {Long.MIN_VALUE, -1L, 0L};
+        assertArrayEquals(wide, PermissionBitset.decode(PermissionBitset.encode(wide)));
+    }
+
+    @Test
+    void encodeEmptyAndDecodeMalformed() {
+        assertEquals("", PermissionBitset.encode(new long[0]));
+        assertEquals("", PermissionBitset.encode(null));
+        assertEquals(0, PermissionBitset.decode("").length);
+        assertNull(PermissionBitset.decode(null));
+        // 非Base64url字符
+        assertNull(PermissionBitset.decode("***"));
+        // 长度不是8字节的整数倍
+        assertNull(PermissionBitset.decode("AAAA"));
+    }
+}
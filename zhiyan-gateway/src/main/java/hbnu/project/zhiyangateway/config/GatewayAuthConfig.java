@@ -0,0 +1,22 @@
+package hbnu.project.zhiyangateway.config;
+
+import hbnu.project.zhiyancommon.config.RedisListenerConfig;
+import hbnu.project.zhiyancommon.service.TokenEpochService;
+import hbnu.project.zhiyancommon.service.TokenRevocationService;
+import hbnu.project.zhiyancommon.utils.IdentityHeaderUtils;
+import hbnu.project.zhiyancommon.utils.JwksKeyStore;
+import hbnu.project.zhiyancommon.utils.JwtUtils;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * 网关认证配置
+ * 网关不扫描公共模块（其中包含Servlet相关配置），只按需引入令牌校验、吊销校验和身份头签名组件
+ *
+ * @author ErgouTree
+ */
+@Configuration
+@Import({JwtUtils.class, JwksKeyStore.class, IdentityHeaderUtils.class,
+        RedisListenerConfig.class, TokenRevocationService.class, TokenEpochService.class})
+public class GatewayAuthConfig {
+}
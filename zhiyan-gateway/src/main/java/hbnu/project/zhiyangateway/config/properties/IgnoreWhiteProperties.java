@@ -0,0 +1,27 @@
+package hbnu.project.zhiyangateway.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 网关放行白名单配置
+ * 白名单中的路径不需要携带令牌即可访问
+ *
+ * @author ErgouTree
+ */
+@Data
+@Configuration
+@RefreshScope
+@ConfigurationProperties(prefix = "security.ignore")
+public class IgnoreWhiteProperties {
+
+    /**
+     * 放行白名单，支持 ? * ** 通配符
+     */
+    private List<String> whites = new ArrayList<>();
+}
@@ -0,0 +1,208 @@
+package hbnu.project.zhiyangateway.filter;
+
+import hbnu.project.zhiyancommon.constants.CacheConstants;
+import hbnu.project.zhiyancommon.constants.HttpStatus;
+import hbnu.project.zhiyancommon.constants.SecurityConstants;
+import hbnu.project.zhiyancommon.constants.TokenConstants;
+import hbnu.project.zhiyancommon.domain.ParsedToken;
+import hbnu.project.zhiyancommon.service.TokenEpochService;
+import hbnu.project.zhiyancommon.service.TokenRevocationService;
+import hbnu.project.zhiyancommon.utils.IdentityHeaderUtils;
+import hbnu.project.zhiyancommon.utils.JwtUtils;
+import hbnu.project.zhiyancommon.utils.ServletUtils;
+import hbnu.project.zhiyancommon.utils.StringUtils;
+import hbnu.project.zhiyangateway.config.properties.IgnoreWhiteProperties;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * 网关鉴权过滤器
+ * 在网关处一次性完成令牌验签和吊销校验，校验通过后将用户身份签名写入请求头转发给下游服务，
+ * 下游服务信任该身份头，不再重复解析JWT；无效令牌在网关直接拒绝，不占用后端线程
+ *
+ * @author ErgouTree
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthFilter implements GlobalFilter, Ordered
+{
+    private static final Logger log = LoggerFactory.getLogger(AuthFilter.class);
+
+    /**
+     * 兼容以请求参数方式传递令牌
+     */
+    private static final String TOKEN_PARAMETER = "token";
+
+    private final IgnoreWhiteProperties ignoreWhite;
+
+    private final JwtUtils jwtUtils;
+
+    private final IdentityHeaderUtils identityHeaderUtils;
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    private final TokenRevocationService tokenRevocationService;
+
+    private final TokenEpochService tokenEpochService;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain)
+    {
+        ServerHttpRequest request = exchange.getRequest();
+        ServerHttpRequest.Builder mutate = request.mutate();
+
+        // 移除客户端自行携带的身份相关请求头，防止伪造
+        mutate.headers(headers -> {
+            headers.remove(SecurityConstants.IDENTITY_HEADER);
+            headers.remove(SecurityConstants.DETAILS_USER_ID);
+            headers.remove(SecurityConstants.DETAILS_USERNAME);
+            headers.remove(SecurityConstants.DETAILS_USER_EMAIL);
+            headers.remove(SecurityConstants.LOGIN_USER_PERMISSIONS);
+            headers.remove(SecurityConstants.LOGIN_USER_ROLES);
+            headers.remove(SecurityConstants.FROM_SOURCE);
+        });
+
+        String url = request.getURI().getPath();
+        // 跳过不需要验证的路径
+        if (StringUtils.matches(url, ignoreWhite.getWhites()))
+        {
+            return chain.filter(exchange.mutate().request(mutate.build()).build());
+        }
+
+        String token = getToken(request);
+        if (StringUtils.isEmpty(token))
+        {
+            return unauthorizedResponse(exchange, "令牌不能为空");
+        }
+
+        // 一次完成验签与解析
+        ParsedToken parsedToken = jwtUtils.parse(token);
+        if (!parsedToken.isValid())
+        {
+            return unauthorizedResponse(exchange,
+                    parsedToken.getFailureReason() == ParsedToken.FailureReason.EXPIRED ? "令牌已过期" : "令牌验证失败");
+        }
+
+        Long userId = parsedToken.getUserId();
+        if (userId == null)
+        {
+            return unauthorizedResponse(exchange, "令牌验证失败");
+        }
+
+        // 用户令牌纪元校验：本地纪元有效时直接比较，否则异步从Redis加载
+        Long localEpoch = tokenEpochService.peekEpoch(userId);
+        if (localEpoch != null)
+        {
+            if (parsedToken.getTokenEpoch() < localEpoch)
+            {
+                return unauthorizedResponse(exchange, "令牌已失效");
+            }
+            return checkRevocation(exchange, chain, mutate, token, parsedToken);
+        }
+        return redisTemplate.<String, String>opsForHash().get(CacheConstants.USER_TOKEN_EPOCH_KEY, userId.toString())
+                .map(Long::parseLong)
+                .defaultIfEmpty(0L)
+                .onErrorResume(e -> {
+                    log.error("[鉴权异常处理]获取用户令牌纪元失败:{}", e.getMessage());
+                    return Mono.just(-1L);
+                })
+                .flatMap(epoch -> {
+                    // Redis异常时不记录纪元，直接进入后续校验
+                    if (epoch >= 0 && parsedToken.getTokenEpoch() < tokenEpochService.recordEpoch(userId, epoch))
+                    {
+                        return unauthorizedResponse(exchange, "令牌已失效");
+                    }
+                    return checkRevocation(exchange, chain, mutate, token, parsedToken);
+                });
+    }
+
+    /**
+     * 单个令牌的吊销校验
+     */
+    private Mono<Void> checkRevocation(ServerWebExchange exchange, GatewayFilterChain chain,
+                                       ServerHttpRequest.Builder mutate, String token, ParsedToken parsedToken)
+    {
+        Long userId = parsedToken.getUserId();
+
+        // 吊销校验：携带jti的令牌先查本地布隆过滤器，只有可能已吊销时才访问Redis
+        String revokedKey;
+        String tokenId = parsedToken.getTokenId();
+        if (StringUtils.isNotEmpty(tokenId))
+        {
+            if (!tokenRevocationService.mightBeRevoked(tokenId))
+            {
+                return forward(exchange, chain, mutate, parsedToken);
+            }
+            revokedKey = tokenRevocationService.getRevokedKey(tokenId);
+        }
+        else
+        {
+            // 早期签发的令牌不含jti，仍按完整令牌查询黑名单
+            revokedKey = CacheConstants.TOKEN_BLACKLIST_PREFIX + token;
+        }
+
+        // Redis异常时放行，与认证服务黑名单检查的处理保持一致
+        return redisTemplate.hasKey(revokedKey)
+                .onErrorResume(e -> {
+                    log.error("[鉴权异常处理]检查令牌黑名单失败:{}", e.getMessage());
+                    return Mono.just(Boolean.FALSE);
+                })
+                .flatMap(revoked -> {
+                    if (Boolean.TRUE.equals(revoked))
+                    {
+                        return unauthorizedResponse(exchange, "令牌已失效");
+                    }
+                    return forward(exchange, chain, mutate, parsedToken);
+                });
+    }
+
+    /**
+     * 写入签名身份头并转发请求，令牌携带的权限位图一并签入身份头
+     */
+    private Mono<Void> forward(ServerWebExchange exchange, GatewayFilterChain chain, ServerHttpRequest.Builder mutate,
+                               ParsedToken parsedToken)
+    {
+        mutate.header(SecurityConstants.IDENTITY_HEADER, identityHeaderUtils.sign(parsedToken.getUserId(),
+                parsedToken.getSubject(), parsedToken.getPermissionBits()));
+        return chain.filter(exchange.mutate().request(mutate.build()).build());
+    }
+
+    /**
+     * 获取请求token，优先读取Authorization请求头，其次读取token请求参数
+     */
+    private String getToken(ServerHttpRequest request)
+    {
+        String token = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (StringUtils.isNotEmpty(token) && token.startsWith(TokenConstants.PREFIX))
+        {
+            return token.substring(TokenConstants.PREFIX.length());
+        }
+        if (StringUtils.isNotEmpty(token))
+        {
+            return token;
+        }
+        return request.getQueryParams().getFirst(TOKEN_PARAMETER);
+    }
+
+    private Mono<Void> unauthorizedResponse(ServerWebExchange exchange, String msg)
+    {
+        log.error("[鉴权异常处理]请求路径:{},错误信息:{}", exchange.getRequest().getPath(), msg);
+        return ServletUtils.webFluxResponseWriter(exchange.getResponse(), msg, HttpStatus.UNAUTHORIZED);
+    }
+
+    @Override
+    public int getOrder()
+    {
+        return -200;
+    }
+}
@@ -0,0 +1,210 @@
+package hbnu.project.zhiyansecurity.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已验证令牌本地缓存
+ * 以令牌的SHA-256摘要为键，缓存验签通过后解析出的用户ID、主题与权限位图，
+ * 命中时直接跳过签名校验与Claims解析，条目在令牌exp时刻失效
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Component
+public class VerifiedTokenCache {
+
+    /**
+     * 摘要算法
+     */
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    /**
+     * 每个线程复用一个MessageDigest实例，避免重复创建
+     */
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前JDK不支持" + DIGEST_ALGORITHM, e);
+        }
+    });
+
+    private final Map<String, CachedToken> cache = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * 是否启用缓存
+     */
+    @Value("${zhiyan.security.token-cache.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 最大缓存条目数
+     */
+    @Value("${zhiyan.security.token-cache.max-size:10000}")
+    private int maxSize;
+
+    /**
+     * 查询已验证的令牌
+     *
+     * @param token JWT令牌
+     * @return 缓存条目，未命中或已过期时返回null
+     */
+    public CachedToken get(String token) {
+        if (!enabled) {
+            return null;
+        }
+        String key = digest(token);
+        CachedToken cached = cache.get(key);
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        if (cached.isExpired(System.currentTimeMillis())) {
+            // 令牌已到exp，移除后按未命中处理，交由调用方重新验签
+            cache.remove(key, cached);
+            evictions.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return cached;
+    }
+
+    /**
+     * 缓存验签通过的令牌
+     *
+     * @param token          JWT令牌
+     * @param tokenId        令牌jti，可为空
+     * @param tokenEpoch     令牌签发时的用户纪元
+     * @param userId         用户ID
+     * @param subject        令牌主题
+     * @param permissionBits 令牌携带的权限位图，可为空
+     * @param expiresAt      令牌过期时间戳（毫秒）
+     */
+    public void put(String token, String tokenId, long tokenEpoch, Long userId, String subject,
+                    long[] permissionBits, long expiresAt) {
+        if (!enabled || expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        if (cache.size() >= maxSize) {
+            shrink();
+        }
+        cache.put(digest(token), new CachedToken(tokenId, tokenEpoch, userId, subject, permissionBits, expiresAt));
+    }
+
+    /**
+     * 使指定令牌的缓存失效（如令牌被注销时）
+     *
+     * @param token JWT令牌
+     */
+    public void invalidate(String token) {
+        if (cache.remove(digest(token)) != null) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    /**
+     * 命中次数
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * 未命中次数
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * 淘汰次数（包括到期和容量淘汰）
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * 当前缓存条目数
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * 容量已满时腾出空间
+     * 先清理已到期的条目，仍不足时再淘汰一部分条目，保证缓存始终有界
+     */
+    private void shrink() {
+        long now = System.currentTimeMillis();
+        cache.entrySet().removeIf(entry -> {
+            boolean expired = entry.getValue().isExpired(now);
+            if (expired) {
+                evictions.increment();
+            }
+            return expired;
+        });
+
+        // 仍然超过容量的90%时，按迭代顺序淘汰，迭代顺序与摘要相关，近似随机淘汰
+        int target = (int) (maxSize * 0.9);
+        Iterator<String> iterator = cache.keySet().iterator();
+        while (cache.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+        }
+        log.debug("已验证令牌缓存容量收缩完成，当前条目数: {}", cache.size());
+    }
+
+    /**
+     * 计算令牌摘要，避免以原始令牌作为键常驻内存
+     */
+    private String digest(String token) {
+        MessageDigest md = DIGEST.get();
+        md.reset();
+        byte[] bytes = md.digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * 缓存条目
+     *
+     * @param tokenId        令牌jti
+     * @param tokenEpoch     令牌签发时的用户纪元
+     * @param userId         用户ID
+     * @param subject        令牌主题
+     * @param permissionBits 权限位图
+     * @param expiresAt      过期时间戳（毫秒）
+     */
+    public record CachedToken(String tokenId, long tokenEpoch, Long userId, String subject, long[] permissionBits,
+                              long expiresAt) {
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
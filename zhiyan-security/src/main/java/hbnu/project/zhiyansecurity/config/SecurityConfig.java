@@ -113,6 +113,8 @@ public class SecurityConfig implements WebMvcConfigurer {
                         .requestMatchers("/api/auth/login", "/api/auth/register", "/api/auth/refresh-token").permitAll()
                         .requestMatchers("/api/auth/send-code", "/api/auth/verify-code").permitAll()
                         .requestMatchers("/error", "/favicon.ico").permitAll()
+                        // JWT公钥集
+                        .requestMatchers("/.well-known/jwks.json").permitAll()
                         .requestMatchers("/actuator/**", "/swagger-ui/**", "/v3/api-docs/**").permitAll()
                         // 其他请求需要认证
                         .anyRequest().authenticated()
@@ -1,5 +1,7 @@
 package hbnu.project.zhiyansecurity.context;
 
+import hbnu.project.zhiyancommon.enums.SystemPermission;
+import hbnu.project.zhiyancommon.utils.PermissionBitset;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -67,6 +69,12 @@ public class LoginUserBody implements UserDetails, Serializable {
      */
     private Set<String> permissions;
 
+    /**
+     * 用户权限位图（按 SystemPermission 位索引编译），来自令牌或网关身份头
+     * 存在时系统权限的判断只做位运算，不存在时回退到权限列表
+     */
+    private long[] permissionBits;
+
     /**
      * 是否锁定
      */
@@ -114,9 +122,31 @@ public class LoginUserBody implements UserDetails, Serializable {
      * @return 是否拥有权限
      */
     public boolean hasPermission(String permission) {
+        if (permissionBits != null) {
+            SystemPermission systemPermission = SystemPermission.fromCode(permission);
+            if (systemPermission != null) {
+                return PermissionBitset.has(permissionBits, systemPermission);
+            }
+        }
         return permissions != null && permissions.contains(permission);
     }
 
+    /**
+     * 判断用户是否拥有指定系统权限
+     *
+     * @param permission 系统权限
+     * @return 是否拥有权限
+     */
+    public boolean hasPermission(SystemPermission permission) {
+        if (permission == null) {
+            return false;
+        }
+        if (permissionBits != null) {
+            return PermissionBitset.has(permissionBits, permission);
+        }
+        return permissions != null && permissions.contains(permission.getCode());
+    }
+
     /**
      * 判断用户是否拥有指定角色
      *
@@ -134,17 +164,73 @@ public class LoginUserBody implements UserDetails, Serializable {
      * @return 是否拥有任意一个权限
      */
     public boolean hasAnyPermission(String... permissions) {
-        if (this.permissions == null || permissions == null) {
+        if (permissions == null) {
+            return false;
+        }
+        for (String permission : permissions) {
+            if (hasPermission(permission)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 判断用户是否拥有全部指定权限
+     *
+     * @param permissions 权限列表
+     * @return 是否拥有全部权限
+     */
+    public boolean hasAllPermissions(String... permissions) {
+        if (permissions == null) {
             return false;
         }
         for (String permission : permissions) {
-            if (this.permissions.contains(permission)) {
+            if (!hasPermission(permission)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 判断用户是否拥有掩码中的任一权限
+     * 掩码应预先用 PermissionBitset.of 构建并复用
+     *
+     * @param mask 权限位图掩码
+     * @return 是否拥有任意一个权限
+     */
+    public boolean hasAnyPermission(long[] mask) {
+        if (permissionBits != null) {
+            return PermissionBitset.hasAny(permissionBits, mask);
+        }
+        for (SystemPermission permission : SystemPermission.values()) {
+            if (PermissionBitset.has(mask, permission) && hasPermission(permission)) {
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * 判断用户是否拥有掩码中的全部权限
+     * 掩码应预先用 PermissionBitset.of 构建并复用
+     *
+     * @param mask 权限位图掩码
+     * @return 是否拥有全部权限
+     */
+    public boolean hasAllPermissions(long[] mask) {
+        if (permissionBits != null) {
+            return PermissionBitset.hasAll(permissionBits, mask);
+        }
+        for (SystemPermission permission : SystemPermission.values()) {
+            if (PermissionBitset.has(mask, permission) && !hasPermission(permission)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * 判断用户是否拥有任意一个指定角色
      *
@@ -1,6 +1,8 @@
 package hbnu.project.zhiyansecurity.context;
 
 import hbnu.project.zhiyancommon.constants.SecurityConstants;
+import hbnu.project.zhiyancommon.enums.SystemPermission;
+import hbnu.project.zhiyancommon.utils.PermissionBitset;
 import hbnu.project.zhiyancommon.utils.StringUtils;
 import hbnu.project.zhiyancommon.utils.text.ConvertUtils;
 import lombok.extern.slf4j.Slf4j;
@@ -117,6 +119,11 @@ public class SecurityContextHolder {
             if (loginUserBody.getPermissions() != null) {
                 set(SecurityConstants.LOGIN_USER_PERMISSIONS, String.join(",", loginUserBody.getPermissions()));
             }
+            if (loginUserBody.getPermissionBits() != null) {
+                set(SecurityConstants.LOGIN_USER_PERMISSION_BITS, loginUserBody.getPermissionBits());
+            } else {
+                remove(SecurityConstants.LOGIN_USER_PERMISSION_BITS);
+            }
             
             log.debug("设置用户上下文 - 用户ID: {}, 用户名: {}", loginUserBody.getUserId(), loginUserBody.getName());
         }
@@ -148,6 +155,7 @@ public class SecurityContextHolder {
                     .loginIp(get(SecurityConstants.LOGIN_IP))
                     .browser(get(SecurityConstants.USER_AGENT))
                     .expireTime(get(SecurityConstants.TOKEN_EXPIRE_TIME, LocalDateTime.class))
+                    .permissionBits(getPermissionBits())
                     .build();
         }
         
@@ -269,6 +277,28 @@ public class SecurityContextHolder {
      */
     public static void setPermissions(String permissions) {
         set(SecurityConstants.LOGIN_USER_PERMISSIONS, permissions);
+        // 权限字符串变化后，之前编译的位图失效
+        remove(SecurityConstants.LOGIN_USER_PERMISSION_BITS);
+    }
+
+    /**
+     * 获取用户权限位图
+     * 上下文中没有位图时，由权限字符串编译一次并缓存到上下文
+     *
+     * @return 权限位图，没有权限信息时返回null
+     */
+    public static long[] getPermissionBits() {
+        Object bits = getLocalMap().get(SecurityConstants.LOGIN_USER_PERMISSION_BITS);
+        if (bits instanceof long[] permissionBits) {
+            return permissionBits;
+        }
+        String permissions = getPermissions();
+        if (StringUtils.isEmpty(permissions)) {
+            return null;
+        }
+        long[] compiled = PermissionBitset.compile(permissions);
+        set(SecurityConstants.LOGIN_USER_PERMISSION_BITS, compiled);
+        return compiled;
     }
 
     /**
@@ -370,13 +400,59 @@ public class SecurityContextHolder {
             return loginUserBody.hasPermission(permission);
         }
         
-        // 从上下文字符串中查找
+        // 系统权限按位判断
+        SystemPermission systemPermission = SystemPermission.fromCode(permission);
+        if (systemPermission != null) {
+            return PermissionBitset.has(getPermissionBits(), systemPermission);
+        }
+
+        // 其他权限在上下文字符串中按完整代码匹配，避免子串误判
         String permissions = getPermissions();
         if (StringUtils.isEmpty(permissions)) {
             return false;
         }
-        
-        return permissions.contains(permission);
+        for (String code : permissions.split(",")) {
+            if (permission.equals(code.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 判断当前用户是否拥有任意一个指定权限
+     *
+     * @param permissions 权限标识列表
+     * @return 是否拥有任意一个权限
+     */
+    public static boolean hasAnyPermission(String... permissions) {
+        if (permissions == null) {
+            return false;
+        }
+        for (String permission : permissions) {
+            if (hasPermission(permission)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 判断当前用户是否拥有全部指定权限
+     *
+     * @param permissions 权限标识列表
+     * @return 是否拥有全部权限
+     */
+    public static boolean hasAllPermissions(String... permissions) {
+        if (permissions == null) {
+            return false;
+        }
+        for (String permission : permissions) {
+            if (!hasPermission(permission)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
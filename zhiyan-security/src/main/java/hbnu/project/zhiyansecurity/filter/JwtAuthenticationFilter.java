@@ -1,11 +1,17 @@
 package hbnu.project.zhiyansecurity.filter;
 
+import hbnu.project.zhiyancommon.constants.SecurityConstants;
 import hbnu.project.zhiyancommon.constants.TokenConstants;
+import hbnu.project.zhiyancommon.domain.ParsedToken;
+import hbnu.project.zhiyancommon.service.TokenEpochService;
+import hbnu.project.zhiyancommon.service.TokenRevocationService;
+import hbnu.project.zhiyancommon.utils.IdentityHeaderUtils;
 import hbnu.project.zhiyancommon.utils.JwtUtils;
+import hbnu.project.zhiyancommon.utils.PermissionBitset;
 import hbnu.project.zhiyancommon.utils.StringUtils;
+import hbnu.project.zhiyansecurity.cache.VerifiedTokenCache;
 import hbnu.project.zhiyansecurity.context.LoginUserBody;
 import hbnu.project.zhiyansecurity.context.SecurityContextHolder;
-import hbnu.project.zhiyansecurity.utils.SecurityUtils;
 import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -14,7 +20,6 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.ServletRequestUtils;
@@ -37,6 +42,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter{
 
     private final JwtUtils jwtUtils;
 
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    private final IdentityHeaderUtils identityHeaderUtils;
+
+    private final TokenRevocationService tokenRevocationService;
+
+    private final TokenEpochService tokenEpochService;
+
 
     /**
      * 处理每个请求的认证逻辑
@@ -49,46 +62,62 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter{
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         try{
+            // 0. 经网关转发的请求携带签名身份头，校验HMAC后直接信任，不再解析JWT
+            boolean identityVerified = false;
+            String identityHeader = request.getHeader(SecurityConstants.IDENTITY_HEADER);
+            if (StringUtils.isNotBlank(identityHeader)) {
+                IdentityHeaderUtils.Identity identity = identityHeaderUtils.verify(identityHeader);
+                if (identity != null) {
+                    authenticate(request, identity.userId(), identity.subject(),
+                            PermissionBitset.decode(identity.permissionBits()));
+                    request.setAttribute(SecurityConstants.IDENTITY_VERIFIED_ATTRIBUTE, Boolean.TRUE);
+                    identityVerified = true;
+                } else {
+                    log.warn("网关身份头校验失败，回退到JWT认证，请求路径: {}", request.getRequestURI());
+                }
+            }
+
             // 1. 从请求中获取JWT token
-            String token = ServletRequestUtils.getStringParameter(request, "token");
-
-            // 2. 检查token是否存在且有效
-            if(StringUtils.isNotBlank(token) && jwtUtils.validateToken(token)){
-                // 3.解析token获取用户信息
-                Claims claims = jwtUtils.getClaims(token);
-
-                if(claims != null){
-                    // 4. 从token的载荷(claims)中提取用户信息
-                    // 从自定义声明中获取用户ID
-                    String userIdStr = String.valueOf(claims.get(TokenConstants.JWT_CLAIM_USER_ID));
-                    // 从主题(Subject)中获取邮箱(也可以是用户名)
-                    String email = claims.getSubject();
-
-                    // 5.验证提取的用户信息是否有效
-                    if (StringUtils.isNotBlank(userIdStr) && StringUtils.isNotBlank(email)) {
-                        // 6. 构建简化的LoginUserBody对象
-                        // 这里只包含基本信息，权限信息可以在后续需要时再加载
-                        LoginUserBody loginUser = LoginUserBody.builder()
-                                .userId(Long.valueOf(userIdStr))
-                                .email(email)
-                                .build();
-
-                        // 7.设置到Spring Security上下文
-                        // 创建认证令牌，包含用户信息，凭证为null，权限列表为null
-                        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(loginUser, null, null);
-
-                        // 设置认证详情，如请求IP、会话ID等
-                        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                        // 8.将认证信息设置到Spring Security的上下文中
-                        org.springframework.security.core.context.SecurityContextHolder.getContext()
-                                .setAuthentication(authToken);
-
-                        // 9. 设置到自定义上下文，方便业务代码中获取当前登录用户
-                        SecurityContextHolder.setLoginUser(loginUser);
-
-                        // 输出调试日志
-                        log.debug("JWT认证成功，用户ID: {}, 邮箱: {}", userIdStr, email);
+            String token = identityVerified ? null : ServletRequestUtils.getStringParameter(request, "token");
+
+            if (StringUtils.isNotBlank(token)) {
+                // 2. 优先查询已验证令牌缓存，命中时跳过签名校验和Claims解析
+                VerifiedTokenCache.CachedToken cached = verifiedTokenCache.get(token);
+                if (cached != null) {
+                    // 吊销校验先查本地布隆过滤器，绝大多数情况下不访问Redis
+                    if (tokenEpochService.isRevoked(cached.userId(), cached.tokenEpoch())
+                            || tokenRevocationService.isRevoked(cached.tokenId())) {
+                        verifiedTokenCache.invalidate(token);
+                        log.debug("令牌已被吊销，用户ID: {}", cached.userId());
+                    } else {
+                        authenticate(request, cached.userId(), cached.subject(), cached.permissionBits());
+                    }
+                } else {
+                    // 3. 未命中时只解析一次token，签名校验与Claims解析在同一次调用中完成
+                    ParsedToken parsedToken = jwtUtils.parse(token);
+                    Claims claims = parsedToken.getClaims();
+
+                    if (parsedToken.isValid()
+                            && !tokenEpochService.isRevoked(parsedToken.getUserId(), parsedToken.getTokenEpoch())
+                            && !tokenRevocationService.isRevoked(claims.getId())) {
+                        // 4. 从token的载荷(claims)中提取用户信息
+                        // 从自定义声明中获取用户ID
+                        String userIdStr = String.valueOf(claims.get(TokenConstants.JWT_CLAIM_USER_ID));
+                        // 从主题(Subject)中获取邮箱(也可以是用户名)
+                        String email = claims.getSubject();
+
+                        // 5.验证提取的用户信息是否有效
+                        if (StringUtils.isNotBlank(userIdStr) && StringUtils.isNotBlank(email)) {
+                            Long userId = Long.valueOf(userIdStr);
+                            long[] permissionBits = PermissionBitset.decode(parsedToken.getPermissionBits());
+                            authenticate(request, userId, email, permissionBits);
+
+                            // 6. 验签通过后写入缓存，条目在令牌exp时刻失效
+                            if (claims.getExpiration() != null) {
+                                verifiedTokenCache.put(token, claims.getId(), parsedToken.getTokenEpoch(), userId, email,
+                                        permissionBits, claims.getExpiration().getTime());
+                            }
+                        }
                     }
                 }
             }
@@ -103,4 +132,42 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter{
         // 继续过滤器链，让请求进入下一个过滤器或目标资源
         filterChain.doFilter(request, response);
     }
+
+
+    /**
+     * 设置认证信息到Spring Security上下文和自定义上下文
+     *
+     * @param request        当前请求
+     * @param userId         用户ID
+     * @param email          用户邮箱
+     * @param permissionBits 权限位图，令牌未携带时为null
+     */
+    private void authenticate(HttpServletRequest request, Long userId, String email, long[] permissionBits) {
+        // 构建简化的LoginUserBody对象
+        // 这里只包含基本信息和令牌携带的权限位图，其他信息可以在后续需要时再加载
+        LoginUserBody loginUser = LoginUserBody.builder()
+                .userId(userId)
+                .email(email)
+                .permissionBits(permissionBits)
+                .build();
+
+        // 创建认证令牌，包含用户信息，凭证为null，权限列表为null
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(loginUser, null, null);
+
+        // 设置认证详情，如请求IP、会话ID等
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+        // 将认证信息设置到Spring Security的上下文中
+        org.springframework.security.core.context.SecurityContextHolder.getContext()
+                .setAuthentication(authToken);
+
+        // 设置到自定义上下文，方便业务代码中获取当前登录用户
+        SecurityContextHolder.setLoginUser(loginUser);
+
+        // 记录已认证的用户ID，供限流等不依赖安全模块的组件读取，不信任未签名的明文请求头
+        request.setAttribute(SecurityConstants.AUTHENTICATED_USER_ID_ATTRIBUTE, userId);
+
+        // 输出调试日志
+        log.debug("JWT认证成功，用户ID: {}, 邮箱: {}", userId, email);
+    }
 }
@@ -21,6 +21,11 @@ public class HeaderInterceptor implements HandlerInterceptor {
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
         try {
+            // 已通过网关签名身份头完成认证时，用户身份以签名内容为准，不再读取未签名的明文请求头
+            if (request.getAttribute(SecurityConstants.IDENTITY_VERIFIED_ATTRIBUTE) != null) {
+                return true;
+            }
+
             // 从请求头中提取用户信息
             String userId = request.getHeader(SecurityConstants.DETAILS_USER_ID);
             String userName = request.getHeader(SecurityConstants.DETAILS_USERNAME);
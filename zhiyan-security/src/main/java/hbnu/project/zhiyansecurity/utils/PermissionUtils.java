@@ -46,6 +46,17 @@ public class PermissionUtils {
         return loginUser.hasAnyPermission(permissions);
     }
 
+    /**
+     * 检查当前用户是否拥有全部指定权限
+     */
+    public static boolean hasAllPermissions(String... permissions) {
+        LoginUserBody loginUser = SecurityContextHolder.getLoginUser();
+        if (loginUser == null) {
+            return false;
+        }
+        return loginUser.hasAllPermissions(permissions);
+    }
+
     /**
      * 检查当前用户是否可以创建项目
      */